@@ -207,7 +207,13 @@ public enum CommandLineOptions {
     SHUFFLE(OptionBuilder.withArgName("shuffle")
                     .withLongOpt("shuffle")
                     .withDescription("If set, the output data.")
-                    .create("shf"));
+                    .create("shf")),
+    RESUME(OptionBuilder.withArgName("resume")
+                   .withLongOpt("resume")
+                   .hasArg()
+                   .withDescription("the checkpoint file to resume the learning from. The data and the " +
+                                            "configuration must be the same of the run that saved the checkpoint.")
+                   .create("res"));
     protected final Option option;
 
     CommandLineOptions(Option option) {
@@ -32,6 +32,7 @@ package br.ufrj.cos.cli;
 import br.ufrj.cos.core.LearningSystem;
 import br.ufrj.cos.engine.EngineSystemTranslator;
 import br.ufrj.cos.engine.proppr.ProPprEngineSystemTranslator;
+import br.ufrj.cos.external.access.ExampleStream;
 import br.ufrj.cos.knowledge.KnowledgeException;
 import br.ufrj.cos.knowledge.base.KnowledgeBase;
 import br.ufrj.cos.knowledge.example.Example;
@@ -221,6 +222,16 @@ public class LearningFromBatchCLI extends CommandLineInterface {
      * that evaluates examples retraining parameters or changing the {@link Theory}.
      */
     public boolean controlConcurrence = false;
+    /**
+     * The maximum number of answers cached from the inference of candidate clauses, shared by all the threads. If it
+     * is {@link LearningSystem#NO_INFERENCE_CACHE}, the inferences are not cached.
+     */
+    public int inferenceCacheSize = LearningSystem.NO_INFERENCE_CACHE;
+    /**
+     * The maximum number of terms cached from the neighbourhoods of the relevant breadth-first searches. If it is
+     * {@link LearningSystem#NO_NEIGHBOURHOOD_CACHE}, the neighbourhoods are not cached.
+     */
+    public int neighbourhoodCacheSize = LearningSystem.NO_NEIGHBOURHOOD_CACHE;
     /**
      * If is to load pre trained parameters.
      * <p>
@@ -242,6 +253,12 @@ public class LearningFromBatchCLI extends CommandLineInterface {
      */
     @SuppressWarnings("CanBeFinal")
     public int examplesBatchSize = DEFAULT_MINI_BATCH_SIZE;
+    /**
+     * The stream of examples, read after the example files (or after the last iteration, in the
+     * {@link LearningFromIterationsCLI}), until it ends. The examples are passed to revision in batches of, at most,
+     * {@link #examplesBatchSize} examples. If {@code null}, only the example files are read.
+     */
+    public ExampleStream exampleStream;
     /**
      * The knowledge base collection class.
      */
@@ -342,7 +359,6 @@ public class LearningFromBatchCLI extends CommandLineInterface {
      * Call the method to revise the examples
      */
     protected void reviseExamples() {
-        //IMPROVE: delegate this function to the ExampleStream
         logger.info(BEGIN_REVISION_EXAMPLE.toString(), integerFormat.format(trainExamples.size()));
         if (passAllExampleAtOnce) {
             learningSystem.incomingExampleManager.incomingExamples(trainExamples);
@@ -351,9 +367,20 @@ public class LearningFromBatchCLI extends CommandLineInterface {
         } else {
             passEachExampleAtTime();
         }
+        feedExampleStream();
         logger.info(END_REVISION_EXAMPLE.toString());
     }
 
+    /**
+     * Passes the examples from the {@link #exampleStream} to revise, until it ends, if there is a stream.
+     */
+    protected void feedExampleStream() {
+        if (exampleStream != null) {
+            exampleStream.feed(learningSystem.incomingExampleManager, examplesBatchSize);
+            exampleStream.close();
+        }
+    }
+
     /**
      * Passes the examples to revise.
      */
@@ -391,10 +418,13 @@ public class LearningFromBatchCLI extends CommandLineInterface {
      * Evaluates the model.
      */
     protected void evaluateModel() {
-        Map<Example, Map<Atom, Double>> inferredExamples = learningSystem.inferExamples(trainExamples);
-        runStatistics.setTrainEvaluation(learningSystem.evaluate(trainExamples, inferredExamples));
-        FileIOUtils.saveInferencesToTsvFile(inferredExamples, trainExamples,
-                                            new File(outputDirectory, TRAIN_INFERENCE_FILE_NAME));
+        Map<Example, Map<Atom, Double>> inferredExamples;
+        if (!trainExamples.isEmpty()) {
+            inferredExamples = learningSystem.inferExamples(trainExamples);
+            runStatistics.setTrainEvaluation(learningSystem.evaluate(trainExamples, inferredExamples));
+            FileIOUtils.saveInferencesToTsvFile(inferredExamples, trainExamples,
+                                                new File(outputDirectory, TRAIN_INFERENCE_FILE_NAME));
+        }
         if (!testExamples.isEmpty()) {
             inferredExamples = learningSystem.inferExamples(testExamples);
             runStatistics.setTestEvaluation(learningSystem.evaluate(testExamples, inferredExamples));
@@ -521,6 +551,7 @@ public class LearningFromBatchCLI extends CommandLineInterface {
         buildExamples();
         buildEngineSystemTranslator();
         buildLearningSystem();
+        if (exampleStream != null) { exampleStream.initialize(); }
     }
 
     /**
@@ -612,6 +643,8 @@ public class LearningFromBatchCLI extends CommandLineInterface {
         logger.info(BUILDING_LEARNING_SYSTEM.toString(), LearningSystem.class.getSimpleName());
         learningSystem = new LearningSystem(knowledgeBase, theory, new Examples(), engineSystemTranslator);
         learningSystem.concurrent = controlConcurrence;
+        learningSystem.inferenceCacheSize = inferenceCacheSize;
+        learningSystem.neighbourhoodCacheSize = neighbourhoodCacheSize;
 
         List<TheoryMetric> theoryMetrics = buildMetrics();
         buildFeatureGenerator();
@@ -40,7 +40,11 @@ import br.ufrj.cos.logic.Atom;
 import br.ufrj.cos.logic.Term;
 import br.ufrj.cos.logic.parser.example.ExampleParser;
 import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
 import br.ufrj.cos.util.*;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import br.ufrj.cos.util.statistics.IterationStatistics;
 import br.ufrj.cos.util.time.*;
 import org.apache.commons.cli.CommandLine;
@@ -67,7 +71,7 @@ import static br.ufrj.cos.util.time.TimeUtils.formatNanoDifference;
  *
  * @author Victor Guimarães
  */
-public class LearningFromIterationsCLI extends LearningFromBatchCLI {
+public class LearningFromIterationsCLI extends LearningFromBatchCLI implements Checkpointable {
 
     /**
      * The logger
@@ -108,6 +112,14 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
      * The default target relation to learn the theory.
      */
     public static final String DEFAULT_TARGET_RELATION = "examples";
+    /**
+     * The name of the checkpoint file, saved in the output directory.
+     */
+    public static final String CHECKPOINT_FILE_NAME = "checkpoint.bin";
+    /**
+     * The default value of the checkpoint interval, which disables the checkpoints.
+     */
+    public static final int NO_CHECKPOINT = 0;
     /**
      * The example file extension.
      */
@@ -153,10 +165,25 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
      */
     public boolean strictOutput = false;
 
+    /**
+     * The number of iterations between each checkpoint of the learning state. If it is not positive, no checkpoint
+     * will be saved.
+     */
+    @SuppressWarnings("CanBeFinal")
+    public int checkpointInterval = NO_CHECKPOINT;
+
+    /**
+     * The path of the checkpoint file to resume the learning from. If it is {@code null}, the learning starts from
+     * the first iteration.
+     */
+    public String resumeFilePath = null;
+
     protected File[] iterationDirectories;
     protected List<Collection<? extends Atom>> iterationKnowledge;
     protected List<Examples> iterationExamples;
     protected AtomFactory atomFactory;
+    protected int firstIteration = 0;
+    protected int nextIteration = 0;
 
     private IterationStatistics<TimeStampTag> iterationStatistics;
     private TimeMeasure<TimeStampTag> timeMeasure;
@@ -192,6 +219,11 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
             iterationStatistics.setIterationPrefix(iterationPrefix);
             iterationStatistics.setTargetRelation(targetRelation);
             iterationStatistics.setTimeMeasure(timeMeasure);
+            if (resumeFilePath != null) {
+                FileIOUtils.loadCheckpoint(this, new File(resumeFilePath));
+                firstIteration = nextIteration;
+                logger.info(RESUMING_FROM_CHECKPOINT.toString(), firstIteration, resumeFilePath);
+            }
             timeMeasure.measure(RunTimeStamp.END_INITIALIZE);
         } catch (IOException | ParseException |
                 br.ufrj.cos.logic.parser.example.ParseException | ReflectiveOperationException e) {
@@ -318,9 +350,15 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
         final int numberOfIterations = iterationKnowledge.size();
         logger.info(BEGIN_REVISION_ITERATIONS.toString(), numberOfIterations);
         addIterationKnowledge(0);
-        for (int i = 0; i < numberOfIterations; i++) {
+        // the knowledge is not part of the checkpoint, replays the knowledge added by the skipped iterations
+        for (int i = 1; i <= Math.min(firstIteration, numberOfIterations - 1); i++) {
+            addIterationKnowledge(i);
+        }
+        for (int i = firstIteration; i < numberOfIterations; i++) {
             reviseIteration(i);
         }
+        // the stream has no iterations to evaluate against, it continues the learning from the last iteration
+        feedExampleStream();
         logger.info(END_REVISION_ITERATIONS.toString(), numberOfIterations);
     }
 
@@ -347,12 +385,113 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
         logger.debug(END_REVISION_EXAMPLE.toString());
         evaluateIteration(index);
         saveIterationFiles(index);
+        nextIteration = index + 1;
+        if (checkpointInterval > NO_CHECKPOINT && nextIteration % checkpointInterval == 0) {
+            saveCheckpoint(index);
+        }
         endStamp = timeStampFactory.getTimeStamp(index, IterationTimeMessage.END);
         timeMeasure.measure(endStamp);
         logger.debug(END_REVISION_ITERATION.toString(), index);
         logger.debug(ITERATION_TRAINING_TIME.toString(), timeMeasure.textTimeBetweenStamps(beginStamp, endStamp));
     }
 
+    /**
+     * Saves the checkpoint of the learning state, at the end of the iteration, to the output directory.
+     *
+     * @param index the index of the iteration
+     */
+    protected void saveCheckpoint(int index) {
+        File checkpointFile = new File(outputDirectory, CHECKPOINT_FILE_NAME);
+        try {
+            FileIOUtils.saveCheckpoint(this, checkpointFile);
+            logger.debug(CHECKPOINT_SAVED.toString(), index, checkpointFile.getAbsolutePath());
+        } catch (IOException e) {
+            logger.error(ERROR_WRITING_CHECKPOINT_FILE, e);
+        }
+    }
+
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeInt(nextIteration);
+        Map<TheoryMetric, Integer> metricIndexes = new IdentityHashMap<>();
+        for (TheoryMetric metric : learningSystem.getTheoryEvaluator().getTheoryMetrics()) {
+            metricIndexes.put(metric, metricIndexes.size());
+        }
+        output.writeInt(metricIndexes.size());
+        writeEvaluations(output, iterationStatistics.getIterationTrainEvaluation(), metricIndexes);
+        writeEvaluations(output, iterationStatistics.getIterationTestEvaluation(), metricIndexes);
+        output.writeComponent(learningSystem);
+    }
+
+    /**
+     * Writes the evaluations of the iterations, referring to each metric by its index.
+     * <p>
+     * The {@link IterationStatistics} keeps the evaluations as raw maps, since the yaml writer does not support
+     * nested generic types, so each evaluation is checked to be a map from the metrics to their values.
+     *
+     * @param output        the output
+     * @param evaluations   the evaluations of the iterations, maps from the {@link TheoryMetric}s to their values
+     * @param metricIndexes the indexes of the metrics
+     * @throws IOException if an I/O error occurs
+     */
+    protected static void writeEvaluations(CheckpointOutputStream output, List<?> evaluations,
+                                           Map<TheoryMetric, Integer> metricIndexes) throws IOException {
+        output.writeInt(evaluations.size());
+        for (Object evaluation : evaluations) {
+            output.writeInt(((Map<?, ?>) evaluation).size());
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) evaluation).entrySet()) {
+                output.writeInt(metricIndexes.get(entry.getKey()));
+                output.writeDouble((Double) entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        nextIteration = input.readInt();
+        List<TheoryMetric> metrics = new ArrayList<>();
+        for (TheoryMetric metric : learningSystem.getTheoryEvaluator().getTheoryMetrics()) {
+            metrics.add(metric);
+        }
+        final int size = input.readInt();
+        if (size != metrics.size()) {
+            throw new InvalidClassException(
+                    FileIOUtils.formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_COMPONENT_MISMATCH.toString(),
+                                                 metrics.size(), size));
+        }
+        for (Map<TheoryMetric, Double> evaluation : readEvaluations(input, metrics)) {
+            iterationStatistics.addIterationTrainEvaluation(evaluation);
+        }
+        for (Map<TheoryMetric, Double> evaluation : readEvaluations(input, metrics)) {
+            iterationStatistics.addIterationTestEvaluation(evaluation);
+        }
+        input.readComponent(learningSystem);
+    }
+
+    /**
+     * Reads the evaluations of the iterations, written by
+     * {@link #writeEvaluations(CheckpointOutputStream, List, Map)}.
+     *
+     * @param input   the input
+     * @param metrics the metrics, in the order of their indexes
+     * @return the evaluations of the iterations
+     * @throws IOException if an I/O error occurs
+     */
+    protected static List<Map<TheoryMetric, Double>> readEvaluations(CheckpointInputStream input,
+                                                                    List<TheoryMetric> metrics) throws IOException {
+        final int size = input.readInt();
+        List<Map<TheoryMetric, Double>> evaluations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int entries = input.readInt();
+            Map<TheoryMetric, Double> evaluation = new HashMap<>();
+            for (int j = 0; j < entries; j++) {
+                evaluation.put(metrics.get(input.readInt()), input.readDouble());
+            }
+            evaluations.add(evaluation);
+        }
+        return evaluations;
+    }
+
     /**
      * Adds the iteration knowledge to the learning system
      *
@@ -544,6 +683,7 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
         options.addOption(YAML.getOption());
         options.addOption(OUTPUT_DIRECTORY.getOption());
         options.addOption(STRICT_OUTPUT_DIRECTORY.getOption());
+        options.addOption(RESUME.getOption());
     }
 
     @Override
@@ -567,6 +707,7 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
 
             cli.outputDirectoryPath = commandLine.getOptionValue(OUTPUT_DIRECTORY.getOptionName());
             cli.strictOutput = commandLine.hasOption(STRICT_OUTPUT_DIRECTORY.getOptionName());
+            cli.resumeFilePath = commandLine.getOptionValue(RESUME.getOptionName(), cli.resumeFilePath);
             return cli;
         } catch (IOException e) {
             throw new CommandLineInterrogationException(e);
@@ -582,7 +723,7 @@ public class LearningFromIterationsCLI extends LearningFromBatchCLI {
         long iterationRevisionTime = 0;
         long iterationInferenceTime = 0;
         long iterationOutputTime = 0;
-        for (int i = 0; i < iterationKnowledge.size(); i++) {
+        for (int i = firstIteration; i < iterationKnowledge.size(); i++) {
             iterationLoadTime += timeMeasure.timeBetweenStamps(
                     timeStampFactory.getTimeStamp(i, IterationTimeMessage.BEGIN),
                     timeStampFactory.getTimeStamp(i, IterationTimeMessage.LOAD_KNOWLEDGE_DONE));
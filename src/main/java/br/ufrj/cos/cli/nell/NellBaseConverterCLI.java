@@ -60,6 +60,8 @@ import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
 
@@ -146,6 +148,18 @@ public class NellBaseConverterCLI extends CommandLineInterface {
      * The multiplier factor to turn a proportion into percentage.
      */
     public static final int PERCENT_FACTOR = 100;
+    /**
+     * The default number of threads reading the input files.
+     */
+    public static final int DEFAULT_NUMBER_OF_READERS = 2;
+    /**
+     * The default number of parsed lines handed at once from a reader to the processing of the atoms.
+     */
+    public static final int DEFAULT_READER_BATCH_SIZE = 1024;
+    /**
+     * The default number of batches of parsed lines buffered for each input file.
+     */
+    public static final int DEFAULT_READER_QUEUE_SIZE = 64;
     /**
      * The file encode
      */
@@ -219,6 +233,21 @@ public class NellBaseConverterCLI extends CommandLineInterface {
      * The index of the iteration to start form. Useful to the job from another run.
      */
     public int startIndex = 0;
+    /**
+     * The number of threads reading and parsing the input files, ahead of the file whose atoms are being processed.
+     * Since the atoms of a file are processed against the atoms of the previous one, this is the number of files
+     * read in parallel.
+     */
+    public int numberOfReaders = DEFAULT_NUMBER_OF_READERS;
+    /**
+     * The number of parsed lines handed at once from a reader to the processing of the atoms.
+     */
+    public int readerBatchSize = DEFAULT_READER_BATCH_SIZE;
+    /**
+     * The number of batches of parsed lines buffered for each input file, it bounds the memory used by the readers
+     * that are ahead of the processing.
+     */
+    public int readerQueueSize = DEFAULT_READER_QUEUE_SIZE;
 
     protected int maxNameSize = confidenceName.length();
     protected int[] subjectIndexes;
@@ -228,8 +257,9 @@ public class NellBaseConverterCLI extends CommandLineInterface {
 
     protected Pair<Map<Predicate, Set<Atom>>, Map<Predicate, Set<Atom>>> previousAtoms;
     protected Pair<Map<Predicate, Set<Atom>>, Map<Predicate, Set<Atom>>> currentAtoms;
-    protected MessageDigest normalDigest;
-    protected MessageDigest zippedDigest;
+    protected List<Pair<Pattern, String>> entityReplacePatterns;
+    protected List<Pair<Pattern, String>> predicateReplacePatterns;
+    protected ExecutorService readerPool;
     protected String[] inputHash;
     protected String[] inputZippedHash;
     protected Map<Predicate, String>[] outputPositiveHash;
@@ -365,6 +395,8 @@ public class NellBaseConverterCLI extends CommandLineInterface {
         outputNegativeHash = new HashMap[inputFiles];
 
         outputDataDirectory = new File(outputDirectory, dataDirectoryName);
+        entityReplacePatterns = compileReplaceMap(entityReplaceMap);
+        predicateReplacePatterns = compileReplaceMap(predicateReplaceMap);
 //        deleteDataDirectory(outputDataDirectory);
 
         previousSkippedAtoms = new int[inputFiles];
@@ -400,6 +432,7 @@ public class NellBaseConverterCLI extends CommandLineInterface {
             if (nellInputFilePaths.length == 0) { return; }
             long begin = TimeUtils.getNanoTime();
             initializeFields();
+            readerPool = Executors.newFixedThreadPool(Math.max(numberOfReaders, 1));
 
             processFiles();
             saveDescriptionFile();
@@ -409,38 +442,98 @@ public class NellBaseConverterCLI extends CommandLineInterface {
             logger.warn(TOTAL_PROGRAM_TIME.toString(), TimeUtils.formatNanoDifference(begin, end));
         } catch (Exception e) {
             logger.error(ExceptionMessages.GENERAL_ERROR.toString(), e);
+        } finally {
+            if (readerPool != null) { readerPool.shutdownNow(); }
         }
     }
 
     /**
      * Process the input files.
+     * <p>
+     * The files are read and parsed ahead by the {@link #readerPool}, while their atoms are processed in order,
+     * since each file is processed against the atoms of the previous one. Once a file is processed, the previous
+     * iteration is filtered and saved in background, while the next file is processed.
      *
      * @throws IOException              if an I/O error has occurred
      * @throws NoSuchAlgorithmException if no Provider supports a MessageDigestSpi implementation for the specified
      *                                  algorithm.
      */
     protected void processFiles() throws IOException, NoSuchAlgorithmException {
+        Queue<InputFileReader> readers = new ArrayDeque<>();
+        for (int i = Math.max(startIndex - 1, 0); i < nellInputFilePaths.length; i++) {
+            readers.add(submitReader(i));
+        }
         previousAtoms = buildMapPair();
         if (startIndex > 0) {
-            readFile(startIndex - 1);
+            readFile(startIndex - 1, readers.remove());
             previousAtoms = currentAtoms;
         }
         // read the first file to current
-        readFile(startIndex);
+        readFile(startIndex, readers.remove());
 
-        int i;
-        for (i = startIndex + 1; i < nellInputFilePaths.length; i++) {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<Void> saving = null;
+            int i;
+            for (i = startIndex + 1; i < nellInputFilePaths.length; i++) {
+                previousAtoms = currentAtoms;       // makes the previous the current
+                readFile(i, readers.remove());      // read the next file to current, filtering it by the current
+                awaitTask(saving);                  // the filter reads the iterations already saved
+                saving = writer.submit(buildSaveTask(i - 1, previousAtoms));  // filters and saves the previous
+                atomFactory.clearConstantMap();
+            }
+            awaitTask(saving);
             previousAtoms = currentAtoms;       // makes the previous the current
-            readFile(i);                        // read the next file to current, filtering it by the current
-            filterPreviousAtoms(i - 1);     // filter the previous by already added files
-            initializeOutputHashMaps(i - 1);
-            saveIteration(i - 1);           // saves the previous to files
-            atomFactory.clearConstantMap();
+            buildSaveTask(i - 1, previousAtoms).call();
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds the task to filter the atoms of the iteration by the already saved iterations and to save them.
+     *
+     * @param index the index of the iteration
+     * @param atoms the atoms of the iteration
+     * @return the task
+     */
+    protected Callable<Void> buildSaveTask(int index, Pair<Map<Predicate, Set<Atom>>, Map<Predicate, Set<Atom>>>
+            atoms) {
+        return () -> {
+            filterPreviousAtoms(index, atoms);      // filter the previous by already added files
+            initializeOutputHashMaps(index);
+            saveIteration(index, atoms);            // saves the previous to files
+            return null;
+        };
+    }
+
+    /**
+     * Waits for the task to finish, rethrowing its exception, if any.
+     *
+     * @param task the task, it may be {@code null}
+     * @throws IOException              if an I/O error has occurred
+     * @throws NoSuchAlgorithmException if no Provider supports a MessageDigestSpi implementation for the specified
+     *                                  algorithm.
+     */
+    protected static void awaitTask(Future<?> task) throws IOException, NoSuchAlgorithmException {
+        if (task == null) { return; }
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) { throw (IOException) cause; }
+            if (cause instanceof NoSuchAlgorithmException) { throw (NoSuchAlgorithmException) cause; }
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw new IOException(cause);
         }
-        previousAtoms = currentAtoms;       // makes the previous the current
-        filterPreviousAtoms(i - 1);     // filter the previous by already added files
-        initializeOutputHashMaps(i - 1);
-        saveIteration(i - 1);           // saves the previous to files
     }
 
     /**
@@ -454,17 +547,32 @@ public class NellBaseConverterCLI extends CommandLineInterface {
     }
 
     /**
-     * Formats the name based on the replaceMap. Each occurrence of a key, from the replaceMap, in the name will be
-     * replaced by its correspondent value.
+     * Compiles the keys of the replace map, which are regular expressions, keeping the iteration order of the map.
      *
-     * @param name       the name
      * @param replaceMap the replace map
+     * @return the compiled patterns with their replacements
+     */
+    protected static List<Pair<Pattern, String>> compileReplaceMap(Map<String, String> replaceMap) {
+        List<Pair<Pattern, String>> patterns = new ArrayList<>(replaceMap.size());
+        for (Map.Entry<String, String> entry : replaceMap.entrySet()) {
+            patterns.add(new ImmutablePair<>(Pattern.compile(entry.getKey()), entry.getValue()));
+        }
+        return patterns;
+    }
+
+    /**
+     * Formats the name based on the replace patterns. Each match of a pattern in the name will be replaced by its
+     * correspondent value, as in {@link String#replaceAll(String, String)}.
+     *
+     * @param name            the name
+     * @param replacePatterns the compiled replace map
      * @return the formatted name
+     * @see #compileReplaceMap(Map)
      */
-    protected static String formatName(String name, Map<String, String> replaceMap) {
+    protected static String formatName(String name, List<Pair<Pattern, String>> replacePatterns) {
         String entity = name;
-        for (Map.Entry<String, String> entry : replaceMap.entrySet()) {
-            entity = entity.replaceAll(entry.getKey(), entry.getValue());
+        for (Pair<Pattern, String> replace : replacePatterns) {
+            entity = replace.getKey().matcher(entity).replaceAll(replace.getValue());
         }
         return entity;
     }
@@ -487,13 +595,25 @@ public class NellBaseConverterCLI extends CommandLineInterface {
      * @throws IOException if an I/O error has occurred
      */
     protected void filterPreviousAtoms(int index) throws IOException {
-        FilterAtomProcessor atomProcessor = new FilterAtomProcessor(previousAtoms);
+        filterPreviousAtoms(index, previousAtoms);
+    }
+
+    /**
+     * Filters the atoms from the iteration removing the atom that already appears on older iterations.
+     *
+     * @param index the index of the iteration
+     * @param atoms the atoms of the iteration
+     * @throws IOException if an I/O error has occurred
+     */
+    protected void filterPreviousAtoms(int index, Pair<Map<Predicate, Set<Atom>>, Map<Predicate, Set<Atom>>> atoms)
+            throws IOException {
+        FilterAtomProcessor atomProcessor = new FilterAtomProcessor(atoms);
         for (int i = 0; i < index - 1; i++) {
             logger.debug(FILTERING_ITERATION.toString(), index, i);
-            for (Predicate predicate : getPositives(previousAtoms).keySet()) {
+            for (Predicate predicate : getPositives(atoms).keySet()) {
                 filterPreviousAtoms(i, predicate, atomProcessor, true);
             }
-            for (Predicate predicate : getNegatives(previousAtoms).keySet()) {
+            for (Predicate predicate : getNegatives(atoms).keySet()) {
                 filterPreviousAtoms(i, predicate, atomProcessor, false);
             }
         }
@@ -554,6 +674,20 @@ public class NellBaseConverterCLI extends CommandLineInterface {
      * @throws IOException              if an I/O error has occurred
      */
     protected void saveIteration(int index) throws IOException, NoSuchAlgorithmException {
+        saveIteration(index, previousAtoms);
+    }
+
+    /**
+     * Saves the iteration to file.
+     *
+     * @param index the index of the iteration
+     * @param atoms the atoms of the iteration
+     * @throws NoSuchAlgorithmException if no Provider supports a MessageDigestSpi implementation for the specified
+     *                                  algorithm.
+     * @throws IOException              if an I/O error has occurred
+     */
+    protected void saveIteration(int index, Pair<Map<Predicate, Set<Atom>>, Map<Predicate, Set<Atom>>> atoms)
+            throws IOException, NoSuchAlgorithmException {
         File iterationDirectory = getIterationDirectory(index);
         logger.debug(ITERATION_SAVING.toString(), index, iterationDirectory);
         if (!iterationDirectory.exists()) {
@@ -565,9 +699,9 @@ public class NellBaseConverterCLI extends CommandLineInterface {
         }
 
         Set<Predicate> predicates = new HashSet<>();
-        Map<Predicate, Set<Atom>> positiveMap = getPositives(previousAtoms);
+        Map<Predicate, Set<Atom>> positiveMap = getPositives(atoms);
         predicates.addAll(positiveMap.keySet());
-        Map<Predicate, Set<Atom>> negativeMap = getNegatives(previousAtoms);
+        Map<Predicate, Set<Atom>> negativeMap = getNegatives(atoms);
         predicates.addAll(negativeMap.keySet());
 
         Set<Atom> outputAtoms;
@@ -659,26 +793,82 @@ public class NellBaseConverterCLI extends CommandLineInterface {
      * @throws IOException              if an I/O error has occurred
      */
     protected void readFile(int index) throws NoSuchAlgorithmException, IOException {
+        readFile(index, submitReader(index));
+    }
+
+    /**
+     * Reads the file to the memory, consuming the lines parsed by the reader in background.
+     *
+     * @param index  the index of the file
+     * @param reader the reader of the file
+     * @throws NoSuchAlgorithmException if no Provider supports a MessageDigestSpi implementation for the specified
+     *                                  algorithm.
+     * @throws IOException              if an I/O error has occurred
+     */
+    protected void readFile(int index, InputFileReader reader) throws NoSuchAlgorithmException, IOException {
         currentAtoms = buildMapPair();
-        InputStream stream = createDigestStream(index);
         AddAtomProcessor atomProcessor = new AddAtomProcessor(previousAtoms, currentAtoms);
-        processInputFile(stream, index, atomProcessor);
+        processInputFile(reader, atomProcessor);
+        awaitTask(reader.future);
         previousSkippedAtoms[index] += atomProcessor.getNumberOfSkippedAtoms();
         if (index > 0) { removedAtoms[index - 1] = atomProcessor.getNumberOfRemovedAtoms(); }
     }
 
     /**
-     * Process the input file reading the line and applying and {@link AtomProcessor} for each read atom.
+     * Submits the reader of the file to the {@link #readerPool}.
      *
-     * @param stream        the stream
-     * @param index         the index of the input file
+     * @param index the index of the file
+     * @return the reader
+     */
+    protected InputFileReader submitReader(int index) {
+        InputFileReader reader = new InputFileReader(index);
+        reader.future = readerPool.submit(reader);
+        return reader;
+    }
+
+    /**
+     * Process the lines parsed by the reader, applying the {@link AtomProcessor} for each atom.
+     *
+     * @param reader        the reader of the input file
      * @param atomProcessor the {@link AtomProcessor}
-     * @throws UnsupportedEncodingException if the encode is not supported
+     * @throws InterruptedIOException if interrupted while waiting for the reader
      */
-    protected void processInputFile(InputStream stream, int index, AtomProcessor atomProcessor) throws
-            UnsupportedEncodingException {
-        InputStreamReader inputStreamReader = new InputStreamReader(stream, fileEncode);
+    protected void processInputFile(InputFileReader reader, AtomProcessor atomProcessor) throws
+            InterruptedIOException {
         Pair<Atom, Boolean> pair;
+        try {
+            List<Pair<String[], Boolean>> batch = reader.batches.take();
+            while (!batch.isEmpty()) {
+                for (Pair<String[], Boolean> parsed : batch) {
+                    pair = buildAtom(parsed);
+                    if (isToProcessAtom(pair)) { atomProcessor.isAtomProcessed(pair); }
+                }
+                batch = reader.batches.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads and parses the input file, handing the parsed lines, in batches, to the consumer.
+     *
+     * @param index    the index of the input file
+     * @param consumer the consumer of the batches
+     * @throws NoSuchAlgorithmException if no Provider supports a MessageDigestSpi implementation for the specified
+     *                                  algorithm.
+     * @throws IOException              if an I/O error has occurred
+     * @throws InterruptedException     if interrupted while handing a batch
+     */
+    protected void readInputFile(int index, BlockingQueue<List<Pair<String[], Boolean>>> consumer) throws
+            NoSuchAlgorithmException, IOException, InterruptedException {
+        FileDigest digest = new FileDigest();
+        InputStream stream = createDigestStream(index, digest);
+        InputStreamReader inputStreamReader = new InputStreamReader(stream, fileEncode);
+        final int batchSize = Math.max(readerBatchSize, 1);
+        List<Pair<String[], Boolean>> batch = new ArrayList<>(batchSize);
+        Pair<String[], Boolean> pair;
         try (BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
             logger.info(PROCESSING_FILE.toString(), nellInputFilePaths[index]);
             String line;
@@ -690,15 +880,23 @@ public class NellBaseConverterCLI extends CommandLineInterface {
             line = bufferedReader.readLine();
             while (line != null) {
                 count++;
-                if (line.isEmpty() || line.startsWith(commentCharacter)) { continue; }
-                pair = readLine(line, index);
-                if (isToProcessAtom(pair)) { atomProcessor.isAtomProcessed(pair); }
+                if (!line.isEmpty() && !line.startsWith(commentCharacter)) {
+                    pair = parseLine(line, index);
+                    if (pair != null) {
+                        batch.add(pair);
+                        if (batch.size() == batchSize) {
+                            consumer.put(batch);
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                }
                 line = bufferedReader.readLine();
             }
-            logHash(index, count);
+            logHash(index, count, digest);
         } catch (IOException e) {
             logger.error(ERROR_READING_FILE.toString(), e);
         }
+        if (!batch.isEmpty()) { consumer.put(batch); }
     }
 
     /**
@@ -714,50 +912,54 @@ public class NellBaseConverterCLI extends CommandLineInterface {
     /**
      * Logs the hash(es) of the input file.
      *
-     * @param index the index of the {@link #nellInputFilePaths}
-     * @param lines the number of read lines
+     * @param index  the index of the {@link #nellInputFilePaths}
+     * @param lines  the number of read lines
+     * @param digest the digests of the input file
      */
-    protected void logHash(int index, int lines) {
+    protected void logHash(int index, int lines, FileDigest digest) {
         logger.info(FILE_CONTAINS_LINES.toString(), nellInputFilePaths[index], numberFormat.format(lines));
-        String hash = Hex.encodeHexString(normalDigest.digest());
+        String hash = Hex.encodeHexString(digest.normal.digest());
         inputHash[index] = hash;
         logger.info(FILE_NORMAL_HASH.toString(), hashAlgorithm, hash);
-        if (zippedDigest != null) {
-            String zippedHash = Hex.encodeHexString(zippedDigest.digest());
+        if (digest.zipped != null) {
+            String zippedHash = Hex.encodeHexString(digest.zipped.digest());
             inputZippedHash[index] = zippedHash;
             logger.info(FILE_ZIPPED_HASH.toString(), hashAlgorithm, zippedHash);
         }
     }
 
     /**
-     * Creates the stream of the input file with the correspondent digest and saves it at the {@link #normalDigest}.
+     * Creates the stream of the input file with the correspondent digest and saves it at the
+     * {@link FileDigest#normal}.
      * <p>
-     * If the file is zipped (.gz, .gzip or .zip), the zipped digest is saved at the {@link #zippedDigest}.
+     * If the file is zipped (.gz, .gzip or .zip), the zipped digest is saved at the {@link FileDigest#zipped}.
      *
-     * @param index the index of the {@link #nellInputFilePaths}
+     * @param index  the index of the {@link #nellInputFilePaths}
+     * @param digest the digests of the input file
      * @return the {@link InputStream}
      * @throws NoSuchAlgorithmException if no Provider supports a MessageDigestSpi implementation for the specified
      *                                  algorithm.
      * @throws IOException              if an I/O error has occurred
      */
-    protected InputStream createDigestStream(int index) throws NoSuchAlgorithmException, IOException {
+    protected InputStream createDigestStream(int index, FileDigest digest) throws NoSuchAlgorithmException,
+            IOException {
         String filePath = nellInputFilePaths[index];
-        InputStream stream = new FileInputStream(filePath);
-        zippedDigest = null;
+        InputStream stream = new BufferedInputStream(new FileInputStream(filePath));
+        digest.zipped = null;
         if (filePath.endsWith(GZIP_SHORT_SUFFIX) || filePath.endsWith(GZIP_LONG_SUFFIX)) {
-            zippedDigest = MessageDigest.getInstance(hashAlgorithm);
-            stream = new DigestInputStream(stream, zippedDigest);
+            digest.zipped = MessageDigest.getInstance(hashAlgorithm);
+            stream = new DigestInputStream(stream, digest.zipped);
             stream = new GZIPInputStream(stream);
         } else if (filePath.endsWith(ZIP_SUFFIX)) {
-            zippedDigest = MessageDigest.getInstance(hashAlgorithm);
-            stream = new DigestInputStream(stream, zippedDigest);
+            digest.zipped = MessageDigest.getInstance(hashAlgorithm);
+            stream = new DigestInputStream(stream, digest.zipped);
             //noinspection resource,IOResourceOpenedButNotSafelyClosed
             ZipInputStream zipInputStream = new ZipInputStream(stream);
             zipInputStream.getNextEntry();
             stream = zipInputStream;
         }
-        normalDigest = MessageDigest.getInstance(hashAlgorithm);
-        stream = new DigestInputStream(stream, normalDigest);
+        digest.normal = MessageDigest.getInstance(hashAlgorithm);
+        stream = new DigestInputStream(stream, digest.normal);
         return stream;
     }
 
@@ -770,11 +972,10 @@ public class NellBaseConverterCLI extends CommandLineInterface {
      */
     protected InputStream createStream(int index) throws IOException {
         String filePath = nellInputFilePaths[index];
-        InputStream stream = new FileInputStream(filePath);
+        InputStream stream = new BufferedInputStream(new FileInputStream(filePath));
         if (filePath.endsWith(GZIP_SHORT_SUFFIX) || filePath.endsWith(GZIP_LONG_SUFFIX)) {
             stream = new GZIPInputStream(stream);
         } else if (filePath.endsWith(ZIP_SUFFIX)) {
-            stream = new DigestInputStream(stream, zippedDigest);
             //noinspection resource,IOResourceOpenedButNotSafelyClosed
             ZipInputStream zipInputStream = new ZipInputStream(stream);
             zipInputStream.getNextEntry();
@@ -835,12 +1036,24 @@ public class NellBaseConverterCLI extends CommandLineInterface {
      * @param index the index of the current input file
      * @return the atom and if its label
      */
-    @SuppressWarnings({"OverlyLongMethod"})
     protected Pair<Atom, Boolean> readLine(String line, int index) {
+        return buildAtom(parseLine(line, index));
+    }
+
+    /**
+     * Parses the line into the names of the predicate, the subject and the object of the atom, in this order. This
+     * method does not depend on the {@link #atomFactory}, so it can be called from the readers.
+     *
+     * @param line  the line
+     * @param index the index of the current input file
+     * @return the names of the atom and its label
+     */
+    @SuppressWarnings({"OverlyLongMethod"})
+    protected Pair<String[], Boolean> parseLine(String line, int index) {
         String[] fields = line.split(valueSeparator);
         String[] confidences;
         String predicate = fields[predicateIndexes[index]].trim();
-        predicate = formatName(predicate, predicateReplaceMap);
+        predicate = formatName(predicate, predicateReplacePatterns);
         if (skipPredicate.contains(predicate)) { return null; }
         String confidenceString = fields[confidenceIndexes[index]].trim();
         double confidence;
@@ -860,11 +1073,24 @@ public class NellBaseConverterCLI extends CommandLineInterface {
         } else {
             confidence = Double.parseDouble(confidenceString);
         }
-        String subject = formatName(fields[subjectIndexes[index]].trim(), entityReplaceMap);
-        String object = formatName(fields[objectIndexes[index]].trim(), entityReplaceMap);
-        Atom atom = atomFactory.createAtom(predicate, subject, object);
+        String subject = formatName(fields[subjectIndexes[index]].trim(), entityReplacePatterns);
+        String object = formatName(fields[objectIndexes[index]].trim(), entityReplacePatterns);
+
+        return new ImmutablePair<>(new String[]{predicate, subject, object}, confidence >= confidenceThreshold);
+    }
 
-        return new ImmutablePair<>(atom, confidence >= confidenceThreshold);
+    /**
+     * Builds the atom from the parsed line.
+     *
+     * @param parsed the names of the predicate, the subject and the object of the atom, and its label
+     * @return the atom and if its label
+     * @see #parseLine(String, int)
+     */
+    protected Pair<Atom, Boolean> buildAtom(Pair<String[], Boolean> parsed) {
+        if (parsed == null) { return null; }
+        String[] names = parsed.getLeft();
+        Atom atom = atomFactory.createAtom(names[0], names[1], names[2]);
+        return new ImmutablePair<>(atom, parsed.getRight());
     }
 
     /**
@@ -1208,4 +1434,61 @@ public class NellBaseConverterCLI extends CommandLineInterface {
         return description.toString();
     }
 
-}
\ No newline at end of file
+    /**
+     * Holds the digests of an input file, since the files are read in parallel.
+     */
+    protected static class FileDigest {
+
+        /**
+         * The digest of the content of the file.
+         */
+        protected MessageDigest normal;
+        /**
+         * The digest of the zipped file, if the file is zipped; otherwise, {@code null}.
+         */
+        protected MessageDigest zipped;
+
+    }
+
+    /**
+     * Reads and parses an input file in background, handing the parsed lines, in batches, through a bounded queue.
+     * An empty batch marks the end of the file.
+     */
+    protected class InputFileReader implements Callable<Void> {
+
+        /**
+         * The index of the input file.
+         */
+        protected final int index;
+        /**
+         * The batches of parsed lines.
+         */
+        protected final BlockingQueue<List<Pair<String[], Boolean>>> batches;
+        /**
+         * The future of the reader.
+         */
+        protected Future<Void> future;
+
+        /**
+         * Constructor with the index of the input file.
+         *
+         * @param index the index of the input file
+         */
+        public InputFileReader(int index) {
+            this.index = index;
+            this.batches = new LinkedBlockingQueue<>(Math.max(readerQueueSize, 1));
+        }
+
+        @Override
+        public Void call() throws Exception {
+            try {
+                readInputFile(index, batches);
+            } finally {
+                batches.put(Collections.emptyList());
+            }
+            return null;
+        }
+
+    }
+
+}
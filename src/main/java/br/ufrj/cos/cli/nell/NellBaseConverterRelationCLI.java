@@ -107,7 +107,10 @@ public class NellBaseConverterRelationCLI extends NellBaseConverterCLI {
             readHeader(startIndex, line);
             line = bufferedReader.readLine();
             while (line != null) {
-                if (line.isEmpty() || line.startsWith(commentCharacter)) { continue; }
+                if (line.isEmpty() || line.startsWith(commentCharacter)) {
+                    line = bufferedReader.readLine();
+                    continue;
+                }
                 pair = readLine(line, startIndex);
                 if (super.isToProcessAtom(pair)) {
                     targetPredicates.add(pair.getLeft().getPredicate());
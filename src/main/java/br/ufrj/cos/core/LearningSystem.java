@@ -30,7 +30,9 @@
 package br.ufrj.cos.core;
 
 import br.ufrj.cos.engine.EngineSystemTranslator;
+import br.ufrj.cos.engine.InferenceCache;
 import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.base.NeighbourhoodCache;
 import br.ufrj.cos.knowledge.example.Example;
 import br.ufrj.cos.knowledge.example.Examples;
 import br.ufrj.cos.knowledge.manager.IncomingExampleManager;
@@ -45,14 +47,23 @@ import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.logic.Term;
 import br.ufrj.cos.util.Initializable;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static br.ufrj.cos.util.log.GeneralLog.INITIALIZING_LEARNING_SYSTEM;
+import static br.ufrj.cos.util.log.InferenceLog.INFERENCE_CACHE_STATISTICS;
+import static br.ufrj.cos.util.log.InferenceLog.NEIGHBOURHOOD_CACHE_STATISTICS;
 
 /**
  * Responsible for the execution and control of the entire system.
@@ -61,7 +72,7 @@ import static br.ufrj.cos.util.log.GeneralLog.INITIALIZING_LEARNING_SYSTEM;
  *
  * @author Victor Guimarães
  */
-public class LearningSystem implements Initializable {
+public class LearningSystem implements Initializable, Checkpointable {
 
     /**
      * The logger
@@ -72,6 +83,18 @@ public class LearningSystem implements Initializable {
      * Represents a constant for no maximum depth on the transitivity of the relevant concept.
      */
     public static final int NO_MAXIMUM_DEPTH = -1;
+    /**
+     * The name prefix of the threads of the evaluation pool.
+     */
+    public static final String EVALUATION_THREAD_NAME = "evaluation-";
+    /**
+     * Represents a constant for no cache of inferences.
+     */
+    public static final int NO_INFERENCE_CACHE = 0;
+    /**
+     * Represents a constant for no cache of neighbourhoods.
+     */
+    public static final int NO_NEIGHBOURHOOD_CACHE = 0;
 
     //Theory Manager
     protected final KnowledgeBase knowledgeBase;
@@ -101,7 +124,24 @@ public class LearningSystem implements Initializable {
      * that evaluates examples retraining parameters or changing the {@link Theory}.
      */
     public boolean concurrent = false;
+    /**
+     * The maximum number of answers cached from the inference of examples appending clauses to the theory, in the
+     * cache shared by all the threads. If it is {@link #NO_INFERENCE_CACHE}, the inferences are not cached.
+     *
+     * @see InferenceCache
+     */
+    public int inferenceCacheSize = NO_INFERENCE_CACHE;
+    /**
+     * The maximum number of terms cached from the neighbourhoods of the relevant breadth-first searches. If it is
+     * {@link #NO_NEIGHBOURHOOD_CACHE}, the neighbourhoods are not cached.
+     *
+     * @see NeighbourhoodCache
+     */
+    public int neighbourhoodCacheSize = NO_NEIGHBOURHOOD_CACHE;
     protected Theory theory;
+    protected ExecutorService evaluationPool;
+    protected InferenceCache inferenceCache;
+    protected NeighbourhoodCache neighbourhoodCache;
 
     /**
      * Constructs the class if the minimum required parameters.
@@ -129,6 +169,13 @@ public class LearningSystem implements Initializable {
 
         theoryRevisionManager.setLearningSystem(this);
         theoryRevisionManager.initialize();
+
+        if (inferenceCacheSize > NO_INFERENCE_CACHE) {
+            inferenceCache = new InferenceCache(inferenceCacheSize);
+        }
+        if (neighbourhoodCacheSize > NO_NEIGHBOURHOOD_CACHE) {
+            neighbourhoodCache = new NeighbourhoodCache(neighbourhoodCacheSize);
+        }
     }
 
     /**
@@ -138,6 +185,12 @@ public class LearningSystem implements Initializable {
      */
     public synchronized void reviseTheory(List<? extends RevisionExamples> revisionPoints) {
         theoryRevisionManager.revise(revisionPoints);
+        if (inferenceCache != null) {
+            logger.debug(INFERENCE_CACHE_STATISTICS.toString(), inferenceCache);
+        }
+        if (neighbourhoodCache != null) {
+            logger.debug(NEIGHBOURHOOD_CACHE_STATISTICS.toString(), neighbourhoodCache);
+        }
     }
 
     /**
@@ -285,6 +338,7 @@ public class LearningSystem implements Initializable {
      * {@link EngineSystemTranslator}.
      * <p>
      * This method do not change the {@link Theory} nor the internal parameters of the {@link EngineSystemTranslator}.
+     * If {@link #inferenceCacheSize} is positive, the answers are reused from the {@link InferenceCache}.
      *
      * @param appendClauses clauses to be appended to the {@link Theory}
      * @param examples      the {@link Example}s
@@ -293,6 +347,9 @@ public class LearningSystem implements Initializable {
     public Map<Example, Map<Atom, Double>> inferExamples(
             Iterable<? extends HornClause> appendClauses,
             Iterable<? extends Example> examples) {
+        if (inferenceCache != null) {
+            return inferenceCache.inferExamples(getEngineSystemTranslator(), appendClauses, examples);
+        }
         return getEngineSystemTranslator().inferExamples(appendClauses, examples);
     }
 
@@ -369,6 +426,9 @@ public class LearningSystem implements Initializable {
      */
     @SuppressWarnings({"OverlyComplexMethod", "OverlyLongMethod"})
     public Set<Atom> relevantsBreadthFirstSearch(Iterable<? extends Term> terms, int relevantsDepth, boolean safeStop) {
+        if (!safeStop && neighbourhoodCache != null) {
+            return cachedRelevantsBreadthFirstSearch(terms, relevantsDepth);
+        }
         Map<Term, Integer> termDistance = new HashMap<>();
         Queue<Term> queue = new ArrayDeque<>();
         Set<Atom> atoms = new HashSet<>();
@@ -428,6 +488,23 @@ public class LearningSystem implements Initializable {
         return atoms;
     }
 
+    /**
+     * Gets the relevant {@link Atom}s, given the relevant seed {@link Term}s, from the neighbourhoods of the seed
+     * {@link Term}s in the {@link NeighbourhoodCache}, plus the grounding of the seed {@link Term}s by the
+     * {@link Theory}. Without the safe stop, it is the same result of the breadth-first search.
+     *
+     * @param terms          the seed {@link Term}s
+     * @param relevantsDepth the depth of the relevant breadth first search
+     * @return the relevant {@link Atom}s to the seed {@link Term}s
+     */
+    protected Set<Atom> cachedRelevantsBreadthFirstSearch(Iterable<? extends Term> terms, int relevantsDepth) {
+        Set<Term> seeds = new HashSet<>();
+        terms.forEach(seeds::add);
+        Set<Atom> atoms = new HashSet<>(groundRelevants(seeds));
+        atoms.addAll(neighbourhoodCache.breadthFirstSearch(getKnowledgeBase(), seeds, relevantsDepth));
+        return atoms;
+    }
+
     /**
      * Delegates the grounding of the relevants to the {@link EngineSystemTranslator}.
      *
@@ -475,6 +552,25 @@ public class LearningSystem implements Initializable {
         return theoryEvaluator;
     }
 
+    /**
+     * Gets the pool of threads used to evaluate candidate revisions. The pool lives as long as the system, so the
+     * threads are reused among the evaluations; the number of parallel evaluations is controlled by the callers.
+     * Its threads are daemons, thus they do not prevent the program from finishing.
+     *
+     * @return the evaluation pool
+     */
+    public synchronized ExecutorService getEvaluationPool() {
+        if (evaluationPool == null) {
+            final AtomicInteger count = new AtomicInteger();
+            evaluationPool = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, EVALUATION_THREAD_NAME + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return evaluationPool;
+    }
+
     /**
      * Gets the {@link IncomingExampleManager}.
      *
@@ -503,4 +599,60 @@ public class LearningSystem implements Initializable {
         engineSystemTranslator.addAtomsToKnowledgeBase(atoms);
     }
 
+    /**
+     * Removes the atoms from the knowledge base and from the knowledge of the system translator.
+     *
+     * @param atoms the atoms to be removed
+     */
+    public void removeAtomsFromKnowledgeBase(Collection<? extends Atom> atoms) {
+        knowledgeBase.removeAll(atoms);
+        engineSystemTranslator.removeAtomsFromKnowledgeBase(atoms);
+    }
+
+    /**
+     * Replaces atoms in the knowledge base and in the knowledge of the system translator, without rebuilding it.
+     *
+     * @param removed the atoms to be removed
+     * @param added   the atoms to be added
+     */
+    public void replaceAtomsInKnowledgeBase(Collection<? extends Atom> removed, Collection<? extends Atom> added) {
+        knowledgeBase.removeAll(removed);
+        knowledgeBase.addAll(added);
+        engineSystemTranslator.replaceAtomsInKnowledgeBase(removed, added);
+    }
+
+    /**
+     * Gets the generation of the knowledge of the {@link EngineSystemTranslator}. It changes whenever the facts
+     * change.
+     *
+     * @return the generation of the knowledge
+     */
+    public long getKnowledgeGeneration() {
+        return engineSystemTranslator.getKnowledgeGeneration();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Saves the theory and the state of the components of the learning system. The knowledge base is not saved,
+     * since it is given by the input of the learning; thus, it must be restored before loading the checkpoint.
+     */
+    @Override
+    public synchronized void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeClauses(theory);
+        output.writeComponent(engineSystemTranslator);
+        output.writeComponent(incomingExampleManager);
+        output.writeComponent(theoryRevisionManager);
+    }
+
+    @Override
+    public synchronized void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        theory.clear();
+        input.readHornClauses(theory);
+        setTheory(theory);
+        input.readComponent(engineSystemTranslator);
+        input.readComponent(incomingExampleManager);
+        input.readComponent(theoryRevisionManager);
+    }
+
 }
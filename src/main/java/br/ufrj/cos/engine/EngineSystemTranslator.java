@@ -44,6 +44,7 @@ import java.io.File;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static br.ufrj.cos.util.log.EngineSystemLog.INITIALIZING_ENGINE_SYSTEM_TRANSLATOR;
 
@@ -67,9 +68,23 @@ public abstract class EngineSystemTranslator extends ThreadLocal<EngineSystemTra
      * The logger
      */
     public static final Logger logger = LogManager.getLogger();
+    /**
+     * The source of the theory generations, shared by all the engines, so a generation is never repeated, even among
+     * the copies of an engine.
+     */
+    protected static final AtomicLong THEORY_GENERATIONS = new AtomicLong();
 
     protected KnowledgeBase knowledgeBase;
     protected Theory theory;
+    /**
+     * The generation of the knowledge of the engine, incremented whenever the facts change.
+     */
+    protected AtomicLong knowledgeGeneration = new AtomicLong();
+    /**
+     * The generation of the theory of the engine, renewed whenever the theory or the parameters used in the
+     * inference change.
+     */
+    protected AtomicLong theoryGeneration = new AtomicLong(THEORY_GENERATIONS.incrementAndGet());
 
     @Override
     public void initialize() {
@@ -296,4 +311,53 @@ public abstract class EngineSystemTranslator extends ThreadLocal<EngineSystemTra
      */
     public abstract void addAtomsToKnowledgeBase(Collection<? extends Atom> atoms);
 
+    /**
+     * Removes the atoms from the knowledge of the system translator, whatever their weights.
+     *
+     * @param atoms the atoms to be removed
+     */
+    public abstract void removeAtomsFromKnowledgeBase(Collection<? extends Atom> atoms);
+
+    /**
+     * Replaces atoms in the knowledge of the system translator. It is useful to slide a window over the knowledge
+     * or to update the weights of the atoms, without rebuilding the whole knowledge.
+     *
+     * @param removed the atoms to be removed
+     * @param added   the atoms to be added
+     */
+    public void replaceAtomsInKnowledgeBase(Collection<? extends Atom> removed, Collection<? extends Atom> added) {
+        removeAtomsFromKnowledgeBase(removed);
+        addAtomsToKnowledgeBase(added);
+    }
+
+    /**
+     * Gets the generation of the knowledge of the engine. The generation increases whenever the facts of the
+     * engine change, so results cached for a generation are valid while it is the current one.
+     *
+     * @return the generation of the knowledge
+     */
+    public long getKnowledgeGeneration() {
+        return knowledgeGeneration.get();
+    }
+
+    /**
+     * Gets the generation of the theory of the engine. The generation increases whenever the theory or the
+     * parameters used in the inference change, so results cached for a generation are valid while it is the current
+     * one. The generations are unique among all the engines, thus a generation identifies both the engine and the
+     * state of its theory.
+     *
+     * @return the generation of the theory
+     */
+    public long getTheoryGeneration() {
+        return theoryGeneration.get();
+    }
+
+    /**
+     * Renews the generation of the theory, it must be called whenever the theory or the parameters used in the
+     * inference change.
+     */
+    protected void nextTheoryGeneration() {
+        theoryGeneration.set(THEORY_GENERATIONS.incrementAndGet());
+    }
+
 }
@@ -0,0 +1,416 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.engine;
+
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.util.LanguageUtils;
+import edu.cmu.ml.proppr.util.CancellationToken;
+import java.util.*;
+
+/**
+ * Caches the inference of examples appending clauses to the theory, since the same candidate clause, up to the
+ * renaming of its variables, is often evaluated several times over the same examples during a revision.
+ * <p>
+ * Each entry holds the answers of a single example for a set of appended clauses, keyed by a canonical form of the
+ * clauses and of the goal of the example, in which the variables are named by the order of their first occurrence.
+ * Thus, the answers of an example are reused even if it is queried along with different examples.
+ * <p>
+ * The entries are valid while the theory, the parameters and the knowledge of the {@link EngineSystemTranslator}
+ * do not change, i.e. while both its theory and knowledge generations are the same of when they were cached. Since
+ * the theory generations are unique among the engines, the entries are also keyed by the theory generation, so a
+ * single cache can be shared by all the threads, even if each one infers on its own copy of the engine. Whenever an
+ * engine renews its theory generation, the entries of its previous generation are dropped; whenever the knowledge
+ * changes, the whole cache is cleared. The engines are weakly referenced, so the copies of the engine of finished
+ * threads are not kept by the cache. The cache is bounded by the number of answers it holds, the least recently used
+ * entries are evicted first.
+ * <p>
+ * Only complete inferences are cached: if an example has no answer entry or the inference was cancelled, the
+ * results are returned but not stored. The cached answers are shared among the callers, so they must not be
+ * modified.
+ */
+public class InferenceCache {
+
+    /**
+     * The initial capacity of the cache map.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    /**
+     * The load factor of the cache map.
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    /**
+     * The generation before any inference.
+     */
+    public static final long NO_GENERATION = -1;
+    /**
+     * The prefix of the canonical variables.
+     */
+    public static final String CANONICAL_VARIABLE_PREFIX = "X";
+
+    protected final long maximumSize;
+    protected final LinkedHashMap<Key, Map<Atom, Double>> cache;
+    /**
+     * The last theory generation of each engine that used the cache.
+     */
+    protected final Map<EngineSystemTranslator, Long> theoryGenerations = new WeakHashMap<>();
+
+    protected long size;
+    protected long knowledgeGeneration = NO_GENERATION;
+
+    protected long hits;
+    protected long misses;
+    protected long evictions;
+    protected long invalidations;
+
+    /**
+     * Constructor with the maximum number of answers held by the cache.
+     *
+     * @param maximumSize the maximum number of answers held by the cache
+     */
+    public InferenceCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.cache = new LinkedHashMap<>(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, true);
+    }
+
+    /**
+     * Infers the examples appending the clauses to the theory of the engine, reusing the cached answers. Only the
+     * examples not found in the cache are passed to the engine.
+     *
+     * @param engine        the {@link EngineSystemTranslator}
+     * @param appendClauses the clauses to append to the theory
+     * @param examples      the examples
+     * @return a {@link Map} of the solutions to its correspondent {@link Example}s
+     * @see EngineSystemTranslator#inferExamples(Iterable, Iterable)
+     */
+    public Map<Example, Map<Atom, Double>> inferExamples(EngineSystemTranslator engine,
+                                                         Iterable<? extends HornClause> appendClauses,
+                                                         Iterable<? extends Example> examples) {
+        if (appendClauses == null) { return engine.inferExamples(appendClauses, examples); }
+        final long theory = engine.getTheoryGeneration();
+        final long knowledge = engine.getKnowledgeGeneration();
+        final String clauses = formatCanonicalClauses(appendClauses);
+
+        final List<Example> exampleList = new ArrayList<>();
+        final List<Map<Atom, Double>> answerList = new ArrayList<>();
+        final List<Example> missed = new ArrayList<>();
+        final List<String> missedKeys = new ArrayList<>();
+        synchronized (this) {
+            checkGeneration(engine, theory, knowledge);
+            Map<Atom, Double> answers;
+            String key;
+            for (Example example : examples) {
+                key = formatCanonicalAtom(example.getGoalQuery(), new HashMap<>());
+                answers = cache.get(new Key(theory, clauses, key));
+                if (answers == null) {
+                    misses++;
+                    missed.add(example);
+                    missedKeys.add(key);
+                } else {
+                    hits++;
+                }
+                exampleList.add(example);
+                answerList.add(answers);
+            }
+        }
+
+        Map<Example, Map<Atom, Double>> inferred = Collections.emptyMap();
+        if (!missed.isEmpty()) {
+            inferred = engine.inferExamples(appendClauses, missed);
+            if (inferred == null) { return null; }
+            storeAnswers(engine, theory, knowledge, clauses, missed, missedKeys, inferred);
+        }
+
+        // builds the result in the order of the examples, as the engine does
+        final Map<Example, Map<Atom, Double>> result = new HashMap<>();
+        Map<Atom, Double> answers;
+        for (int i = 0; i < exampleList.size(); i++) {
+            answers = answerList.get(i);
+            if (answers == null) { answers = inferred.get(exampleList.get(i)); }
+            if (answers != null) { result.put(exampleList.get(i), answers); }
+        }
+        return result;
+    }
+
+    /**
+     * Stores the answers of the inferred examples, if the inference is complete and the generations did not change.
+     *
+     * @param engine    the engine of the inference
+     * @param theory    the theory generation of the inference
+     * @param knowledge the knowledge generation of the inference
+     * @param clauses   the canonical form of the appended clauses
+     * @param examples  the inferred examples
+     * @param keys      the canonical form of the goals of the examples
+     * @param inferred  the inferred answers
+     */
+    protected void storeAnswers(EngineSystemTranslator engine, long theory, long knowledge, String clauses,
+                                List<Example> examples, List<String> keys, Map<Example, Map<Atom, Double>> inferred) {
+        final CancellationToken token = CancellationToken.current();
+        if (token != null && token.isCancelled()) { return; }
+        for (Example example : examples) {
+            if (!inferred.containsKey(example)) { return; }
+        }
+        synchronized (this) {
+            if (knowledge != knowledgeGeneration || !Objects.equals(theoryGenerations.get(engine), theory)) { return; }
+            Map<Atom, Double> answers;
+            Map<Atom, Double> previous;
+            for (int i = 0; i < examples.size(); i++) {
+                answers = Collections.unmodifiableMap(inferred.get(examples.get(i)));
+                previous = cache.put(new Key(theory, clauses, keys.get(i)), answers);
+                if (previous != null) { size -= weight(previous); }
+                size += weight(answers);
+            }
+            evict();
+        }
+    }
+
+    /**
+     * Clears the cache if the knowledge generation differs from the cached one, and drops the entries of the
+     * previous theory generation of the engine, if it has changed.
+     *
+     * @param engine    the current engine
+     * @param theory    the current theory generation of the engine
+     * @param knowledge the current knowledge generation
+     */
+    protected void checkGeneration(EngineSystemTranslator engine, long theory, long knowledge) {
+        if (knowledge != knowledgeGeneration) {
+            if (!cache.isEmpty()) {
+                cache.clear();
+                invalidations++;
+            }
+            size = 0;
+            theoryGenerations.clear();
+            knowledgeGeneration = knowledge;
+        }
+        final Long previous = theoryGenerations.put(engine, theory);
+        if (previous != null && previous != theory) { dropGeneration(previous); }
+    }
+
+    /**
+     * Drops the entries of the theory generation.
+     *
+     * @param theory the theory generation
+     */
+    protected void dropGeneration(long theory) {
+        final Iterator<Map.Entry<Key, Map<Atom, Double>>> iterator = cache.entrySet().iterator();
+        Map.Entry<Key, Map<Atom, Double>> entry;
+        boolean dropped = false;
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            if (entry.getKey().theoryGeneration != theory) { continue; }
+            size -= weight(entry.getValue());
+            iterator.remove();
+            dropped = true;
+        }
+        if (dropped) { invalidations++; }
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache fits its maximum size.
+     */
+    protected void evict() {
+        Iterator<Map<Atom, Double>> iterator = cache.values().iterator();
+        while (size > maximumSize && iterator.hasNext()) {
+            size -= weight(iterator.next());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Gets the weight of an entry in the cache, which is the number of answers plus one, for the entry itself.
+     *
+     * @param answers the answers of the entry
+     * @return the weight of the entry
+     */
+    protected static long weight(Map<Atom, Double> answers) {
+        return answers.size() + 1;
+    }
+
+    /**
+     * Formats the clauses in a canonical form, where the variables are named by the order of their first occurrence
+     * in each clause. Clauses that only differ by the names of their variables have the same canonical form.
+     *
+     * @param clauses the clauses
+     * @return the canonical form
+     */
+    public static String formatCanonicalClauses(Iterable<? extends HornClause> clauses) {
+        final StringBuilder builder = new StringBuilder();
+        Map<Term, Integer> variables;
+        for (HornClause clause : clauses) {
+            variables = new HashMap<>();
+            builder.append(formatCanonicalAtom(clause.getHead(), variables));
+            builder.append(LanguageUtils.IMPLICATION_SIGN);
+            for (Literal literal : clause.getBody()) {
+                if (literal.isNegated()) { builder.append(LanguageUtils.NEGATION_PREFIX).append(" "); }
+                builder.append(formatCanonicalAtom(literal, variables));
+                builder.append(LanguageUtils.LIST_ARGUMENTS_SEPARATOR);
+            }
+            if (clause instanceof FeaturedClause && ((FeaturedClause) clause).getFeatures() != null) {
+                builder.append(LanguageUtils.FEATURES_OPEN_ARGUMENT_CHARACTER);
+                for (Atom feature : ((FeaturedClause) clause).getFeatures()) {
+                    builder.append(formatCanonicalAtom(feature, variables));
+                    builder.append(LanguageUtils.LIST_ARGUMENTS_SEPARATOR);
+                }
+                builder.append(LanguageUtils.FEATURES_CLOSE_ARGUMENT_CHARACTER);
+            }
+            builder.append(LanguageUtils.CLAUSE_END_OF_LINE);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Formats the atom in a canonical form, naming its variables by the order of their first occurrence.
+     *
+     * @param atom      the atom
+     * @param variables the canonical index of the variables already found, it is updated with the new ones
+     * @return the canonical form
+     */
+    public static String formatCanonicalAtom(Atom atom, Map<Term, Integer> variables) {
+        final StringBuilder builder = new StringBuilder(atom.getName());
+        if (atom.getArity() > 0) {
+            builder.append(LanguageUtils.PREDICATE_OPEN_ARGUMENT_CHARACTER);
+            Integer index;
+            for (Term term : atom.getTerms()) {
+                if (term.isConstant()) {
+                    builder.append(term);
+                } else {
+                    index = variables.computeIfAbsent(term, t -> variables.size());
+                    builder.append(CANONICAL_VARIABLE_PREFIX).append(index);
+                }
+                builder.append(LanguageUtils.LIST_ARGUMENTS_SEPARATOR);
+            }
+            builder.append(LanguageUtils.PREDICATE_CLOSE_ARGUMENT_CHARACTER);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Gets the number of lookups that were found in the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that were not found in the cache.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the proportion of the lookups that were found in the cache.
+     *
+     * @return the hit rate, or zero if there was no lookup
+     */
+    public synchronized double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    /**
+     * Gets the number of entries evicted to bound the size of the cache.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of times entries were dropped due to a change in the theory or in the knowledge.
+     *
+     * @return the number of invalidations
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Gets the number of answers held by the cache, plus one per entry.
+     *
+     * @return the size of the cache
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * The key of an entry of the cache: the answers of a goal, appending the clauses to the theory of a generation.
+     */
+    protected static final class Key {
+
+        protected final long theoryGeneration;
+        protected final String clauses;
+        protected final String goal;
+        protected final int hashCode;
+
+        /**
+         * Constructor with the theory generation, the canonical clauses and the canonical goal.
+         *
+         * @param theoryGeneration the theory generation
+         * @param clauses          the canonical form of the appended clauses
+         * @param goal             the canonical form of the goal
+         */
+        protected Key(long theoryGeneration, String clauses, String goal) {
+            this.theoryGeneration = theoryGeneration;
+            this.clauses = clauses;
+            this.goal = goal;
+            this.hashCode = 31 * (31 * Long.hashCode(theoryGeneration) + clauses.hashCode()) + goal.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (!(o instanceof Key)) { return false; }
+            Key key = (Key) o;
+            return theoryGeneration == key.theoryGeneration && clauses.equals(key.clauses) && goal.equals(key.goal);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("hits: %d, misses: %d, hit rate: %.4f, evictions: %d, invalidations: %d, size: %d",
+                             hits, misses, getHitRate(), evictions, invalidations, size);
+    }
+
+}
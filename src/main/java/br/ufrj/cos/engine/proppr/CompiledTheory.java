@@ -0,0 +1,130 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.logic.HornClause;
+import edu.cmu.ml.proppr.prove.wam.Rule;
+import edu.cmu.ml.proppr.prove.wam.WamOverlayProgram;
+import edu.cmu.ml.proppr.prove.wam.WamProgram;
+
+import java.util.*;
+
+/**
+ * Holds the compiled {@link WamProgram} of a theory, in order to evaluate candidate clauses and candidate theories
+ * without compiling the whole theory again.
+ * <p>
+ * The compiled program is never modified after the construction of this class. The candidates are compiled into
+ * {@link WamOverlayProgram}s on top of it, so they can be evaluated concurrently.
+ */
+public class CompiledTheory {
+
+    protected final WamProgram program;
+    protected final Collection<Rule> featureRules;
+    protected final Set<String> compiledClauses;
+    protected final Set<String> compiledFeatureRules;
+
+    /**
+     * Compiles the theory.
+     *
+     * @param theory the theory
+     */
+    public CompiledTheory(Iterable<? extends HornClause> theory) {
+        this.featureRules = new HashSet<>();
+        this.program = ProPprUtils.compileTheory(theory, featureRules);
+        this.compiledClauses = new HashSet<>();
+        // the compiled feature rules are already variabilized, so they are converted again to be compared
+        final Collection<Rule> rules = new HashSet<>();
+        for (HornClause clause : theory) {
+            compiledClauses.add(clause.toString());
+            ProPprUtils.clauseToRule(clause, rules);
+        }
+        this.compiledFeatureRules = new HashSet<>(rules.size());
+        for (Rule rule : rules) {
+            compiledFeatureRules.add(rule.toString());
+        }
+    }
+
+    /**
+     * Gets the compiled program of the theory. This program must not be modified.
+     *
+     * @return the compiled program
+     */
+    public WamProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * Gets the feature rules generated by the theory.
+     *
+     * @return the feature rules
+     */
+    public Collection<Rule> getFeatureRules() {
+        return featureRules;
+    }
+
+    /**
+     * Builds a program with the theory followed by the appended clauses. It is equivalent to compile the theory and
+     * then append the clauses to it, without compiling the theory again.
+     *
+     * @param appendClauses the clauses to append
+     * @return the program
+     */
+    public WamProgram appendClauses(Iterable<? extends HornClause> appendClauses) {
+        WamProgram overlay = new WamOverlayProgram(program);
+        ProPprUtils.appendRuleToProgram(appendClauses, overlay);
+        overlay.save();
+        return overlay;
+    }
+
+    /**
+     * Builds the program of the candidate theory. If the candidate contains every clause of the compiled theory,
+     * only the remaining clauses are compiled, on top of the already compiled program; otherwise, the candidate
+     * is compiled from scratch.
+     *
+     * @param candidate the candidate theory
+     * @return the program
+     */
+    public WamProgram compile(Iterable<? extends HornClause> candidate) {
+        final List<HornClause> remaining = new ArrayList<>();
+        final Set<String> found = new HashSet<>(compiledClauses.size());
+        String clause;
+        for (HornClause hornClause : candidate) {
+            clause = hornClause.toString();
+            if (!compiledClauses.contains(clause) || !found.add(clause)) { remaining.add(hornClause); }
+        }
+        if (found.size() < compiledClauses.size()) { return ProPprUtils.compileTheory(candidate); }
+
+        WamProgram overlay = new WamOverlayProgram(program);
+        ProPprUtils.appendRuleToProgram(remaining, overlay, compiledFeatureRules);
+        overlay.save();
+        return overlay;
+    }
+
+}
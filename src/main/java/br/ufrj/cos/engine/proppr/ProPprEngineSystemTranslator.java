@@ -43,8 +43,12 @@ import br.ufrj.cos.logic.*;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.IterableConverter;
 import br.ufrj.cos.util.LanguageUtils;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import br.ufrj.cos.util.log.FileIOLog;
 import edu.cmu.ml.proppr.Trainer;
+import edu.cmu.ml.proppr.examples.CookedExample;
 import edu.cmu.ml.proppr.examples.GroundedExample;
 import edu.cmu.ml.proppr.examples.InferenceExample;
 import edu.cmu.ml.proppr.graph.ArrayLearningGraphBuilder;
@@ -54,14 +58,17 @@ import edu.cmu.ml.proppr.learn.Regularize;
 import edu.cmu.ml.proppr.learn.RegularizeL2;
 import edu.cmu.ml.proppr.learn.SRW;
 import edu.cmu.ml.proppr.learn.tools.ClippedExp;
+import edu.cmu.ml.proppr.learn.tools.LossData;
 import edu.cmu.ml.proppr.learn.tools.SquashingFunction;
 import edu.cmu.ml.proppr.prove.DprProver;
 import edu.cmu.ml.proppr.prove.Prover;
 import edu.cmu.ml.proppr.prove.wam.*;
+import edu.cmu.ml.proppr.prove.wam.plugins.ColumnarFactsPlugin;
 import edu.cmu.ml.proppr.prove.wam.plugins.FactsPlugin;
 import edu.cmu.ml.proppr.prove.wam.plugins.WamPlugin;
 import edu.cmu.ml.proppr.util.*;
 import edu.cmu.ml.proppr.util.Dictionary;
+import edu.cmu.ml.proppr.util.math.DenseParamVector;
 import edu.cmu.ml.proppr.util.math.ParamVector;
 import edu.cmu.ml.proppr.util.math.SimpleParamVector;
 import edu.cmu.ml.proppr.util.multithreading.Multithreading;
@@ -86,7 +93,8 @@ import static edu.cmu.ml.proppr.Trainer.DEFAULT_LOAD;
  *
  * @author Victor Guimarães
  */
-public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSystemTranslator {
+public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSystemTranslator
+        implements Checkpointable {
 
     /**
      * The logger
@@ -122,6 +130,11 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
      * If is to use ternay index, makes an more efficient cache for predicates with arity.
      */
     public boolean useTernayIndex = false;
+    /**
+     * If it is to store the facts in the {@link ColumnarFactsPlugin}, which uses much less memory than the
+     * {@link FactsPlugin} on large knowledge bases.
+     */
+    public boolean useColumnarFacts = false;
     /**
      * The number of training epochs per training.
      */
@@ -134,6 +147,22 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
      * If it is to normalizeAnswers.
      */
     public boolean normalizeAnswers = true;
+    /**
+     * If it is to pass the grounded examples to the {@link Trainer} in memory. If {@code false}, the grounded
+     * examples are serialized and parsed back by the {@link Trainer}, as ProPPR does with the cooked files.
+     */
+    public boolean inMemoryTraining = true;
+    /**
+     * If it is to train the parameters in a {@link DenseParamVector}, indexed by the ids of the features of the
+     * grounded examples, instead of by the name of the features. Only used when {@link #inMemoryTraining} is
+     * {@code true}.
+     */
+    public boolean denseParameters = false;
+    /**
+     * If it is to update the {@link DenseParamVector} without synchronization, in the Hogwild style, where
+     * concurrent updates on the same feature may be lost.
+     */
+    public boolean hogwildParameters = false;
     /**
      * The {@link APROptions}.
      */
@@ -157,6 +186,7 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
     // Input
     protected FactsPlugin factsPlugin;
     protected WamProgram program;
+    protected CompiledTheory compiledTheory;
 
     // Processing
     protected InMemoryGrounder<P> grounder;
@@ -198,15 +228,35 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
                                                                                                 numberOfThreads));
         this.answerer = buildAnswerer();
         answerer.addParams(prover, savedParamVector, squashingFunction);
+        nextTheoryGeneration();
     }
 
     @Override
     protected synchronized EngineSystemTranslator initialValue() {
+        // the copy lives longer than the evaluation that may be running on this thread
+        final CancellationToken token = CancellationToken.bind(null);
+        try {
+            return buildCopy();
+        } finally {
+            CancellationToken.bind(token);
+        }
+    }
+
+    /**
+     * Builds a copy of this translator, sharing the knowledge base and the theory.
+     *
+     * @return the copy
+     */
+    protected ProPprEngineSystemTranslator buildCopy() {
         ProPprEngineSystemTranslator copy = new ProPprEngineSystemTranslator();
         copy.useTernayIndex = this.useTernayIndex;
+        copy.useColumnarFacts = this.useColumnarFacts;
         copy.numberOfTrainingEpochs = this.numberOfTrainingEpochs;
         copy.numberOfThreads = this.numberOfThreads;
         copy.normalizeAnswers = this.normalizeAnswers;
+        copy.inMemoryTraining = this.inMemoryTraining;
+        copy.denseParameters = this.denseParameters;
+        copy.hogwildParameters = this.hogwildParameters;
         copy.aprOptions = this.aprOptions;
         copy.srw = new SRW(new SRWOptions(aprOptions, squashingFunction));
         copy.srw.setRegularizer(new RegularizationSchedule(this.srw, regularize));
@@ -214,6 +264,8 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
         copy.prover = this.prover.copy();
         copy.squashingFunction = this.squashingFunction;
         copy.knowledgeBase = this.knowledgeBase;
+        copy.factsPlugin = this.factsPlugin;
+        copy.knowledgeGeneration = this.knowledgeGeneration;
         copy.setTheory(this.theory);
         copy.initialize();
         return copy;
@@ -371,6 +423,7 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
         logger.debug(SAVING_TRAINED_PARAMETERS_AS_CURRENT);
         savedParamVector = currentParamVector;
         answerer.addParams(prover, savedParamVector, squashingFunction);
+        nextTheoryGeneration();
     }
 
     @Override
@@ -440,15 +493,14 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
     @Override
     public Map<Example, Map<Atom, Double>> inferExampleTrainingParameters
             (Theory theory, Iterable<? extends Example> examples) {
-        WamProgram wamProgram = ProPprUtils.compileTheory(theory);
+        WamProgram wamProgram = compiledTheory.compile(theory);
         return inferExamplesTrainingParameters(examples, wamProgram);
     }
 
     @Override
     public Map<Example, Map<Atom, Double>> inferExampleTrainingParameters
             (Iterable<? extends HornClause> appendClauses, Iterable<? extends Example> examples) {
-        WamProgram wamProgram = ProPprUtils.compileTheory(theory);
-        ProPprUtils.appendRuleToProgram(appendClauses, wamProgram);
+        WamProgram wamProgram = compiledTheory.appendClauses(appendClauses);
         return inferExamplesTrainingParameters(examples, wamProgram);
     }
 
@@ -462,7 +514,7 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
     @Override
     public synchronized void setKnowledgeBase(KnowledgeBase knowledgeBase) {
         this.knowledgeBase = knowledgeBase;
-        this.factsPlugin = buildFactsPlugin(aprOptions, useTernayIndex);
+        this.factsPlugin = buildFactsPlugin(aprOptions, useTernayIndex, useColumnarFacts);
         addAtomsToKnowledgeBase(knowledgeBase);
     }
 
@@ -475,10 +527,12 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
     @Override
     public synchronized void setTheory(Theory theory) {
         this.theory = theory;
-        this.featureRules = new HashSet<>();
-        this.program = ProPprUtils.compileTheory(theory, featureRules);
+        this.compiledTheory = new CompiledTheory(theory);
+        this.featureRules = new HashSet<>(compiledTheory.getFeatureRules());
+        this.program = compiledTheory.getProgram();
         if (this.grounder != null) { this.grounder.setProgram(program); }
         if (this.answerer != null) { this.answerer.setProgram(program); }
+        nextTheoryGeneration();
     }
 
     @Override
@@ -513,6 +567,7 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
         FileIOUtils.readClausesToList(new File(workingDirectory, SAVED_FEATURE_THEORY), clauses);
 
         featureRules = new HashSet<>(clauses.size());
+        WamProgram program = new WamOverlayProgram(this.program);
         for (Clause clause : clauses) {
             final Rule rule = ProPprUtils.clauseToRule(clause);
             featureRules.add(rule);
@@ -522,6 +577,10 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
             program.append(rule);
         }
         program.save();
+        this.program = program;
+        if (this.grounder != null) { this.grounder.setProgram(program); }
+        if (this.answerer != null) { this.answerer.setProgram(program); }
+        nextTheoryGeneration();
     }
 
     /**
@@ -530,16 +589,18 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
      * @param aprOptions     the {@link APROptions}
      * @param useTernayIndex if it should spend more memory to create an optimized index for predicates with arity
      *                       bigger than two
+     * @param columnar       if it is to build the {@link ColumnarFactsPlugin}
      * @return the {@link FactsPlugin}
      */
-    protected static FactsPlugin buildFactsPlugin(APROptions aprOptions, boolean useTernayIndex) {
-        FactsPlugin factsPlugin = new FactsPlugin(aprOptions, FACTS_PLUGIN_NAME, useTernayIndex);
+    protected static FactsPlugin buildFactsPlugin(APROptions aprOptions, boolean useTernayIndex, boolean columnar) {
+        FactsPlugin factsPlugin = columnar ? new ColumnarFactsPlugin(aprOptions, FACTS_PLUGIN_NAME, useTernayIndex) :
+                new FactsPlugin(aprOptions, FACTS_PLUGIN_NAME, useTernayIndex);
         addTrueFalseFacts(factsPlugin);
         return factsPlugin;
     }
 
     @Override
-    public void addAtomsToKnowledgeBase(Collection<? extends Atom> atoms) {
+    public synchronized void addAtomsToKnowledgeBase(Collection<? extends Atom> atoms) {
         for (Atom atom : atoms) {
             if (!atom.isGrounded()) {
                 continue;
@@ -551,6 +612,24 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
                 factsPlugin.addFact(atom.getName(), LanguageUtils.toStringCollectionToArray(atom.getTerms()));
             }
         }
+        knowledgeGeneration.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void removeAtomsFromKnowledgeBase(Collection<? extends Atom> atoms) {
+        for (Atom atom : atoms) {
+            if (!atom.isGrounded()) {
+                continue;
+            }
+            factsPlugin.removeFact(atom.getName(), LanguageUtils.toStringCollectionToArray(atom.getTerms()));
+        }
+        knowledgeGeneration.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void replaceAtomsInKnowledgeBase(Collection<? extends Atom> removed,
+                                                         Collection<? extends Atom> added) {
+        super.replaceAtomsInKnowledgeBase(removed, added);
     }
 
     /**
@@ -576,13 +655,20 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
         Map<Integer, Answer<P>> solutions = answerer.findSolutions(converter);
         Map<Example, Map<Atom, Double>> mapSolutions = new HashMap<>();
         Map<Atom, Double> atomMap;
+        int partial = 0;
+        double residual = 0.0;
         for (Map.Entry<Integer, Answer<P>> entry : solutions.entrySet()) {
+            if (entry.getValue().isBudgetExhausted()) {
+                partial++;
+                residual += entry.getValue().getResidual();
+            }
             atomMap = new HashMap<>();
             for (Map.Entry<Query, Double> solution : entry.getValue().getSolutions().entrySet()) {
                 atomMap.put(goalToAtom(solution.getKey().getRhs()[0]), solution.getValue());
             }
             mapSolutions.put(converter.getCountMap().get(entry.getKey()), atomMap);
         }
+        if (partial > 0) { logger.warn(PARTIAL_PROOFS.toString(), partial, solutions.size(), residual); }
 
         return mapSolutions;
     }
@@ -599,11 +685,62 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
                                                      ParamVector<String, ?> paramVector, InMemoryGrounder<P> grounder) {
         SymbolTable<String> symbolTable = new SimpleSymbolTable<>();
         Map<Integer, Ground<P>> map = grounder.groundExamples(iterable, symbolTable);
+        logPartialGrounds(map.values());
+        if (inMemoryTraining) {
+            List<CookedExample> cooked = cookExamples(map.values());
+            if (denseParameters) {
+                ParamVector<String, ?> trained = trainer.trainCooked(symbolTable, cooked,
+                                                                     new ArrayLearningGraphBuilder(),
+                                                                     new DenseParamVector(symbolTable, paramVector,
+                                                                                          hogwildParameters),
+                                                                     numberOfTrainingEpochs);
+                return new SimpleParamVector<>(trained);
+            }
+            return trainer.trainCooked(symbolTable, cooked, new ArrayLearningGraphBuilder(), paramVector.copy(),
+                                       numberOfTrainingEpochs);
+        }
         return trainer.train(symbolTable,
                              map.values().stream().map(Ground::toString).collect(Collectors.toSet()),
                              new ArrayLearningGraphBuilder(), paramVector.copy(), numberOfTrainingEpochs);
     }
 
+    /**
+     * Logs how many of the grounded examples ran out of their proof budget, since they are trained on partial
+     * graphs.
+     *
+     * @param grounds the grounded examples
+     */
+    protected static void logPartialGrounds(Collection<? extends Ground<?>> grounds) {
+        int partial = 0;
+        double residual = 0.0;
+        for (Ground<?> ground : grounds) {
+            if (ground.isBudgetExhausted()) {
+                partial++;
+                residual += ground.getResidual();
+            }
+        }
+        if (partial > 0) { logger.warn(PARTIAL_PROOFS.toString(), partial, grounds.size(), residual); }
+    }
+
+    /**
+     * Gets the in memory equivalent of the grounded examples, without the repeated ones. As the serialized
+     * training, which collects the lines into a {@link Set}, an example is kept only once, no matter how many
+     * times it appears.
+     *
+     * @param grounds the grounded examples
+     * @return the distinct cooked examples
+     */
+    protected static List<CookedExample> cookExamples(Collection<? extends Ground<?>> grounds) {
+        final Set<String> keys = new HashSet<>(grounds.size());
+        final List<CookedExample> cooked = new ArrayList<>(grounds.size());
+        CookedExample example;
+        for (Ground<?> ground : grounds) {
+            example = ground.toCookedExample();
+            if (keys.add(example.getKey())) { cooked.add(example); }
+        }
+        return cooked;
+    }
+
     /**
      * Method to infer the probability of the examples based on the {@link Theory}, {@link KnowledgeBase} and the
      * parameters from the logic engine. The parameters changes due the call of this
@@ -618,7 +755,7 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
     protected Map<Example, Map<Atom, Double>> inferWithTheoryExamples(Iterable<? extends HornClause> theory,
                                                                       IterableConverter<Example, Query> converter) {
         if (theory == null) { return null; }
-        WamProgram wamProgram = ProPprUtils.compileTheory(theory);
+        WamProgram wamProgram = compiledTheory.compile(theory);
         InMemoryQueryAnswerer<P> answerer = buildAnswerer(wamProgram);
         return inferExamples(converter, answerer);
     }
@@ -658,8 +795,7 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
     protected Map<Example, Map<Atom, Double>> inferExamplesAppendingClauses
     (Iterable<? extends HornClause> appendClauses, IterableConverter<Example, Query> converter) {
         if (appendClauses == null) { return null; }
-        WamProgram wamProgram = ProPprUtils.compileTheory(theory);
-        ProPprUtils.appendRuleToProgram(appendClauses, wamProgram);
+        WamProgram wamProgram = compiledTheory.appendClauses(appendClauses);
         InMemoryQueryAnswerer<P> answerer = buildAnswerer(wamProgram);
         return inferExamples(converter, answerer);
     }
@@ -695,4 +831,77 @@ public class ProPprEngineSystemTranslator<P extends ProofGraph> extends EngineSy
         return inferExamples(new QueryIterable(examples), answerer);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Saves the parameters, the epoch counter of the trainer, which drives the learning rate, and the random
+     * generator used to initialize the weights of new features.
+     */
+    @Override
+    public synchronized void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        writeParameters(savedParamVector, output);
+        output.writeBoolean(currentParamVector == savedParamVector);
+        if (currentParamVector != savedParamVector) { writeParameters(currentParamVector, output); }
+        output.writeInt(trainer.getEpoch());
+        final LossData loss = trainer.getLossLastEpoch();
+        output.writeInt(loss != null ? loss.loss.size() : CheckpointOutputStream.NULL_LENGTH);
+        if (loss != null) {
+            for (Map.Entry<LossData.LOSS, Double> entry : loss.loss.entrySet()) {
+                output.writeString(entry.getKey().name());
+                output.writeDouble(entry.getValue());
+            }
+        }
+        output.writeRandom(SRW.getRandom());
+    }
+
+    @Override
+    public synchronized void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        currentParamVector = readParameters(input);
+        saveTrainedParameters();
+        if (!input.readBoolean()) { currentParamVector = readParameters(input); }
+        trainer.setEpoch(input.readInt());
+        final int size = input.readInt();
+        LossData loss = null;
+        if (size != CheckpointOutputStream.NULL_LENGTH) {
+            loss = new LossData();
+            for (int i = 0; i < size; i++) {
+                loss.loss.put(LossData.LOSS.valueOf(input.readString()), input.readDouble());
+            }
+        }
+        trainer.setLossLastEpoch(loss);
+        SRW.setRandom(input.readRandom());
+    }
+
+    /**
+     * Writes the parameters to the checkpoint.
+     *
+     * @param parameters the parameters
+     * @param output     the checkpoint output
+     * @throws IOException if an I/O error has occurred
+     */
+    protected static void writeParameters(ParamVector<String, ?> parameters,
+                                          CheckpointOutputStream output) throws IOException {
+        output.writeInt(parameters.size());
+        for (Map.Entry<String, Double> entry : parameters.entrySet()) {
+            output.writeString(entry.getKey());
+            output.writeDouble(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the parameters from the checkpoint.
+     *
+     * @param input the checkpoint input
+     * @return the parameters
+     * @throws IOException if an I/O error has occurred
+     */
+    protected ParamVector<String, ?> readParameters(CheckpointInputStream input) throws IOException {
+        final int size = input.readInt();
+        final Map<String, Double> parameters = new ConcurrentHashMap<>(DEFAULT_CAPACITY, DEFAULT_LOAD, numberOfThreads);
+        for (int i = 0; i < size; i++) {
+            parameters.put(input.readString(), input.readDouble());
+        }
+        return new SimpleParamVector<>(parameters);
+    }
+
 }
@@ -79,7 +79,22 @@ public final class ProPprUtils {
      */
     protected static Collection<Rule> appendRuleToProgram(Iterable<? extends HornClause> hornClauses,
                                                           WamProgram wamProgram) {
+        return appendRuleToProgram(hornClauses, wamProgram, Collections.emptySet());
+    }
 
+    /**
+     * Appends the {@link HornClause}s to the {@link WamProgram}, skipping the feature rules that are already
+     * compiled into it.
+     *
+     * @param hornClauses          the {@link HornClause}s
+     * @param wamProgram           the {@link WamProgram}
+     * @param compiledFeatureRules the string representation, before variabilization, of the feature rules
+     *                             already in the {@link WamProgram}
+     * @return the feature rules generates by the theory
+     */
+    protected static Collection<Rule> appendRuleToProgram(Iterable<? extends HornClause> hornClauses,
+                                                          WamProgram wamProgram,
+                                                          Set<String> compiledFeatureRules) {
         Collection<Rule> featureRules = new HashSet<>();
         for (HornClause hornClause : hornClauses) {
             final Rule rule = clauseToRule(hornClause, featureRules);
@@ -90,6 +105,7 @@ public final class ProPprUtils {
         }
 
         for (Rule rule : featureRules) {
+            if (compiledFeatureRules.contains(rule.toString())) { continue; }
             rule.variabilize();
             wamProgram.append(new Instruction(Instruction.OP.comment, rule.toString()));
             wamProgram.insertLabel(getLabelForRule(rule));
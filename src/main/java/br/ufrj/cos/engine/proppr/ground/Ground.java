@@ -30,6 +30,7 @@
 package br.ufrj.cos.engine.proppr.ground;
 
 import edu.cmu.ml.proppr.Grounder;
+import edu.cmu.ml.proppr.examples.CookedExample;
 import edu.cmu.ml.proppr.examples.GroundedExample;
 import edu.cmu.ml.proppr.examples.InferenceExample;
 import edu.cmu.ml.proppr.prove.Prover;
@@ -77,6 +78,8 @@ public class Ground<P extends ProofGraph> implements Callable<Ground<P>> {
 
     protected P proofGraph = null;
     protected GroundedExample groundedExample;
+    protected double residual;
+    protected boolean budgetExhausted;
 
     /**
      * Constructor with needed parameters.
@@ -132,7 +135,7 @@ public class Ground<P extends ProofGraph> implements Callable<Ground<P>> {
     }
 
     /**
-     * Grounds the iterator using the {@link Prover}.
+     * Grounds the iterator using the {@link Prover}, keeping the residual of its proof.
      *
      * @param prover the {@link Prover}
      * @return the {@link GroundedExample}
@@ -142,6 +145,8 @@ public class Ground<P extends ProofGraph> implements Callable<Ground<P>> {
         logger.trace(GROUNDING_EXAMPLE.toString(), proofGraph.getExample().toString());
 
         Map<State, Double> ans = prover.prove(proofGraph, status);
+        residual = prover.getResidual();
+        budgetExhausted = prover.isBudgetExhausted();
 
         return proofGraph.makeRWExample(ans);
     }
@@ -164,6 +169,33 @@ public class Ground<P extends ProofGraph> implements Callable<Ground<P>> {
         return groundedExample;
     }
 
+    /**
+     * Gets the mass the proof of the example left unpushed to the grounding.
+     *
+     * @return the residual mass of the proof
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * Checks whether the proof of the example ran out of its budget, in which case the grounding is partial.
+     *
+     * @return {@code true} if the budget of the proof was exhausted
+     */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /**
+     * Gets the in memory equivalent of the serialized {@link GroundedExample}, to be used in the training.
+     *
+     * @return the {@link CookedExample}
+     */
+    public CookedExample toCookedExample() {
+        return proofGraph.cook(groundedExample);
+    }
+
     @Override
     public String toString() {
         if (proofGraph != null && groundedExample != null) {
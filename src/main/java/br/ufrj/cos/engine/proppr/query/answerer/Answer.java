@@ -79,6 +79,8 @@ public class Answer<P extends ProofGraph> implements Callable<Answer<P>> {
     protected final StatusLogger status;
 
     protected Map<Query, Double> solutions;
+    protected double residual;
+    protected boolean budgetExhausted;
 
     /**
      * Constructor with the needed parameters.
@@ -160,7 +162,8 @@ public class Answer<P extends ProofGraph> implements Callable<Answer<P>> {
     }
 
     /**
-     * Tries to prove the examples and make the {@link ProofGraph}.
+     * Tries to prove the examples and make the {@link ProofGraph}. Keeps the residual of the proof, since the
+     * prover is a copy used only by this answer.
      *
      * @param prover the {@link Prover}
      * @param pg     the initial {@link ProofGraph}
@@ -168,7 +171,10 @@ public class Answer<P extends ProofGraph> implements Callable<Answer<P>> {
      */
     protected Map<State, Double> prove(Prover<P> prover, P pg) {
         try {
-            return prover.prove(pg, status);
+            Map<State, Double> dist = prover.prove(pg, status);
+            residual = prover.getResidual();
+            budgetExhausted = prover.isBudgetExhausted();
+            return dist;
         } catch (LogicProgramException ignored) {
             logger.trace(ERROR_PROVING_GOAL.toString(), Arrays.deepToString(query.getRhs()));
         }
@@ -184,4 +190,22 @@ public class Answer<P extends ProofGraph> implements Callable<Answer<P>> {
         return solutions;
     }
 
+    /**
+     * Gets the mass the proof of the query left unpushed to the solutions.
+     *
+     * @return the residual mass of the proof
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * Checks whether the proof of the query ran out of its budget, in which case the solutions are partial.
+     *
+     * @return {@code true} if the budget of the proof was exhausted
+     */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
 }
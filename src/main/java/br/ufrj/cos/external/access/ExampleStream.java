@@ -27,16 +27,275 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+
 package br.ufrj.cos.external.access;
 
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.manager.IncomingExampleManager;
+import br.ufrj.cos.logic.parser.example.ExampleParser;
+import br.ufrj.cos.logic.parser.example.ParseException;
+import br.ufrj.cos.util.ExceptionMessages;
+import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.Initializable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static br.ufrj.cos.util.log.IncomingExampleLog.*;
+
 /**
- * Responsible for reading atomExamples from an outside source.
+ * Responsible for reading examples from an outside source, as a stream.
+ * <p>
+ * The examples are read, one per line, by a separated thread and kept in a bounded buffer, until they are taken to
+ * be revised. When the buffer is full, the reading blocks until there is space in the buffer, so the source is only
+ * read as fast as the examples are revised, and the memory used by the stream does not depend on its size.
  * <p>
  * Created on 24/04/17.
  *
  * @author Victor Guimarães
  */
-@SuppressWarnings({"ClassIndependentOfModule", "unused"})
-public class ExampleStream {
+public abstract class ExampleStream implements Initializable, Closeable {
+
+    /**
+     * The logger
+     */
+    public static final Logger logger = LogManager.getLogger();
+    /**
+     * The default maximum number of examples kept in the buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+    /**
+     * The default interval to wait for new data, in milliseconds.
+     */
+    public static final long DEFAULT_POLL_INTERVAL = 1000;
+    /**
+     * The value to wait for new examples indefinitely.
+     */
+    public static final long NO_IDLE_TIMEOUT = 0;
+    /**
+     * The name of the reading thread.
+     */
+    public static final String READING_THREAD_NAME = "ExampleStream";
+
+    /**
+     * The path of the source of the examples.
+     */
+    public String path;
+    /**
+     * The maximum number of examples kept in the buffer.
+     */
+    public int bufferSize = DEFAULT_BUFFER_SIZE;
+    /**
+     * If it is to keep waiting for new data when the end of the source is reached. If {@code false}, the stream
+     * ends at the end of the source.
+     */
+    public boolean follow = true;
+    /**
+     * The interval to wait for new data, in milliseconds.
+     */
+    public long pollInterval = DEFAULT_POLL_INTERVAL;
+    /**
+     * The maximum time, in milliseconds, to wait for a new example, before ending the stream. Use
+     * {@link #NO_IDLE_TIMEOUT} to wait indefinitely.
+     */
+    public long idleTimeout = NO_IDLE_TIMEOUT;
+
+    protected BlockingQueue<Example> buffer;
+    protected ExampleParser parser;
+    protected volatile boolean closed = false;
+    protected volatile boolean ended = false;
+    protected Thread reader;
+
+    @Override
+    public void initialize() throws InitializationException {
+        if (path == null) {
+            throw new InitializationException(ExceptionMessages.errorFieldsSet(this, "path"));
+        }
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        parser = new ExampleParser(new StringReader(""));
+    }
+
+    /**
+     * Starts reading the examples from the source.
+     */
+    public synchronized void start() {
+        if (reader != null) { return; }
+        logger.info(STREAM_STARTED.toString(), getClass().getSimpleName(), path);
+        reader = new Thread(this::readStream, READING_THREAD_NAME);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Reads the source until its end, or until the stream is closed.
+     */
+    protected void readStream() {
+        try {
+            readExamples();
+        } catch (IOException e) {
+            logger.error(ERROR_READING_STREAM.toString(), e);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ended = true;
+        }
+    }
+
+    /**
+     * Reads the examples from the source, passing each line to {@link #readLine(String)}. This method must return
+     * when the source ends or when the stream is closed.
+     *
+     * @throws IOException          if an I/O error has occurred
+     * @throws InterruptedException if the thread is interrupted
+     */
+    protected abstract void readExamples() throws IOException, InterruptedException;
+
+    /**
+     * Reads the lines available in the reader, until it reaches its end. The last line is only read if it is
+     * complete, otherwise, it is kept in the pending builder, to be completed by subsequent calls.
+     *
+     * @param reader  the reader
+     * @param pending the incomplete line from previous calls
+     * @throws IOException          if an I/O error has occurred
+     * @throws InterruptedException if the thread is interrupted
+     */
+    protected void readLines(Reader reader, StringBuilder pending) throws IOException, InterruptedException {
+        int c;
+        while (!closed && (c = reader.read()) != -1) {
+            if (c == '\n') {
+                readLine(pending.toString());
+                pending.setLength(0);
+            } else {
+                pending.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Reads the incomplete line as a complete one, since the source has ended.
+     *
+     * @param pending the incomplete line
+     * @throws InterruptedException if the thread is interrupted
+     */
+    protected void flushLine(StringBuilder pending) throws InterruptedException {
+        if (pending.length() > 0) {
+            readLine(pending.toString());
+            pending.setLength(0);
+        }
+    }
+
+    /**
+     * Parses the examples in the line and puts them in the buffer, waiting for space in the buffer, if necessary.
+     *
+     * @param line the line
+     * @throws InterruptedException if the thread is interrupted while waiting for space in the buffer
+     */
+    @SuppressWarnings("unchecked")
+    protected void readLine(String line) throws InterruptedException {
+        if (line.trim().isEmpty()) { return; }
+        List<AtomExample> atomExamples = new ArrayList<>();
+        List<ProPprExample> proPprExamples = new ArrayList<>();
+        try {
+            parser.ReInit(new StringReader(line));
+            parser.parseExamplesAppend(atomExamples, proPprExamples);
+        } catch (ParseException e) {
+            logger.error(ERROR_PARSING_STREAM_LINE.toString(), line, e.getMessage());
+            return;
+        }
+        for (ProPprExample example : proPprExamples) { buffer.put(example); }
+        for (AtomExample example : atomExamples) { buffer.put(example); }
+    }
+
+    /**
+     * Takes the next batch of examples from the stream. Waits until there is, at least, one example in the buffer,
+     * or the stream ends.
+     *
+     * @param batchSize the maximum size of the batch
+     * @return the batch, empty if the stream has ended
+     * @throws InterruptedException if the thread is interrupted while waiting for examples
+     */
+    public List<Example> nextBatch(int batchSize) throws InterruptedException {
+        List<Example> batch = new ArrayList<>(Math.max(batchSize, 1));
+        long idle = 0;
+        Example example;
+        while (true) {
+            example = buffer.poll(pollInterval, TimeUnit.MILLISECONDS);
+            if (example != null) { break; }
+            if (ended && buffer.isEmpty() || closed) { return batch; }
+            idle += pollInterval;
+            if (idleTimeout > NO_IDLE_TIMEOUT && idle >= idleTimeout) {
+                logger.info(STREAM_IDLE_TIMEOUT.toString(), idleTimeout);
+                return batch;
+            }
+        }
+        batch.add(example);
+        buffer.drainTo(batch, batchSize - 1);
+        return batch;
+    }
+
+    /**
+     * Passes the examples from the stream to the {@link IncomingExampleManager}, in batches, until the stream ends.
+     * Since the {@link IncomingExampleManager} revises the examples before returning, the stream is read as fast
+     * as the examples are revised.
+     *
+     * @param manager   the {@link IncomingExampleManager}
+     * @param batchSize the maximum number of examples passed at once
+     * @return the number of examples passed
+     */
+    public long feed(IncomingExampleManager manager, int batchSize) {
+        start();
+        long count = 0;
+        try {
+            List<Example> batch;
+            while (!(batch = nextBatch(batchSize)).isEmpty()) {
+                count += batch.size();
+                logger.debug(PASSING_STREAM_EXAMPLES.toString(), batch.size(), count);
+                if (batch.size() == 1) {
+                    manager.incomingExamples(batch.get(0));
+                } else {
+                    manager.incomingExamples(batch);
+                }
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info(STREAM_ENDED.toString(), count);
+        return count;
+    }
+
+    /**
+     * Sleeps for the poll interval, waiting for new data.
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    protected void waitForData() throws InterruptedException {
+        Thread.sleep(pollInterval);
+    }
+
+    /**
+     * Checks if the stream has ended, either by the end of the source or by being closed.
+     *
+     * @return {@code true} if it has, otherwise {@code false}
+     */
+    public boolean hasEnded() {
+        return closed || ended && buffer.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (reader != null) { reader.interrupt(); }
+    }
 
 }
@@ -0,0 +1,148 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.external.access;
+
+import br.ufrj.cos.util.FileIOUtils;
+
+import java.io.*;
+import java.util.Arrays;
+
+import static br.ufrj.cos.util.log.IncomingExampleLog.READING_STREAM_FILE;
+
+/**
+ * Reads the examples from a file, or from the files of a directory, as they are written.
+ * <p>
+ * If the path is a file, it is read as it grows, in the same way as {@code tail -f}. If the path is a directory, the
+ * files with the {@link #extension} are read, in the order of their names, as they appear in the directory; the
+ * newest file is read as it grows, until a newer file appears, so the files must be named in the order they are
+ * written (e.g. by a timestamp).
+ */
+public class FileTailExampleStream extends ExampleStream {
+
+    /**
+     * The default extension of the example files.
+     */
+    public static final String DEFAULT_EXTENSION = ".data";
+
+    /**
+     * The extension of the example files, when reading from a directory.
+     */
+    public String extension = DEFAULT_EXTENSION;
+
+    @Override
+    protected void readExamples() throws IOException, InterruptedException {
+        File file = new File(path);
+        if (file.isDirectory()) {
+            readDirectory(file);
+        } else {
+            readFile(file);
+        }
+    }
+
+    /**
+     * Reads the file, waiting for it to grow, if {@link #follow} is {@code true}.
+     *
+     * @param file the file
+     * @throws IOException          if an I/O error has occurred
+     * @throws InterruptedException if the thread is interrupted
+     */
+    protected void readFile(File file) throws IOException, InterruptedException {
+        while (follow && !closed && !file.exists()) { waitForData(); }
+        final StringBuilder pending = new StringBuilder();
+        try (Reader reader = openFile(file)) {
+            while (!closed) {
+                readLines(reader, pending);
+                if (!follow) { break; }
+                waitForData();
+            }
+        }
+        // the last line may still be being written, if the stream was closed
+        if (!closed) { flushLine(pending); }
+    }
+
+    /**
+     * Reads the files of the directory, in the order of their names, waiting for new files, if {@link #follow} is
+     * {@code true}.
+     * <p>
+     * The newest file is read as it grows, in the same way as a single file, until a newer file appears. Then, the
+     * rest of the file is read and its last line is taken as complete, even without the line break.
+     *
+     * @param directory the directory
+     * @throws IOException          if an I/O error has occurred
+     * @throws InterruptedException if the thread is interrupted
+     */
+    protected void readDirectory(File directory) throws IOException, InterruptedException {
+        final FilenameFilter filter = (dir, name) -> name.endsWith(extension);
+        final StringBuilder pending = new StringBuilder();
+        String current = null;
+        Reader reader = null;
+        File[] files;
+        try {
+            while (!closed) {
+                files = directory.listFiles(filter);
+                if (files != null) {
+                    Arrays.sort(files);
+                    for (File file : files) {
+                        if (closed) { return; }
+                        if (current != null && file.getName().compareTo(current) <= 0) { continue; }
+                        if (reader != null) {
+                            // a newer file has appeared, so the current one is complete
+                            readLines(reader, pending);
+                            reader.close();
+                            flushLine(pending);
+                        }
+                        current = file.getName();
+                        reader = openFile(file);
+                    }
+                }
+                if (reader != null) { readLines(reader, pending); }
+                if (!follow) { break; }
+                waitForData();
+            }
+        } finally {
+            if (reader != null) { reader.close(); }
+        }
+        if (!closed) { flushLine(pending); }
+    }
+
+    /**
+     * Opens the file to be read.
+     *
+     * @param file the file
+     * @return the reader of the file
+     * @throws IOException if an I/O error has occurred
+     */
+    protected Reader openFile(File file) throws IOException {
+        logger.debug(READING_STREAM_FILE.toString(), file.getAbsolutePath());
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), FileIOUtils.DEFAULT_INPUT_ENCODE));
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.external.access;
+
+import br.ufrj.cos.util.FileIOUtils;
+
+import java.io.*;
+
+import static br.ufrj.cos.util.log.IncomingExampleLog.READING_STREAM_FILE;
+
+/**
+ * Reads the examples from a named pipe (a FIFO, created by {@code mkfifo}), allowing other local processes to write
+ * the examples to the learning system.
+ * <p>
+ * The pipe is read until the last writer closes it. If {@link #follow} is {@code true}, the pipe is opened again,
+ * waiting for the next writer.
+ */
+public class NamedPipeExampleStream extends ExampleStream {
+
+    @Override
+    protected void readExamples() throws IOException, InterruptedException {
+        final File pipe = new File(path);
+        final StringBuilder pending = new StringBuilder();
+        while (!closed) {
+            logger.debug(READING_STREAM_FILE.toString(), pipe.getAbsolutePath());
+            // blocks until a writer opens the pipe
+            try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(pipe),
+                                                                          FileIOUtils.DEFAULT_INPUT_ENCODE))) {
+                readLines(reader, pending);
+            }
+            flushLine(pending);
+            if (!follow) { break; }
+        }
+    }
+
+}
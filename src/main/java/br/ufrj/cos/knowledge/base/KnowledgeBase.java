@@ -40,7 +40,6 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.*;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static br.ufrj.cos.util.log.SystemLog.ERROR_UPDATING_KNOWLEDGE_BASE_GRAPH;
 
@@ -54,6 +53,10 @@ import static br.ufrj.cos.util.log.SystemLog.ERROR_UPDATING_KNOWLEDGE_BASE_GRAPH
  * {@link #rebuildCache()} method after any change on the {@link Collection}, this will rebuild all the cache from
  * scratch.
  * <p>
+ * The searches over the graph are performed over an immutable {@link KnowledgeBaseIndex} snapshot of the caches, so
+ * they can be called concurrently without locking. The changes on the caches are synchronized and record the
+ * changed {@link Term}s, which the next search uses to update the snapshot.
+ * <p>
  * Created on 24/04/17.
  *
  * @author Victor Guimarães
@@ -72,6 +75,18 @@ public class KnowledgeBase extends Knowledge<Atom> {
      * A map of the term and its neighbours. Two terms are neighbours if the appears in the same atom.
      */
     protected final Map<Term, Set<Term>> termNeighbours;
+    /**
+     * The {@link Term}s whose neighbours or atoms have changed since the last snapshot.
+     */
+    protected final Set<Term> changedTerms;
+    /**
+     * The snapshot of the caches, it is {@code null} when the caches must be built from scratch.
+     */
+    protected volatile KnowledgeBaseIndex index;
+    /**
+     * If the caches have changed since the last snapshot.
+     */
+    protected volatile boolean outdated;
     /**
      * The class to be used on the {@link Set}s within the {@link Map}s
      */
@@ -87,6 +102,7 @@ public class KnowledgeBase extends Knowledge<Atom> {
         super(atoms);
         termAtomMap = new HashMap<>();
         termNeighbours = new HashMap<>();
+        changedTerms = new HashSet<>();
         try {
             for (Atom atom : atoms) {
                 addAtomToMaps(atom);
@@ -106,15 +122,40 @@ public class KnowledgeBase extends Knowledge<Atom> {
      * @return the shortest path between the terms
      */
     public Collection<Term[]> shortestPath(Term source, Term destination, int maximumDistance) {
-        if (!getTerms().contains(source) || !getTerms().contains(destination)) { return null; }
+        KnowledgeBaseIndex index = getIndex();
+        if (index.getIndex(source) == KnowledgeBaseIndex.NO_TERM ||
+                index.getIndex(destination) == KnowledgeBaseIndex.NO_TERM) { return null; }
 
-        if (source.equals(destination) || termNeighbours.get(source).contains(destination)) {
+        if (source.equals(destination) || index.getNeighbours(source).contains(destination)) {
             return Collections.singleton(new Term[]{source, destination});
         }
 
         return findShortestPath(source, destination, maximumDistance);
     }
 
+    /**
+     * Gets the snapshot of the caches, updating it if the caches have changed since the last snapshot.
+     *
+     * @return the snapshot of the caches
+     */
+    public KnowledgeBaseIndex getIndex() {
+        KnowledgeBaseIndex current = index;
+        if (current == null || outdated) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new KnowledgeBaseIndex(termAtomMap, termNeighbours);
+                } else if (outdated) {
+                    current = current.update(changedTerms, termAtomMap, termNeighbours);
+                }
+                changedTerms.clear();
+                outdated = false;
+                index = current;
+            }
+        }
+        return current;
+    }
+
     /**
      * Gets the {@link Set} of {@link Term}s in the base
      *
@@ -134,6 +175,7 @@ public class KnowledgeBase extends Knowledge<Atom> {
         super(atoms, acceptPredicate);
         termAtomMap = new HashMap<>();
         termNeighbours = new HashMap<>();
+        changedTerms = new HashSet<>();
     }
 
     /**
@@ -144,37 +186,39 @@ public class KnowledgeBase extends Knowledge<Atom> {
      * @param relevantsDepth the depth of the relevant breadth first search
      * @return the relevant {@link Atom}s to the seed {@link Term}s
      */
-    @SuppressWarnings({"OverlyLongMethod"})
     public Set<Atom> baseBreadthFirstSearch(Iterable<? extends Term> terms, int relevantsDepth) {
-        Map<Term, Integer> termDistance = new HashMap<>();
-        Queue<Term> queue = new ArrayDeque<>();
+        KnowledgeBaseIndex index = getIndex();
+        BitSet visited = new BitSet(index.size());
+        int[] queue = new int[16];
+        int size = 0;
         Set<Atom> atoms = new HashSet<>();
 
-        for (Term term : terms) {
-            termDistance.put(term, 0);
-            queue.add(term);
+        int term;
+        for (Term seed : terms) {
+            term = index.getIndex(seed);
+            if (term == KnowledgeBaseIndex.NO_TERM || visited.get(term)) { continue; }
+            visited.set(term);
+            queue = append(queue, size++, term);
         }
 
-        Set<Atom> atomSet;
-        Term currentTerm;
-        Integer currentDistance;
-        Integer previousDistance = 0;
-        while (!queue.isEmpty()) {
-            currentTerm = queue.poll();
-            currentDistance = termDistance.get(currentTerm);
-
-            if (!Objects.equals(currentDistance, previousDistance)) {
-                previousDistance = currentDistance;
+        int current = 0;
+        int levelEnd = size;
+        int currentDistance = 0;
+        int neighbour;
+        while (current < size) {
+            if (current == levelEnd) {
+                levelEnd = size;
+                currentDistance++;
             }
-
-            atomSet = getAtomsWithTerm(currentTerm);
-            atoms.addAll(atomSet);
+            term = queue[current++];
+            atoms.addAll(index.getAtoms(term));
 
             if (relevantsDepth == LearningSystem.NO_MAXIMUM_DEPTH || currentDistance < relevantsDepth) {
-                for (Term neighbour : getTermNeighbours(currentTerm)) {
-                    if (!termDistance.containsKey(neighbour)) {
-                        termDistance.put(neighbour, currentDistance + 1);
-                        queue.add(neighbour);
+                for (int i = 0; i < index.getNumberOfNeighbours(term); i++) {
+                    neighbour = index.getNeighbour(term, i);
+                    if (!visited.get(neighbour)) {
+                        visited.set(neighbour);
+                        queue = append(queue, size++, neighbour);
                     }
                 }
             }
@@ -183,6 +227,20 @@ public class KnowledgeBase extends Knowledge<Atom> {
         return atoms;
     }
 
+    /**
+     * Appends the value to the array, growing it if needed.
+     *
+     * @param array the array
+     * @param size  the number of values in the array
+     * @param value the value
+     * @return the array with the value
+     */
+    protected static int[] append(int[] array, int size, int value) {
+        int[] result = size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+        result[size] = value;
+        return result;
+    }
+
     /**
      * Gets the {@link Set} of {@link Atom}s which have the given {@link Term}
      *
@@ -190,7 +248,7 @@ public class KnowledgeBase extends Knowledge<Atom> {
      * @return the {@link Set} of {@link Atom}s
      */
     public Set<Atom> getAtomsWithTerm(Term term) {
-        return termAtomMap.getOrDefault(term, Collections.emptySet());
+        return getIndex().getAtoms(term);
     }
 
     /**
@@ -201,12 +259,17 @@ public class KnowledgeBase extends Knowledge<Atom> {
      * @return the {@link Set} of neighbours
      */
     public Set<Term> getTermNeighbours(Term term) {
-        return termNeighbours.getOrDefault(term, Collections.emptySet());
+        return getIndex().getNeighbours(term);
     }
 
     /**
      * Finds the shortest path, of at most maximumDistance long, between two terms in the knowledge base, if such path
      * exists.
+     * <p>
+     * The search is a bidirectional breadth-first search over the {@link KnowledgeBaseIndex}, expanding, at each step,
+     * a whole level of the side with the smallest frontier. When a level reaches terms already reached by the other
+     * side, those terms are exactly the ones in the middle of the shortest paths, so all the shortest paths are built
+     * from them.
      *
      * @param source          the source term
      * @param destination     the destination term
@@ -215,85 +278,120 @@ public class KnowledgeBase extends Knowledge<Atom> {
      */
     @SuppressWarnings({"OverlyComplexMethod", "OverlyLongMethod"})
     protected Collection<Term[]> findShortestPath(Term source, Term destination, int maximumDistance) {
-        Map<Term, Integer> distanceForVertex = new HashMap<>();
-        Map<Term, Set<Term>> predecessorForVertex = new HashMap<>();
-
-        distanceForVertex.put(source, 0);
-
-        Queue<Term> queue = new ArrayDeque<>();
-        queue.add(source);
-        Term current;
-        Integer distance;
-        boolean found = false;
-        int previousDistance = 0;
-        while (!queue.isEmpty()) {
-            current = queue.poll();
-            distance = distanceForVertex.get(current);
-            if (found && distance > previousDistance) {
-                break;
-            }
-            previousDistance = distance;
-            if (maximumDistance > 0 && distance > maximumDistance - 1) {
-                break;
-            }
+        KnowledgeBaseIndex index = getIndex();
+        int sourceIndex = index.getIndex(source);
+        int destinationIndex = index.getIndex(destination);
+        if (sourceIndex == KnowledgeBaseIndex.NO_TERM || destinationIndex == KnowledgeBaseIndex.NO_TERM) {
+            return null;
+        }
 
-            for (Term neighbor : termNeighbours.get(current)) {
-                predecessorForVertex.computeIfAbsent(neighbor, k -> new HashSet<>()).add(current);
-                if (!distanceForVertex.containsKey(neighbor)) {
-                    distanceForVertex.put(neighbor, distance + 1);
-                    queue.add(neighbor);
-                }
+        Map<Integer, Integer> sourceDistances = new HashMap<>();
+        Map<Integer, Integer> destinationDistances = new HashMap<>();
+        sourceDistances.put(sourceIndex, 0);
+        destinationDistances.put(destinationIndex, 0);
+        List<Integer> sourceFrontier = Collections.singletonList(sourceIndex);
+        List<Integer> destinationFrontier = Collections.singletonList(destinationIndex);
+        int sourceDepth = 0;
+        int destinationDepth = 0;
+        List<Integer> middle = new ArrayList<>();
+        while (middle.isEmpty()) {
+            if (sourceFrontier.isEmpty() || destinationFrontier.isEmpty()) { return null; }
+            if (maximumDistance > 0 && sourceDepth + destinationDepth >= maximumDistance) { return null; }
+            if (sourceFrontier.size() <= destinationFrontier.size()) {
+                sourceFrontier = expandLevel(index, sourceFrontier, ++sourceDepth, sourceDistances,
+                                             destinationDistances, middle);
+            } else {
+                destinationFrontier = expandLevel(index, destinationFrontier, ++destinationDepth,
+                                                  destinationDistances, sourceDistances, middle);
+            }
+        }
 
-                if (neighbor.equals(destination)) {
-                    found = true;
-                    break;
+        Collection<Term[]> paths = new ArrayList<>();
+        final int pathLength = sourceDepth + destinationDepth;
+        for (Integer term : middle) {
+            for (int[] head : buildPaths(index, term, sourceDistances)) {
+                for (int[] tail : buildPaths(index, term, destinationDistances)) {
+                    Term[] path = new Term[pathLength + 1];
+                    for (int i = 0; i < head.length; i++) {
+                        path[i] = index.getTerm(head[head.length - 1 - i]);
+                    }
+                    for (int i = 1; i < tail.length; i++) {
+                        path[head.length - 1 + i] = index.getTerm(tail[i]);
+                    }
+                    paths.add(path);
                 }
             }
         }
 
-        if (!found) { return null; }
-        return buildPaths(source, destination, predecessorForVertex, distanceForVertex.get(destination));
+        return paths;
     }
 
     /**
-     * Builds the paths based on the predecessors then filters it by the ones that starts on source and ends on
-     * destination.
+     * Expands a level of one side of the bidirectional breadth-first search.
      *
-     * @param source               the source of the path
-     * @param destination          the destination of the path
-     * @param predecessorForVertex the predecessors of the terms
-     * @param pathLength           the length of the path
-     * @return the paths that starts on source and ends on destination
+     * @param index          the snapshot of the graph
+     * @param frontier       the terms in the last level of the side
+     * @param distance       the distance of the new level
+     * @param distances      the distances of the terms reached by the side
+     * @param otherDistances the distances of the terms reached by the other side
+     * @param middle         the terms reached by both sides, to be filled
+     * @return the terms of the new level
      */
-    protected static Collection<Term[]> buildPaths(Term source, Term destination,
-                                                   Map<Term, Set<Term>> predecessorForVertex, int pathLength) {
-        Queue<Term[]> queue = new ArrayDeque<>();
-        queue.add(new Term[]{destination});
-        Term[] currentArray;
-        Term[] auxiliary;
-        int size;
-
-        for (int i = pathLength - 1; i > -1; i--) {
-            size = queue.size();
-            for (int j = 0; j < size; j++) {
-                currentArray = queue.poll();
-                for (Term predecessor : predecessorForVertex.get(currentArray[0])) {
-                    auxiliary = new Term[currentArray.length + 1];
-                    System.arraycopy(currentArray, 0, auxiliary, 1, currentArray.length);
-                    auxiliary[0] = predecessor;
-                    queue.add(auxiliary);
+    protected static List<Integer> expandLevel(KnowledgeBaseIndex index, List<Integer> frontier, int distance,
+                                               Map<Integer, Integer> distances,
+                                               Map<Integer, Integer> otherDistances, List<Integer> middle) {
+        List<Integer> level = new ArrayList<>();
+        int neighbour;
+        for (Integer term : frontier) {
+            for (int i = 0; i < index.getNumberOfNeighbours(term); i++) {
+                neighbour = index.getNeighbour(term, i);
+                if (distances.putIfAbsent(neighbour, distance) == null) {
+                    level.add(neighbour);
+                    if (otherDistances.containsKey(neighbour)) { middle.add(neighbour); }
                 }
             }
         }
+        return level;
+    }
 
-        return queue.stream().filter(a -> a[0].equals(source) && a[a.length - 1].equals(destination))
-                .collect(Collectors.toSet());
+    /**
+     * Builds all the shortest paths from the term back to the origin of a side of the bidirectional breadth-first
+     * search. The paths start at the term and end at the origin.
+     *
+     * @param index     the snapshot of the graph
+     * @param term      the term
+     * @param distances the distances of the terms reached by the side
+     * @return the paths from the term to the origin of the side
+     */
+    protected static List<int[]> buildPaths(KnowledgeBaseIndex index, int term, Map<Integer, Integer> distances) {
+        final int length = distances.get(term);
+        List<int[]> paths = new ArrayList<>();
+        int[] first = new int[length + 1];
+        first[0] = term;
+        paths.add(first);
+        int neighbour;
+        for (int step = 1; step <= length; step++) {
+            List<int[]> extended = new ArrayList<>();
+            for (int[] path : paths) {
+                int last = path[step - 1];
+                for (int i = 0; i < index.getNumberOfNeighbours(last); i++) {
+                    neighbour = index.getNeighbour(last, i);
+                    if (distances.getOrDefault(neighbour, -1) == length - step) {
+                        int[] next = path.clone();
+                        next[step] = neighbour;
+                        extended.add(next);
+                    }
+                }
+            }
+            paths = extended;
+        }
+        return paths;
     }
 
     /**
      * Clears and rebuilds all the cache from scratch.
      */
-    public void rebuildCache() {
+    public synchronized void rebuildCache() {
         termAtomMap.clear();
         termNeighbours.clear();
         for (Atom atom : this) {
@@ -303,6 +401,8 @@ public class KnowledgeBase extends Knowledge<Atom> {
                 logger.error(ERROR_UPDATING_KNOWLEDGE_BASE_GRAPH.toString(), e);
             }
         }
+        changedTerms.clear();
+        index = null;
     }
 
     /**
@@ -312,7 +412,9 @@ public class KnowledgeBase extends Knowledge<Atom> {
      * @throws InstantiationException if an error occurs when instantiating a new set
      * @throws IllegalAccessException if an error occurs when instantiating a new set
      */
-    protected void addAtomToMaps(Atom atom) throws InstantiationException, IllegalAccessException {
+    protected synchronized void addAtomToMaps(Atom atom) throws InstantiationException, IllegalAccessException {
+        changedTerms.addAll(atom.getTerms());
+        outdated = true;
         for (Term term : atom.getTerms()) {
             MapUtils.assertExistsSet(termAtomMap, MAP_SET_CLASS, term).add(atom);
             addNeighbour(term, atom);
@@ -415,8 +517,12 @@ public class KnowledgeBase extends Knowledge<Atom> {
     @Override
     public void clear() {
         super.clear();
-        termAtomMap.clear();
-        termNeighbours.clear();
+        synchronized (this) {
+            termAtomMap.clear();
+            termNeighbours.clear();
+            changedTerms.clear();
+            index = null;
+        }
     }
 
     /**
@@ -424,7 +530,9 @@ public class KnowledgeBase extends Knowledge<Atom> {
      *
      * @param atom the removed atom
      */
-    protected void removeAtomFromMaps(Atom atom) {
+    protected synchronized void removeAtomFromMaps(Atom atom) {
+        changedTerms.addAll(atom.getTerms());
+        outdated = true;
         for (Term term : atom.getTerms()) {
             removeAtomFromMaps(term, atom);
         }
@@ -459,6 +567,7 @@ public class KnowledgeBase extends Knowledge<Atom> {
     protected void removeTermFromMaps(Term term) {
         Set<Term> neighbours = termNeighbours.get(term);
         Set<Term> reflexNeighbours;
+        changedTerms.addAll(neighbours);
         for (Term neighbour : neighbours) {
             reflexNeighbours = termNeighbours.get(neighbour);
             if (reflexNeighbours != null) {
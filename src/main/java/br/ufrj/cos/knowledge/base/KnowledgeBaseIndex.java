@@ -0,0 +1,471 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.knowledge.base;
+
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Term;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of the graph of the {@link KnowledgeBase}, where each {@link Term} is coded by an integer and
+ * both the neighbours and the {@link Atom}s of the {@link Term}s are kept in compressed sparse row arrays. Since it
+ * never changes, it can be read by many threads without locking; the {@link KnowledgeBase} builds a new snapshot
+ * when it is changed.
+ * <p>
+ * The new snapshot shares the arrays of the previous one and keeps, next to them, a delta with the neighbours and
+ * the {@link Atom}s of the {@link Term}s changed since the arrays were built. The {@link Term}s keep their indexes,
+ * the new ones are numbered after the existing ones. When the delta grows beyond {@link #MAXIMUM_DELTA_RATIO} of
+ * the {@link Term}s, the arrays are built again from the maps of the {@link KnowledgeBase}.
+ * <p>
+ * The neighbours and the {@link Atom}s of each {@link Term} keep the iteration order of the sets of the
+ * {@link KnowledgeBase} from which the snapshot was built, so the searches over the snapshot visit the
+ * {@link Term}s in the same order as they would over the sets. A sorted copy of each of them is also kept, so the
+ * views can check if they contain an element by binary search.
+ */
+public class KnowledgeBaseIndex {
+
+    /**
+     * The index of a term that does not appear in the snapshot.
+     */
+    public static final int NO_TERM = -1;
+    /**
+     * The proportion of the {@link Term}s that may be in the delta, before the arrays are built again.
+     */
+    public static final double MAXIMUM_DELTA_RATIO = 0.25;
+    /**
+     * The order of the sorted copy of the {@link Atom}s.
+     */
+    protected static final Comparator<Atom> ATOM_ORDER = Comparator.comparingInt(Atom::hashCode);
+
+    protected final Term[] terms;
+    protected final Map<Term, Integer> termIndexes;
+
+    protected final int[] neighbourOffsets;
+    protected final int[] neighbours;
+    protected final int[] sortedNeighbours;
+
+    protected final int[] atomOffsets;
+    protected final Atom[] atoms;
+    protected final Atom[] sortedAtoms;
+
+    protected final Term[] addedTerms;
+    protected final Map<Term, Integer> addedIndexes;
+    protected final BitSet changed;
+    protected final Map<Integer, Segment> delta;
+
+    /**
+     * Builds the snapshot from the maps of the {@link KnowledgeBase}.
+     *
+     * @param termAtomMap    the map of the term and the atom where it appears
+     * @param termNeighbours the map of the term and its neighbours
+     */
+    public KnowledgeBaseIndex(Map<Term, Set<Atom>> termAtomMap,
+                              Map<Term, Set<Term>> termNeighbours) {
+        List<Term> termList = new ArrayList<>(termAtomMap.keySet());
+        termIndexes = new HashMap<>(termList.size() * 4 / 3 + 1);
+        for (Term term : termList) {
+            termIndexes.put(term, termIndexes.size());
+        }
+        for (Term term : termNeighbours.keySet()) {
+            termIndexes.computeIfAbsent(term, t -> {
+                termList.add(t);
+                return termList.size() - 1;
+            });
+        }
+
+        int numberOfNeighbours = 0;
+        int numberOfAtoms = 0;
+        for (Term term : termList) {
+            numberOfNeighbours += termNeighbours.getOrDefault(term, Collections.emptySet()).size();
+            numberOfAtoms += termAtomMap.getOrDefault(term, Collections.emptySet()).size();
+        }
+        neighbourOffsets = new int[termList.size() + 1];
+        neighbours = new int[numberOfNeighbours];
+        atomOffsets = new int[termList.size() + 1];
+        atoms = new Atom[numberOfAtoms];
+
+        int neighbourIndex = 0;
+        int atomIndex = 0;
+        for (int i = 0; i < termList.size(); i++) {
+            Term term = termList.get(i);
+            neighbourOffsets[i] = neighbourIndex;
+            for (Term neighbour : termNeighbours.getOrDefault(term, Collections.emptySet())) {
+                // the neighbours always come from the atoms, the check only guards against an inconsistent map
+                Integer index = termIndexes.get(neighbour);
+                if (index != null) { neighbours[neighbourIndex++] = index; }
+            }
+            atomOffsets[i] = atomIndex;
+            for (Atom atom : termAtomMap.getOrDefault(term, Collections.emptySet())) {
+                atoms[atomIndex++] = atom;
+            }
+        }
+        neighbourOffsets[termList.size()] = neighbourIndex;
+        atomOffsets[termList.size()] = atomIndex;
+        terms = termList.toArray(new Term[0]);
+
+        sortedNeighbours = neighbours.clone();
+        sortedAtoms = atoms.clone();
+        for (int i = 0; i < terms.length; i++) {
+            Arrays.sort(sortedNeighbours, neighbourOffsets[i], neighbourOffsets[i + 1]);
+            Arrays.sort(sortedAtoms, atomOffsets[i], atomOffsets[i + 1], ATOM_ORDER);
+        }
+
+        addedTerms = new Term[0];
+        addedIndexes = Collections.emptyMap();
+        changed = new BitSet();
+        delta = Collections.emptyMap();
+    }
+
+    /**
+     * Builds the snapshot from the previous one, sharing its arrays, with the changed {@link Term}s in the delta.
+     *
+     * @param previous       the previous snapshot
+     * @param changedTerms   the {@link Term}s whose neighbours or {@link Atom}s have changed
+     * @param termAtomMap    the map of the term and the atom where it appears
+     * @param termNeighbours the map of the term and its neighbours
+     */
+    protected KnowledgeBaseIndex(KnowledgeBaseIndex previous, Collection<? extends Term> changedTerms,
+                                 Map<Term, Set<Atom>> termAtomMap, Map<Term, Set<Term>> termNeighbours) {
+        terms = previous.terms;
+        termIndexes = previous.termIndexes;
+        neighbourOffsets = previous.neighbourOffsets;
+        neighbours = previous.neighbours;
+        sortedNeighbours = previous.sortedNeighbours;
+        atomOffsets = previous.atomOffsets;
+        atoms = previous.atoms;
+        sortedAtoms = previous.sortedAtoms;
+
+        addedIndexes = new HashMap<>(previous.addedIndexes);
+        List<Term> added = new ArrayList<>(Arrays.asList(previous.addedTerms));
+        for (Term term : changedTerms) {
+            if (termIndexes.containsKey(term) || addedIndexes.containsKey(term)) { continue; }
+            if (!termAtomMap.containsKey(term) && !termNeighbours.containsKey(term)) { continue; }
+            addedIndexes.put(term, terms.length + added.size());
+            added.add(term);
+        }
+        addedTerms = added.toArray(new Term[0]);
+
+        changed = (BitSet) previous.changed.clone();
+        delta = new HashMap<>(previous.delta);
+        for (Term term : changedTerms) {
+            int index = getIndex(term, termIndexes, addedIndexes);
+            if (index == NO_TERM) { continue; }
+            changed.set(index);
+            delta.put(index, buildSegment(term, termAtomMap, termNeighbours));
+        }
+    }
+
+    /**
+     * Builds the snapshot with the changed {@link Term}s, from the previous one. The arrays of the previous snapshot
+     * are shared, unless the delta becomes too big, in which case they are built again.
+     *
+     * @param changedTerms   the {@link Term}s whose neighbours or {@link Atom}s have changed
+     * @param termAtomMap    the map of the term and the atom where it appears
+     * @param termNeighbours the map of the term and its neighbours
+     * @return the new snapshot
+     */
+    public KnowledgeBaseIndex update(Collection<? extends Term> changedTerms,
+                                     Map<Term, Set<Atom>> termAtomMap, Map<Term, Set<Term>> termNeighbours) {
+        int deltaSize = delta.size();
+        for (Term term : changedTerms) {
+            int index = getIndex(term, termIndexes, addedIndexes);
+            if (index == NO_TERM || !changed.get(index)) { deltaSize++; }
+        }
+        if (deltaSize > MAXIMUM_DELTA_RATIO * size()) {
+            return new KnowledgeBaseIndex(termAtomMap, termNeighbours);
+        }
+        return new KnowledgeBaseIndex(this, changedTerms, termAtomMap, termNeighbours);
+    }
+
+    /**
+     * Builds the delta of the {@link Term}, from the maps of the {@link KnowledgeBase}.
+     *
+     * @param term           the {@link Term}
+     * @param termAtomMap    the map of the term and the atom where it appears
+     * @param termNeighbours the map of the term and its neighbours
+     * @return the delta of the {@link Term}, which is empty and removed if the {@link Term} is no longer in the maps
+     */
+    protected Segment buildSegment(Term term, Map<Term, Set<Atom>> termAtomMap,
+                                   Map<Term, Set<Term>> termNeighbours) {
+        Set<Term> termSet = termNeighbours.get(term);
+        Set<Atom> atomSet = termAtomMap.get(term);
+        if (termSet == null && atomSet == null) { return Segment.REMOVED; }
+        int[] neighbourIndexes = new int[termSet == null ? 0 : termSet.size()];
+        int size = 0;
+        if (termSet != null) {
+            for (Term neighbour : termSet) {
+                int index = getIndex(neighbour, termIndexes, addedIndexes);
+                if (index != NO_TERM) { neighbourIndexes[size++] = index; }
+            }
+        }
+        neighbourIndexes = Arrays.copyOf(neighbourIndexes, size);
+        Atom[] atomArray = atomSet == null ? new Atom[0] : atomSet.toArray(new Atom[0]);
+        return new Segment(neighbourIndexes, atomArray);
+    }
+
+    /**
+     * Gets the index of the {@link Term}, in the arrays or in the added {@link Term}s.
+     *
+     * @param term         the {@link Term}
+     * @param termIndexes  the indexes of the {@link Term}s in the arrays
+     * @param addedIndexes the indexes of the {@link Term}s added after the arrays
+     * @return the index of the {@link Term}, or {@link #NO_TERM} if it does not appear in either
+     */
+    protected static int getIndex(Term term, Map<Term, Integer> termIndexes, Map<Term, Integer> addedIndexes) {
+        Integer index = termIndexes.get(term);
+        if (index == null) { index = addedIndexes.get(term); }
+        return index == null ? NO_TERM : index;
+    }
+
+    /**
+     * Gets the number of {@link Term}s in the snapshot, including the ones removed since the arrays were built,
+     * which are not found by {@link #getIndex(Term)}.
+     *
+     * @return the number of {@link Term}s
+     */
+    public int size() {
+        return terms.length + addedTerms.length;
+    }
+
+    /**
+     * Gets the index of the {@link Term}.
+     *
+     * @param term the {@link Term}
+     * @return the index of the {@link Term}, or {@link #NO_TERM} if it does not appear in the snapshot
+     */
+    public int getIndex(Term term) {
+        int index = getIndex(term, termIndexes, addedIndexes);
+        if (index != NO_TERM && changed.get(index) && delta.get(index) == Segment.REMOVED) { return NO_TERM; }
+        return index;
+    }
+
+    /**
+     * Gets the {@link Term} of the index.
+     *
+     * @param index the index
+     * @return the {@link Term}
+     */
+    public Term getTerm(int index) {
+        return index < terms.length ? terms[index] : addedTerms[index - terms.length];
+    }
+
+    /**
+     * Gets the number of neighbours of the {@link Term}.
+     *
+     * @param index the index of the {@link Term}
+     * @return the number of neighbours
+     */
+    public int getNumberOfNeighbours(int index) {
+        if (changed.get(index)) { return delta.get(index).neighbours.length; }
+        return neighbourOffsets[index + 1] - neighbourOffsets[index];
+    }
+
+    /**
+     * Gets the index of the i-th neighbour of the {@link Term}.
+     *
+     * @param index the index of the {@link Term}
+     * @param i     the position of the neighbour, from zero up to, but not including,
+     *              {@link #getNumberOfNeighbours(int)}
+     * @return the index of the neighbour
+     */
+    public int getNeighbour(int index, int i) {
+        if (changed.get(index)) { return delta.get(index).neighbours[i]; }
+        return neighbours[neighbourOffsets[index] + i];
+    }
+
+    /**
+     * Gets the neighbours of the {@link Term}, as an unmodifiable view of the snapshot.
+     *
+     * @param term the {@link Term}
+     * @return the neighbours of the {@link Term}
+     */
+    public Set<Term> getNeighbours(Term term) {
+        final int index = getIndex(term);
+        if (index == NO_TERM) { return Collections.emptySet(); }
+        final int[] values;
+        final int[] sorted;
+        final int begin;
+        final int end;
+        if (changed.get(index)) {
+            Segment segment = delta.get(index);
+            values = segment.neighbours;
+            sorted = segment.sortedNeighbours;
+            begin = 0;
+            end = values.length;
+        } else {
+            values = neighbours;
+            sorted = sortedNeighbours;
+            begin = neighbourOffsets[index];
+            end = neighbourOffsets[index + 1];
+        }
+        return new AbstractSet<Term>() {
+            @Override
+            public Iterator<Term> iterator() {
+                return new Iterator<Term>() {
+                    int position = begin;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < end;
+                    }
+
+                    @Override
+                    public Term next() {
+                        if (position >= end) { throw new NoSuchElementException(); }
+                        return getTerm(values[position++]);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Term)) { return false; }
+                final int neighbour = getIndex((Term) o);
+                return neighbour != NO_TERM && Arrays.binarySearch(sorted, begin, end, neighbour) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return end - begin;
+            }
+        };
+    }
+
+    /**
+     * Gets the {@link Atom}s where the {@link Term} appears, as an unmodifiable view of the snapshot.
+     *
+     * @param index the index of the {@link Term}
+     * @return the {@link Atom}s of the {@link Term}
+     */
+    public Set<Atom> getAtoms(int index) {
+        if (index == NO_TERM) { return Collections.emptySet(); }
+        final Atom[] values;
+        final Atom[] sorted;
+        final int begin;
+        final int end;
+        if (changed.get(index)) {
+            Segment segment = delta.get(index);
+            values = segment.atoms;
+            sorted = segment.sortedAtoms;
+            begin = 0;
+            end = values.length;
+        } else {
+            values = atoms;
+            sorted = sortedAtoms;
+            begin = atomOffsets[index];
+            end = atomOffsets[index + 1];
+        }
+        return new AbstractSet<Atom>() {
+            @Override
+            public Iterator<Atom> iterator() {
+                return Arrays.asList(values).subList(begin, end).iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Atom && containsAtom(sorted, begin, end, (Atom) o);
+            }
+
+            @Override
+            public int size() {
+                return end - begin;
+            }
+        };
+    }
+
+    /**
+     * Gets the {@link Atom}s where the {@link Term} appears, as an unmodifiable view of the snapshot.
+     *
+     * @param term the {@link Term}
+     * @return the {@link Atom}s of the {@link Term}
+     */
+    public Set<Atom> getAtoms(Term term) {
+        return getAtoms(getIndex(term));
+    }
+
+    /**
+     * Checks if the range of the sorted {@link Atom}s contains the {@link Atom}, by binary search on their hash
+     * codes, then by comparing the ones with the same hash code.
+     *
+     * @param sorted the {@link Atom}s, sorted by {@link #ATOM_ORDER} within the range
+     * @param begin  the beginning of the range
+     * @param end    the end of the range, exclusive
+     * @param atom   the {@link Atom}
+     * @return {@code true} if the range contains the {@link Atom}, {@code false} otherwise
+     */
+    protected static boolean containsAtom(Atom[] sorted, int begin, int end, Atom atom) {
+        final int position = Arrays.binarySearch(sorted, begin, end, atom, ATOM_ORDER);
+        if (position < 0) { return false; }
+        final int hash = atom.hashCode();
+        for (int i = position; i >= begin && sorted[i].hashCode() == hash; i--) {
+            if (sorted[i].equals(atom)) { return true; }
+        }
+        for (int i = position + 1; i < end && sorted[i].hashCode() == hash; i++) {
+            if (sorted[i].equals(atom)) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * The neighbours and the {@link Atom}s of a {@link Term} changed since the arrays were built.
+     */
+    protected static class Segment {
+
+        /**
+         * The delta of a {@link Term} that is no longer in the {@link KnowledgeBase}.
+         */
+        protected static final Segment REMOVED = new Segment(new int[0], new Atom[0]);
+
+        protected final int[] neighbours;
+        protected final int[] sortedNeighbours;
+        protected final Atom[] atoms;
+        protected final Atom[] sortedAtoms;
+
+        /**
+         * Constructor with the neighbours and the {@link Atom}s, in the order of the sets of the
+         * {@link KnowledgeBase}.
+         *
+         * @param neighbours the indexes of the neighbours
+         * @param atoms      the {@link Atom}s
+         */
+        protected Segment(int[] neighbours, Atom[] atoms) {
+            this.neighbours = neighbours;
+            this.sortedNeighbours = neighbours.clone();
+            Arrays.sort(sortedNeighbours);
+            this.atoms = atoms;
+            this.sortedAtoms = atoms.clone();
+            Arrays.sort(sortedAtoms, ATOM_ORDER);
+        }
+
+    }
+
+}
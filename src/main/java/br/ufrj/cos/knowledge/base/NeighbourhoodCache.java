@@ -0,0 +1,356 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.knowledge.base;
+
+import br.ufrj.cos.core.LearningSystem;
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Term;
+
+import java.util.*;
+
+/**
+ * Caches the neighbourhoods of the {@link Term}s in the graph of the {@link KnowledgeBase}, since the relevant
+ * breadth-first searches start over and over from the same constants, with the same depth.
+ * <p>
+ * Each entry holds the levels of the breadth-first search from a single {@link Term}, i.e. the frontier of each
+ * distance from the {@link Term}. A query of a depth already covered by the entry is answered from it, while a query
+ * of a deeper depth extends the levels of the entry from its last frontier. Since the neighbourhood of a set of
+ * {@link Term}s is the union of their neighbourhoods, the queries from many {@link Term}s are answered by the entries
+ * of each {@link Term}.
+ * <p>
+ * The entries are valid while the {@link KnowledgeBaseIndex} snapshot of the {@link KnowledgeBase} is the same, the
+ * cache is cleared when the snapshot changes. The cache is bounded by the number of {@link Term}s held in the
+ * levels, the least recently used entries are evicted first. It is safe to use the cache from many threads.
+ */
+public class NeighbourhoodCache {
+
+    /**
+     * The initial capacity of the cache map.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    /**
+     * The load factor of the cache map.
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    protected final long maximumSize;
+    protected final LinkedHashMap<Term, Neighbourhood> cache;
+
+    protected long size;
+    protected KnowledgeBaseIndex index;
+
+    protected long hits;
+    protected long misses;
+    protected long extensions;
+    protected long evictions;
+    protected long invalidations;
+
+    /**
+     * Constructor with the maximum number of {@link Term}s held by the cache.
+     *
+     * @param maximumSize the maximum number of {@link Term}s held by the cache
+     */
+    public NeighbourhoodCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.cache = new LinkedHashMap<>(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, true);
+    }
+
+    /**
+     * Gets the {@link Atom}s of the {@link Term}s within the depth from the seed {@link Term}s in the graph of the
+     * {@link KnowledgeBase}. It has the same result of the
+     * {@link KnowledgeBase#baseBreadthFirstSearch(Iterable, int)}.
+     *
+     * @param knowledgeBase the {@link KnowledgeBase}
+     * @param terms         the seed {@link Term}s
+     * @param depth         the depth of the search, or {@link LearningSystem#NO_MAXIMUM_DEPTH} for no maximum depth
+     * @return the {@link Atom}s of the neighbourhoods of the seed {@link Term}s
+     */
+    public Set<Atom> breadthFirstSearch(KnowledgeBase knowledgeBase, Iterable<? extends Term> terms, int depth) {
+        final KnowledgeBaseIndex current = knowledgeBase.getIndex();
+        final BitSet visited = new BitSet(current.size());
+        final Set<Atom> atoms = new HashSet<>();
+        int[][] levels;
+        int levelsSize;
+        for (Term term : terms) {
+            final int termIndex = current.getIndex(term);
+            if (termIndex == KnowledgeBaseIndex.NO_TERM) { continue; }
+            levels = getNeighbourhood(current, term, termIndex, depth).levels;
+            levelsSize = depth == LearningSystem.NO_MAXIMUM_DEPTH ? levels.length : Math.min(depth + 1, levels.length);
+            for (int i = 0; i < levelsSize; i++) {
+                for (int neighbour : levels[i]) {
+                    if (visited.get(neighbour)) { continue; }
+                    visited.set(neighbour);
+                    atoms.addAll(current.getAtoms(neighbour));
+                }
+            }
+        }
+        return atoms;
+    }
+
+    /**
+     * Gets the neighbourhood of the {@link Term}, covering at least the depth, from the cache or by extending the
+     * cached one.
+     *
+     * @param index     the snapshot of the graph
+     * @param term      the {@link Term}
+     * @param termIndex the index of the {@link Term} in the snapshot
+     * @param depth     the depth
+     * @return the neighbourhood
+     */
+    protected Neighbourhood getNeighbourhood(KnowledgeBaseIndex index, Term term, int termIndex, int depth) {
+        Neighbourhood neighbourhood;
+        synchronized (this) {
+            checkIndex(index);
+            neighbourhood = cache.get(term);
+            if (neighbourhood != null && neighbourhood.covers(depth)) {
+                hits++;
+                return neighbourhood;
+            }
+            if (neighbourhood == null) {
+                misses++;
+            } else {
+                extensions++;
+            }
+        }
+
+        Neighbourhood extended = neighbourhood == null ? new Neighbourhood(termIndex) : neighbourhood;
+        extended = extended.extend(index, depth);
+        synchronized (this) {
+            if (index == this.index) {
+                Neighbourhood previous = cache.put(term, extended);
+                if (previous != null) { size -= previous.weight(); }
+                size += extended.weight();
+                evict();
+            }
+        }
+        return extended;
+    }
+
+    /**
+     * Clears the cache if the snapshot of the graph differs from the cached one.
+     *
+     * @param index the current snapshot of the graph
+     */
+    protected void checkIndex(KnowledgeBaseIndex index) {
+        if (index == this.index) { return; }
+        if (!cache.isEmpty()) {
+            cache.clear();
+            invalidations++;
+        }
+        size = 0;
+        this.index = index;
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache fits its maximum size.
+     */
+    protected void evict() {
+        Iterator<Neighbourhood> iterator = cache.values().iterator();
+        while (size > maximumSize && iterator.hasNext()) {
+            size -= iterator.next().weight();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Gets the number of lookups that were entirely found in the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups whose {@link Term} was not found in the cache.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of lookups whose {@link Term} was found in the cache, but with a shallower depth, so the cached
+     * neighbourhood was extended.
+     *
+     * @return the number of extensions
+     */
+    public synchronized long getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * Gets the proportion of the lookups that were entirely found in the cache.
+     *
+     * @return the hit rate, or zero if there was no lookup
+     */
+    public synchronized double getHitRate() {
+        final long lookups = hits + misses + extensions;
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    /**
+     * Gets the number of entries evicted to bound the size of the cache.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of times the cache was cleared due to a change in the {@link KnowledgeBase}.
+     *
+     * @return the number of invalidations
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Gets the number of {@link Term}s held by the cache, plus one per entry.
+     *
+     * @return the size of the cache
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("hits: %d, misses: %d, extensions: %d, hit rate: %.4f, evictions: %d, " +
+                                     "invalidations: %d, size: %d",
+                             hits, misses, extensions, getHitRate(), evictions, invalidations, size);
+    }
+
+    /**
+     * The levels of the breadth-first search from a {@link Term}. It is immutable, extending it creates a new one.
+     */
+    protected static class Neighbourhood {
+
+        /**
+         * The indexes of the {@link Term}s at each distance from the {@link Term}.
+         */
+        protected final int[][] levels;
+        /**
+         * If the levels reach all the {@link Term}s connected to the {@link Term}.
+         */
+        protected final boolean complete;
+
+        /**
+         * Constructor with the level of the {@link Term} itself.
+         *
+         * @param term the index of the {@link Term}
+         */
+        protected Neighbourhood(int term) {
+            this(new int[][]{{term}}, false);
+        }
+
+        /**
+         * Constructor with the levels.
+         *
+         * @param levels   the levels
+         * @param complete if the levels reach all the {@link Term}s connected to the {@link Term}
+         */
+        protected Neighbourhood(int[][] levels, boolean complete) {
+            this.levels = levels;
+            this.complete = complete;
+        }
+
+        /**
+         * Checks if the neighbourhood covers the depth.
+         *
+         * @param depth the depth
+         * @return {@code true} if the neighbourhood covers the depth, {@code false} otherwise
+         */
+        protected boolean covers(int depth) {
+            return complete || depth != LearningSystem.NO_MAXIMUM_DEPTH && depth < levels.length;
+        }
+
+        /**
+         * Extends the levels until they cover the depth. Since the graph is undirected, the neighbours of a level
+         * are either in the previous level, in the level itself or in the next level.
+         *
+         * @param index the snapshot of the graph
+         * @param depth the depth
+         * @return the extended neighbourhood
+         */
+        protected Neighbourhood extend(KnowledgeBaseIndex index, int depth) {
+            if (covers(depth)) { return this; }
+            List<int[]> extended = new ArrayList<>(Arrays.asList(levels));
+            BitSet reached = new BitSet(index.size());
+            int[] last = levels[levels.length - 1];
+            for (int term : last) { reached.set(term); }
+            if (levels.length > 1) {
+                for (int term : levels[levels.length - 2]) { reached.set(term); }
+            }
+            boolean reachedAll = false;
+            while (depth == LearningSystem.NO_MAXIMUM_DEPTH || depth >= extended.size()) {
+                int[] next = new int[16];
+                int size = 0;
+                int neighbour;
+                for (int term : last) {
+                    for (int i = 0; i < index.getNumberOfNeighbours(term); i++) {
+                        neighbour = index.getNeighbour(term, i);
+                        if (reached.get(neighbour)) { continue; }
+                        reached.set(neighbour);
+                        next = KnowledgeBase.append(next, size++, neighbour);
+                    }
+                }
+                if (size == 0) {
+                    reachedAll = true;
+                    break;
+                }
+                last = Arrays.copyOf(next, size);
+                extended.add(last);
+            }
+            return new Neighbourhood(extended.toArray(new int[0][]), reachedAll);
+        }
+
+        /**
+         * Gets the weight of the entry in the cache, which is the number of {@link Term}s plus one, for the entry
+         * itself.
+         *
+         * @return the weight of the entry
+         */
+        protected long weight() {
+            long weight = 1;
+            for (int[] level : levels) {
+                weight += level.length;
+            }
+            return weight;
+        }
+
+    }
+
+}
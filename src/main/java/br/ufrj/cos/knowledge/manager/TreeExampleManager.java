@@ -42,11 +42,15 @@ import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -62,7 +66,7 @@ import static br.ufrj.cos.util.log.PreRevisionLog.ERROR_INITIALIZING_REVISION_EX
  *
  * @author Victor Guimarães
  */
-public class TreeExampleManager extends IncomingExampleManager {
+public class TreeExampleManager extends IncomingExampleManager implements Checkpointable {
 
     /**
      * The logger
@@ -130,13 +134,7 @@ public class TreeExampleManager extends IncomingExampleManager {
         if (!exampleFromSplit.getGroundedQuery().isEmpty()) {
             RevisionExamples revisionExamples = leafExamples.get(leaf);
             if (revisionExamples == null) {
-                try {
-                    revisionExamples = new RevisionExamples(learningSystem, sampleSelector.copy());
-                } catch (InitializationException ignored) {
-                    logger.warn(ERROR_INITIALIZING_REVISION_EXAMPLES.toString(),
-                                ALL_SAMPLE_SELECTOR.getClass().getSimpleName());
-                    revisionExamples = new RevisionExamples(learningSystem, ALL_SAMPLE_SELECTOR);
-                }
+                revisionExamples = buildRevisionExamples();
                 leafExamples.put(leaf, revisionExamples);
             }
             revisionExamples.addExample(exampleFromSplit);
@@ -164,64 +162,101 @@ public class TreeExampleManager extends IncomingExampleManager {
 
     /**
      * Places the incoming examples into the correct leaves and returns the set of the modified leaves.
+     * <p>
+     * The examples are grouped by predicate and each group goes through the tree of the predicate at once, so each
+     * node of the tree is evaluated a single time for all the examples.
      *
      * @param examples the examples
      * @return the leaves which was modified due to the addition of examples
      */
     protected Map<String, Set<Node<HornClause>>> placeIncomingExamples(Iterable<? extends Example> examples) {
         Map<String, Set<Node<HornClause>>> modifiedLeavesMap = new HashMap<>();
+        Map<String, List<Example>> examplesByPredicate = new LinkedHashMap<>();
         int count = 0;
         for (Example example : examples) {
-            placeExample(modifiedLeavesMap, example);
+            examplesByPredicate.computeIfAbsent(example.getGoalQuery().getPredicate().toString(),
+                                                e -> new ArrayList<>()).add(example);
             count++;
         }
+        for (Map.Entry<String, List<Example>> entry : examplesByPredicate.entrySet()) {
+            placeExamples(modifiedLeavesMap, entry.getKey(), entry.getValue());
+        }
         logger.debug(EXAMPLES_PLACED_AT_LEAVES.toString(), count);
         return modifiedLeavesMap;
     }
 
     /**
-     * Places an incoming example into the correct leaves and append the leaves in the set of the modified leaves.
+     * Places the incoming examples of a predicate into the correct leaves and append the leaves in the set of the
+     * modified leaves.
+     * <p>
+     * The examples are added to the leaves only after the whole tree has been transversed, grouped by example, so
+     * the leaves receive the examples in the same order as if each example were placed by itself.
      *
      * @param modifiedLeavesMap the map of modified leaves by predicate
-     * @param example           the examples
+     * @param predicate         the predicate of the examples
+     * @param examples          the examples
      */
-    protected void placeExample(Map<String, Set<Node<HornClause>>> modifiedLeavesMap, Example example) {
-        String predicate;
-        Node<HornClause> root;
-        Pair<ProPprExample, ProPprExample> split;
-
-        predicate = example.getGoalQuery().getPredicate().toString();
+    protected void placeExamples(Map<String, Set<Node<HornClause>>> modifiedLeavesMap, String predicate,
+                                 List<? extends Example> examples) {
         Set<Node<HornClause>> modifiedLeaves = modifiedLeavesMap.computeIfAbsent(predicate, e -> new HashSet<>());
         Map<Node<HornClause>, RevisionExamples> leafExamples = treeTheory.getLeafExampleMapFromTree(predicate);
-        root = treeTheory.getTreeForExample(example, predicate);
-        split = splitCoveredExamples(example, transverseTheoryTree(root, example, modifiedLeaves, leafExamples));
-        addExamplesToLeaf(root.getDefaultChild(), getNotCoveredExampleFromSplit(split), modifiedLeaves, leafExamples);
+        Node<HornClause> root = treeTheory.getTreeForExample(examples.get(0), predicate);
+        List<List<Pair<Node<HornClause>, ProPprExample>>> additions = new ArrayList<>(examples.size());
+        int[] indexes = new int[examples.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            additions.add(new ArrayList<>());
+            indexes[i] = i;
+        }
+        Set<Atom> coveredAtoms = transverseTheoryTree(root, examples, indexes, additions);
+        for (int i = 0; i < indexes.length; i++) {
+            additions.get(i).add(new ImmutablePair<>(root.getDefaultChild(), getNotCoveredExampleFromSplit(
+                    splitCoveredExamples(examples.get(i), coveredAtoms))));
+        }
+        for (List<Pair<Node<HornClause>, ProPprExample>> exampleAdditions : additions) {
+            for (Pair<Node<HornClause>, ProPprExample> addition : exampleAdditions) {
+                addExamplesToLeaf(addition.getLeft(), addition.getRight(), modifiedLeaves, leafExamples);
+            }
+        }
     }
 
     /**
-     * Transverses the theory tree passing the covered example to the respective sons and repeating the process for
-     * each son. All the leaves modified by the process will be appended to the modifiedLeaves set.
+     * Transverses the theory tree passing the covered examples to the respective sons and repeating the process for
+     * each son. The examples to be added to the leaves are appended to the additions of the respective example.
+     * <p>
+     * The grounded examples of all the examples are inferred together, in a single call to the engine.
      *
-     * @param root           the root of the tree
-     * @param example        the covered example at the root level, already evaluated by the root node
-     * @param modifiedLeaves the set of modified leaves
-     * @param leafExamples   the map of examples of the leaves, given the predicate
+     * @param root      the root of the tree
+     * @param examples  the covered examples at the root level, already evaluated by the root node
+     * @param indexes   the indexes, in the additions, of each example
+     * @param additions the leaves, and the examples to add to them, of each incoming example
      * @return a set of covered atoms by the root
      */
-    protected Set<Atom> transverseTheoryTree(Node<HornClause> root, Example example,
-                                             Set<Node<HornClause>> modifiedLeaves,
-                                             Map<Node<HornClause>, RevisionExamples> leafExamples) {
-        Map<Example, Map<Atom, Double>>
-                inferred = learningSystem.inferExamples(root.getElement(), example.getGroundedQuery());
+    protected Set<Atom> transverseTheoryTree(Node<HornClause> root, List<? extends Example> examples, int[] indexes,
+                                             List<List<Pair<Node<HornClause>, ProPprExample>>> additions) {
+        List<AtomExample> groundedExamples = examples.stream().flatMap(e -> e.getGroundedQuery().stream())
+                .collect(Collectors.toList());
+        if (groundedExamples.isEmpty()) { return Collections.emptySet(); }
+        Map<Example, Map<Atom, Double>> inferred = learningSystem.inferExamples(root.getElement(), groundedExamples);
         Set<Atom> coveredExamples = inferred.values().stream().
                 flatMap(e -> e.keySet().stream()).collect(Collectors.toSet());
-        Pair<ProPprExample, ProPprExample> split = splitCoveredExamples(example, coveredExamples);
 
-        ProPprExample coveredExampleFromSplit = getCoveredExampleFromSplit(split);
+        List<ProPprExample> coveredExamplesFromSplit = new ArrayList<>(examples.size());
+        int[] coveredIndexes = new int[examples.size()];
+        for (int i = 0; i < examples.size(); i++) {
+            ProPprExample covered = getCoveredExampleFromSplit(splitCoveredExamples(examples.get(i),
+                                                                                    coveredExamples));
+            if (!covered.getGroundedQuery().isEmpty()) {
+                coveredIndexes[coveredExamplesFromSplit.size()] = indexes[i];
+                coveredExamplesFromSplit.add(covered);
+            }
+        }
+        coveredIndexes = Arrays.copyOf(coveredIndexes, coveredExamplesFromSplit.size());
         if (root.getChildren().isEmpty()) {
-            addExamplesToLeaf(root, coveredExampleFromSplit, modifiedLeaves, leafExamples);
+            for (int i = 0; i < coveredIndexes.length; i++) {
+                additions.get(coveredIndexes[i]).add(new ImmutablePair<>(root, coveredExamplesFromSplit.get(i)));
+            }
         } else {
-            pushExampleToChild(root, coveredExampleFromSplit, modifiedLeaves, leafExamples);
+            pushExamplesToChild(root, coveredExamplesFromSplit, coveredIndexes, additions);
         }
         return coveredExamples;
     }
@@ -229,22 +264,22 @@ public class TreeExampleManager extends IncomingExampleManager {
     /**
      * Pushes the examples to the node, if the node has more children, recursively pushes to its children as well.
      *
-     * @param node           the node
-     * @param example        the example
-     * @param modifiedLeaves the modifiedLeaves set to save the modified leaves
-     * @param leafExamples   the leaf examples map to save the examples of each leaf
+     * @param node      the node
+     * @param examples  the examples
+     * @param indexes   the indexes, in the additions, of each example
+     * @param additions the leaves, and the examples to add to them, of each incoming example
      */
-    protected void pushExampleToChild(Node<HornClause> node, Example example, Set<Node<HornClause>> modifiedLeaves,
-                                      Map<Node<HornClause>, RevisionExamples> leafExamples) {
+    protected void pushExamplesToChild(Node<HornClause> node, List<? extends Example> examples, int[] indexes,
+                                       List<List<Pair<Node<HornClause>, ProPprExample>>> additions) {
+        if (examples.isEmpty()) { return; }
         Set<Atom> allCoveredExamples = new HashSet<>();
-        Set<Atom> coveredExamples;
-        Pair<ProPprExample, ProPprExample> split;
         for (Node<HornClause> child : node.getChildren()) {
-            coveredExamples = transverseTheoryTree(child, example, modifiedLeaves, leafExamples);
-            allCoveredExamples.addAll(coveredExamples);
+            allCoveredExamples.addAll(transverseTheoryTree(child, examples, indexes, additions));
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            additions.get(indexes[i]).add(new ImmutablePair<>(node.getDefaultChild(), getNotCoveredExampleFromSplit(
+                    splitCoveredExamples(examples.get(i), allCoveredExamples))));
         }
-        split = splitCoveredExamples(example, allCoveredExamples);
-        addExamplesToLeaf(node.getDefaultChild(), getNotCoveredExampleFromSplit(split), modifiedLeaves, leafExamples);
     }
 
     /**
@@ -270,6 +305,31 @@ public class TreeExampleManager extends IncomingExampleManager {
         }
     }
 
+    /**
+     * Builds the {@link RevisionExamples} to hold the examples of a leaf.
+     *
+     * @return the {@link RevisionExamples}
+     */
+    protected RevisionExamples buildRevisionExamples() {
+        try {
+            return new RevisionExamples(learningSystem, sampleSelector.copy());
+        } catch (InitializationException ignored) {
+            logger.warn(ERROR_INITIALIZING_REVISION_EXAMPLES.toString(),
+                        ALL_SAMPLE_SELECTOR.getClass().getSimpleName());
+            return new RevisionExamples(learningSystem, ALL_SAMPLE_SELECTOR);
+        }
+    }
+
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        treeTheory.saveCheckpoint(output);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        treeTheory.loadCheckpoint(input, this::buildRevisionExamples);
+    }
+
     /**
      * Gets the tree theory.
      *
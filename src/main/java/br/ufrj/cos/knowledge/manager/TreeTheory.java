@@ -34,11 +34,12 @@ import br.ufrj.cos.knowledge.theory.Theory;
 import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
 import br.ufrj.cos.logic.*;
 import br.ufrj.cos.util.LanguageUtils;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Responsible for manage the theory as a tree.
@@ -54,14 +55,13 @@ public class TreeTheory {
      */
     protected static final Conjunction DEFAULT_THEORY_BODY = new Conjunction(Literal.FALSE_LITERAL);
     /**
-     * The leaf that represent the revision point.
+     * The reference of a node, in a checkpoint, which is no longer in the tree.
      */
-    public List<Node<HornClause>> revisionLeaves;
-
+    protected static final int DETACHED_NODE = -1;
     /**
-     * The current revision index.
+     * The leaf that represent the revision point.
      */
-    public int revisionLeafIndex;
+    public List<Node<HornClause>> revisionLeaves;
 
     protected Map<String, Node<HornClause>> treeMap;
     protected Map<String, Map<Node<HornClause>, RevisionExamples>> leafExamplesMap;
@@ -270,22 +270,158 @@ public class TreeTheory {
     }
 
     /**
-     * Gets the current revision leaf.
+     * Gets the revision leaf of the index.
      *
-     * @return the current revision leaf
+     * @param index the index
+     * @return the revision leaf
      */
-    public Node<HornClause> getRevisionLeaf() {
-        return revisionLeaves.get(revisionLeafIndex);
+    public Node<HornClause> getRevisionLeaf(int index) {
+        return revisionLeaves.get(index);
     }
 
     /**
-     * Gets the current revision leaf.
+     * Saves the trees and the examples of their leaves to the checkpoint.
+     * <p>
+     * The nodes are written in pre-order, each node followed by its default child and its children, in the
+     * iteration order of the children, so the trees are restored in the same order. The leaves of the examples map
+     * are written as their position in this order.
      *
-     * @param index the index
-     * @return the current revision leaf
+     * @param output the checkpoint output
+     * @throws IOException if an I/O error has occurred
      */
-    public Node<HornClause> getRevisionLeaf(int index) {
-        return revisionLeaves.get(index);
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        final Map<Node<HornClause>, Integer> nodeIndexes = new HashMap<>();
+        output.writeInt(treeMap.size());
+        for (Map.Entry<String, Node<HornClause>> entry : treeMap.entrySet()) {
+            output.writeString(entry.getKey());
+            writeNode(entry.getValue(), output, nodeIndexes);
+        }
+        output.writeInt(leafExamplesMap.size());
+        for (Map.Entry<String, Map<Node<HornClause>, RevisionExamples>> entry : leafExamplesMap.entrySet()) {
+            output.writeString(entry.getKey());
+            output.writeInt(entry.getValue().size());
+            for (Map.Entry<Node<HornClause>, RevisionExamples> leaf : entry.getValue().entrySet()) {
+                writeNodeReference(leaf.getKey(), output, nodeIndexes);
+                leaf.getValue().saveCheckpoint(output);
+            }
+        }
+    }
+
+    /**
+     * Writes the node and its descendants, in pre-order.
+     *
+     * @param node        the node
+     * @param output      the checkpoint output
+     * @param nodeIndexes the index of the nodes already written
+     * @throws IOException if an I/O error has occurred
+     */
+    protected static void writeNode(Node<HornClause> node, CheckpointOutputStream output,
+                                    Map<Node<HornClause>, Integer> nodeIndexes) throws IOException {
+        nodeIndexes.put(node, nodeIndexes.size());
+        output.writeClause(node.getElement());
+        output.writeClause(node.getDefaultChild().getElement());
+        nodeIndexes.put(node.getDefaultChild(), nodeIndexes.size());
+        output.writeInt(node.getChildren().size());
+        for (Node<HornClause> child : node.getChildren()) {
+            writeNode(child, output, nodeIndexes);
+        }
+    }
+
+    /**
+     * Writes the reference of a node. If the node is no longer in the tree, i.e. it was removed while still
+     * holding examples, the node is written by its parent and elements.
+     *
+     * @param node        the node
+     * @param output      the checkpoint output
+     * @param nodeIndexes the index of the nodes in the tree
+     * @throws IOException if an I/O error has occurred
+     */
+    protected static void writeNodeReference(Node<HornClause> node, CheckpointOutputStream output,
+                                             Map<Node<HornClause>, Integer> nodeIndexes) throws IOException {
+        final Integer index = nodeIndexes.get(node);
+        if (index != null) {
+            output.writeInt(index);
+            return;
+        }
+        output.writeInt(DETACHED_NODE);
+        writeNodeReference(node.getParent(), output, nodeIndexes);
+        output.writeBoolean(node.isDefaultChild());
+        if (node.isDefaultChild()) { return; }
+        output.writeClause(node.getElement());
+        output.writeClause(node.getDefaultChild().getElement());
+    }
+
+    /**
+     * Restores the trees and the examples of their leaves from the checkpoint, replacing the current ones.
+     *
+     * @param input                   the checkpoint input
+     * @param revisionExamplesFactory the factory of the {@link RevisionExamples} of the leaves
+     * @throws IOException if an I/O error has occurred
+     */
+    public void loadCheckpoint(CheckpointInputStream input,
+                               Supplier<? extends RevisionExamples> revisionExamplesFactory) throws IOException {
+        treeMap.clear();
+        leafExamplesMap.clear();
+        final List<Node<HornClause>> nodes = new ArrayList<>();
+        int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            final String predicate = input.readString();
+            final HornClause element = input.readHornClause();
+            final Node<HornClause> root = Node.newTree(input.readHornClause(), element);
+            treeMap.put(predicate, root);
+            readChildren(root, input, nodes);
+        }
+        size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            final Map<Node<HornClause>, RevisionExamples> leafExamples = getLeafExampleMapFromTree(input.readString());
+            final int leaves = input.readInt();
+            for (int j = 0; j < leaves; j++) {
+                final Node<HornClause> leaf = readNodeReference(input, nodes);
+                final RevisionExamples revisionExamples = revisionExamplesFactory.get();
+                revisionExamples.loadCheckpoint(input);
+                leafExamples.put(leaf, revisionExamples);
+            }
+        }
+    }
+
+    /**
+     * Reads the descendants of the node, whose elements were already read.
+     *
+     * @param node  the node
+     * @param input the checkpoint input
+     * @param nodes the nodes already read, in pre-order
+     * @throws IOException if an I/O error has occurred
+     */
+    protected static void readChildren(Node<HornClause> node, CheckpointInputStream input,
+                                       List<Node<HornClause>> nodes) throws IOException {
+        nodes.add(node);
+        nodes.add(node.getDefaultChild());
+        final int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            final HornClause element = input.readHornClause();
+            readChildren(node.addChildToNode(element, input.readHornClause()), input, nodes);
+        }
+    }
+
+    /**
+     * Reads the reference of a node written by
+     * {@link #writeNodeReference(Node, CheckpointOutputStream, Map)}.
+     *
+     * @param input the checkpoint input
+     * @param nodes the nodes of the tree, in pre-order
+     * @return the node
+     * @throws IOException if an I/O error has occurred
+     */
+    protected static Node<HornClause> readNodeReference(CheckpointInputStream input,
+                                                        List<Node<HornClause>> nodes) throws IOException {
+        final int index = input.readInt();
+        if (index != DETACHED_NODE) { return nodes.get(index); }
+        final Node<HornClause> parent = readNodeReference(input, nodes);
+        if (input.readBoolean()) { return parent.getDefaultChild(); }
+        final HornClause element = input.readHornClause();
+        final Node<HornClause> node = parent.addChildToNode(element, input.readHornClause());
+        node.removeNodeFromTree();
+        return node;
     }
 
 }
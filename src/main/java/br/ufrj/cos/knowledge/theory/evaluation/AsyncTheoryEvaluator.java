@@ -33,20 +33,26 @@ import br.ufrj.cos.knowledge.example.Example;
 import br.ufrj.cos.knowledge.example.Examples;
 import br.ufrj.cos.knowledge.theory.Theory;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
+import br.ufrj.cos.logic.Atom;
 import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.time.TimeUtils;
+import edu.cmu.ml.proppr.util.CancellationToken;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
-import static br.ufrj.cos.util.log.InferenceLog.ERROR_EVALUATING_CANDIDATE_THEORY;
 import static br.ufrj.cos.util.log.InferenceLog.EVALUATION_THEORY_TIMEOUT;
 
 /**
  * Handle a asynchronous execution of evaluation a {@link Theory}. This is useful when a maximum amount of time is
- * specified for the task. In addition, have a timeout, the maximum amount of time the thread is allowed to run.
+ * specified for the task. In addition, have a timeout, the maximum amount of time the evaluation is allowed to run.
+ * <p>
+ * The timeout is enforced cooperatively: the evaluation runs in the calling thread, with a
+ * {@link CancellationToken} bound to it, which the provers check in order to stop once the time is over.
  * <p>
  * Created on 29/04/17.
  *
@@ -75,9 +81,19 @@ public class AsyncTheoryEvaluator<E> implements Runnable, Callable<AsyncTheoryEv
     protected int timeout = NO_TIMEOUT;
 
     protected double evaluation;
+    /**
+     * If it is to compute the {@link #optimisticEvaluation}, from the same answers of the {@link #evaluation}.
+     */
+    protected boolean estimateOptimistically;
+    protected double optimisticEvaluation;
 
-    protected boolean evaluationFinished;
+    protected volatile boolean evaluationFinished;
     protected double evaluationTime;
+    protected volatile CancellationToken cancellationToken;
+    /**
+     * The token bound to the thread that created the evaluator, the evaluation is also cancelled when it is.
+     */
+    protected CancellationToken parentToken = CancellationToken.current();
     private long begin;
 
     /**
@@ -108,6 +124,7 @@ public class AsyncTheoryEvaluator<E> implements Runnable, Callable<AsyncTheoryEv
         this.theoryEvaluator = theoryEvaluator;
         this.theoryMetric = theoryMetric;
         this.evaluation = theoryMetric.getDefaultValue();
+        this.optimisticEvaluation = theoryMetric.getMaximumValue();
     }
 
     /**
@@ -121,34 +138,37 @@ public class AsyncTheoryEvaluator<E> implements Runnable, Callable<AsyncTheoryEv
         copy.hornClause = hornClause;
         copy.timeout = timeout;
         copy.evaluation = evaluation;
+        copy.estimateOptimistically = estimateOptimistically;
+        copy.optimisticEvaluation = optimisticEvaluation;
         copy.evaluationFinished = evaluationFinished;
+        copy.parentToken = parentToken;
 
         return copy;
     }
 
     /**
-     * Use this method to evaluateTheory the {@link Theory} with the given timeout.
+     * Use this method to evaluateTheory the {@link Theory} with the given timeout. The evaluation runs in the
+     * current thread, until it finishes, the timeout is reached or it is cancelled by {@link #cancel()}.
      * <p>
      * {@inheritDoc}
      */
-    @SuppressWarnings("IntegerMultiplicationImplicitCastToLong")
     @Override
     public AsyncTheoryEvaluator<E> call() {
-        Thread thread = new Thread(this);
+        final CancellationToken token = new CancellationToken(timeout * TimeUtils.NANO_TO_SECONDS_DENOMINATOR,
+                                                            parentToken);
+        this.cancellationToken = token;
+        final CancellationToken previous = CancellationToken.bind(token);
         try {
-            thread.start();
-            thread.join(timeout * TimeUtils.SECONDS_TO_MILLISECONDS_MULTIPLIER);
-        } catch (InterruptedException e) {
-            logger.error(ERROR_EVALUATING_CANDIDATE_THEORY, e);
+            run();
         } finally {
-            if (thread.isAlive()) {
-                logger.trace(EVALUATION_THEORY_TIMEOUT.toString(), timeout);
-                thread.interrupt();
-            } else {
-                final long end = TimeUtils.getNanoTime();
-                evaluationTime = TimeUtils.elapsedTimeInSeconds(begin, end);
-                evaluationFinished = true;
-            }
+            CancellationToken.bind(previous);
+        }
+        if (token.isCancelled()) {
+            logger.trace(EVALUATION_THEORY_TIMEOUT.toString(), timeout);
+        } else {
+            final long end = TimeUtils.getNanoTime();
+            evaluationTime = TimeUtils.elapsedTimeInSeconds(begin, end);
+            evaluationFinished = true;
         }
         return this;
     }
@@ -164,7 +184,22 @@ public class AsyncTheoryEvaluator<E> implements Runnable, Callable<AsyncTheoryEv
         evaluationFinished = false;
         evaluationTime = Double.POSITIVE_INFINITY;
         begin = TimeUtils.getNanoTime();
-        evaluation = theoryEvaluator.evaluateTheoryAppendingClauses(theoryMetric, examples, hornClause);
+        final Map<Example, Map<Atom, Double>> inferred =
+                theoryEvaluator.inferExamplesAppendingClauses(theoryMetric, examples,
+                                                              Collections.singletonList(hornClause));
+        evaluation = theoryMetric.evaluate(inferred, examples);
+        if (estimateOptimistically) {
+            optimisticEvaluation = theoryMetric.evaluateOptimistically(inferred, examples);
+        }
+    }
+
+    /**
+     * Cancels the evaluation started by {@link #call()}, if it is running. A cancelled evaluation is not considered
+     * finished.
+     */
+    public void cancel() {
+        final CancellationToken token = this.cancellationToken;
+        if (token != null) { token.cancel(); }
     }
 
     /**
@@ -176,6 +211,27 @@ public class AsyncTheoryEvaluator<E> implements Runnable, Callable<AsyncTheoryEv
         return evaluation;
     }
 
+    /**
+     * Gets the optimistic estimate of the metric for any specialization of the evaluated clause. If it was not
+     * estimated, it is the maximum value of the metric.
+     *
+     * @return the optimistic estimate
+     * @see TheoryMetric#evaluateOptimistically(Map, Collection)
+     */
+    public double getOptimisticEvaluation() {
+        return optimisticEvaluation;
+    }
+
+    /**
+     * Sets if it is to estimate the optimistic evaluation of the specializations of the clause, along with its
+     * evaluation.
+     *
+     * @param estimateOptimistically {@code true} to estimate it, {@code false} otherwise
+     */
+    public void setEstimateOptimistically(boolean estimateOptimistically) {
+        this.estimateOptimistically = estimateOptimistically;
+    }
+
     /**
      * Gets the {@link #hornClause}, the evaluated clause that is added to the {@link Theory}.
      *
@@ -217,14 +217,29 @@ public class TheoryEvaluator implements Initializable {
      */
     public double evaluateTheoryAppendingClauses(TheoryMetric metric, Collection<? extends Example> examples,
                                                  Iterable<? extends HornClause> appendClauses) {
-        Map<Example, Map<Atom, Double>> evaluationResult;
+        return metric.evaluate(inferExamplesAppendingClauses(metric, examples, appendClauses), examples);
+    }
+
+    /**
+     * Infers the examples appending new {@link HornClause}s to the {@link Theory}, retraining the parameters if the
+     * metric requires it, in order to evaluate them.
+     * <p>
+     * The parameters and theory changes due the call of this method should not be stored.
+     *
+     * @param metric        the {@link TheoryMetric}
+     * @param examples      the {@link Examples}
+     * @param appendClauses new {@link HornClause}s to append to the theory.
+     * @return the inferred results
+     */
+    public Map<Example, Map<Atom, Double>> inferExamplesAppendingClauses(TheoryMetric metric,
+                                                                        Collection<? extends Example> examples,
+                                                                        Iterable<? extends HornClause>
+                                                                                appendClauses) {
         if (metric.parametersRetrainedBeforeEvaluate) {
-            evaluationResult = learningSystem.inferExampleTrainingParameters(appendClauses, examples);
+            return learningSystem.inferExampleTrainingParameters(appendClauses, examples);
         } else {
-            evaluationResult = learningSystem.inferExamples(appendClauses, examples);
+            return learningSystem.inferExamples(appendClauses, examples);
         }
-
-        return metric.evaluate(evaluationResult, examples);
     }
 
     /**
@@ -242,6 +257,15 @@ public class TheoryEvaluator implements Initializable {
         this.learningSystem = learningSystem;
     }
 
+    /**
+     * Gets the {@link TheoryMetric} set.
+     *
+     * @return the {@link TheoryMetric} set
+     */
+    public Iterable<? extends TheoryMetric> getTheoryMetrics() {
+        return theoryMetrics;
+    }
+
     /**
      * Sets the {@link TheoryMetric} set if it is not yet set. If it is already set, throws an error.
      *
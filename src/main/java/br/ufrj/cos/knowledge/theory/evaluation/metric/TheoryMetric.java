@@ -31,6 +31,7 @@ package br.ufrj.cos.knowledge.theory.evaluation.metric;
 
 import br.ufrj.cos.engine.EngineSystemTranslator;
 import br.ufrj.cos.knowledge.Knowledge;
+import br.ufrj.cos.knowledge.example.AtomExample;
 import br.ufrj.cos.knowledge.example.Example;
 import br.ufrj.cos.knowledge.example.Examples;
 import br.ufrj.cos.knowledge.theory.Theory;
@@ -39,6 +40,7 @@ import br.ufrj.cos.util.Initializable;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -80,6 +82,40 @@ public abstract class TheoryMetric implements Comparator<Double>, Initializable
     public abstract double evaluate(Map<Example, Map<Atom, Double>> inferredResult,
                                     Collection<? extends Example> examples);
 
+    /**
+     * Evaluates an optimistic estimate of the metric for any specialization of the theory that inferred the
+     * results. A specialization can only prove a subset of the proved examples, so the best it can do is to keep the
+     * positive answers and to drop the negative ones. This estimate is the metric of the results without the answers
+     * of the negative examples.
+     * <p>
+     * It bounds the metrics that increase with the proved positive examples and decrease with the proved negative
+     * examples, as the logic ones; for the others, it is a heuristic. If there is no result, the maximum value of
+     * the metric is returned, since nothing can be told about the specializations.
+     *
+     * @param inferredResult the results from the {@link EngineSystemTranslator}
+     * @param examples       the {@link Examples}
+     * @return the optimistic estimate of the metric
+     */
+    public double evaluateOptimistically(Map<Example, Map<Atom, Double>> inferredResult,
+                                         Collection<? extends Example> examples) {
+        if (inferredResult == null) { return getMaximumValue(); }
+        Map<Example, Map<Atom, Double>> positiveResult = new HashMap<>();
+        Map<Atom, Double> answers;
+        Map<Atom, Double> positiveAnswers;
+        Double value;
+        for (Example example : examples) {
+            answers = inferredResult.get(example);
+            if (answers == null) { continue; }
+            positiveAnswers = new HashMap<>();
+            for (AtomExample atomExample : example.getGroundedQuery()) {
+                value = answers.get(atomExample.getAtom());
+                if (atomExample.isPositive() && value != null) { positiveAnswers.put(atomExample.getAtom(), value); }
+            }
+            positiveResult.put(example, positiveAnswers);
+        }
+        return evaluate(positiveResult, examples);
+    }
+
     /**
      * Gets the default value of a metric, this value must by the worst possible value of the metric. This value
      * should be used when one fails to evaluateTheory the {@link Theory} with this metric (e.g. evaluation takes longer
@@ -42,7 +42,8 @@ package br.ufrj.cos.knowledge.theory.evaluation.metric.logic;
 public class AccuracyMetric extends ConfusionMatrixBasedMetric {
 
     @Override
-    protected double calculateConfusionMatrixMetric() {
+    protected double calculateConfusionMatrixMetric(int truePositive, int trueNegative, int falsePositive,
+                                                    int falseNegative) {
         final int numerator = truePositive + trueNegative;
         if (numerator == 0) { return 0.0; }
         return (double) numerator / (truePositive + trueNegative + falsePositive + falseNegative);
@@ -29,10 +29,8 @@
 
 package br.ufrj.cos.knowledge.theory.evaluation.metric.logic;
 
-import br.ufrj.cos.engine.EngineSystemTranslator;
 import br.ufrj.cos.knowledge.example.AtomExample;
 import br.ufrj.cos.knowledge.example.Example;
-import br.ufrj.cos.knowledge.example.Examples;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
 import br.ufrj.cos.logic.Atom;
 
@@ -42,80 +40,87 @@ import java.util.Map;
 /**
  * Template for confusion matrix based metrics. Calculates the confusion matrix of the system given the examples.
  * <p>
+ * The confusion matrix is kept in local variables, so the same instance can be safely shared among concurrent
+ * evaluations.
+ * <p>
  * Created on 08/05/17.
  *
  * @author Victor Guimarães
  */
 public abstract class ConfusionMatrixBasedMetric extends TheoryMetric {
 
-    protected int truePositive;
-    protected int trueNegative;
-    protected int falsePositive;
-    protected int falseNegative;
-
     @Override
     public double evaluate(Map<Example, Map<Atom, Double>> inferredResult, Collection<? extends Example> examples) {
-        initializeConfusionMatrix();
-        calculateConfusionMatrix(inferredResult, examples);
-        return calculateConfusionMatrixMetric();
-    }
-
-    /**
-     * Initializes the confusion matrix with all the cells as zero.
-     */
-    protected void initializeConfusionMatrix() {
-        this.truePositive = 0;
-        this.trueNegative = 0;
-        this.falsePositive = 0;
-        this.falseNegative = 0;
-    }
-
-    /**
-     * Calculates the confusion matrix based on the {@link Examples}.
-     *
-     * @param inferredResult the results from the {@link EngineSystemTranslator}
-     * @param examples       the {@link Examples}
-     */
-    protected void calculateConfusionMatrix(Map<Example, Map<Atom, Double>> inferredResult,
-                                            Collection<? extends Example> examples) {
+        int truePositive = 0;
+        int trueNegative = 0;
+        int falsePositive = 0;
+        int falseNegative = 0;
         Map<Atom, Double> atomValues;
         for (Example example : examples) {
             atomValues = inferredResult.get(example);
             for (AtomExample atomExample : example.getGroundedQuery()) {
-                incrementMatrixCell(atomValues, atomExample);
+                if (atomValues != null && atomValues.containsKey(atomExample.getAtom())) {
+                    // the example was proved
+                    if (atomExample.isPositive()) {
+                        truePositive++;
+                    } else {
+                        falsePositive++;
+                    }
+                } else {
+                    // the example was not proved
+                    if (atomExample.isPositive()) {
+                        falseNegative++;
+                    } else {
+                        trueNegative++;
+                    }
+                }
             }
         }
+        return calculateConfusionMatrixMetric(truePositive, trueNegative, falsePositive, falseNegative);
     }
 
     /**
-     * Calculates a metric based on the confusion matrix.
+     * Evaluates the examples represented by primitive arrays, where the i-th example is proved if {@code proved[i]}
+     * is {@code true} and is positive if {@code labels[i]} is {@code true}.
      *
-     * @return the metric
+     * @param proved the proved flags of the examples
+     * @param labels the labels of the examples
+     * @param size   the number of examples to consider, from the beginning of the arrays
+     * @return the evaluated metric
      */
-    protected abstract double calculateConfusionMatrixMetric();
-
-    /**
-     * Increments the correspondent matrix cell based on the proved example.
-     *
-     * @param atomValues  the atom values map
-     * @param atomExample the ground example
-     */
-    protected void incrementMatrixCell(Map<Atom, Double> atomValues, AtomExample atomExample) {
-        if (atomValues != null && atomValues.containsKey(atomExample.getAtom())) {
-            // the example was proved
-            if (atomExample.isPositive()) {
-                truePositive++;
-            } else {
-                falsePositive++;
-            }
-        } else {
-            // the example was not proved
-            if (atomExample.isPositive()) {
-                falseNegative++;
+    public double evaluate(boolean[] proved, boolean[] labels, int size) {
+        int truePositive = 0;
+        int trueNegative = 0;
+        int falsePositive = 0;
+        int falseNegative = 0;
+        for (int i = 0; i < size; i++) {
+            if (proved[i]) {
+                if (labels[i]) {
+                    truePositive++;
+                } else {
+                    falsePositive++;
+                }
             } else {
-                trueNegative++;
+                if (labels[i]) {
+                    falseNegative++;
+                } else {
+                    trueNegative++;
+                }
             }
         }
+        return calculateConfusionMatrixMetric(truePositive, trueNegative, falsePositive, falseNegative);
     }
 
+    /**
+     * Calculates a metric based on the confusion matrix.
+     *
+     * @param truePositive  the number of true positive examples
+     * @param trueNegative  the number of true negative examples
+     * @param falsePositive the number of false positive examples
+     * @param falseNegative the number of false negative examples
+     * @return the metric
+     */
+    protected abstract double calculateConfusionMatrixMetric(int truePositive, int trueNegative, int falsePositive,
+                                                             int falseNegative);
+
 }
@@ -0,0 +1,236 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic;
+
+/**
+ * A reusable buffer of scores and labels of examples, used to evaluate the {@link CurveMetric}s without boxing the
+ * values. The arrays only grow, so a buffer kept by each thread reaches the size of the largest evaluated set and is
+ * not reallocated after that.
+ */
+public class CurveBuffer {
+
+    /**
+     * The default initial capacity of the buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Ranges smaller than this size are sorted by insertion sort.
+     */
+    protected static final int INSERTION_SORT_THRESHOLD = 7;
+
+    protected double[] scores;
+    protected boolean[] labels;
+    protected double[] auxiliaryScores;
+    protected boolean[] auxiliaryLabels;
+    protected int size;
+
+    /**
+     * Default constructor with the default initial capacity.
+     */
+    public CurveBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor with the initial capacity.
+     *
+     * @param capacity the initial capacity
+     */
+    public CurveBuffer(int capacity) {
+        scores = new double[capacity];
+        labels = new boolean[capacity];
+        auxiliaryScores = new double[capacity];
+        auxiliaryLabels = new boolean[capacity];
+    }
+
+    /**
+     * Empties the buffer, keeping its arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends an example to the buffer.
+     *
+     * @param score    the score of the example
+     * @param positive if the example is positive
+     */
+    public void add(double score, boolean positive) {
+        if (size == scores.length) { grow(size + 1); }
+        scores[size] = score;
+        labels[size] = positive;
+        size++;
+    }
+
+    /**
+     * Appends the examples to the buffer.
+     *
+     * @param scores    the scores of the examples
+     * @param positives the labels of the examples
+     * @param length    the number of examples to append, from the beginning of the arrays
+     */
+    public void addAll(double[] scores, boolean[] positives, int length) {
+        if (size + length > this.scores.length) { grow(size + length); }
+        System.arraycopy(scores, 0, this.scores, size, length);
+        System.arraycopy(positives, 0, this.labels, size, length);
+        size += length;
+    }
+
+    /**
+     * Grows the arrays to, at least, the minimum capacity.
+     *
+     * @param minimumCapacity the minimum capacity
+     */
+    protected void grow(int minimumCapacity) {
+        int capacity = Math.max(scores.length + (scores.length >> 1), minimumCapacity);
+        double[] newScores = new double[capacity];
+        boolean[] newLabels = new boolean[capacity];
+        System.arraycopy(scores, 0, newScores, 0, size);
+        System.arraycopy(labels, 0, newLabels, 0, size);
+        scores = newScores;
+        labels = newLabels;
+        auxiliaryScores = new double[capacity];
+        auxiliaryLabels = new boolean[capacity];
+    }
+
+    /**
+     * Counts the positive examples in the buffer.
+     *
+     * @return the number of positive examples
+     */
+    public int countPositives() {
+        int positives = 0;
+        for (int i = 0; i < size; i++) {
+            if (labels[i]) { positives++; }
+        }
+        return positives;
+    }
+
+    /**
+     * Sorts the examples from the highest score to the lowest. The sort is stable, examples with the same score keep
+     * the order they were added, as in {@link CurveMetric#sortExamples(java.util.List)}.
+     */
+    public void sort() {
+        System.arraycopy(scores, 0, auxiliaryScores, 0, size);
+        System.arraycopy(labels, 0, auxiliaryLabels, 0, size);
+        mergeSort(auxiliaryScores, auxiliaryLabels, scores, labels, 0, size);
+    }
+
+    /**
+     * Sorts the range of the destination arrays, using the source arrays as auxiliary. Both must have the same
+     * elements in the range when the method is called.
+     *
+     * @param sourceScores      the source scores
+     * @param sourceLabels      the source labels
+     * @param destinationScores the destination scores
+     * @param destinationLabels the destination labels
+     * @param low               the first index of the range, inclusive
+     * @param high              the last index of the range, exclusive
+     */
+    protected static void mergeSort(double[] sourceScores, boolean[] sourceLabels,
+                                    double[] destinationScores, boolean[] destinationLabels, int low, int high) {
+        if (high - low < INSERTION_SORT_THRESHOLD) {
+            insertionSort(destinationScores, destinationLabels, low, high);
+            return;
+        }
+        final int middle = (low + high) >>> 1;
+        mergeSort(destinationScores, destinationLabels, sourceScores, sourceLabels, low, middle);
+        mergeSort(destinationScores, destinationLabels, sourceScores, sourceLabels, middle, high);
+        int left = low;
+        int right = middle;
+        for (int i = low; i < high; i++) {
+            if (right >= high || left < middle && Double.compare(sourceScores[left], sourceScores[right]) >= 0) {
+                destinationScores[i] = sourceScores[left];
+                destinationLabels[i] = sourceLabels[left];
+                left++;
+            } else {
+                destinationScores[i] = sourceScores[right];
+                destinationLabels[i] = sourceLabels[right];
+                right++;
+            }
+        }
+    }
+
+    /**
+     * Sorts the range of the arrays by insertion sort, from the highest score to the lowest.
+     *
+     * @param scores the scores
+     * @param labels the labels
+     * @param low    the first index of the range, inclusive
+     * @param high   the last index of the range, exclusive
+     */
+    protected static void insertionSort(double[] scores, boolean[] labels, int low, int high) {
+        double score;
+        boolean label;
+        int j;
+        for (int i = low + 1; i < high; i++) {
+            score = scores[i];
+            label = labels[i];
+            for (j = i - 1; j >= low && Double.compare(scores[j], score) < 0; j--) {
+                scores[j + 1] = scores[j];
+                labels[j + 1] = labels[j];
+            }
+            scores[j + 1] = score;
+            labels[j + 1] = label;
+        }
+    }
+
+    /**
+     * Gets the score of the example at the index.
+     *
+     * @param index the index
+     * @return the score
+     */
+    public double getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Checks if the example at the index is positive.
+     *
+     * @param index the index
+     * @return {@code true} if the example is positive, {@code false} otherwise
+     */
+    public boolean isPositive(int index) {
+        return labels[index];
+    }
+
+    /**
+     * Gets the number of examples in the buffer.
+     *
+     * @return the number of examples in the buffer
+     */
+    public int size() {
+        return size;
+    }
+
+}
@@ -35,15 +35,16 @@ import br.ufrj.cos.logic.Atom;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Abstract class to calculate metrics based on curves that are created by varying the threshold between positive and
  * negative examples.
  * <p>
+ * The {@link #evaluate(Map, Collection)} and the {@link #evaluate(double[], boolean[], int)} methods integrate the
+ * curve directly from primitive arrays, kept in a {@link CurveBuffer} of the calling thread, without building the
+ * list of points. They give exactly the same values as integrating the points of {@link #buildCurve(List)}.
+ * <p>
  * Created on 05/09/17.
  *
  * @author Victor Guimarães
@@ -72,6 +73,106 @@ public abstract class CurveMetric extends AccumulatorMetric<List<Pair<AtomExampl
         EMPTY_CURVE.add(new ImmutablePair<>(0.0, 1.0));
     }
 
+    /**
+     * The buffer of each thread, to evaluate the examples without allocating new arrays.
+     */
+    protected static final ThreadLocal<CurveBuffer> CURVE_BUFFER = ThreadLocal.withInitial(CurveBuffer::new);
+
+    @Override
+    public double evaluate(Map<Example, Map<Atom, Double>> inferredResult, Collection<? extends Example> examples) {
+        if (inferredResult.isEmpty()) { return getDefaultValue(); }
+        final CurveBuffer buffer = CURVE_BUFFER.get();
+        buffer.clear();
+        Map<Atom, Double> atomValues;
+        for (Example example : examples) {
+            atomValues = inferredResult.getOrDefault(example, Collections.emptyMap());
+            for (AtomExample atomExample : example.getGroundedQuery()) {
+                buffer.add(atomValues.getOrDefault(atomExample.getAtom(), NOT_INFERRED_EXAMPLE_VALUE),
+                           atomExample.isPositive());
+            }
+        }
+        return calculateResult(buffer);
+    }
+
+    /**
+     * Evaluates the examples represented by primitive arrays, where the i-th example has score {@code scores[i]} and
+     * is positive if {@code labels[i]} is {@code true}. The arrays are not modified.
+     *
+     * @param scores the scores of the examples
+     * @param labels the labels of the examples
+     * @param size   the number of examples to consider, from the beginning of the arrays
+     * @return the area under the curve
+     */
+    public double evaluate(double[] scores, boolean[] labels, int size) {
+        final CurveBuffer buffer = CURVE_BUFFER.get();
+        buffer.clear();
+        buffer.addAll(scores, labels, size);
+        return calculateResult(buffer);
+    }
+
+    /**
+     * Calculates the area under the curve of the examples in the buffer. The buffer is sorted by this method.
+     *
+     * @param buffer the buffer
+     * @return the area under the curve
+     */
+    protected double calculateResult(CurveBuffer buffer) {
+        if (buffer.size() == 0) { return getDefaultValue(); }
+
+        int positives = buffer.countPositives();
+        int negatives = buffer.size() - positives;
+
+        if (negatives == 0) { return integrateCurve(getFullCurve()); }
+        if (positives == 0) { return integrateCurve(getEmptyCurve()); }
+
+        buffer.sort();
+
+        return integrateCurve(buffer, positives, negatives);
+    }
+
+    /**
+     * Integrates the curve of the sorted examples of the buffer, with the trapezoid method. It follows the points of
+     * {@link #getCurvePoints(List, int, int)}, in the same order, so the result is exactly the same of
+     * {@link #integrateCurve(List)}.
+     *
+     * @param buffer    the buffer, sorted from the highest classified example to the lowest
+     * @param positives the number of positive examples
+     * @param negatives the number of negative examples
+     * @return the area under the curve
+     */
+    protected double integrateCurve(CurveBuffer buffer, int positives, int negatives) {
+        double current = buffer.getScore(0) + 1.0;
+        double auxiliary;
+
+        int truePositive = 0;
+        int falsePositive = 0;
+        double previousX = calculateAbscissa(truePositive, falsePositive, positives, negatives);
+        double previousY = calculateOrdinate(truePositive, falsePositive, positives, negatives);
+        double currentX;
+        double currentY;
+        double sum = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            auxiliary = buffer.getScore(i);
+            if (buffer.isPositive(i)) {
+                truePositive++;
+            } else {
+                falsePositive++;
+            }
+            if (auxiliary >= current) { continue; }
+            current = auxiliary;
+            currentX = calculateAbscissa(truePositive, falsePositive, positives, negatives);
+            currentY = calculateOrdinate(truePositive, falsePositive, positives, negatives);
+            sum += (currentX - previousX) * ((currentY + previousY) / 2);
+            previousX = currentX;
+            previousY = currentY;
+        }
+        currentX = calculateAbscissa(truePositive, falsePositive, positives, negatives);
+        currentY = calculateOrdinate(truePositive, falsePositive, positives, negatives);
+        sum += (currentX - previousX) * ((currentY + previousY) / 2);
+
+        return sum;
+    }
+
     /**
      * Only to make the method public.
      * <p>
@@ -206,8 +307,34 @@ public abstract class CurveMetric extends AccumulatorMetric<List<Pair<AtomExampl
      * @param negatives     the total number of negatives
      * @return the point of the ROC curve
      */
-    protected abstract Pair<Double, Double> buildPoint(int truePositive, int falsePositive, int positives,
-                                                       int negatives);
+    protected Pair<Double, Double> buildPoint(int truePositive, int falsePositive, int positives, int negatives) {
+        return new ImmutablePair<>(calculateAbscissa(truePositive, falsePositive, positives, negatives),
+                                   calculateOrdinate(truePositive, falsePositive, positives, negatives));
+    }
+
+    /**
+     * Calculates the abscissa of the point of the curve based on true positive, false positive and total number of
+     * examples.
+     *
+     * @param truePositive  the number of true positive examples
+     * @param falsePositive the number of false positive examples
+     * @param positives     the total number of positives
+     * @param negatives     the total number of negatives
+     * @return the abscissa of the point
+     */
+    protected abstract double calculateAbscissa(int truePositive, int falsePositive, int positives, int negatives);
+
+    /**
+     * Calculates the ordinate of the point of the curve based on true positive, false positive and total number of
+     * examples.
+     *
+     * @param truePositive  the number of true positive examples
+     * @param falsePositive the number of false positive examples
+     * @param positives     the total number of positives
+     * @param negatives     the total number of negatives
+     * @return the ordinate of the point
+     */
+    protected abstract double calculateOrdinate(int truePositive, int falsePositive, int positives, int negatives);
 
     /**
      * Initial value for the accumulator. This value must be the neutral element of the
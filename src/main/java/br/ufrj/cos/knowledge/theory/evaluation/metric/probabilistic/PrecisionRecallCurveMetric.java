@@ -29,9 +29,6 @@
 
 package br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-
 /**
  * Calculates the are under de Precision-Recall Curve.
  * <p>
@@ -42,11 +39,15 @@ import org.apache.commons.lang3.tuple.Pair;
 public class PrecisionRecallCurveMetric extends CurveMetric {
 
     @Override
-    protected Pair<Double, Double> buildPoint(int truePositive, int falsePositive, int positives, int negatives) {
-        double precision =
-                truePositive + falsePositive > 0 ? ((double) truePositive) / (truePositive + falsePositive) : 1.0;
-        double recall = positives > 0 ? ((double) truePositive) / (positives) : 1.0;
-        return new ImmutablePair<>(recall, precision);
+    protected double calculateAbscissa(int truePositive, int falsePositive, int positives, int negatives) {
+        // the recall
+        return positives > 0 ? ((double) truePositive) / (positives) : 1.0;
+    }
+
+    @Override
+    protected double calculateOrdinate(int truePositive, int falsePositive, int positives, int negatives) {
+        // the precision
+        return truePositive + falsePositive > 0 ? ((double) truePositive) / (truePositive + falsePositive) : 1.0;
     }
 
     @Override
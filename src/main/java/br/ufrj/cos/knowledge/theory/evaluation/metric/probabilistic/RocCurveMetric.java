@@ -29,9 +29,6 @@
 
 package br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-
 /**
  * Calculates the are under de ROC Curve.
  * <p>
@@ -42,11 +39,15 @@ import org.apache.commons.lang3.tuple.Pair;
 public class RocCurveMetric extends CurveMetric {
 
     @Override
-    protected Pair<Double, Double> buildPoint(int truePositive, int falsePositive, int positives,
-                                              int negatives) {
-        double truePositiveRate = positives > 0 ? ((double) truePositive) / (positives) : 1.0;
-        double falsePositiveRate = negatives > 0 ? ((double) falsePositive) / (negatives) : 0.0;
-        return new ImmutablePair<>(falsePositiveRate, truePositiveRate);
+    protected double calculateAbscissa(int truePositive, int falsePositive, int positives, int negatives) {
+        // the false positive rate
+        return negatives > 0 ? ((double) falsePositive) / (negatives) : 0.0;
+    }
+
+    @Override
+    protected double calculateOrdinate(int truePositive, int falsePositive, int positives, int negatives) {
+        // the true positive rate
+        return positives > 0 ? ((double) truePositive) / (positives) : 1.0;
     }
 
     @Override
@@ -30,22 +30,26 @@
 package br.ufrj.cos.knowledge.theory.manager;
 
 import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.manager.Node;
 import br.ufrj.cos.knowledge.theory.Theory;
 import br.ufrj.cos.knowledge.theory.manager.revision.RevisionOperatorEvaluator;
 import br.ufrj.cos.knowledge.theory.manager.revision.RevisionOperatorSelector;
 import br.ufrj.cos.knowledge.theory.manager.revision.TheoryRevisionException;
 import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
+import br.ufrj.cos.logic.HornClause;
+import br.ufrj.cos.util.ArithmeticExpression;
+import br.ufrj.cos.util.ArithmeticExpressionException;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
+import java.io.IOException;
 import java.util.Collection;
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 
 import static br.ufrj.cos.util.log.PosRevisionLog.DELTA_VALUE_NOT_UPDATED;
 import static br.ufrj.cos.util.log.PosRevisionLog.DELTA_VALUE_UPDATED;
@@ -77,23 +81,19 @@ public class HoeffdingBoundTheoryManager extends TheoryRevisionManager {
      */
     public static final String DEFAULT_DELTA_UPDATE_FUNCTION_EXPRESSION = "d";
     /**
-     * The java function format.
+     * The name of the variable of the delta update expression.
      */
-    public static final String JAVA_FUNCTION_FORMAT = "new java.util.function.Function(function(d) %s)";
-    /**
-     * The script engine name.
-     */
-    @SuppressWarnings("SpellCheckingInspection")
-    public static final String ENGINE_NAME = "nashorn";
+    public static final String DELTA_VARIABLE = "d";
 
     /**
      * The delta update expression. This is a mathematical expression that has a variable d as the current
-     * delta value and its result will be set as the new delta value.
+     * delta value and its result will be set as the new delta value. See {@link ArithmeticExpression} for the
+     * accepted syntax.
      */
     @SuppressWarnings("CanBeFinal")
     public String deltaUpdateExpression = DEFAULT_DELTA_UPDATE_FUNCTION_EXPRESSION;
 
-    protected Function<? super Double, Double> deltaUpdateFunction;
+    protected DoubleUnaryOperator deltaUpdateFunction;
     protected double delta = DEFAULT_DELTA;
 
     @Override
@@ -114,21 +114,19 @@ public class HoeffdingBoundTheoryManager extends TheoryRevisionManager {
      * @throws InitializationException if an error occurs during the compilation of the update function.
      */
     protected void compileDeltaUpdateFunction() throws InitializationException {
-        ScriptEngine engine = new ScriptEngineManager().getEngineByName(ENGINE_NAME);
         try {
-            final String functionExpression = String.format(JAVA_FUNCTION_FORMAT, deltaUpdateExpression);
-            //noinspection unchecked
-            deltaUpdateFunction = (Function<? super Double, Double>) engine.eval(functionExpression);
-        } catch (ScriptException | ClassCastException e) {
-            throw new InitializationException(String.format(ERROR_COMPILING_DELTA_UPDATE_FUNCTION.toString(), e), e);
+            deltaUpdateFunction = ArithmeticExpression.compileUnary(deltaUpdateExpression, DELTA_VARIABLE);
+        } catch (ArithmeticExpressionException e) {
+            throw new InitializationException(
+                    FileIOUtils.formatLogMessage(ERROR_COMPILING_DELTA_UPDATE_FUNCTION.toString(), e.getMessage()), e);
         }
     }
 
     @Override
-    public boolean applyRevision(RevisionOperatorSelector operatorSelector,
-                                 RevisionExamples examples) throws TheoryRevisionException {
+    public ProposedRevision proposeRevision(RevisionOperatorSelector operatorSelector, RevisionExamples examples,
+                                            Node<HornClause> revisionLeaf) throws TheoryRevisionException {
         double epsilon = calculateHoeffdingBound(theoryMetric.getRange(), examples.getRelevantSampleSize());
-        theoryEvaluation = evaluateCurrentTheory(examples);
+        double theoryEvaluation = evaluateCurrentTheory(examples);
         double bestPossibleImprovement = theoryMetric.bestPossibleImprovement(theoryEvaluation);
         // tests if the best possible improvement is enough to pass the Hoeffding's threshold
         if (bestPossibleImprovement >= epsilon) {
@@ -136,16 +134,22 @@ public class HoeffdingBoundTheoryManager extends TheoryRevisionManager {
             // calls the revision on the right threshold
             logger.debug(CALLING_REVISION_ON_EXAMPLES.toString(),
                          examples.getTrainingExamples(trainUsingAllExamples).size());
-            RevisionOperatorEvaluator operatorEvaluator = operatorSelector.selectOperator(targets, theoryMetric);
+            RevisionOperatorEvaluator operatorEvaluator =
+                    operatorSelector.selectOperator(targets, theoryMetric, revisionLeaf);
             logger.debug(SELECTED_OPERATOR.toString(), operatorEvaluator);
-            if (operatorEvaluator == null) { return false; }
-            final boolean revised = applyRevision(operatorEvaluator, examples, theoryEvaluation, epsilon);
-            if (revised) { updateDelta(); }
-            return revised;
+            if (operatorEvaluator == null) { return null; }
+            return proposeRevision(operatorEvaluator, examples, revisionLeaf, theoryEvaluation, epsilon);
         } else {
             logger.trace(SKIPPING_REVISION_ON_EXAMPLES);
         }
-        return false;
+        return null;
+    }
+
+    @Override
+    public boolean acceptRevision(ProposedRevision revision) throws TheoryRevisionException {
+        final boolean revised = super.acceptRevision(revision);
+        if (revised) { updateDelta(); }
+        return revised;
     }
 
     /**
@@ -160,6 +164,19 @@ public class HoeffdingBoundTheoryManager extends TheoryRevisionManager {
      * @return the Hoeffding's bound value of epsilon
      */
     protected double calculateHoeffdingBound(double range, int sampleSize) {
+        return calculateHoeffdingBound(range, sampleSize, delta);
+    }
+
+    /**
+     * Calculates the Hoeffding's bound value of epsilon, with the given delta.
+     *
+     * @param range      the range of the random variable
+     * @param sampleSize the sample size
+     * @param delta      the probability of the true mean being farther than epsilon from the sample mean
+     * @return the Hoeffding's bound value of epsilon
+     * @see #calculateHoeffdingBound(double, int)
+     */
+    public static double calculateHoeffdingBound(double range, int sampleSize, double delta) {
         // equivalent form to \sqrt{frac{R^2 * ln(1/δ)}{2n}}
         return StrictMath.sqrt((range * range * -StrictMath.log(delta)) / (2 * sampleSize));
     }
@@ -169,7 +186,7 @@ public class HoeffdingBoundTheoryManager extends TheoryRevisionManager {
      */
     public void updateDelta() {
         final double oldDelta = getDelta();
-        final Double newDelta = deltaUpdateFunction.apply(oldDelta);
+        final double newDelta = deltaUpdateFunction.applyAsDouble(oldDelta);
         if (setDelta(newDelta)) {
             logger.debug(DELTA_VALUE_UPDATED.toString(), oldDelta, getDelta());
         } else {
@@ -201,4 +218,16 @@ public class HoeffdingBoundTheoryManager extends TheoryRevisionManager {
         return false;
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        super.saveCheckpoint(output);
+        output.writeDouble(delta);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        super.loadCheckpoint(input);
+        delta = input.readDouble();
+    }
+
 }
@@ -0,0 +1,195 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.knowledge.theory.manager;
+
+import br.ufrj.cos.knowledge.KnowledgeException;
+import br.ufrj.cos.knowledge.manager.Node;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.knowledge.theory.manager.revision.RevisionOperatorEvaluator;
+import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
+import br.ufrj.cos.logic.HornClause;
+
+import java.util.*;
+
+/**
+ * Represents a revision of the theory that passed the improvement threshold, but was not applied yet.
+ * <p>
+ * The revision keeps the theory it was proposed on, so it can be applied on a theory that has changed since then,
+ * by replacing only the clauses changed by the revision. In this case, the revision must be evaluated again, on the
+ * changed theory, see {@link TheoryRevisionManager#acceptRevision(ProposedRevision)}.
+ */
+public class ProposedRevision {
+
+    protected final RevisionOperatorEvaluator operatorEvaluator;
+    protected final RevisionExamples examples;
+    protected final Node<HornClause> revisionLeaf;
+    protected final Theory baseTheory;
+    protected final Theory revisedTheory;
+    protected final double improvement;
+    protected final double currentEvaluation;
+    protected final double improvementThreshold;
+
+    /**
+     * Constructor with all the fields.
+     *
+     * @param operatorEvaluator    the evaluator of the operator that proposed the revision
+     * @param examples             the examples of the revision
+     * @param revisionLeaf         the revised leaf, may be {@code null}
+     * @param baseTheory           the theory the revision was proposed on
+     * @param revisedTheory        the revised theory
+     * @param improvement          the improvement of the revision over the base theory
+     * @param currentEvaluation    the evaluation of the base theory
+     * @param improvementThreshold the improvement threshold the revision has passed
+     */
+    public ProposedRevision(RevisionOperatorEvaluator operatorEvaluator, RevisionExamples examples,
+                            Node<HornClause> revisionLeaf, Theory baseTheory, Theory revisedTheory,
+                            double improvement, double currentEvaluation, double improvementThreshold) {
+        this.operatorEvaluator = operatorEvaluator;
+        this.examples = examples;
+        this.revisionLeaf = revisionLeaf;
+        this.baseTheory = baseTheory;
+        this.revisedTheory = revisedTheory;
+        this.improvement = improvement;
+        this.currentEvaluation = currentEvaluation;
+        this.improvementThreshold = improvementThreshold;
+    }
+
+    /**
+     * Applies the revision on the current theory. If the current theory is the one the revision was proposed on,
+     * the revised theory is returned as is. Otherwise, the clauses removed by the revision are removed from a copy
+     * of the current theory, and the clauses added by the revision are placed before the clause that follows them in
+     * the revised theory, so each clause keeps its position. If there is no such clause in the current theory, the
+     * added clauses are appended to it.
+     *
+     * @param currentTheory the current theory
+     * @return the theory with the revision applied
+     * @throws KnowledgeException in case of error when copying the theory
+     */
+    public Theory applyOn(Theory currentTheory) throws KnowledgeException {
+        if (isProposedOn(currentTheory)) { return revisedTheory; }
+        Set<HornClause> base = new HashSet<>(baseTheory);
+        Set<HornClause> revised = new HashSet<>(revisedTheory);
+        Set<HornClause> current = new HashSet<>(currentTheory);
+        Map<HornClause, List<HornClause>> addedBefore = new HashMap<>();
+        List<HornClause> added = new ArrayList<>();
+        for (HornClause clause : revisedTheory) {
+            if (!base.contains(clause)) {
+                added.add(clause);
+            } else if (!added.isEmpty() && current.contains(clause)) {
+                addedBefore.put(clause, added);
+                added = new ArrayList<>();
+            }
+        }
+        List<HornClause> clauses = new ArrayList<>(currentTheory.size() + added.size());
+        for (HornClause clause : currentTheory) {
+            clauses.addAll(addedBefore.getOrDefault(clause, Collections.emptyList()));
+            if (revised.contains(clause) || !base.contains(clause)) { clauses.add(clause); }
+        }
+        clauses.addAll(added);
+        Theory theory = currentTheory.copy();
+        theory.clear();
+        theory.addAll(clauses);
+        return theory;
+    }
+
+    /**
+     * Checks if the revision was proposed on the theory.
+     *
+     * @param theory the theory
+     * @return {@code true} if the theory is the one the revision was proposed on, {@code false} otherwise
+     */
+    public boolean isProposedOn(Theory theory) {
+        return theory == baseTheory;
+    }
+
+    /**
+     * Gets the evaluator of the operator that proposed the revision.
+     *
+     * @return the operator evaluator
+     */
+    public RevisionOperatorEvaluator getOperatorEvaluator() {
+        return operatorEvaluator;
+    }
+
+    /**
+     * Gets the examples of the revision.
+     *
+     * @return the examples
+     */
+    public RevisionExamples getExamples() {
+        return examples;
+    }
+
+    /**
+     * Gets the revised leaf.
+     *
+     * @return the revised leaf, may be {@code null}
+     */
+    public Node<HornClause> getRevisionLeaf() {
+        return revisionLeaf;
+    }
+
+    /**
+     * Gets the revised theory.
+     *
+     * @return the revised theory
+     */
+    public Theory getRevisedTheory() {
+        return revisedTheory;
+    }
+
+    /**
+     * Gets the improvement of the revision over the base theory.
+     *
+     * @return the improvement
+     */
+    public double getImprovement() {
+        return improvement;
+    }
+
+    /**
+     * Gets the evaluation of the theory the revision was proposed on.
+     *
+     * @return the evaluation of the base theory
+     */
+    public double getCurrentEvaluation() {
+        return currentEvaluation;
+    }
+
+    /**
+     * Gets the improvement threshold the revision has passed.
+     *
+     * @return the improvement threshold
+     */
+    public double getImprovementThreshold() {
+        return improvementThreshold;
+    }
+
+}
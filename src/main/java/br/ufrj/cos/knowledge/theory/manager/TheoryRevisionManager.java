@@ -30,7 +30,9 @@
 package br.ufrj.cos.knowledge.theory.manager;
 
 import br.ufrj.cos.core.LearningSystem;
+import br.ufrj.cos.knowledge.KnowledgeException;
 import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.manager.Node;
 import br.ufrj.cos.knowledge.theory.Theory;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic.RocCurveMetric;
@@ -39,16 +41,21 @@ import br.ufrj.cos.knowledge.theory.manager.revision.RevisionOperatorEvaluator;
 import br.ufrj.cos.knowledge.theory.manager.revision.RevisionOperatorSelector;
 import br.ufrj.cos.knowledge.theory.manager.revision.TheoryRevisionException;
 import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.Initializable;
 import br.ufrj.cos.util.InitializationException;
-import br.ufrj.cos.util.log.PosRevisionLog;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import br.ufrj.cos.util.time.TimeUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static br.ufrj.cos.util.log.PosRevisionLog.*;
@@ -64,7 +71,7 @@ import static br.ufrj.cos.util.log.SystemLog.THEORY_CONTENT;
  *
  * @author Victor Guimarães
  */
-public class TheoryRevisionManager implements Initializable {
+public class TheoryRevisionManager implements Initializable, Checkpointable {
 
     /**
      * The logger
@@ -84,8 +91,7 @@ public class TheoryRevisionManager implements Initializable {
      */
     @SuppressWarnings("CanBeFinal")
     public boolean trainUsingAllExamples = true;
-    protected long theoryLastChange = TimeUtils.getNanoTime();
-    protected double theoryEvaluation;
+    protected volatile long theoryLastChange = TimeUtils.getNanoTime();
 
     protected LearningSystem learningSystem;
     protected RevisionManager revisionManager;
@@ -136,7 +142,11 @@ public class TheoryRevisionManager implements Initializable {
      * @param revisionPoints the target {@link Example}s
      */
     public void revise(List<? extends RevisionExamples> revisionPoints) {
-        revisionManager.reviseTheory(revisionPoints, trainUsingAllExamples);
+        try {
+            revisionManager.reviseTheory(revisionPoints, trainUsingAllExamples);
+        } finally {
+            revisionManager.clearCachedTheories();
+        }
     }
 
     /**
@@ -150,15 +160,49 @@ public class TheoryRevisionManager implements Initializable {
      */
     public boolean applyRevision(RevisionOperatorSelector operatorSelector,
                                  RevisionExamples examples) throws TheoryRevisionException {
-        theoryEvaluation = evaluateCurrentTheory(examples);
+        return applyRevision(operatorSelector, examples, null);
+    }
+
+    /**
+     * Compares the revision of the leaf with the current theory, if the revision outperform the current theory by a
+     * given threshold, applies the revision on the theory.
+     *
+     * @param operatorSelector the operator selector
+     * @param examples         the examples for the revision
+     * @param revisionLeaf     the leaf to be revised, {@code null} if the theory is not a tree
+     * @return {@code true} if the revision was applied, {@code false} otherwise
+     * @throws TheoryRevisionException in case an error occurs on the revision
+     */
+    public boolean applyRevision(RevisionOperatorSelector operatorSelector, RevisionExamples examples,
+                                 Node<HornClause> revisionLeaf) throws TheoryRevisionException {
+        ProposedRevision revision = proposeRevision(operatorSelector, examples, revisionLeaf);
+        return revision != null && acceptRevision(revision);
+    }
+
+    /**
+     * Proposes a revision of the leaf, without changing the current theory. The revision is only proposed if it
+     * outperform the current theory by a given threshold.
+     * <p>
+     * Proposals of revisions for different leaves may run at the same time.
+     *
+     * @param operatorSelector the operator selector
+     * @param examples         the examples for the revision
+     * @param revisionLeaf     the leaf to be revised, {@code null} if the theory is not a tree
+     * @return the proposed revision, or {@code null} if no revision outperforms the current theory
+     * @throws TheoryRevisionException in case an error occurs on the revision
+     */
+    public ProposedRevision proposeRevision(RevisionOperatorSelector operatorSelector, RevisionExamples examples,
+                                            Node<HornClause> revisionLeaf) throws TheoryRevisionException {
+        double theoryEvaluation = evaluateCurrentTheory(examples);
         logger.debug(CALLING_REVISION_ON_EXAMPLES.toString(),
                      examples.getTrainingExamples(trainUsingAllExamples).size());
         RevisionOperatorEvaluator operatorEvaluator;
         operatorEvaluator = operatorSelector.selectOperator(examples.getTrainingExamples(trainUsingAllExamples),
-                                                            theoryMetric);
+                                                            theoryMetric, revisionLeaf);
         logger.debug(SELECTED_OPERATOR.toString(), operatorEvaluator);
-        if (operatorEvaluator == null) { return false; }
-        return applyRevision(operatorEvaluator, examples, theoryEvaluation, NO_IMPROVEMENT_THRESHOLD);
+        if (operatorEvaluator == null) { return null; }
+        return proposeRevision(operatorEvaluator, examples, revisionLeaf, theoryEvaluation,
+                               NO_IMPROVEMENT_THRESHOLD);
     }
 
     /**
@@ -174,39 +218,105 @@ public class TheoryRevisionManager implements Initializable {
 
     /**
      * Compares the revision with the current theory, if the revision outperform the current theory by a given
-     * threshold, applies the revision on the theory.
+     * threshold, proposes the revision.
      *
      * @param operatorEvaluator    the revision operator
      * @param examples             the examples for the revision
+     * @param revisionLeaf         the leaf to be revised, {@code null} if the theory is not a tree
      * @param currentEvaluation    the current evaluation value of the theory
      * @param improvementThreshold the improvement threshold
-     * @return {@code true} if the revision was applied, {@code false} otherwise
+     * @return the proposed revision, or {@code null} if the revision does not outperform the current theory
      * @throws TheoryRevisionException in case an error occurs on the revision
      */
-    protected boolean applyRevision(RevisionOperatorEvaluator operatorEvaluator, RevisionExamples examples,
-                                    double currentEvaluation,
-                                    double improvementThreshold) throws TheoryRevisionException {
-        double revised = operatorEvaluator.evaluateOperator(examples.getRelevantSample(), theoryMetric);
+    protected ProposedRevision proposeRevision(RevisionOperatorEvaluator operatorEvaluator,
+                                               RevisionExamples examples, Node<HornClause> revisionLeaf,
+                                               double currentEvaluation,
+                                               double improvementThreshold) throws TheoryRevisionException {
+        final Theory baseTheory = learningSystem.getTheory();
+        double revised = operatorEvaluator.evaluateOperator(examples.getRelevantSample(), theoryMetric, revisionLeaf);
         logger.debug(REVISED_THEORY_EVALUATION.toString(), revised);
         double improve = theoryMetric.difference(revised, currentEvaluation);
-        PosRevisionLog logMessage = THEORY_MODIFICATION_SKIPPED;
-        boolean theoryChanged = false;
         if (improve >= improvementThreshold) {
-            Theory revisedTheory
-                    = operatorEvaluator.getRevisedTheory(examples.getTrainingExamples(trainUsingAllExamples));
+            Theory revisedTheory = operatorEvaluator.getRevisedTheory(
+                    examples.getTrainingExamples(trainUsingAllExamples), revisionLeaf);
             if (revisedTheory != null) {
-                learningSystem.setTheory(revisedTheory);
-                learningSystem.trainParameters(examples.getTrainingExamples(trainUsingAllExamples));
-                learningSystem.saveTrainedParameters();
-                operatorEvaluator.theoryRevisionAccepted(revisedTheory);
-                logMessage = THEORY_MODIFICATION_ACCEPTED;
-                theoryLastChange = TimeUtils.getNanoTime();
-                theoryChanged = true;
+                return new ProposedRevision(operatorEvaluator, examples, revisionLeaf, baseTheory, revisedTheory,
+                                            improve, currentEvaluation, improvementThreshold);
             }
         }
-        logger.debug(logMessage.toString(), improve, currentEvaluation, improvementThreshold);
+        logger.debug(THEORY_MODIFICATION_SKIPPED.toString(), improve, currentEvaluation, improvementThreshold);
         logger.debug(THEORY_CONTENT.toString(), learningSystem.getTheory().toString());
-        return theoryChanged;
+        return null;
+    }
+
+    /**
+     * Applies the proposed revision on the current theory and trains the parameters of the revised theory. If the
+     * theory has changed since the revision was proposed, the revision is evaluated again on the current theory,
+     * and it is only applied if it still outperforms the current theory by the threshold; in this case, only the
+     * clauses changed by the revision are replaced.
+     *
+     * @param revision the proposed revision
+     * @return {@code true} if the revision was applied, {@code false} otherwise
+     * @throws TheoryRevisionException in case an error occurs when applying the revision
+     */
+    public boolean acceptRevision(ProposedRevision revision) throws TheoryRevisionException {
+        final ProposedRevision updated = updateRevision(revision);
+        if (updated == null) { return false; }
+        final Theory revisedTheory = updated.getRevisedTheory();
+        final Collection<? extends Example> trainingExamples =
+                updated.getExamples().getTrainingExamples(trainUsingAllExamples);
+        learningSystem.setTheory(revisedTheory);
+        learningSystem.trainParameters(trainingExamples);
+        learningSystem.saveTrainedParameters();
+        updated.getOperatorEvaluator().theoryRevisionAccepted(revisedTheory, updated.getRevisionLeaf());
+        theoryLastChange = TimeUtils.getNanoTime();
+        logger.debug(THEORY_MODIFICATION_ACCEPTED.toString(), updated.getImprovement(),
+                     updated.getCurrentEvaluation(), updated.getImprovementThreshold());
+        logger.debug(THEORY_CONTENT.toString(), learningSystem.getTheory().toString());
+        return true;
+    }
+
+    /**
+     * Updates the proposed revision to the current theory. If the theory has changed since the revision was
+     * proposed, the revision is applied on the current theory and evaluated again, against the evaluation of the
+     * current theory.
+     *
+     * @param revision the proposed revision
+     * @return the revision on the current theory, or {@code null} if it no longer outperforms the current theory
+     * @throws TheoryRevisionException in case an error occurs when applying the revision
+     */
+    protected ProposedRevision updateRevision(ProposedRevision revision) throws TheoryRevisionException {
+        final Theory currentTheory = learningSystem.getTheory();
+        if (revision.isProposedOn(currentTheory)) { return revision; }
+        final Theory revisedTheory;
+        try {
+            revisedTheory = revision.applyOn(currentTheory);
+        } catch (KnowledgeException e) {
+            throw new TheoryRevisionException(ExceptionMessages.ERROR_REVISING_THE_THEORY.toString(), e);
+        }
+        final RevisionExamples examples = revision.getExamples();
+        double currentEvaluation = evaluateCurrentTheory(examples);
+        double revised = revision.getOperatorEvaluator().evaluateRevisedTheory(examples.getRelevantSample(),
+                                                                               theoryMetric, revisedTheory);
+        logger.debug(REVISED_THEORY_EVALUATION.toString(), revised);
+        double improve = theoryMetric.difference(revised, currentEvaluation);
+        if (improve < revision.getImprovementThreshold()) {
+            logger.debug(THEORY_MODIFICATION_SKIPPED.toString(), improve, currentEvaluation,
+                         revision.getImprovementThreshold());
+            return null;
+        }
+        return new ProposedRevision(revision.getOperatorEvaluator(), examples, revision.getRevisionLeaf(),
+                                    currentTheory, revisedTheory, improve, currentEvaluation,
+                                    revision.getImprovementThreshold());
+    }
+
+    /**
+     * Gets the {@link LearningSystem}.
+     *
+     * @return the {@link LearningSystem}
+     */
+    public LearningSystem getLearningSystem() {
+        return learningSystem;
     }
 
     /**
@@ -263,4 +373,16 @@ public class TheoryRevisionManager implements Initializable {
         this.theoryMetric = theoryMetric;
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeNanoTime(theoryLastChange);
+        output.writeComponent(revisionManager);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        theoryLastChange = input.readNanoTime();
+        input.readComponent(revisionManager);
+    }
+
 }
@@ -29,18 +29,26 @@
 
 package br.ufrj.cos.knowledge.theory.manager.revision;
 
+import br.ufrj.cos.core.LearningSystem;
+import br.ufrj.cos.knowledge.manager.Node;
 import br.ufrj.cos.knowledge.manager.TreeTheory;
+import br.ufrj.cos.knowledge.theory.manager.ProposedRevision;
 import br.ufrj.cos.knowledge.theory.manager.revision.heuristic.RevisionHeuristic;
 import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.InitializationException;
+import edu.cmu.ml.proppr.util.CancellationToken;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static br.ufrj.cos.util.log.RevisionLog.ERROR_REVISING_THEORY;
 
 /**
  * Class to select the best leaves to use as revision, based on some heuristic.
@@ -62,6 +70,17 @@ public class BestLeafRevisionManager extends RevisionManager {
      */
     @SuppressWarnings("CanBeFinal")
     public int numberOfLeavesToRevise = DEFAULT_LEAVES_TO_REFINE;
+    /**
+     * If it is to revise the leaves in parallel. The revisions of leaves that do not share the same parent are
+     * proposed at the same time, in the evaluation pool of the {@link LearningSystem}, and then, after all of them
+     * are proposed, applied one at a time, in the order of the revision. Since those revisions are proposed on the
+     * same theory, each revision after the first applied one is evaluated again on the updated theory, and only
+     * replaces the clauses it has changed, when applied.
+     * <p>
+     * Leaves that share the parent with a leaf being revised are revised afterwards, on the updated theory.
+     */
+    @SuppressWarnings("CanBeFinal")
+    public boolean parallel = false;
 
     protected TreeTheory treeTheory;
     protected RevisionHeuristic revisionHeuristic;
@@ -72,9 +91,92 @@ public class BestLeafRevisionManager extends RevisionManager {
         int totalRevision = getMaximumRevisionPoints(revisionPoints);
         List<Pair<Integer, ? extends RevisionExamples>> revisions = sortKeepingIndexes(revisionPoints,
                                                                                        trainUsingAllExamples);
-        for (int i = 0; i < totalRevision; i++) {
-            treeTheory.revisionLeafIndex = revisions.get(i).getKey();
-            callRevision(revisions.get(i).getValue());
+        reviseLeaves(revisions.subList(0, totalRevision));
+    }
+
+    /**
+     * Revises the leaves, in order. If {@link #parallel}, the revisions of independent leaves are proposed at the
+     * same time.
+     *
+     * @param revisions the pairs of revision leaf indexes and revision examples
+     */
+    protected void reviseLeaves(List<Pair<Integer, ? extends RevisionExamples>> revisions) {
+        if (!parallel) {
+            for (Pair<Integer, ? extends RevisionExamples> revision : revisions) {
+                callRevision(revision.getValue(), treeTheory.getRevisionLeaf(revision.getKey()));
+            }
+            return;
+        }
+        List<Pair<Integer, ? extends RevisionExamples>> pending = new LinkedList<>(revisions);
+        while (!pending.isEmpty()) {
+            reviseInParallel(removeIndependentLeaves(pending));
+        }
+    }
+
+    /**
+     * Removes, from the pending revisions, the revisions of leaves that can be revised at the same time. Two leaves
+     * can be revised at the same time if they do not share the same parent, since the operators only change the
+     * revised leaf and its parent.
+     *
+     * @param pending the pending revisions, in order
+     * @return the revisions of the independent leaves, in order
+     */
+    protected List<Pair<Integer, ? extends RevisionExamples>> removeIndependentLeaves(
+            List<Pair<Integer, ? extends RevisionExamples>> pending) {
+        Set<Node<HornClause>> parents = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Pair<Integer, ? extends RevisionExamples>> independent = new ArrayList<>();
+        Iterator<Pair<Integer, ? extends RevisionExamples>> iterator = pending.iterator();
+        Pair<Integer, ? extends RevisionExamples> revision;
+        Node<HornClause> leaf;
+        while (iterator.hasNext()) {
+            revision = iterator.next();
+            leaf = treeTheory.getRevisionLeaf(revision.getKey());
+            if (parents.add(leaf.isRoot() ? leaf : leaf.getParent())) {
+                independent.add(revision);
+                iterator.remove();
+            }
+        }
+        return independent;
+    }
+
+    /**
+     * Proposes the revisions of the independent leaves at the same time, in the evaluation pool of the
+     * {@link LearningSystem}, then, after all the revisions are proposed, applies them in order. The theory is only
+     * changed after all the proposals have finished, since they read it.
+     *
+     * @param revisions the revisions of the independent leaves
+     */
+    protected void reviseInParallel(List<Pair<Integer, ? extends RevisionExamples>> revisions) {
+        if (revisions.size() < 2) {
+            for (Pair<Integer, ? extends RevisionExamples> revision : revisions) {
+                callRevision(revision.getValue(), treeTheory.getRevisionLeaf(revision.getKey()));
+            }
+            return;
+        }
+        final CancellationToken token = CancellationToken.current();
+        final ExecutorService evaluationPool = theoryRevisionManager.getLearningSystem().getEvaluationPool();
+        final List<Future<ProposedRevision>> futures = new ArrayList<>(revisions.size());
+        for (Pair<Integer, ? extends RevisionExamples> revision : revisions) {
+            final Node<HornClause> leaf = treeTheory.getRevisionLeaf(revision.getKey());
+            futures.add(evaluationPool.submit(() -> {
+                final CancellationToken previous = CancellationToken.bind(token);
+                try {
+                    return proposeRevision(revision.getValue(), leaf);
+                } finally {
+                    CancellationToken.bind(previous);
+                }
+            }));
+        }
+        final List<ProposedRevision> proposals = new ArrayList<>(futures.size());
+        for (Future<ProposedRevision> future : futures) {
+            try {
+                proposals.add(future.get());
+            } catch (InterruptedException | ExecutionException e) {
+                logger.error(ERROR_REVISING_THEORY, e);
+            }
+        }
+        for (ProposedRevision proposed : proposals) {
+            if (proposed != null) { acceptRevision(proposed); }
         }
     }
 
@@ -29,16 +29,28 @@
 
 package br.ufrj.cos.knowledge.theory.manager.revision;
 
+import br.ufrj.cos.core.LearningSystem;
 import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.manager.Node;
+import br.ufrj.cos.knowledge.theory.evaluation.AsyncTheoryEvaluator;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.time.TimeUtils;
+import edu.cmu.ml.proppr.util.CancellationToken;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static br.ufrj.cos.util.log.InferenceLog.ERROR_EVALUATING_REVISION_OPERATOR;
+import static br.ufrj.cos.util.log.InferenceLog.EVALUATION_REVISION_OPERATOR_TIMEOUT;
 
 /**
  * Class that selects the best possible revision operator.
@@ -54,6 +66,19 @@ public class BestRevisionOperatorSelector extends RevisionOperatorSelector {
      */
     public static final Logger logger = LogManager.getLogger();
 
+    /**
+     * If it is to evaluate the revision operators in parallel, in the evaluation pool of the
+     * {@link LearningSystem}. The evaluations only run in parallel inside the engine if the {@link LearningSystem}
+     * is concurrent.
+     */
+    public boolean parallel = false;
+    /**
+     * The maximum amount of time, in seconds, the evaluation of each revision operator is allowed to run. The time is
+     * enforced cooperatively, by the inferences of the evaluation; an operator that does not finish within it is
+     * not selected. {@link AsyncTheoryEvaluator#NO_TIMEOUT} means no limit.
+     */
+    public int operatorTimeout = AsyncTheoryEvaluator.NO_TIMEOUT;
+
     RevisionOperatorEvaluatorSelector selector;
 
     @Override
@@ -61,14 +86,22 @@ public class BestRevisionOperatorSelector extends RevisionOperatorSelector {
         super.initialize();
         if (operatorEvaluators.size() < 2) {
             selector = new SingleRevisionOperatorEvaluator(operatorEvaluators);
+        } else if (parallel) {
+            selector = new ParallelBestSelector(operatorEvaluators, operatorTimeout);
         } else {
-            selector = new BestSelector(operatorEvaluators);
+            selector = new BestSelector(operatorEvaluators, operatorTimeout);
         }
     }
 
     @Override
     public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric) {
-        return selector.selectOperator(targets, metric);
+        return selectOperator(targets, metric, null);
+    }
+
+    @Override
+    public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric,
+                                                    Node<HornClause> revisionLeaf) {
+        return selector.selectOperator(targets, metric, revisionLeaf);
     }
 
     private interface RevisionOperatorEvaluatorSelector {
@@ -76,11 +109,13 @@ public class BestRevisionOperatorSelector extends RevisionOperatorSelector {
         /**
          * Selects the proper operator given the target examples, based on the metric.
          *
-         * @param targets the target examples
-         * @param metric  the metric
+         * @param targets      the target examples
+         * @param metric       the metric
+         * @param revisionLeaf the leaf to be revised, may be {@code null}
          * @return the operator
          */
-        public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric);
+        public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric,
+                                                        Node<HornClause> revisionLeaf);
 
     }
 
@@ -99,9 +134,10 @@ public class BestRevisionOperatorSelector extends RevisionOperatorSelector {
         }
 
         @Override
-        public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric) {
+        public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric,
+                                                        Node<HornClause> revisionLeaf) {
             if (operatorEvaluator != null) {
-                operatorEvaluator.clearCachedTheory();
+                operatorEvaluator.clearCachedTheory(revisionLeaf);
             }
             return operatorEvaluator;
         }
@@ -111,28 +147,104 @@ public class BestRevisionOperatorSelector extends RevisionOperatorSelector {
 
         protected final Collection<RevisionOperatorEvaluator> operatorEvaluators;
         protected final RevisionOperatorEvaluator preferred;
+        protected final int operatorTimeout;
 
-        public BestSelector(Collection<RevisionOperatorEvaluator> operatorEvaluators) {
+        public BestSelector(Collection<RevisionOperatorEvaluator> operatorEvaluators, int operatorTimeout) {
             this.operatorEvaluators = operatorEvaluators;
             this.preferred = operatorEvaluators.iterator().next();
+            this.operatorTimeout = operatorTimeout;
         }
 
         @Override
-        public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric) {
+        public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric,
+                                                        Node<HornClause> revisionLeaf) {
             RevisionOperatorEvaluator bestEvaluated = preferred;
             double bestEvaluation = metric.getDefaultValue();
-            double current;
+            Double current;
 
+            final CancellationToken parent = CancellationToken.current();
             for (RevisionOperatorEvaluator evaluator : operatorEvaluators) {
+                current = evaluateOperator(evaluator, targets, metric, revisionLeaf, parent);
+                if (current != null && metric.compare(current, bestEvaluation) > 0) {
+                    bestEvaluation = current;
+                    bestEvaluated = evaluator;
+                }
+            }
+
+            return bestEvaluated;
+        }
+
+        /**
+         * Evaluates the operator within the {@link #operatorTimeout}, in the current thread. If the evaluation
+         * times out, the revised theory it may have cached is cleared.
+         *
+         * @param evaluator    the operator evaluator
+         * @param targets      the target examples
+         * @param metric       the metric
+         * @param revisionLeaf the leaf to be revised, may be {@code null}
+         * @param parent       the token of the whole selection, may be {@code null}
+         * @return the evaluation, or {@code null} if it has failed or timed out
+         */
+        protected Double evaluateOperator(RevisionOperatorEvaluator evaluator, Collection<? extends Example> targets,
+                                          TheoryMetric metric, Node<HornClause> revisionLeaf,
+                                          CancellationToken parent) {
+            final CancellationToken token =
+                    new CancellationToken(operatorTimeout * TimeUtils.NANO_TO_SECONDS_DENOMINATOR, parent);
+            final CancellationToken previous = CancellationToken.bind(token);
+            try {
+                evaluator.clearCachedTheory(revisionLeaf);
+                double evaluation = evaluator.evaluateOperator(targets, metric, revisionLeaf);
+                if (!token.isCancelled()) { return evaluation; }
+                logger.warn(EVALUATION_REVISION_OPERATOR_TIMEOUT.toString(), evaluator, operatorTimeout);
+                evaluator.clearCachedTheory(revisionLeaf);
+            } catch (TheoryRevisionException e) {
+                logger.warn(ERROR_EVALUATING_REVISION_OPERATOR.toString(), e);
+            } finally {
+                CancellationToken.bind(previous);
+            }
+            return null;
+        }
+
+    }
+
+    private static class ParallelBestSelector extends BestSelector {
+
+        public ParallelBestSelector(Collection<RevisionOperatorEvaluator> operatorEvaluators, int operatorTimeout) {
+            super(operatorEvaluators, operatorTimeout);
+        }
+
+        /**
+         * Evaluates all the operators at the same time, each one in a thread of the evaluation pool. The best
+         * operator is chosen in the same order of the sequential selection, so ties are broken the same way.
+         * <p>
+         * {@inheritDoc}
+         */
+        @Override
+        public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric,
+                                                        Node<HornClause> revisionLeaf) {
+            final CancellationToken parent = CancellationToken.current();
+            final ExecutorService evaluationPool =
+                    preferred.getRevisionOperator().getLearningSystem().getEvaluationPool();
+            final List<Future<Double>> futures = new ArrayList<>(operatorEvaluators.size());
+            for (RevisionOperatorEvaluator evaluator : operatorEvaluators) {
+                futures.add(evaluationPool.submit(
+                        () -> evaluateOperator(evaluator, targets, metric, revisionLeaf, parent)));
+            }
+
+            RevisionOperatorEvaluator bestEvaluated = preferred;
+            double bestEvaluation = metric.getDefaultValue();
+            Double current;
+            Iterator<RevisionOperatorEvaluator> evaluators = operatorEvaluators.iterator();
+            for (Future<Double> future : futures) {
+                RevisionOperatorEvaluator evaluator = evaluators.next();
                 try {
-                    evaluator.clearCachedTheory();
-                    current = evaluator.evaluateOperator(targets, metric);
-                    if (metric.compare(current, bestEvaluation) > 0) {
+                    current = future.get();
+                    if (current != null && metric.compare(current, bestEvaluation) > 0) {
                         bestEvaluation = current;
                         bestEvaluated = evaluator;
                     }
-                } catch (TheoryRevisionException e) {
-                    logger.warn(ERROR_EVALUATING_REVISION_OPERATOR.toString(), e);
+                } catch (InterruptedException | ExecutionException e) {
+                    logger.error(ERROR_EVALUATING_REVISION_OPERATOR.toString(), e);
                 }
             }
 
@@ -29,15 +29,22 @@
 
 package br.ufrj.cos.knowledge.theory.manager.revision;
 
+import br.ufrj.cos.knowledge.manager.Node;
+import br.ufrj.cos.knowledge.theory.manager.ProposedRevision;
 import br.ufrj.cos.knowledge.theory.manager.TheoryRevisionManager;
 import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.Initializable;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -57,7 +64,7 @@ import static br.ufrj.cos.util.log.RevisionLog.INITIALIZING_REVISION_MANAGER;
  *
  * @author Victor Guimarães
  */
-public class RevisionManager implements Initializable {
+public class RevisionManager implements Initializable, Checkpointable {
 
     /**
      * The logger
@@ -94,14 +101,69 @@ public class RevisionManager implements Initializable {
      * @return {@code true} if the revision was applied, {@code false} otherwise
      */
     protected boolean callRevision(RevisionExamples examples) {
+        return callRevision(examples, null);
+    }
+
+    /**
+     * Calls the revision chosen by the {@link RevisionOperatorSelector}, based on the metric, on the collection of
+     * examples, to revise the given leaf of the theory.
+     *
+     * @param examples     the revision examples
+     * @param revisionLeaf the leaf to be revised, {@code null} if the theory is not a tree
+     * @return {@code true} if the revision was applied, {@code false} otherwise
+     */
+    protected boolean callRevision(RevisionExamples examples, Node<HornClause> revisionLeaf) {
         try {
-            return theoryRevisionManager.applyRevision(operatorSelector, examples);
+            return theoryRevisionManager.applyRevision(operatorSelector, examples, revisionLeaf);
         } catch (TheoryRevisionException e) {
             logger.error(ERROR_REVISING_THEORY, e);
+        } finally {
+            operatorSelector.clearCachedTheories(revisionLeaf);
         }
         return false;
     }
 
+    /**
+     * Proposes the revision chosen by the {@link RevisionOperatorSelector}, based on the metric, on the collection
+     * of examples, to revise the given leaf of the theory. The proposed revision is not applied to the theory.
+     *
+     * @param examples     the revision examples
+     * @param revisionLeaf the leaf to be revised, {@code null} if the theory is not a tree
+     * @return the proposed revision, or {@code null} if there is no revision to apply
+     */
+    protected ProposedRevision proposeRevision(RevisionExamples examples, Node<HornClause> revisionLeaf) {
+        try {
+            return theoryRevisionManager.proposeRevision(operatorSelector, examples, revisionLeaf);
+        } catch (TheoryRevisionException e) {
+            logger.error(ERROR_REVISING_THEORY, e);
+        } finally {
+            operatorSelector.clearCachedTheories(revisionLeaf);
+        }
+        return null;
+    }
+
+    /**
+     * Applies the proposed revision on the theory.
+     *
+     * @param revision the proposed revision
+     * @return {@code true} if the revision was applied, {@code false} otherwise
+     */
+    protected boolean acceptRevision(ProposedRevision revision) {
+        try {
+            return theoryRevisionManager.acceptRevision(revision);
+        } catch (TheoryRevisionException e) {
+            logger.error(ERROR_REVISING_THEORY, e);
+        }
+        return false;
+    }
+
+    /**
+     * Clears the revised theories cached by the operators, for any leaf.
+     */
+    public void clearCachedTheories() {
+        operatorSelector.clearCachedTheories();
+    }
+
     @Override
     public void initialize() throws InitializationException {
         logger.debug(INITIALIZING_REVISION_MANAGER.toString(), this.getClass().getName());
@@ -148,4 +210,14 @@ public class RevisionManager implements Initializable {
         this.theoryRevisionManager = theoryRevisionManager;
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeComponent(operatorSelector);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        input.readComponent(operatorSelector);
+    }
+
 }
@@ -31,18 +31,28 @@ package br.ufrj.cos.knowledge.theory.manager.revision;
 
 import br.ufrj.cos.core.LearningSystem;
 import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.manager.Node;
+import br.ufrj.cos.knowledge.manager.TreeTheory;
 import br.ufrj.cos.knowledge.theory.Theory;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
 import br.ufrj.cos.knowledge.theory.manager.feature.FeatureGenerator;
 import br.ufrj.cos.knowledge.theory.manager.revision.operator.RevisionOperator;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.Initializable;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import static br.ufrj.cos.util.log.RevisionLog.INITIALIZING_REVISION_OPERATOR_EVALUATOR;
 
@@ -51,7 +61,8 @@ import static br.ufrj.cos.util.log.RevisionLog.INITIALIZING_REVISION_OPERATOR_EV
  * <p>
  * This class is not thread-safe, if you want to perform multiple evaluations using the same {@link RevisionOperator}
  * with the same {@link TheoryMetric} in different {@link Theory}(is), please create a instance of this class for each
- * thread.
+ * thread. The exception is the revision of different leaves of a {@link TreeTheory}, since the updated
+ * {@link Theory} is cached by revision leaf.
  * <p>
  * This class may cache the updated {@link Theory}, depends on the implementation.
  * <p>
@@ -59,7 +70,7 @@ import static br.ufrj.cos.util.log.RevisionLog.INITIALIZING_REVISION_OPERATOR_EV
  *
  * @author Victor Guimarães
  */
-public class RevisionOperatorEvaluator implements Initializable {
+public class RevisionOperatorEvaluator implements Initializable, Checkpointable {
 
     /**
      * The logger
@@ -68,8 +79,13 @@ public class RevisionOperatorEvaluator implements Initializable {
 
     protected RevisionOperator revisionOperator;
 
-    protected Theory updatedTheory;
-    protected boolean isRevised;
+    /**
+     * The updated theories, by revision leaf. The {@code null} key holds the theory updated without leaf. The
+     * theories are only kept while the revision of the leaf is being proposed, see
+     * {@link RevisionOperatorSelector#clearCachedTheories(Node)}.
+     */
+    protected final Map<Node<HornClause>, Theory> updatedTheories =
+            Collections.synchronizedMap(new IdentityHashMap<>());
 
     /**
      * Constructs a {@link RevisionOperatorEvaluator} with its fields.
@@ -102,14 +118,44 @@ public class RevisionOperatorEvaluator implements Initializable {
      */
     public double evaluateOperator(Collection<? extends Example> targets,
                                    TheoryMetric metric) throws TheoryRevisionException {
-        if (!isRevised) {
-            updatedTheory = revisionOperator.performOperation(targets);
-            isRevised = true;
+        return evaluateOperator(targets, metric, null);
+    }
+
+    /**
+     * Evaluates a {@link Theory} as {@link RevisionOperator} was applied on the leaf, based on the metric.
+     *
+     * @param targets      the target {@link Example}s
+     * @param metric       the metric
+     * @param revisionLeaf the leaf to be revised, {@code null} if the theory is not a tree
+     * @return the evaluated value
+     * @throws TheoryRevisionException in case an error occurs on the revision
+     */
+    public double evaluateOperator(Collection<? extends Example> targets, TheoryMetric metric,
+                                   Node<HornClause> revisionLeaf) throws TheoryRevisionException {
+        Theory updatedTheory;
+        if (updatedTheories.containsKey(revisionLeaf)) {
+            updatedTheory = updatedTheories.get(revisionLeaf);
+        } else {
+            updatedTheory = revisionOperator.performOperation(targets, revisionLeaf);
+            updatedTheories.put(revisionLeaf, updatedTheory);
         }
         if (updatedTheory == null) { return metric.getDefaultValue(); }
         return revisionOperator.getTheoryEvaluator().evaluateTheory(metric, updatedTheory, targets);
     }
 
+    /**
+     * Evaluates a {@link Theory}, already revised by the {@link RevisionOperator}, based on the metric, the same way
+     * the revisions of the operator are evaluated.
+     *
+     * @param targets the target {@link Example}s
+     * @param metric  the metric
+     * @param theory  the revised theory
+     * @return the evaluated value
+     */
+    public double evaluateRevisedTheory(Collection<? extends Example> targets, TheoryMetric metric, Theory theory) {
+        return revisionOperator.getTheoryEvaluator().evaluateTheory(metric, theory, targets);
+    }
+
     /**
      * Gets the revised theory. This method is useful because most of the {@link RevisionOperatorEvaluator} needs to
      * previously apply the change before evaluateTheory it. This methods allows it to store the revised
@@ -122,11 +168,27 @@ public class RevisionOperatorEvaluator implements Initializable {
      * @throws TheoryRevisionException in case an error occurs on the revision
      */
     public Theory getRevisedTheory(Collection<? extends Example> targets) throws TheoryRevisionException {
-        if (isRevised) {
-            isRevised = false;
-            return updatedTheory;
+        return getRevisedTheory(targets, null);
+    }
+
+    /**
+     * Gets the revised theory of the leaf. If the {@link Theory} was not created (or stored) it is computed on the
+     * call of this method.
+     *
+     * @param targets      the target {@link Example}s
+     * @param revisionLeaf the leaf to be revised, {@code null} if the theory is not a tree
+     * @return the revised {@link Theory}
+     * @throws TheoryRevisionException in case an error occurs on the revision
+     * @see #getRevisedTheory(Collection)
+     */
+    public Theory getRevisedTheory(Collection<? extends Example> targets,
+                                   Node<HornClause> revisionLeaf) throws TheoryRevisionException {
+        synchronized (updatedTheories) {
+            if (updatedTheories.containsKey(revisionLeaf)) {
+                return updatedTheories.remove(revisionLeaf);
+            }
         }
-        return revisionOperator.performOperation(targets);
+        return revisionOperator.performOperation(targets, revisionLeaf);
     }
 
     /**
@@ -177,7 +239,23 @@ public class RevisionOperatorEvaluator implements Initializable {
      * Clears the revised theory.
      */
     public void clearCachedTheory() {
-        isRevised = false;
+        clearCachedTheory(null);
+    }
+
+    /**
+     * Clears the revised theory of the leaf.
+     *
+     * @param revisionLeaf the revised leaf, {@code null} if the theory is not a tree
+     */
+    public void clearCachedTheory(Node<HornClause> revisionLeaf) {
+        updatedTheories.remove(revisionLeaf);
+    }
+
+    /**
+     * Clears the revised theories of all the leaves.
+     */
+    public void clearCachedTheories() {
+        updatedTheories.clear();
     }
 
     /**
@@ -187,7 +265,18 @@ public class RevisionOperatorEvaluator implements Initializable {
      * @param revised the revised theory
      */
     public void theoryRevisionAccepted(Theory revised) {
-        revisionOperator.theoryRevisionAccepted(revised);
+        theoryRevisionAccepted(revised, null);
+    }
+
+    /**
+     * Method to send a feedback to the revision operator, telling that the revision of the leaf was accepted, in
+     * order to allow it to do something.
+     *
+     * @param revised      the revised theory
+     * @param revisionLeaf the revised leaf, {@code null} if the theory is not a tree
+     */
+    public void theoryRevisionAccepted(Theory revised, Node<HornClause> revisionLeaf) {
+        revisionOperator.theoryRevisionAccepted(revised, revisionLeaf);
     }
 
     @Override
@@ -205,4 +294,14 @@ public class RevisionOperatorEvaluator implements Initializable {
                 revisionOperator.getTheoryMetric().parametersRetrainedBeforeEvaluate;
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeComponent(revisionOperator);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        input.readComponent(revisionOperator);
+    }
+
 }
@@ -30,16 +30,23 @@
 package br.ufrj.cos.knowledge.theory.manager.revision;
 
 import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.manager.Node;
 import br.ufrj.cos.knowledge.theory.Theory;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
 import br.ufrj.cos.knowledge.theory.manager.revision.operator.RevisionOperator;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.Initializable;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.InvalidClassException;
 import java.util.Collection;
 
 import static br.ufrj.cos.util.log.RevisionLog.INITIALIZING_REVISION_OPERATOR_SELECTOR;
@@ -51,7 +58,7 @@ import static br.ufrj.cos.util.log.RevisionLog.INITIALIZING_REVISION_OPERATOR_SE
  *
  * @author Victor Guimarães
  */
-public abstract class RevisionOperatorSelector implements Initializable {
+public abstract class RevisionOperatorSelector implements Initializable, Checkpointable {
 
     /**
      * The logger
@@ -82,6 +89,45 @@ public abstract class RevisionOperatorSelector implements Initializable {
     public abstract RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets,
                                                              TheoryMetric metric);
 
+    /**
+     * Selects the best suited {@link RevisionOperator} to be applied on the leaf of the {@link Theory}, based on the
+     * metric.
+     * <p>
+     * The default implementation ignores the leaf, since only the operators of tree theories use it.
+     *
+     * @param targets      the target iterator
+     * @param metric       the metric
+     * @param revisionLeaf the leaf to be revised, {@code null} if the theory is not a tree
+     * @return the best suited {@link RevisionOperatorEvaluator}
+     */
+    public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets, TheoryMetric metric,
+                                                    Node<HornClause> revisionLeaf) {
+        return selectOperator(targets, metric);
+    }
+
+    /**
+     * Clears the revised theories cached for the leaf by all the {@link RevisionOperatorEvaluator}s. It must be
+     * called once the revision of the leaf is accepted or discarded, so the theories revised by the operators that
+     * were not selected are not kept.
+     *
+     * @param revisionLeaf the revised leaf, {@code null} if the theory is not a tree
+     */
+    public void clearCachedTheories(Node<HornClause> revisionLeaf) {
+        for (RevisionOperatorEvaluator operator : operatorEvaluators) {
+            operator.clearCachedTheory(revisionLeaf);
+        }
+    }
+
+    /**
+     * Clears the revised theories cached for any leaf by all the {@link RevisionOperatorEvaluator}s, including the
+     * leaves that are no longer in the theory.
+     */
+    public void clearCachedTheories() {
+        for (RevisionOperatorEvaluator operator : operatorEvaluators) {
+            operator.clearCachedTheories();
+        }
+    }
+
     /**
      * Sets the {@link RevisionOperatorEvaluator} set if it is not yet set. If it is already set, throws an error.
      *
@@ -107,4 +153,25 @@ public abstract class RevisionOperatorSelector implements Initializable {
         return this.operatorEvaluators != null;
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeInt(operatorEvaluators.size());
+        for (RevisionOperatorEvaluator operator : operatorEvaluators) {
+            output.writeComponent(operator);
+        }
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        final int size = input.readInt();
+        if (size != operatorEvaluators.size()) {
+            throw new InvalidClassException(
+                    FileIOUtils.formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_COMPONENT_MISMATCH.toString(),
+                                                 operatorEvaluators.size(), size));
+        }
+        for (RevisionOperatorEvaluator operator : operatorEvaluators) {
+            input.readComponent(operator);
+        }
+    }
+
 }
@@ -31,9 +31,12 @@ package br.ufrj.cos.knowledge.theory.manager.revision;
 
 import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -65,14 +68,14 @@ public class StochasticLeafRevisionManager extends BestLeafRevisionManager {
         int totalRevision = getMaximumRevisionPoints(revisionPoints);
         List<Pair<Integer, ? extends RevisionExamples>> pairList = buildIndexPairList(revisionPoints);
         List<Pair<Integer, Double>> heuristicList = buildHeuristicList(revisionPoints, trainUsingAllExamples);
+        List<Pair<Integer, ? extends RevisionExamples>> revisions = new ArrayList<>(totalRevision);
         int index;
         for (int i = 0; i < totalRevision; i++) {
             index = rouletteSelection(heuristicList);
-            treeTheory.revisionLeafIndex = pairList.get(index).getKey();
-            callRevision(pairList.get(index).getValue());
-            pairList.remove(index);
+            revisions.add(pairList.remove(index));
             heuristicList.remove(index);
         }
+        reviseLeaves(revisions);
     }
 
     /**
@@ -136,4 +139,16 @@ public class StochasticLeafRevisionManager extends BestLeafRevisionManager {
         random = new Random(randomSeed);
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        super.saveCheckpoint(output);
+        output.writeRandom(random);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        super.loadCheckpoint(input);
+        random = input.readRandom();
+    }
+
 }
@@ -37,8 +37,12 @@ import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
 import br.ufrj.cos.knowledge.theory.manager.revision.TheoryRevisionException;
 import br.ufrj.cos.logic.*;
 import br.ufrj.cos.util.*;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import br.ufrj.cos.util.multithreading.MultithreadingEvaluation;
 
+import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -53,7 +57,7 @@ import static br.ufrj.cos.util.log.RevisionLog.ERROR_REVISING_THEORY;
  *
  * @author Victor Guimarães
  */
-public abstract class LiteralAppendOperator<V> extends RevisionOperator {
+public abstract class LiteralAppendOperator<V> extends RevisionOperator implements Checkpointable {
 
     /**
      * The default value of the {@link #generateFeatureBeforeEvaluate}.
@@ -80,6 +84,23 @@ public abstract class LiteralAppendOperator<V> extends RevisionOperator {
      */
     @SuppressWarnings("CanBeFinal")
     public int evaluationTimeout = MultithreadingEvaluation.DEFAULT_EVALUATION_TIMEOUT;
+    /**
+     * The delta of the Hoeffding's bound used to race the candidates, dropping the ones that are worse than the best
+     * on a sample of the examples. If it is {@link MultithreadingEvaluation#NO_RACING}, every candidate is evaluated
+     * on all the examples.
+     */
+    @SuppressWarnings("CanBeFinal")
+    public double racingDelta = MultithreadingEvaluation.NO_RACING;
+    /**
+     * The size of the sample of the examples on the first round of the racing.
+     */
+    @SuppressWarnings("CanBeFinal")
+    public int racingSampleSize = MultithreadingEvaluation.DEFAULT_RACING_SAMPLE_SIZE;
+    /**
+     * If {@code true}, checks if the racing chooses the same candidate as the exhaustive evaluation.
+     */
+    @SuppressWarnings("CanBeFinal")
+    public boolean checkRacingAgreement = false;
     /**
      * The random generator to select subsets of the examples.
      */
@@ -227,13 +248,19 @@ public abstract class LiteralAppendOperator<V> extends RevisionOperator {
         Set<Literal> variableRelevants;
         VariableGenerator variableGenerator = new VariableGenerator(substitutionGoal);
         Map<Term, Term> substitutionMap;
-        Set<Literal> candidateLiterals = new HashSet<>();
-        for (Map.Entry<Example, Map<Atom, Double>> inferredExample : inferredExamples.entrySet()) {
+        Set<Literal> candidateLiterals = new LinkedHashSet<>();
+        List<Map.Entry<Example, Map<Atom, Double>>> entries = new ArrayList<>(inferredExamples.entrySet());
+        // the order defines the names of the variables, so it must not depend on the order of the maps
+        entries.sort(Comparator.comparing(e -> e.getKey().toString()));
+        List<Atom> answers;
+        for (Map.Entry<Example, Map<Atom, Double>> inferredExample : entries) {
             example = inferredExample.getKey();
             constants = example.getGoalQuery().getTerms().stream().filter(Term::isConstant).collect(Collectors.toSet());
             relevants = learningSystem.relevantsBreadthFirstSearch(constants, relevantsDepth);
-            variableRelevants = new HashSet<>();
-            for (Atom answer : inferredExample.getValue().keySet()) {
+            variableRelevants = new LinkedHashSet<>();
+            answers = new ArrayList<>(inferredExample.getValue().keySet());
+            answers.sort(Comparator.comparing(Atom::toString));
+            for (Atom answer : answers) {
                 try {
                     substitutionMap = RelevantLiteralAppendOperator.createSubstitutionMap(substitutionGoal, example,
                                                                                           answer);
@@ -248,4 +275,15 @@ public abstract class LiteralAppendOperator<V> extends RevisionOperator {
         }
         return candidateLiterals;
     }
+
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeRandom(randomGenerator);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        randomGenerator = input.readRandom();
+    }
+
 }
@@ -90,6 +90,9 @@ public class PathFindAppendOperator extends LiteralAppendOperator<Set<? extends
         multithreading = new MultithreadingEvaluation<>(learningSystem, theoryMetric, evaluationTimeout,
                                                         conjunctionTransformer);
         multithreading.numberOfThreads = numberOfThreads;
+        multithreading.racingDelta = racingDelta;
+        multithreading.racingSampleSize = racingSampleSize;
+        multithreading.checkRacingAgreement = checkRacingAgreement;
         setMaximumBasedExamples(1);
     }
 
@@ -117,8 +120,10 @@ public class PathFindAppendOperator extends LiteralAppendOperator<Set<? extends
             if (paths == null || paths.isEmpty()) { return null; }
             Collection<Conjunction> conjunctions = new HashSet<>();
             paths.forEach(path -> pathToRules(path, knowledgeBase, conjunctions));
-            conjunctionTransformer.setInitialClause(initialClause);
-            return multithreading.getBestClausesFromCandidates(conjunctions, examples);
+            ConjunctionAppendAsyncTransformer<Object> transformer =
+                    new ConjunctionAppendAsyncTransformer<>(conjunctionTransformer.getFeatureGenerator());
+            transformer.setInitialClause(initialClause);
+            return multithreading.withTransformer(transformer).getBestClausesFromCandidates(conjunctions, examples);
         } catch (RuntimeException e) {
             logger.trace(ExceptionMessages.ERROR_APPENDING_LITERAL.toString(), e);
         }
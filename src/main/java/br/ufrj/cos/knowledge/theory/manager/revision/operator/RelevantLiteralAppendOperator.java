@@ -78,7 +78,8 @@ public class RelevantLiteralAppendOperator extends LiteralAppendOperator<Literal
     }
 
     /**
-     * Appends the variable form of the initialAtom, as literal, to the set of variableLiterals.
+     * Appends the variable form of the initialAtom, as literal, to the set of variableLiterals. The atoms are
+     * appended in the order of their string representation, so the names of the new variables are always the same.
      *
      * @param initialAtoms      the initial atom, i.e. the candidate atoms
      * @param variableLiterals  the variable literals
@@ -90,7 +91,9 @@ public class RelevantLiteralAppendOperator extends LiteralAppendOperator<Literal
     protected static void appendVariableAtomToSet(Set<Atom> initialAtoms, Set<Literal> variableLiterals,
                                                   Map<Term, Term> variableMap, VariableGenerator variableGenerator)
             throws InstantiationException, IllegalAccessException {
-        for (Atom atom : initialAtoms) {
+        List<Atom> atoms = new ArrayList<>(initialAtoms);
+        atoms.sort(Comparator.comparing(Atom::toString));
+        for (Atom atom : atoms) {
             variableLiterals.add(LanguageUtils.toVariableLiteral(atom, variableMap, variableGenerator));
         }
     }
@@ -106,6 +109,9 @@ public class RelevantLiteralAppendOperator extends LiteralAppendOperator<Literal
         multithreading = new MultithreadingEvaluation<>(learningSystem, theoryMetric, evaluationTimeout,
                                                         literalTransformer);
         multithreading.numberOfThreads = numberOfThreads;
+        multithreading.racingDelta = racingDelta;
+        multithreading.racingSampleSize = racingSampleSize;
+        multithreading.checkRacingAgreement = checkRacingAgreement;
     }
 
     @Override
@@ -130,8 +136,10 @@ public class RelevantLiteralAppendOperator extends LiteralAppendOperator<Literal
             Set<Literal> literals = getLiteralCandidatesFromExamples(initialClause, substitutionClause.getHead(),
                                                                      inferredExamples, skipCandidates, true);
             if (literals.isEmpty()) { return null; }
-            literalTransformer.setInitialClause(initialClause);
-            return multithreading.getBestClausesFromCandidates(literals, examples);
+            LiteralAppendAsyncTransformer<Object> transformer =
+                    new LiteralAppendAsyncTransformer<>(literalTransformer.getFeatureGenerator());
+            transformer.setInitialClause(initialClause);
+            return multithreading.withTransformer(transformer).getBestClausesFromCandidates(literals, examples);
         } catch (RuntimeException e) {
             logger.trace(ExceptionMessages.ERROR_APPENDING_LITERAL.toString(), e);
         }
@@ -31,11 +31,13 @@ package br.ufrj.cos.knowledge.theory.manager.revision.operator;
 
 import br.ufrj.cos.core.LearningSystem;
 import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.manager.Node;
 import br.ufrj.cos.knowledge.theory.Theory;
 import br.ufrj.cos.knowledge.theory.evaluation.TheoryEvaluator;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
 import br.ufrj.cos.knowledge.theory.manager.feature.FeatureGenerator;
 import br.ufrj.cos.knowledge.theory.manager.revision.TheoryRevisionException;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.Initializable;
@@ -103,6 +105,21 @@ public abstract class RevisionOperator implements Initializable {
      */
     public abstract Theory performOperation(Collection<? extends Example> targets) throws TheoryRevisionException;
 
+    /**
+     * Apply the operation on the leaf of its {@link Theory} given the target {@link Example}.
+     * <p>
+     * The default implementation ignores the leaf, since only the operators of tree theories use it.
+     *
+     * @param targets      the targets {@link Example}s
+     * @param revisionLeaf the leaf to be revised, {@code null} if the theory is not a tree
+     * @return the {@link Theory}
+     * @throws TheoryRevisionException in an error occurs during the revision
+     */
+    public Theory performOperation(Collection<? extends Example> targets,
+                                   Node<HornClause> revisionLeaf) throws TheoryRevisionException {
+        return performOperation(targets);
+    }
+
     /**
      * Gets the {@link TheoryMetric}.
      *
@@ -136,6 +153,15 @@ public abstract class RevisionOperator implements Initializable {
         return learningSystem.getTheoryEvaluator();
     }
 
+    /**
+     * Gets the {@link LearningSystem}.
+     *
+     * @return the {@link LearningSystem}
+     */
+    public LearningSystem getLearningSystem() {
+        return learningSystem;
+    }
+
     /**
      * Sets the {@link LearningSystem} if it is not yet set. If it is already set, throws an error.
      *
@@ -175,4 +201,17 @@ public abstract class RevisionOperator implements Initializable {
     @SuppressWarnings("unused")
     public abstract void theoryRevisionAccepted(Theory revised);
 
+    /**
+     * Method to send a feedback to the revision operator, telling that the revision of the leaf was accepted, in
+     * order to allow it to do something.
+     * <p>
+     * The default implementation ignores the leaf, since only the operators of tree theories use it.
+     *
+     * @param revised      the revised theory
+     * @param revisionLeaf the revised leaf, {@code null} if the theory is not a tree
+     */
+    public void theoryRevisionAccepted(Theory revised, Node<HornClause> revisionLeaf) {
+        theoryRevisionAccepted(revised);
+    }
+
 }
@@ -43,10 +43,7 @@ import br.ufrj.cos.util.multithreading.MultithreadingEvaluation;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Collection;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 import static br.ufrj.cos.util.log.InferenceLog.EVALUATION_INITIAL_THEORIES;
@@ -84,6 +81,16 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
      */
     public static final double DEFAULT_IMPROVEMENT_THRESHOLD = 0.0;
 
+    /**
+     * Represents a constant for no beam search, the rule is refined by the hill climbing.
+     */
+    public static final int NO_BEAM_SEARCH = 0;
+
+    /**
+     * Represents a constant for no evaluation budget.
+     */
+    public static final int NO_EVALUATION_BUDGET = -1;
+
     /**
      * The class name of the variable generator.
      */
@@ -150,6 +157,24 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
      */
     public boolean generic = true;
 
+    /**
+     * The width of the beam of the refinement. If it is {@link #NO_BEAM_SEARCH}, the rule is refined by a hill
+     * climbing, adding the best {@link Literal} at a time; otherwise, the best {@code beamWidth} refinements of each
+     * size are kept to be refined further.
+     *
+     * @see #beamRefineRule(AsyncTheoryEvaluator, Set, Collection)
+     */
+    public int beamWidth = NO_BEAM_SEARCH;
+
+    /**
+     * The maximum number of candidates evaluated by the beam refinement, during a revision, i.e. a call of
+     * {@link #performOperation(Collection)}. When it is over, the refinement returns the best {@link HornClause}
+     * found so far.
+     * <p>
+     * If it is {@link #NO_EVALUATION_BUDGET}, the number of evaluations is not bounded.
+     */
+    public int evaluationBudget = NO_EVALUATION_BUDGET;
+
     /**
      * The maximum amount of time, in seconds, allowed to the evaluation of the {@link Theory}.
      * <p>
@@ -162,6 +187,21 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
      */
     public int numberOfThreads = MultithreadingEvaluation.DEFAULT_NUMBER_OF_THREADS;
 
+    /**
+     * The delta of the Hoeffding's bound used to race the candidates, dropping the ones that are worse than the best
+     * on a sample of the examples. If it is {@link MultithreadingEvaluation#NO_RACING}, every candidate is evaluated
+     * on all the examples.
+     */
+    public double racingDelta = MultithreadingEvaluation.NO_RACING;
+    /**
+     * The size of the sample of the examples on the first round of the racing.
+     */
+    public int racingSampleSize = MultithreadingEvaluation.DEFAULT_RACING_SAMPLE_SIZE;
+    /**
+     * If {@code true}, checks if the racing chooses the same candidate as the exhaustive evaluation.
+     */
+    public boolean checkRacingAgreement = false;
+
     protected MultithreadingEvaluation<EquivalentHornClause, EquivalentHornClause> multithreading;
 
     @SuppressWarnings("unchecked")
@@ -182,15 +222,20 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
         multithreading = new MultithreadingEvaluation<>(learningSystem, theoryMetric, evaluationTimeout,
                                                         new EquivalentHornClauseAsyncTransformer());
         multithreading.numberOfThreads = numberOfThreads;
+        multithreading.racingDelta = racingDelta;
+        multithreading.racingSampleSize = racingSampleSize;
+        multithreading.checkRacingAgreement = checkRacingAgreement;
+        multithreading.estimateOptimistically = beamWidth > NO_BEAM_SEARCH;
     }
 
     @Override
     public Theory performOperation(Collection<? extends Example> targets) throws TheoryRevisionException {
         try {
             logger.info(PERFORMING_OPERATION_ON_EXAMPLES.toString(), targets.size());
+            final EvaluationBudget budget = new EvaluationBudget(evaluationBudget);
             Theory theory = learningSystem.getTheory().copy();
             for (Example example : targets) {
-                performOperationForExample(example, theory, targets);
+                performOperationForExample(example, theory, targets, budget);
             }
             return theory;
         } catch (KnowledgeException e) {
@@ -209,9 +254,11 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
      * @param example            the example
      * @param theory             the theory
      * @param evaluationExamples the evaluation examples
+     * @param budget             the evaluation budget of the revision
      */
     protected void performOperationForExample(Example example, Theory theory,
-                                              Collection<? extends Example> evaluationExamples) {
+                                              Collection<? extends Example> evaluationExamples,
+                                              EvaluationBudget budget) {
         HornClause newRule;
         try {
             if (!example.isPositive() || isCovered(example, theory)) {
@@ -223,7 +270,7 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
             logger.debug(BUILDING_CLAUSE_FROM_EXAMPLE.toString(), example);
             final HornClause bottomClause = buildBottomClause(example);
             logger.info(BOTTOM_CLAUSE_SIZE.toString(), bottomClause.getBody().size());
-            newRule = buildRuleFromBottomClause(evaluationExamples, bottomClause);
+            newRule = buildRuleFromBottomClause(evaluationExamples, bottomClause, budget);
             newRule = featureGenerator.createFeatureForRule(newRule, evaluationExamples);
             if (theory.add(newRule)) {
                 logger.info(RULE_APPENDED_TO_THEORY.toString(), newRule);
@@ -256,11 +303,13 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
      *
      * @param evaluationExamples the evaluation examples
      * @param bottomClause       the bottom clause to generate the rule
+     * @param budget             the evaluation budget of the revision
      * @return a {@link HornClause}
      * @throws TheoryRevisionException in an error occurs during the revision
      */
     protected HornClause buildRuleFromBottomClause(Collection<? extends Example> evaluationExamples,
-                                                   HornClause bottomClause) throws TheoryRevisionException {
+                                                   HornClause bottomClause,
+                                                   EvaluationBudget budget) throws TheoryRevisionException {
         logger.debug(FIND_MINIMAL_SAFE_CLAUSES);
         Set<EquivalentHornClause> candidateClauses = HornClauseUtils.buildMinimalSafeEquivalentClauses(bottomClause);
         logger.debug(EVALUATION_INITIAL_THEORIES.toString(), candidateClauses.size());
@@ -272,7 +321,7 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
         }
 
         if (refine) {
-            bestClause = refineRule(bestClause, bottomClause.getBody(), evaluationExamples);
+            bestClause = refineRule(bestClause, bottomClause.getBody(), evaluationExamples, budget);
         }
         return bestClause.getHornClause();
     }
@@ -307,12 +356,17 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
      * @param initialClause      the initial minimal candidate clause
      * @param candidateLiterals  the candidate literals
      * @param evaluationExamples the evaluation examples
+     * @param budget             the evaluation budget of the revision, only used by the beam search
      * @return a {@link AsyncTheoryEvaluator} containing the best {@link HornClause} found
      */
     protected AsyncTheoryEvaluator<EquivalentHornClause> refineRule(AsyncTheoryEvaluator<EquivalentHornClause>
                                                                             initialClause,
                                                                     Set<Literal> candidateLiterals,
-                                                                    Collection<? extends Example> evaluationExamples) {
+                                                                    Collection<? extends Example> evaluationExamples,
+                                                                    EvaluationBudget budget) {
+        if (beamWidth > NO_BEAM_SEARCH) {
+            return beamRefineRule(initialClause, candidateLiterals, evaluationExamples, budget);
+        }
         Set<Literal> candidates = new LinkedHashSet<>(candidateLiterals);
         AsyncTheoryEvaluator<EquivalentHornClause> bestClause = initialClause;
         AsyncTheoryEvaluator<EquivalentHornClause> currentClause = initialClause;
@@ -340,6 +394,103 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
         return bestClause;
     }
 
+    /**
+     * Refines the rule by a beam search. It starts from the best minimal candidate and, at each step, adds a
+     * {@link Literal} into the body of each rule in the beam, keeping the best {@link #beamWidth} refinements as the
+     * next beam. The refinements with the same evaluation are kept in the order they were generated, so the beam does
+     * not depend on the order of the evaluations. Before expanding a rule, the optimistic estimate of its
+     * specializations, computed from the answers of its own evaluation, is checked, and the rule is not expanded if
+     * none of them can improve over the best {@link HornClause} found so far. It finishes when one of the following
+     * criteria is met:
+     * <p>
+     * 1) The best of the beam does not improve the {@link HornClause} in {@link #maximumSideWayMovements} times;
+     * <br>
+     * 2) There is no more possible addition to make, or all the rules of the beam were pruned;
+     * <br>
+     * 3) The {@link #evaluationBudget} of the revision is over.
+     * <p>
+     * After it finishes, it return the best {@link HornClause} found, based on the {@link #generic} criteria.
+     *
+     * @param initialClause      the initial minimal candidate clause
+     * @param candidateLiterals  the candidate literals
+     * @param evaluationExamples the evaluation examples
+     * @param budget             the evaluation budget of the revision
+     * @return a {@link AsyncTheoryEvaluator} containing the best {@link HornClause} found
+     */
+    @SuppressWarnings({"OverlyComplexMethod", "OverlyLongMethod"})
+    protected AsyncTheoryEvaluator<EquivalentHornClause> beamRefineRule(AsyncTheoryEvaluator<EquivalentHornClause>
+                                                                                initialClause,
+                                                                        Set<Literal> candidateLiterals,
+                                                                        Collection<? extends Example>
+                                                                                evaluationExamples,
+                                                                        EvaluationBudget budget) {
+        AsyncTheoryEvaluator<EquivalentHornClause> bestClause = initialClause;
+        List<AsyncTheoryEvaluator<EquivalentHornClause>> beam = Collections.singletonList(initialClause);
+        int sideWayMovements = 0;
+        logger.debug(REFINING_RULE.toString(), initialClause);
+        while (!isToStopBySideWayMovements(sideWayMovements) && !beam.isEmpty() && budget.hasBudget()) {
+            List<List<EquivalentHornClause>> refinements = new ArrayList<>(beam.size());
+            for (AsyncTheoryEvaluator<EquivalentHornClause> clause : beam) {
+                if (!isToExpand(clause, bestClause)) {
+                    logger.debug(PRUNING_REFINEMENT_CANDIDATE.toString(), clause);
+                    continue;
+                }
+                Set<Literal> candidates = new LinkedHashSet<>(candidateLiterals);
+                removeEquivalentCandidates(candidates, clause.getElement());
+                refinements.add(clause.getElement().buildAppendCandidatesFromClause(candidates));
+            }
+            List<EquivalentHornClause> evaluated = budget.spend(refinements);
+            if (evaluated.isEmpty()) { break; }
+            final Map<EquivalentHornClause, Integer> generationOrder = new HashMap<>(evaluated.size());
+            for (EquivalentHornClause refinement : evaluated) {
+                generationOrder.put(refinement, generationOrder.size());
+            }
+
+            Map<AsyncTheoryEvaluator<EquivalentHornClause>, Double> evaluationMap = new HashMap<>();
+            AsyncTheoryEvaluator<EquivalentHornClause> currentClause =
+                    multithreading.getBestClausesFromCandidates(evaluated, evaluationExamples, evaluationMap);
+            if (currentClause == null) { break; }
+            beam = evaluationMap.entrySet().stream()
+                    .sorted((e1, e2) -> {
+                        int comparison = theoryMetric.compare(e2.getValue(), e1.getValue());
+                        return comparison != 0 ? comparison : Integer.compare(
+                                generationOrder.get(e1.getKey().getElement()),
+                                generationOrder.get(e2.getKey().getElement()));
+                    })
+                    .limit(beamWidth).map(Map.Entry::getKey).collect(Collectors.toList());
+            if (theoryMetric.difference(currentClause.getEvaluation(), bestClause.getEvaluation()) >
+                    improvementThreshold) {
+                logger.debug(ACCEPTING_NEW_BEST_REFINED_CANDIDATE.toString(), currentClause);
+                bestClause = currentClause;
+                sideWayMovements = 0;
+            } else {
+                logger.debug(MAKING_SIDE_MOVEMENT_FOR_CANDIDATE.toString(), currentClause);
+                sideWayMovements++;
+                if (theoryMetric.difference(currentClause.getEvaluation(), bestClause.getEvaluation()) >= 0.0 &&
+                        !generic) {
+                    bestClause = currentClause;
+                }
+            }
+        }
+        return bestClause;
+    }
+
+    /**
+     * Checks if the specializations of the clause may improve over the best clause, based on the optimistic
+     * estimate of the metric for them. The estimate is computed from the answers of the evaluation of the clause,
+     * so it costs no inference.
+     *
+     * @param clause     the clause
+     * @param bestClause the best clause found so far
+     * @return {@code true} if the clause is worth to expand, {@code false} otherwise
+     * @see TheoryMetric#evaluateOptimistically(Map, Collection)
+     */
+    protected boolean isToExpand(AsyncTheoryEvaluator<EquivalentHornClause> clause,
+                                 AsyncTheoryEvaluator<EquivalentHornClause> bestClause) {
+        double difference = theoryMetric.difference(clause.getOptimisticEvaluation(), bestClause.getEvaluation());
+        return generic ? difference > improvementThreshold : difference >= 0.0;
+    }
+
     /**
      * Removes all the equivalent candidates of the body of the clause from the candidate set.
      *
@@ -440,4 +591,66 @@ public class BottomClauseBoundedRule extends GeneralizationRevisionOperator {
         return evaluator.call().getEvaluation();
     }
 
+    /**
+     * The evaluation budget of a single revision, kept apart from the operator, so the revisions of different leaves
+     * running at the same time do not spend each other's budget.
+     */
+    protected static class EvaluationBudget {
+
+        protected int remaining;
+
+        /**
+         * Constructor with the budget.
+         *
+         * @param budget the maximum number of evaluations, {@link #NO_EVALUATION_BUDGET} for no bound
+         */
+        protected EvaluationBudget(int budget) {
+            this.remaining = budget;
+        }
+
+        /**
+         * Checks if there is budget left.
+         *
+         * @return {@code true} if there is budget left, {@code false} otherwise
+         */
+        protected boolean hasBudget() {
+            return remaining == NO_EVALUATION_BUDGET || remaining > 0;
+        }
+
+        /**
+         * Spends the budget on the evaluation of the refinements of the rules in the beam. The refinements are taken
+         * in turns, one of each rule at a time, in the order of the beam; so, if the budget is not enough to evaluate
+         * all of them, it is spread across the rules, instead of spent on the refinements of the first ones. A
+         * refinement of more than one rule is evaluated once.
+         *
+         * @param refinements the refinements of each rule, in the order of the beam
+         * @param <T>         the type of the candidates
+         * @return the candidates to evaluate
+         */
+        protected <T> List<T> spend(List<? extends List<? extends T>> refinements) {
+            final Set<T> candidates = new LinkedHashSet<>();
+            int maximumSize = 0;
+            for (List<? extends T> refinement : refinements) { maximumSize = Math.max(maximumSize, refinement.size()); }
+            for (int i = 0; i < maximumSize; i++) {
+                for (List<? extends T> refinement : refinements) {
+                    if (isSpentBy(candidates.size())) { break; }
+                    if (i < refinement.size()) { candidates.add(refinement.get(i)); }
+                }
+            }
+            if (remaining != NO_EVALUATION_BUDGET) { remaining -= candidates.size(); }
+            return new ArrayList<>(candidates);
+        }
+
+        /**
+         * Checks if the budget is spent by the evaluation of the candidates.
+         *
+         * @param candidates the number of candidates
+         * @return {@code true} if there is no budget for another candidate, {@code false} otherwise
+         */
+        protected boolean isSpentBy(int candidates) {
+            return remaining != NO_EVALUATION_BUDGET && candidates >= remaining;
+        }
+
+    }
+
 }
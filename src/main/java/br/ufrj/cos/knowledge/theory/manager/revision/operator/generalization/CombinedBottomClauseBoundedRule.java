@@ -67,7 +67,7 @@ public class CombinedBottomClauseBoundedRule extends BottomClauseBoundedRule {
         try {
             logger.info(PERFORMING_OPERATION_ON_EXAMPLES.toString(), targets.size());
             Theory theory = learningSystem.getTheory().copy();
-            performOperationForExamples(targets, theory);
+            performOperationForExamples(targets, theory, new EvaluationBudget(evaluationBudget));
             return theory;
         } catch (KnowledgeException e) {
             throw new TheoryRevisionException(ExceptionMessages.ERROR_DURING_THEORY_COPY.toString(), e);
@@ -79,8 +79,10 @@ public class CombinedBottomClauseBoundedRule extends BottomClauseBoundedRule {
      *
      * @param targets the examples
      * @param theory  the theory
+     * @param budget  the evaluation budget of the revision
      */
-    protected void performOperationForExamples(Collection<? extends Example> targets, Theory theory) {
+    protected void performOperationForExamples(Collection<? extends Example> targets, Theory theory,
+                                               EvaluationBudget budget) {
         HornClause newRule;
         Map<Predicate, List<Example>> examplesByPredicate =
                 targets.stream().collect(Collectors.groupingBy(e -> e.getGoalQuery().getPredicate()));
@@ -94,7 +96,7 @@ public class CombinedBottomClauseBoundedRule extends BottomClauseBoundedRule {
                 logger.info(BUILDING_CLAUSE_FROM_PREDICATE_EXAMPLES.toString(), predicate, examples.size());
                 HornClause bottomClause = buildCombinedBottomClause(predicate, examples);
                 logger.info(BOTTOM_CLAUSE_SIZE.toString(), bottomClause.getBody().size());
-                newRule = buildRuleFromBottomClause(targets, bottomClause);
+                newRule = buildRuleFromBottomClause(targets, bottomClause, budget);
                 newRule = featureGenerator.createFeatureForRule(newRule, targets);
                 if (theory.add(newRule)) {
                     logger.info(RULE_APPENDED_TO_THEORY.toString(), newRule);
@@ -102,9 +102,11 @@ public class CombinedBottomClauseBreadthSearch extends CombinedBottomClauseBound
      *
      * @param targets the examples
      * @param theory  the theory
+     * @param budget  the evaluation budget of the revision, not used by the breadth search
      */
     @Override
-    protected void performOperationForExamples(Collection<? extends Example> targets, Theory theory) {
+    protected void performOperationForExamples(Collection<? extends Example> targets, Theory theory,
+                                               EvaluationBudget budget) {
         Map<Predicate, List<Example>> examplesByPredicate =
                 targets.stream().collect(Collectors.groupingBy(e -> e.getGoalQuery().getPredicate()));
         logger.info(FOUND_PREDICATES.toString(), examplesByPredicate.keySet().size());
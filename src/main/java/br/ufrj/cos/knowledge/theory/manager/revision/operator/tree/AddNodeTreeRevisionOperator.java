@@ -44,9 +44,13 @@ import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.InitializationException;
 import br.ufrj.cos.util.LanguageUtils;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.*;
 
 import static br.ufrj.cos.util.log.PreRevisionLog.TRY_REFINE_RULE;
@@ -59,7 +63,7 @@ import static br.ufrj.cos.util.log.RevisionLog.*;
  *
  * @author Victor Guimarães
  */
-public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
+public class AddNodeTreeRevisionOperator extends TreeRevisionOperator implements Checkpointable {
 
     /**
      * The logger
@@ -113,7 +117,11 @@ public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
      */
     @SuppressWarnings("CanBeFinal")
     public boolean generic = true;
-    protected HornClause revisedClause;
+    /**
+     * The last revised clause of each node, to be added to the tree if the revision is accepted.
+     */
+    protected final Map<Node<HornClause>, HornClause> revisedClauses =
+            Collections.synchronizedMap(new IdentityHashMap<>());
     protected LiteralAppendOperator appendOperator;
 
     /**
@@ -162,9 +170,9 @@ public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
     }
 
     @Override
-    public Theory performOperation(Collection<? extends Example> targets) throws TheoryRevisionException {
+    public Theory performOperation(Collection<? extends Example> targets,
+                                   Node<HornClause> revisionLeaf) throws TheoryRevisionException {
         try {
-            Node<HornClause> revisionLeaf = treeTheory.getRevisionLeaf();
             logger.trace(TRY_REFINE_RULE.toString(), revisionLeaf);
             if (revisionLeaf.isRoot()) {
                 // this is the root node
@@ -182,8 +190,7 @@ public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
     }
 
     @Override
-    public void theoryRevisionAccepted(Theory revised) {
-        Node<HornClause> revisionLeaf = treeTheory.getRevisionLeaf();
+    public void theoryRevisionAccepted(Theory revised, Node<HornClause> revisionLeaf) {
         treeTheory.removeExampleFromLeaf(revisionLeaf.getElement().getHead().getPredicate().toString(), revisionLeaf);
         if (revisionLeaf.isDefaultChild()) { revisionLeaf = revisionLeaf.getParent(); }
         Conjunction initialBody;
@@ -195,7 +202,7 @@ public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
         } else {
             initialBody = revisionLeaf.getElement().getBody();
         }
-        TreeTheory.addNodesToTree(revisedClause, revisionLeaf, initialBody);
+        TreeTheory.addNodesToTree(revisedClauses.remove(revisionLeaf), revisionLeaf, initialBody);
     }
 
     /**
@@ -248,11 +255,12 @@ public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
         if (refine) {
             hornClause = refineClause(hornClause, examples);
         }
-        revisedClause = hornClause.getHornClause();
+        HornClause revisedClause = hornClause.getHornClause();
         if (!appendOperator.generateFeatureBeforeEvaluate) {
             revisedClause = featureGenerator.createFeatureForRule(revisedClause, examples);
         }
-        logChange(node, removeOld);
+        revisedClauses.put(node, revisedClause);
+        logChange(node, revisedClause, removeOld);
 
         Theory theory = learningSystem.getTheory().copy();
         theory.add(revisedClause);
@@ -267,10 +275,11 @@ public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
     /**
      * Logs the changes to the theory
      *
-     * @param node      the node of the change
-     * @param removeOld if is to remove old clause (i.e. it is a addition of literal) or not.
+     * @param node          the node of the change
+     * @param revisedClause the revised clause
+     * @param removeOld     if is to remove old clause (i.e. it is a addition of literal) or not.
      */
-    protected void logChange(Node<HornClause> node, boolean removeOld) {
+    protected void logChange(Node<HornClause> node, HornClause revisedClause, boolean removeOld) {
         if (logger.isDebugEnabled()) {
             if (removeOld) {
                 Set<Literal> body = new LinkedHashSet<>(revisedClause.getBody());
@@ -358,4 +367,14 @@ public class AddNodeTreeRevisionOperator extends TreeRevisionOperator {
         this.appendOperator = appendOperator;
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeComponent(appendOperator);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        input.readComponent(appendOperator);
+    }
+
 }
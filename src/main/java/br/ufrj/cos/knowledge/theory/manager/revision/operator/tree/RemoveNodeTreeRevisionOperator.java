@@ -62,9 +62,9 @@ public class RemoveNodeTreeRevisionOperator extends TreeRevisionOperator {
     public static final Logger logger = LogManager.getLogger();
 
     @Override
-    public Theory performOperation(Collection<? extends Example> targets) throws TheoryRevisionException {
+    public Theory performOperation(Collection<? extends Example> targets,
+                                   Node<HornClause> revisionLeaf) throws TheoryRevisionException {
         try {
-            Node<HornClause> revisionLeaf = treeTheory.getRevisionLeaf();
             logger.trace(TRY_REFINE_RULE.toString(), revisionLeaf);
             if (revisionLeaf.isDefaultChild()) { return null; }
             if (revisionLeaf.isRoot()) {
@@ -143,8 +143,7 @@ public class RemoveNodeTreeRevisionOperator extends TreeRevisionOperator {
     }
 
     @Override
-    public void theoryRevisionAccepted(Theory revised) {
-        Node<HornClause> revisionLeaf = treeTheory.getRevisionLeaf();
+    public void theoryRevisionAccepted(Theory revised, Node<HornClause> revisionLeaf) {
         treeTheory.removeExampleFromLeaf(revisionLeaf.getElement().getHead().getPredicate().toString(), revisionLeaf);
         if (revisionLeaf.isRoot()) {
             revisionLeaf.getElement().getBody().clear();
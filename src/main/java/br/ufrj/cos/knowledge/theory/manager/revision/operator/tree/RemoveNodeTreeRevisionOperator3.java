@@ -66,9 +66,9 @@ public class RemoveNodeTreeRevisionOperator3 extends RemoveNodeTreeRevisionOpera
     public static final Logger logger = LogManager.getLogger();
 
     @Override
-    public Theory performOperation(Collection<? extends Example> targets) throws TheoryRevisionException {
+    public Theory performOperation(Collection<? extends Example> targets,
+                                   Node<HornClause> revisionLeaf) throws TheoryRevisionException {
         try {
-            Node<HornClause> revisionLeaf = treeTheory.getRevisionLeaf();
             logger.trace(TRY_REFINE_RULE.toString(), revisionLeaf);
             if (revisionLeaf.isRoot()) {
                 // Root Case
@@ -101,8 +101,7 @@ public class RemoveNodeTreeRevisionOperator3 extends RemoveNodeTreeRevisionOpera
     }
 
     @Override
-    public void theoryRevisionAccepted(Theory revised) {
-        Node<HornClause> revisionLeaf = treeTheory.getRevisionLeaf();
+    public void theoryRevisionAccepted(Theory revised, Node<HornClause> revisionLeaf) {
         final String predicate = revisionLeaf.getElement().getHead().getPredicate().toString();
         treeTheory.removeExampleFromLeaf(predicate, revisionLeaf);
         if (revisionLeaf.isRoot()) {
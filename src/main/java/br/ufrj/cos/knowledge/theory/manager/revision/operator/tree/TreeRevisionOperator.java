@@ -29,15 +29,24 @@
 
 package br.ufrj.cos.knowledge.theory.manager.revision.operator.tree;
 
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.manager.Node;
 import br.ufrj.cos.knowledge.manager.TreeTheory;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.knowledge.theory.manager.revision.TheoryRevisionException;
 import br.ufrj.cos.knowledge.theory.manager.revision.operator.RevisionOperator;
+import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.InitializationException;
 
+import java.util.Collection;
+
 /**
  * Super class for revision operator that performs operation in {@link TreeTheory}.
  * <p>
+ * The leaf to be revised is always given explicitly, so the operator can revise different leaves at the same time.
+ * <p>
  * Created on 20/06/17.
  *
  * @author Victor Guimarães
@@ -56,6 +65,34 @@ public abstract class TreeRevisionOperator extends RevisionOperator {
         }
     }
 
+    /**
+     * The tree operators can not revise the theory without a revision leaf.
+     *
+     * @param targets the targets {@link Example}s
+     * @return nothing, it always throws the exception
+     * @throws TheoryRevisionException always, since there is no revision leaf
+     */
+    @Override
+    public Theory performOperation(Collection<? extends Example> targets) throws TheoryRevisionException {
+        throw new TheoryRevisionException(ExceptionMessages.ERROR_NO_REVISION_LEAF.toString());
+    }
+
+    @Override
+    public abstract Theory performOperation(Collection<? extends Example> targets,
+                                            Node<HornClause> revisionLeaf) throws TheoryRevisionException;
+
+    /**
+     * The tree operators have nothing to update without a revision leaf.
+     *
+     * @param revised the revised theory
+     */
+    @Override
+    public void theoryRevisionAccepted(Theory revised) {
+    }
+
+    @Override
+    public abstract void theoryRevisionAccepted(Theory revised, Node<HornClause> revisionLeaf);
+
     /**
      * Gets the tree theory.
      *
@@ -35,8 +35,12 @@ import br.ufrj.cos.logic.Atom;
 import br.ufrj.cos.util.ExceptionMessages;
 import br.ufrj.cos.util.FileIOUtils;
 import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import br.ufrj.cos.util.time.TimeUtils;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -46,7 +50,7 @@ import java.util.*;
  *
  * @author Victor Guimarães
  */
-public class RevisionExamples {
+public class RevisionExamples implements Checkpointable {
 
     protected final Collection<Example> incomingExamples;
     protected final Collection<Example> relevantSample;
@@ -229,4 +233,26 @@ public class RevisionExamples {
         return incomingExamples.isEmpty();
     }
 
+    @Override
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+        output.writeExamples(incomingExamples);
+        output.writeExamples(relevantSample);
+        output.writeExamples(notEvaluatedExamples);
+        output.writeInferences(inferredExamples);
+        output.writeNanoTime(lastInference);
+    }
+
+    @Override
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+        incomingExamples.clear();
+        relevantSample.clear();
+        notEvaluatedExamples.clear();
+        inferredExamples.clear();
+        input.readExamples(incomingExamples);
+        input.readExamples(relevantSample);
+        input.readExamples(notEvaluatedExamples);
+        input.readInferences(inferredExamples);
+        lastInference = input.readNanoTime();
+    }
+
 }
@@ -70,6 +70,7 @@ public class Atom extends Clause {
 
     protected final Predicate predicate;
     protected final List<Term> terms;
+    private int hash;
 
     /**
      * Constructs a new {@link Atom} from coping the references from another one
@@ -79,6 +80,7 @@ public class Atom extends Clause {
     public Atom(Atom atom) {
         this.predicate = atom.predicate;
         this.terms = atom.terms;
+        this.hash = atom.hash;
     }
 
     /**
@@ -156,10 +158,28 @@ public class Atom extends Clause {
         return true;
     }
 
+    /**
+     * The hash is computed once, since the {@link Atom}s are not supposed to change after being used as keys.
+     * <p>
+     * {@inheritDoc}
+     */
     @Override
     public int hashCode() {
-        int result = predicate.hashCode();
-        result = 31 * result + (terms != null ? terms.hashCode() : 0);
+        return atomHash();
+    }
+
+    /**
+     * Computes the hash of the {@link Atom}'s predicate and terms, caching it.
+     *
+     * @return the hash
+     */
+    private int atomHash() {
+        int result = hash;
+        if (result == 0) {
+            result = predicate.hashCode();
+            result = 31 * result + (terms != null ? terms.hashCode() : 0);
+            hash = result;
+        }
         return result;
     }
 
@@ -173,6 +193,7 @@ public class Atom extends Clause {
         }
 
         Atom atom = (Atom) o;
+        if (hash != 0 && atom.hash != 0 && hash != atom.hash) { return false; }
 
         return predicate.equals(atom.predicate) && (terms != null ? terms.equals(atom.terms) : atom.terms == null);
     }
@@ -47,7 +47,7 @@ public class Constant extends Term {
      * @param name the name
      */
     public Constant(String name) {
-        super(name);
+        super(name, SymbolIndex.getConstantId(name));
     }
 
     @Override
@@ -66,7 +66,7 @@ public class Constant extends Term {
 
         Constant constant = (Constant) o;
 
-        return name.equals(constant.name);
+        return id == constant.id;
     }
 
     @Override
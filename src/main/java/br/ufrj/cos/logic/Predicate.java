@@ -48,6 +48,7 @@ public class Predicate {
 
     protected final String name;
     protected final int arity;
+    protected final int id;
 
     /**
      * Constructor with name and arity.
@@ -58,6 +59,7 @@ public class Predicate {
     public Predicate(String name, int arity) {
         this.name = name;
         this.arity = arity;
+        this.id = SymbolIndex.getPredicateId(LanguageUtils.formatPredicate(name, arity));
     }
 
     /**
@@ -66,8 +68,7 @@ public class Predicate {
      * @param name the name
      */
     public Predicate(String name) {
-        this.name = name;
-        this.arity = 0;
+        this(name, 0);
     }
 
     /**
@@ -102,8 +103,7 @@ public class Predicate {
 
         Predicate predicate = (Predicate) o;
 
-        if (arity != predicate.arity) { return false; }
-        return name.equals(predicate.name);
+        return id == predicate.id;
     }
 
     @Override
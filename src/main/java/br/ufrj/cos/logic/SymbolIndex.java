@@ -0,0 +1,106 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.logic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Global symbol table of the logic layer. It gives dense int ids to the names of the {@link Constant}s and of the
+ * {@link Predicate}s, so they can be compared by their ids, instead of by their names.
+ * <p>
+ * Equal names always receive the same id; {@link Variable}s, which are only equal to themselves, receive unique
+ * negative ids. The symbols are never removed, thus the table grows with the number of distinct constants and
+ * predicates of the program.
+ */
+public final class SymbolIndex {
+
+    private static final Map<String, Integer> CONSTANTS = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> PREDICATES = new ConcurrentHashMap<>();
+    private static final AtomicInteger CONSTANT_COUNTER = new AtomicInteger();
+    private static final AtomicInteger PREDICATE_COUNTER = new AtomicInteger();
+    private static final AtomicInteger VARIABLE_COUNTER = new AtomicInteger();
+
+    private SymbolIndex() {
+    }
+
+    /**
+     * Gets the id of the constant name, creating a new one if it is absent.
+     *
+     * @param name the name of the constant
+     * @return the id of the constant
+     */
+    public static int getConstantId(String name) {
+        Integer id = CONSTANTS.get(name);
+        if (id != null) { return id; }
+        return CONSTANTS.computeIfAbsent(name, k -> CONSTANT_COUNTER.getAndIncrement());
+    }
+
+    /**
+     * Gets the id of the predicate, creating a new one if it is absent.
+     *
+     * @param predicate the predicate, in the name/arity format
+     * @return the id of the predicate
+     */
+    public static int getPredicateId(String predicate) {
+        Integer id = PREDICATES.get(predicate);
+        if (id != null) { return id; }
+        return PREDICATES.computeIfAbsent(predicate, k -> PREDICATE_COUNTER.getAndIncrement());
+    }
+
+    /**
+     * Creates a new id for a variable.
+     *
+     * @return the id of the variable
+     */
+    public static int nextVariableId() {
+        return -VARIABLE_COUNTER.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of constants in the table.
+     *
+     * @return the number of constants
+     */
+    public static int numberOfConstants() {
+        return CONSTANTS.size();
+    }
+
+    /**
+     * Gets the number of predicates in the table.
+     *
+     * @return the number of predicates
+     */
+    public static int numberOfPredicates() {
+        return PREDICATES.size();
+    }
+
+}
@@ -37,14 +37,18 @@ package br.ufrj.cos.logic;
 public abstract class Term {
 
     protected final String name;
+    protected final int id;
+    private int hash;
 
     /**
      * Constructs a {@link Term}
      *
      * @param name the {@link Term}'s name
+     * @param id   the {@link Term}'s id, from the {@link SymbolIndex}
      */
-    protected Term(String name) {
+    protected Term(String name, int id) {
         this.name = name;
+        this.id = id;
     }
 
     /**
@@ -63,9 +67,29 @@ public abstract class Term {
      */
     public abstract boolean isConstant();
 
+    /**
+     * Gets the {@link Term}'s id, from the {@link SymbolIndex}. Two {@link Term}s are equal if, and only if, they
+     * have the same id.
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * The hash is computed from the {@link #toString()}, once, since the {@link Term}s are immutable.
+     * <p>
+     * {@inheritDoc}
+     */
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = this.toString().hashCode();
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -45,7 +45,7 @@ public class Variable extends Term {
      * @param name the name
      */
     public Variable(String name) {
-        super(name);
+        super(name, SymbolIndex.nextVariableId());
     }
 
     @Override
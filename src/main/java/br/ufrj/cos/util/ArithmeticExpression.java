@@ -0,0 +1,528 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+import static br.ufrj.cos.util.ExceptionMessages.*;
+
+/**
+ * A compiled arithmetic expression over a set of named variables, to be used by numeric formulas given in the
+ * configuration files.
+ * <p>
+ * The expression accepts numbers (with optional exponent), the declared variables, parentheses, the binary operators
+ * {@code + - * / ^}, the unary {@code -} and {@code +}, and the functions {@code min} and {@code max} (with one or
+ * more arguments) and {@code log}, {@code exp} and {@code sqrt} (with one argument); {@code log} is the natural
+ * logarithm. The functions may be prefixed by {@code Math.}. The {@code ^} operator is right associative and binds
+ * tighter than the unary minus, so {@code -2 ^ 2} is {@code -4}.
+ * <p>
+ * The expression is parsed once, at compile time, into a tree of operations, whose constant sub-expressions are
+ * folded, so the evaluation neither parses nor allocates.
+ */
+public class ArithmeticExpression {
+
+    /**
+     * The prefix that may be used before the name of the functions.
+     */
+    public static final String FUNCTION_PREFIX = "Math.";
+
+    protected final String expression;
+    protected final List<String> variables;
+    protected final Node root;
+
+    /**
+     * Constructs the compiled expression.
+     *
+     * @param expression the expression
+     * @param variables  the variables
+     * @param root       the root of the operation tree
+     */
+    protected ArithmeticExpression(String expression, List<String> variables, Node root) {
+        this.expression = expression;
+        this.variables = variables;
+        this.root = root;
+    }
+
+    /**
+     * Compiles the expression.
+     *
+     * @param expression the expression
+     * @param variables  the names of the variables, in the order their values will be passed to
+     *                   {@link #evaluate(double...)}
+     * @return the compiled expression
+     * @throws ArithmeticExpressionException if the expression is not valid
+     */
+    public static ArithmeticExpression compile(String expression,
+                                               String... variables) throws ArithmeticExpressionException {
+        final List<String> names = Arrays.asList(variables);
+        return new ArithmeticExpression(expression, names, new Parser(expression, names).parse());
+    }
+
+    /**
+     * Compiles the expression as a function of a single variable.
+     *
+     * @param expression the expression
+     * @param variable   the name of the variable
+     * @return the function
+     * @throws ArithmeticExpressionException if the expression is not valid
+     */
+    public static DoubleUnaryOperator compileUnary(String expression,
+                                                   String variable) throws ArithmeticExpressionException {
+        final Node node = compile(expression, variable).root;
+        return value -> node.evaluate(new double[]{value});
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param values the values of the variables, in the order they were given at compile time
+     * @return the value of the expression
+     */
+    public double evaluate(double... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException(
+                    FileIOUtils.formatLogMessage(ERROR_EXPRESSION_NUMBER_OF_ARGUMENTS.toString(), expression,
+                                                 variables.size(), values.length));
+        }
+        return root.evaluate(values);
+    }
+
+    /**
+     * Gets the names of the variables.
+     *
+     * @return the names of the variables
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * A node of the operation tree.
+     */
+    @FunctionalInterface
+    protected interface Node {
+
+        /**
+         * Evaluates the node.
+         *
+         * @param values the values of the variables
+         * @return the value of the node
+         */
+        double evaluate(double[] values);
+
+    }
+
+    /**
+     * A node whose value does not depend on the variables.
+     */
+    protected static class Constant implements Node {
+
+        protected final double value;
+
+        /**
+         * Constructor with the value.
+         *
+         * @param value the value
+         */
+        protected Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(double[] values) {
+            return value;
+        }
+
+    }
+
+    /**
+     * A recursive descent parser for the expressions, following the grammar:
+     * <pre>
+     * expression := term (('+' | '-') term)*
+     * term       := unary (('*' | '/') unary)*
+     * unary      := ('-' | '+') unary | power
+     * power      := primary ('^' unary)?
+     * primary    := number | variable | function '(' expression (',' expression)* ')' | '(' expression ')'
+     * </pre>
+     */
+    protected static class Parser {
+
+        protected final String expression;
+        protected final List<String> variables;
+        protected int position;
+
+        /**
+         * Constructor with the expression and the variables.
+         *
+         * @param expression the expression
+         * @param variables  the variables
+         */
+        protected Parser(String expression, List<String> variables) {
+            this.expression = expression;
+            this.variables = variables;
+        }
+
+        /**
+         * Combines two nodes by a binary operation, folding them if both are constant.
+         *
+         * @param left     the left node
+         * @param right    the right node
+         * @param operator the operator
+         * @return the combined node
+         */
+        protected static Node binary(Node left, Node right, char operator) {
+            final Node node;
+            switch (operator) {
+                case '+':
+                    node = values -> left.evaluate(values) + right.evaluate(values);
+                    break;
+                case '-':
+                    node = values -> left.evaluate(values) - right.evaluate(values);
+                    break;
+                case '*':
+                    node = values -> left.evaluate(values) * right.evaluate(values);
+                    break;
+                case '/':
+                    node = values -> left.evaluate(values) / right.evaluate(values);
+                    break;
+                default:
+                    node = values -> Math.pow(left.evaluate(values), right.evaluate(values));
+            }
+            return fold(node, left, right);
+        }
+
+        /**
+         * Folds the node into a constant, if all its children are constants.
+         *
+         * @param node     the node
+         * @param children the children of the node
+         * @return the folded node, if all the children are constants; otherwise, the node itself
+         */
+        protected static Node fold(Node node, Node... children) {
+            for (Node child : children) {
+                if (!(child instanceof Constant)) { return node; }
+            }
+            return new Constant(node.evaluate(null));
+        }
+
+        /**
+         * Parses the expression.
+         *
+         * @return the root of the operation tree
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parse() throws ArithmeticExpressionException {
+            final Node node = parseExpression();
+            skipWhitespaces();
+            if (position < expression.length()) {
+                throw error(ERROR_EXPRESSION_UNEXPECTED_CHARACTER, expression.charAt(position));
+            }
+            return node;
+        }
+
+        /**
+         * Parses a sum or subtraction of terms.
+         *
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parseExpression() throws ArithmeticExpressionException {
+            Node node = parseTerm();
+            char operator;
+            while ((operator = peek()) == '+' || operator == '-') {
+                position++;
+                node = binary(node, parseTerm(), operator);
+            }
+            return node;
+        }
+
+        /**
+         * Parses a multiplication or division of factors.
+         *
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parseTerm() throws ArithmeticExpressionException {
+            Node node = parseUnary();
+            char operator;
+            while ((operator = peek()) == '*' || operator == '/') {
+                position++;
+                node = binary(node, parseUnary(), operator);
+            }
+            return node;
+        }
+
+        /**
+         * Parses an unary sign.
+         *
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parseUnary() throws ArithmeticExpressionException {
+            final char operator = peek();
+            if (operator == '+') {
+                position++;
+                return parseUnary();
+            }
+            if (operator == '-') {
+                position++;
+                final Node node = parseUnary();
+                return fold(values -> -node.evaluate(values), node);
+            }
+            return parsePower();
+        }
+
+        /**
+         * Parses a power, which is right associative.
+         *
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parsePower() throws ArithmeticExpressionException {
+            final Node node = parsePrimary();
+            if (peek() == '^') {
+                position++;
+                return binary(node, parseUnary(), '^');
+            }
+            return node;
+        }
+
+        /**
+         * Parses a number, a variable, a function call or an expression between parentheses.
+         *
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parsePrimary() throws ArithmeticExpressionException {
+            final char current = peek();
+            if (current == '(') {
+                position++;
+                final Node node = parseExpression();
+                expect(')');
+                return node;
+            }
+            if (Character.isDigit(current) || current == '.') { return parseNumber(); }
+            if (Character.isJavaIdentifierStart(current)) { return parseIdentifier(); }
+            if (position < expression.length()) { throw error(ERROR_EXPRESSION_UNEXPECTED_CHARACTER, current); }
+            throw error(ERROR_EXPRESSION_UNEXPECTED_END);
+        }
+
+        /**
+         * Parses a number.
+         *
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parseNumber() throws ArithmeticExpressionException {
+            final int start = position;
+            skipDigits();
+            if (position < expression.length() && expression.charAt(position) == '.') {
+                position++;
+                skipDigits();
+            }
+            if (position < expression.length() && Character.toLowerCase(expression.charAt(position)) == 'e') {
+                position++;
+                if (position < expression.length() &&
+                        (expression.charAt(position) == '+' || expression.charAt(position) == '-')) {
+                    position++;
+                }
+                skipDigits();
+            }
+            final String number = expression.substring(start, position);
+            try {
+                return new Constant(Double.parseDouble(number));
+            } catch (NumberFormatException ignored) {
+                position = start;
+                throw error(ERROR_EXPRESSION_INVALID_NUMBER, number);
+            }
+        }
+
+        /**
+         * Parses a variable or a function call.
+         *
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parseIdentifier() throws ArithmeticExpressionException {
+            final int start = position;
+            if (expression.startsWith(FUNCTION_PREFIX, position)) { position += FUNCTION_PREFIX.length(); }
+            final int nameStart = position;
+            while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+                position++;
+            }
+            final String name = expression.substring(nameStart, position);
+            if (peek() == '(') {
+                position++;
+                return parseFunction(name, start);
+            }
+            final int index = variables.indexOf(name);
+            if (nameStart > start || index < 0) {
+                final String identifier = expression.substring(start, position);
+                position = start;
+                throw error(ERROR_EXPRESSION_UNKNOWN_VARIABLE, identifier);
+            }
+            return values -> values[index];
+        }
+
+        /**
+         * Parses the arguments of a function call, whose open parenthesis was already consumed.
+         *
+         * @param name  the name of the function
+         * @param start the position where the name of the function starts
+         * @return the node
+         * @throws ArithmeticExpressionException if the expression is not valid
+         */
+        protected Node parseFunction(String name, int start) throws ArithmeticExpressionException {
+            final List<Node> arguments = new ArrayList<>();
+            arguments.add(parseExpression());
+            while (peek() == ',') {
+                position++;
+                arguments.add(parseExpression());
+            }
+            expect(')');
+            final Node[] nodes = arguments.toArray(new Node[0]);
+            final Node node;
+            switch (name) {
+                case "min":
+                    node = values -> {
+                        double result = nodes[0].evaluate(values);
+                        for (int i = 1; i < nodes.length; i++) {
+                            result = Math.min(result, nodes[i].evaluate(values));
+                        }
+                        return result;
+                    };
+                    break;
+                case "max":
+                    node = values -> {
+                        double result = nodes[0].evaluate(values);
+                        for (int i = 1; i < nodes.length; i++) {
+                            result = Math.max(result, nodes[i].evaluate(values));
+                        }
+                        return result;
+                    };
+                    break;
+                case "log":
+                    checkArguments(name, nodes, start);
+                    node = values -> Math.log(nodes[0].evaluate(values));
+                    break;
+                case "exp":
+                    checkArguments(name, nodes, start);
+                    node = values -> Math.exp(nodes[0].evaluate(values));
+                    break;
+                case "sqrt":
+                    checkArguments(name, nodes, start);
+                    node = values -> Math.sqrt(nodes[0].evaluate(values));
+                    break;
+                default:
+                    position = start;
+                    throw error(ERROR_EXPRESSION_UNKNOWN_FUNCTION, name);
+            }
+            return fold(node, nodes);
+        }
+
+        /**
+         * Checks if the single argument function was called with exactly one argument.
+         *
+         * @param name      the name of the function
+         * @param arguments the arguments
+         * @param start     the position where the name of the function starts
+         * @throws ArithmeticExpressionException if the number of arguments is not one
+         */
+        protected void checkArguments(String name, Node[] arguments,
+                                      int start) throws ArithmeticExpressionException {
+            if (arguments.length != 1) {
+                position = start;
+                throw error(ERROR_EXPRESSION_NUMBER_OF_ARGUMENTS, name, 1, arguments.length);
+            }
+        }
+
+        /**
+         * Consumes the expected character.
+         *
+         * @param expected the expected character
+         * @throws ArithmeticExpressionException if the next character is not the expected one
+         */
+        protected void expect(char expected) throws ArithmeticExpressionException {
+            if (peek() != expected) { throw error(ERROR_EXPRESSION_EXPECTED_CHARACTER, expected); }
+            position++;
+        }
+
+        /**
+         * Skips the whitespaces and gets the next character, without consuming it.
+         *
+         * @return the next character, or {@code 0} if the end of the expression was reached
+         */
+        protected char peek() {
+            skipWhitespaces();
+            return position < expression.length() ? expression.charAt(position) : 0;
+        }
+
+        /**
+         * Skips the whitespaces.
+         */
+        protected void skipWhitespaces() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Skips the digits.
+         */
+        protected void skipDigits() {
+            while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Creates the exception for the current position.
+         *
+         * @param message    the message of the reason
+         * @param parameters the parameters of the message
+         * @return the exception
+         */
+        protected ArithmeticExpressionException error(ExceptionMessages message, Object... parameters) {
+            return new ArithmeticExpressionException(expression, position,
+                                                     FileIOUtils.formatLogMessage(message.toString(), parameters));
+        }
+
+    }
+
+}
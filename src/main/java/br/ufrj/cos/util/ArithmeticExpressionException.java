@@ -0,0 +1,99 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.util;
+
+import static br.ufrj.cos.util.ExceptionMessages.ERROR_EXPRESSION_AT_POSITION;
+
+/**
+ * Exception thrown if an {@link ArithmeticExpression} can not be compiled. The message points the position of the
+ * error in the expression.
+ */
+public class ArithmeticExpressionException extends Exception {
+
+    protected final String expression;
+    protected final int position;
+    protected final String reason;
+
+    /**
+     * Constructs with the expression, the position of the error and its reason.
+     *
+     * @param expression the expression
+     * @param position   the position of the error, starting at 0
+     * @param reason     the reason of the error
+     */
+    public ArithmeticExpressionException(String expression, int position, String reason) {
+        super(FileIOUtils.formatLogMessage(ERROR_EXPRESSION_AT_POSITION.toString(), position + 1, reason,
+                                           expression, pointer(position)));
+        this.expression = expression;
+        this.position = position;
+        this.reason = reason;
+    }
+
+    /**
+     * Builds the blank space before the pointer to the position.
+     *
+     * @param position the position
+     * @return the blank space
+     */
+    protected static String pointer(int position) {
+        StringBuilder builder = new StringBuilder(position);
+        for (int i = 0; i < position; i++) { builder.append(' '); }
+        return builder.toString();
+    }
+
+    /**
+     * Gets the expression.
+     *
+     * @return the expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Gets the position of the error, starting at 0.
+     *
+     * @return the position of the error
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the reason of the error.
+     *
+     * @return the reason of the error
+     */
+    public String getReason() {
+        return reason;
+    }
+
+}
@@ -48,7 +48,9 @@ public enum ExceptionMessages {
     ERROR_REVISING_THE_THEORY("Error when revising the theory."),
     ERROR_REVISING_THE_THEORY_REASON("Error when revising the theory, reason:\t{}"),
     ERROR_GETTING_CLASS_BY_NAME("Error when getting the class by its name."),
+    ERROR_NO_REVISION_LEAF("Error when revising the tree theory, no revision leaf was given."),
     @SuppressWarnings("unused") ERROR_FILE_NOT_IN_CLASS_PATH("Default configuration file not in the class path."),
+    ERROR_EXPRESSION_UNEXPECTED_END("unexpected end of the expression"),
 
     //One additional parameters to format
     ERROR_ANSWERING_QUERY("Error when answering the query {}."),
@@ -58,11 +60,24 @@ public enum ExceptionMessages {
     //    ERROR_CREATING_DIRECTORY("Error creating directory(is):\t{}"),
     ERROR_UNBOUNDED_RANGE_METRIC("Error the unbounded range metric {} is not by the class {}."),
     ERROR_CREATING_DIRECTORY("Error creating the directory:\t{}"),
+    ERROR_CHECKPOINT_UNSUPPORTED_TYPE("Unsupported type in the checkpoint:\t{}"),
+    ERROR_CHECKPOINT_INVALID_REFERENCE("Invalid reference in the checkpoint:\t{}"),
+    ERROR_CHECKPOINT_INVALID_FILE("The file {} is not a valid checkpoint."),
+    ERROR_EXPRESSION_UNEXPECTED_CHARACTER("unexpected character '{}'"),
+    ERROR_EXPRESSION_EXPECTED_CHARACTER("expected '{}'"),
+    ERROR_EXPRESSION_INVALID_NUMBER("invalid number '{}'"),
+    ERROR_EXPRESSION_UNKNOWN_VARIABLE("unknown variable '{}'"),
+    ERROR_EXPRESSION_UNKNOWN_FUNCTION("unknown function '{}'"),
 
     //Two additional parameters to format
     ERROR_APPENDING_LITERAL("Error when appending literal to initial clause, reason:\t{}"),
     ERROR_NO_YAML_FILE("Yaml configuration file is not setted."),
     FILE_NOT_EXISTS("File {} for {} does not exists."),
+    ERROR_CHECKPOINT_COMPONENT_MISMATCH("The checkpoint does not match the component, expected {} but found {}."),
+
+    //Three or more additional parameters to format
+    ERROR_EXPRESSION_NUMBER_OF_ARGUMENTS("function '{}' expects {} argument(s), but found {}"),
+    ERROR_EXPRESSION_AT_POSITION("Error compiling the expression at position {}, {}:\n\t{}\n\t{}^"),
 
     INDEXES_NOT_FOUND("Indexes {} was(were) not found in the file {}.");
 
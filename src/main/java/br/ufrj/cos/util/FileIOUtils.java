@@ -41,12 +41,17 @@ import br.ufrj.cos.logic.HornClause;
 import br.ufrj.cos.logic.parser.example.ExampleParser;
 import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
 import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import br.ufrj.cos.util.checkpoint.CheckpointInputStream;
+import br.ufrj.cos.util.checkpoint.CheckpointOutputStream;
+import br.ufrj.cos.util.checkpoint.Checkpointable;
 import com.esotericsoftware.yamlbeans.YamlConfig;
 import com.esotericsoftware.yamlbeans.YamlWriter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -92,6 +97,10 @@ public final class FileIOUtils {
      * The unknown value of a examples.
      */
     public static final Double UNKNOWN_VALUE = -1.0;
+    /**
+     * The extension of the temporary file, used to write a file that must be replaced atomically.
+     */
+    public static final String TEMPORARY_EXTENSION = ".tmp";
     /**
      * The parameter mark from the log's format
      */
@@ -160,6 +169,49 @@ public final class FileIOUtils {
         }
     }
 
+    /**
+     * Saves the state of the {@link Checkpointable} to a checkpoint file. The checkpoint is written to a temporary
+     * file, that replaces the file only when it is completely written; so a failure while writing the checkpoint
+     * never corrupts the previous one.
+     *
+     * @param checkpointable the {@link Checkpointable}
+     * @param file           the checkpoint file
+     * @throws IOException if an error occurs during the writing
+     */
+    public static void saveCheckpoint(Checkpointable checkpointable, File file) throws IOException {
+        final File temporary = new File(file.getAbsoluteFile().getParentFile(), file.getName() + TEMPORARY_EXTENSION);
+        try (FileOutputStream stream = new FileOutputStream(temporary);
+             CheckpointOutputStream output = new CheckpointOutputStream(new BufferedOutputStream(stream))) {
+            output.writeInt(CheckpointOutputStream.MAGIC_NUMBER);
+            output.writeInt(CheckpointOutputStream.VERSION);
+            checkpointable.saveCheckpoint(output);
+            output.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores the state of the {@link Checkpointable} from a checkpoint file, written by
+     * {@link #saveCheckpoint(Checkpointable, File)}.
+     *
+     * @param checkpointable the {@link Checkpointable}
+     * @param file           the checkpoint file
+     * @throws IOException if an error occurs during the reading or the file is not a valid checkpoint
+     */
+    public static void loadCheckpoint(Checkpointable checkpointable, File file) throws IOException {
+        try (CheckpointInputStream input = new CheckpointInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != CheckpointOutputStream.MAGIC_NUMBER ||
+                    input.readInt() != CheckpointOutputStream.VERSION) {
+                throw new StreamCorruptedException(
+                        formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_INVALID_FILE.toString(), file));
+            }
+            checkpointable.loadCheckpoint(input);
+        }
+    }
+
     /**
      * Reads the file paths to {@link File} objects.
      *
@@ -0,0 +1,396 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.util.checkpoint;
+
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.util.ExceptionMessages;
+import br.ufrj.cos.util.FileIOUtils;
+import br.ufrj.cos.util.time.TimeUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static br.ufrj.cos.util.checkpoint.CheckpointOutputStream.*;
+
+/**
+ * Reads the state of the {@link Checkpointable} components written by a {@link CheckpointOutputStream}.
+ */
+public class CheckpointInputStream extends DataInputStream {
+
+    protected final List<Object> references;
+    protected final long nanoReference;
+
+    /**
+     * Constructor with the underlying input stream.
+     *
+     * @param in the underlying input stream
+     */
+    public CheckpointInputStream(InputStream in) {
+        super(in);
+        this.references = new ArrayList<>();
+        this.nanoReference = TimeUtils.getNanoTime();
+        references.add(Literal.TRUE_LITERAL);
+        references.add(Literal.FALSE_LITERAL);
+    }
+
+    /**
+     * Reads the reference written by {@link CheckpointOutputStream#writeReference(Object)}.
+     *
+     * @return the reference
+     * @throws IOException if an I/O error has occurred or the reference is invalid
+     */
+    protected int readReference() throws IOException {
+        int reference = readInt();
+        if (reference >= references.size() || reference < NEW_REFERENCE) {
+            throw new StreamCorruptedException(
+                    FileIOUtils.formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_INVALID_REFERENCE.toString(),
+                                                 reference));
+        }
+        return reference;
+    }
+
+    /**
+     * Reserves the position of a new object in the reference table. The position is reserved before reading the
+     * object, in the same order the references were created when writing.
+     *
+     * @return the position of the object
+     */
+    protected int reserveReference() {
+        references.add(null);
+        return references.size() - 1;
+    }
+
+    /**
+     * Gets the object already read for the reference.
+     *
+     * @param reference the reference
+     * @param clazz     the expected class of the object
+     * @param <T>       the type of the object
+     * @return the object
+     * @throws IOException if the object is not of the expected class
+     */
+    protected <T> T getReference(int reference, Class<T> clazz) throws IOException {
+        if (reference == NULL_REFERENCE) { return null; }
+        final Object object = references.get(reference);
+        if (!clazz.isInstance(object)) {
+            throw new StreamCorruptedException(
+                    FileIOUtils.formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_INVALID_REFERENCE.toString(),
+                                                 reference));
+        }
+        return clazz.cast(object);
+    }
+
+    /**
+     * Reads a string written by {@link CheckpointOutputStream#writeString(String)}.
+     *
+     * @return the string
+     * @throws IOException if an I/O error has occurred
+     */
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length == NULL_LENGTH) { return null; }
+        byte[] bytes = new byte[length];
+        readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a nano time written by {@link CheckpointOutputStream#writeNanoTime(long)}. The time is restored relative
+     * to the creation of this input, so the order among the restored times is kept, as well as their distance to
+     * the moment the checkpoint was created.
+     *
+     * @return the nano time
+     * @throws IOException if an I/O error has occurred
+     */
+    public long readNanoTime() throws IOException {
+        return nanoReference + readLong();
+    }
+
+    /**
+     * Reads a random generator written by {@link CheckpointOutputStream#writeRandom(Random)}.
+     *
+     * @return the random generator, in the same state it was saved
+     * @throws IOException if an I/O error has occurred
+     */
+    public Random readRandom() throws IOException {
+        int length = readInt();
+        if (length == NULL_LENGTH) { return null; }
+        byte[] bytes = new byte[length];
+        readFully(bytes);
+        try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Random) objectInput.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the component written by {@link CheckpointOutputStream#writeComponent(Object)}. The component must be
+     * of the same class of the one saved, its state is only restored if it implements {@link Checkpointable}.
+     *
+     * @param component the component
+     * @throws IOException if an I/O error has occurred or the component does not match the saved one
+     */
+    public void readComponent(Object component) throws IOException {
+        final String className = readString();
+        final String expected = component != null ? component.getClass().getName() : null;
+        if (!Objects.equals(className, expected)) {
+            throw new InvalidClassException(
+                    FileIOUtils.formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_COMPONENT_MISMATCH.toString(),
+                                                 expected, className));
+        }
+        if (component instanceof Checkpointable) {
+            ((Checkpointable) component).loadCheckpoint(this);
+        }
+    }
+
+    /**
+     * Reads a term.
+     *
+     * @return the term
+     * @throws IOException if an I/O error has occurred
+     */
+    public Term readTerm() throws IOException {
+        int reference = readReference();
+        if (reference != NEW_REFERENCE) { return getReference(reference, Term.class); }
+        reference = reserveReference();
+        final boolean constant = readBoolean();
+        final String name = readString();
+        final Term term = constant ? new Constant(name) : new Variable(name);
+        references.set(reference, term);
+        return term;
+    }
+
+    /**
+     * Reads an atom.
+     *
+     * @return the atom
+     * @throws IOException if an I/O error has occurred
+     */
+    public Atom readAtom() throws IOException {
+        int reference = readReference();
+        if (reference != NEW_REFERENCE) { return getReference(reference, Atom.class); }
+        reference = reserveReference();
+        final byte type = readByte();
+        boolean flag = false;
+        double weight = 0.0;
+        if (type == LITERAL_TYPE || type == ATOM_EXAMPLE_TYPE) {
+            flag = readBoolean();
+        } else if (type == WEIGHTED_ATOM_TYPE) {
+            weight = readDouble();
+        } else if (type != ATOM_TYPE) {
+            throw unknownType(type);
+        }
+        final Predicate predicate = new Predicate(readString(), readInt());
+        final int size = readInt();
+        List<Term> terms = null;
+        if (size != NULL_LENGTH) {
+            terms = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                terms.add(readTerm());
+            }
+        }
+        final Atom atom;
+        switch (type) {
+            case LITERAL_TYPE:
+                atom = new Literal(predicate, terms, flag);
+                break;
+            case WEIGHTED_ATOM_TYPE:
+                atom = new WeightedAtom(weight, predicate, terms);
+                break;
+            case ATOM_EXAMPLE_TYPE:
+                atom = new AtomExample(predicate, terms, flag);
+                break;
+            default:
+                atom = new Atom(predicate, terms);
+        }
+        references.set(reference, atom);
+        return atom;
+    }
+
+    /**
+     * Reads a clause.
+     *
+     * @return the clause
+     * @throws IOException if an I/O error has occurred
+     */
+    public Clause readClause() throws IOException {
+        final byte type = readByte();
+        if (type == ATOM_TYPE) { return readAtom(); }
+        if (type != HORN_CLAUSE_TYPE && type != FEATURED_CLAUSE_TYPE) { throw unknownType(type); }
+        int reference = readReference();
+        if (reference != NEW_REFERENCE) { return getReference(reference, HornClause.class); }
+        reference = reserveReference();
+        final Atom head = readAtom();
+        final Conjunction body = readConjunction();
+        final HornClause clause;
+        if (type == FEATURED_CLAUSE_TYPE) {
+            final int size = readInt();
+            Features features = null;
+            if (size != NULL_LENGTH) {
+                features = new Features(size);
+                for (int i = 0; i < size; i++) {
+                    features.add(readAtom());
+                }
+            }
+            clause = new FeaturedClause(head, body, features);
+        } else {
+            clause = new HornClause(head, body);
+        }
+        references.set(reference, clause);
+        return clause;
+    }
+
+    /**
+     * Reads a Horn clause.
+     *
+     * @return the Horn clause
+     * @throws IOException if an I/O error has occurred or the clause is not a {@link HornClause}
+     */
+    public HornClause readHornClause() throws IOException {
+        final Clause clause = readClause();
+        if (clause != null && !(clause instanceof HornClause)) { throw unknownType(ATOM_TYPE); }
+        return (HornClause) clause;
+    }
+
+    /**
+     * Reads a conjunction.
+     *
+     * @return the conjunction
+     * @throws IOException if an I/O error has occurred
+     */
+    public Conjunction readConjunction() throws IOException {
+        int reference = readReference();
+        if (reference != NEW_REFERENCE) { return getReference(reference, Conjunction.class); }
+        reference = reserveReference();
+        final int size = readInt();
+        final Conjunction conjunction = new Conjunction(size);
+        for (int i = 0; i < size; i++) {
+            final Atom literal = readAtom();
+            if (!(literal instanceof Literal)) { throw unknownType(ATOM_TYPE); }
+            conjunction.add((Literal) literal);
+        }
+        references.set(reference, conjunction);
+        return conjunction;
+    }
+
+    /**
+     * Reads the clauses, appending them to the collection in the order they were written.
+     *
+     * @param clauses the collection to append the clauses to
+     * @throws IOException if an I/O error has occurred
+     */
+    public void readHornClauses(Collection<? super HornClause> clauses) throws IOException {
+        final int size = readInt();
+        for (int i = 0; i < size; i++) {
+            clauses.add(readHornClause());
+        }
+    }
+
+    /**
+     * Reads an example.
+     *
+     * @return the example
+     * @throws IOException if an I/O error has occurred
+     */
+    public Example readExample() throws IOException {
+        final byte type = readByte();
+        if (type == ATOM_EXAMPLE_TYPE) {
+            final Atom atom = readAtom();
+            if (!(atom instanceof AtomExample)) { throw unknownType(ATOM_TYPE); }
+            return (AtomExample) atom;
+        }
+        if (type != PRO_PPR_EXAMPLE_TYPE) { throw unknownType(type); }
+        int reference = readReference();
+        if (reference != NEW_REFERENCE) { return getReference(reference, ProPprExample.class); }
+        reference = reserveReference();
+        final Atom goal = readAtom();
+        final int size = readInt();
+        final List<AtomExample> atomExamples = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Atom atom = readAtom();
+            if (!(atom instanceof AtomExample)) { throw unknownType(ATOM_TYPE); }
+            atomExamples.add((AtomExample) atom);
+        }
+        final ProPprExample example = new ProPprExample(goal, atomExamples);
+        references.set(reference, example);
+        return example;
+    }
+
+    /**
+     * Reads the examples, appending them to the collection in the order they were written.
+     *
+     * @param examples the collection to append the examples to
+     * @throws IOException if an I/O error has occurred
+     */
+    public void readExamples(Collection<? super Example> examples) throws IOException {
+        final int size = readInt();
+        for (int i = 0; i < size; i++) {
+            examples.add(readExample());
+        }
+    }
+
+    /**
+     * Reads the inferred values of the examples, putting them into the map in the order they were written.
+     *
+     * @param inferredExamples the map to put the inferred values of the examples into
+     * @throws IOException if an I/O error has occurred
+     */
+    public void readInferences(Map<Example, Map<Atom, Double>> inferredExamples) throws IOException {
+        final int size = readInt();
+        for (int i = 0; i < size; i++) {
+            final Example example = readExample();
+            final int inferences = readInt();
+            final Map<Atom, Double> values = new HashMap<>();
+            for (int j = 0; j < inferences; j++) {
+                final Atom atom = readAtom();
+                values.put(atom, readDouble());
+            }
+            inferredExamples.put(example, values);
+        }
+    }
+
+    /**
+     * Builds the exception for an unknown type read from the checkpoint.
+     *
+     * @param type the type
+     * @return the exception
+     */
+    protected static IOException unknownType(byte type) {
+        return new StreamCorruptedException(
+                FileIOUtils.formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_UNSUPPORTED_TYPE.toString(), type));
+    }
+
+}
@@ -0,0 +1,355 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.util.checkpoint;
+
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.util.ExceptionMessages;
+import br.ufrj.cos.util.FileIOUtils;
+import br.ufrj.cos.util.time.TimeUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes the state of the {@link Checkpointable} components in a compact binary format.
+ * <p>
+ * The logic objects are written with a reference table, so an object reachable from more than one place in the
+ * checkpoint is written once and restored as a single object. This is necessary because the {@link Variable}s are
+ * compared by identity, thus, a clause from the theory is only equal to the clause of its node in the tree if both
+ * share the same variables.
+ * <p>
+ * The nano times are written relative to the moment the checkpoint was created, since the nano time of different
+ * runs are not comparable.
+ */
+public class CheckpointOutputStream extends DataOutputStream {
+
+    /**
+     * The magic number at the beginning of the checkpoint file.
+     */
+    public static final int MAGIC_NUMBER = 0x4F534C52; // OSLR
+    /**
+     * The version of the checkpoint format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The reference of a null object.
+     */
+    public static final int NULL_REFERENCE = -1;
+    /**
+     * The reference of an object which is not in the reference table yet, it is followed by the object itself.
+     */
+    public static final int NEW_REFERENCE = -2;
+    /**
+     * The length of a null array or string.
+     */
+    public static final int NULL_LENGTH = -1;
+
+    protected static final byte ATOM_TYPE = 0;
+    protected static final byte LITERAL_TYPE = 1;
+    protected static final byte WEIGHTED_ATOM_TYPE = 2;
+    protected static final byte ATOM_EXAMPLE_TYPE = 3;
+    protected static final byte HORN_CLAUSE_TYPE = 4;
+    protected static final byte FEATURED_CLAUSE_TYPE = 5;
+    protected static final byte PRO_PPR_EXAMPLE_TYPE = 6;
+
+    protected final Map<Object, Integer> references;
+    protected final long nanoReference;
+
+    /**
+     * Constructor with the underlying output stream.
+     *
+     * @param out the underlying output stream
+     */
+    public CheckpointOutputStream(OutputStream out) {
+        super(out);
+        this.references = new IdentityHashMap<>();
+        this.nanoReference = TimeUtils.getNanoTime();
+        references.put(Literal.TRUE_LITERAL, references.size());
+        references.put(Literal.FALSE_LITERAL, references.size());
+    }
+
+    /**
+     * Writes the reference of the object. If the object was not written yet, adds it to the reference table and
+     * returns {@code true}, meaning the object itself must be written next.
+     *
+     * @param object the object
+     * @return {@code true} if the object must be written, {@code false} if the reference suffices
+     * @throws IOException if an I/O error has occurred
+     */
+    protected boolean writeReference(Object object) throws IOException {
+        if (object == null) {
+            writeInt(NULL_REFERENCE);
+            return false;
+        }
+        Integer reference = references.get(object);
+        if (reference != null) {
+            writeInt(reference);
+            return false;
+        }
+        references.put(object, references.size());
+        writeInt(NEW_REFERENCE);
+        return true;
+    }
+
+    /**
+     * Writes a, possibly null, string as its length followed by its UTF-8 bytes. Unlike
+     * {@link #writeUTF(String)}, there is no limit in the size of the string.
+     *
+     * @param string the string
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeString(String string) throws IOException {
+        if (string == null) {
+            writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        write(bytes);
+    }
+
+    /**
+     * Writes a nano time, relative to the creation of this checkpoint.
+     *
+     * @param nanoTime the nano time
+     * @throws IOException if an I/O error has occurred
+     * @see TimeUtils#getNanoTime()
+     */
+    public void writeNanoTime(long nanoTime) throws IOException {
+        writeLong(nanoTime - nanoReference);
+    }
+
+    /**
+     * Writes the state of the random generator, so it continues the same sequence of numbers when restored.
+     *
+     * @param random the random generator
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeRandom(Random random) throws IOException {
+        if (random == null) {
+            writeInt(NULL_LENGTH);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+            objectOutput.writeObject(random);
+        }
+        writeInt(bytes.size());
+        bytes.writeTo(this);
+    }
+
+    /**
+     * Writes the component, tagged by its class name. The state of the component is only written if it implements
+     * {@link Checkpointable}.
+     *
+     * @param component the component
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeComponent(Object component) throws IOException {
+        writeString(component != null ? component.getClass().getName() : null);
+        if (component instanceof Checkpointable) {
+            ((Checkpointable) component).saveCheckpoint(this);
+        }
+    }
+
+    /**
+     * Writes the term.
+     *
+     * @param term the term
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeTerm(Term term) throws IOException {
+        if (!writeReference(term)) { return; }
+        writeBoolean(term.isConstant());
+        writeString(term.getName());
+    }
+
+    /**
+     * Writes the atom. The subclasses of {@link Atom} used by the learning are kept: {@link Literal},
+     * {@link WeightedAtom} and {@link AtomExample}.
+     *
+     * @param atom the atom
+     * @throws IOException if an I/O error has occurred or the type of the atom is not supported
+     */
+    public void writeAtom(Atom atom) throws IOException {
+        if (!writeReference(atom)) { return; }
+        final Class<?> clazz = atom.getClass();
+        if (clazz == Atom.class) {
+            writeByte(ATOM_TYPE);
+        } else if (clazz == Literal.class) {
+            writeByte(LITERAL_TYPE);
+            writeBoolean(((Literal) atom).isNegated());
+        } else if (clazz == WeightedAtom.class) {
+            writeByte(WEIGHTED_ATOM_TYPE);
+            writeDouble(((WeightedAtom) atom).getWeight());
+        } else if (clazz == AtomExample.class) {
+            writeByte(ATOM_EXAMPLE_TYPE);
+            writeBoolean(((AtomExample) atom).isPositive());
+        } else {
+            throw unsupportedType(atom);
+        }
+        writeString(atom.getPredicate().getName());
+        writeInt(atom.getPredicate().getArity());
+        final List<Term> terms = atom.getTerms();
+        writeInt(terms != null ? terms.size() : NULL_LENGTH);
+        if (terms == null) { return; }
+        for (Term term : terms) {
+            writeTerm(term);
+        }
+    }
+
+    /**
+     * Writes the clause, it might be an {@link Atom}, a {@link HornClause} or a {@link FeaturedClause}.
+     *
+     * @param clause the clause
+     * @throws IOException if an I/O error has occurred or the type of the clause is not supported
+     */
+    public void writeClause(Clause clause) throws IOException {
+        if (clause instanceof Atom) {
+            writeByte(ATOM_TYPE);
+            writeAtom((Atom) clause);
+            return;
+        }
+        final Class<?> clazz = clause != null ? clause.getClass() : null;
+        if (clazz != HornClause.class && clazz != FeaturedClause.class) { throw unsupportedType(clause); }
+        writeByte(clazz == HornClause.class ? HORN_CLAUSE_TYPE : FEATURED_CLAUSE_TYPE);
+        if (!writeReference(clause)) { return; }
+        final HornClause hornClause = (HornClause) clause;
+        writeAtom(hornClause.getHead());
+        writeConjunction(hornClause.getBody());
+        if (clazz == FeaturedClause.class) {
+            final Features features = ((FeaturedClause) clause).getFeatures();
+            writeInt(features != null ? features.size() : NULL_LENGTH);
+            if (features == null) { return; }
+            for (Atom feature : features) {
+                writeAtom(feature);
+            }
+        }
+    }
+
+    /**
+     * Writes the conjunction.
+     *
+     * @param conjunction the conjunction
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeConjunction(Conjunction conjunction) throws IOException {
+        if (!writeReference(conjunction)) { return; }
+        writeInt(conjunction.size());
+        for (Literal literal : conjunction) {
+            writeAtom(literal);
+        }
+    }
+
+    /**
+     * Writes the clauses, in the iteration order of the collection.
+     *
+     * @param clauses the clauses
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeClauses(Collection<? extends Clause> clauses) throws IOException {
+        writeInt(clauses.size());
+        for (Clause clause : clauses) {
+            writeClause(clause);
+        }
+    }
+
+    /**
+     * Writes the example, it might be an {@link AtomExample} or a {@link ProPprExample}.
+     *
+     * @param example the example
+     * @throws IOException if an I/O error has occurred or the type of the example is not supported
+     */
+    public void writeExample(Example example) throws IOException {
+        if (example instanceof AtomExample) {
+            writeByte(ATOM_EXAMPLE_TYPE);
+            writeAtom((AtomExample) example);
+            return;
+        }
+        if (example == null || example.getClass() != ProPprExample.class) { throw unsupportedType(example); }
+        writeByte(PRO_PPR_EXAMPLE_TYPE);
+        if (!writeReference(example)) { return; }
+        final ProPprExample proPprExample = (ProPprExample) example;
+        writeAtom(proPprExample.getGoal());
+        writeInt(proPprExample.getAtomExamples().size());
+        for (AtomExample atomExample : proPprExample.getAtomExamples()) {
+            writeAtom(atomExample);
+        }
+    }
+
+    /**
+     * Writes the examples, in the iteration order of the collection.
+     *
+     * @param examples the examples
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeExamples(Collection<? extends Example> examples) throws IOException {
+        writeInt(examples.size());
+        for (Example example : examples) {
+            writeExample(example);
+        }
+    }
+
+    /**
+     * Writes the inferred values of the examples.
+     *
+     * @param inferredExamples the inferred values of the examples
+     * @throws IOException if an I/O error has occurred
+     */
+    public void writeInferences(Map<Example, Map<Atom, Double>> inferredExamples) throws IOException {
+        writeInt(inferredExamples.size());
+        for (Map.Entry<Example, Map<Atom, Double>> entry : inferredExamples.entrySet()) {
+            writeExample(entry.getKey());
+            writeInt(entry.getValue().size());
+            for (Map.Entry<Atom, Double> inference : entry.getValue().entrySet()) {
+                writeAtom(inference.getKey());
+                writeDouble(inference.getValue());
+            }
+        }
+    }
+
+    /**
+     * Builds the exception for a type that can not be saved to the checkpoint.
+     *
+     * @param object the object
+     * @return the exception
+     */
+    protected static IOException unsupportedType(Object object) {
+        return new NotSerializableException(
+                FileIOUtils.formatLogMessage(ExceptionMessages.ERROR_CHECKPOINT_UNSUPPORTED_TYPE.toString(),
+                                             object != null ? object.getClass().getName() : null));
+    }
+
+}
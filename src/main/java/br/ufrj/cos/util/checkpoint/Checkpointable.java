@@ -0,0 +1,59 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.util.checkpoint;
+
+import java.io.IOException;
+
+/**
+ * Interface of the components whose state can be saved to, and restored from, a checkpoint. The components are
+ * expected to be already built and initialized, with the same configuration, when the checkpoint is loaded; so only
+ * the state that changes during the learning must be saved.
+ */
+public interface Checkpointable {
+
+    /**
+     * Saves the state of this component to the checkpoint.
+     *
+     * @param output the checkpoint output
+     * @throws IOException if an I/O error has occurred
+     */
+    public void saveCheckpoint(CheckpointOutputStream output) throws IOException;
+
+    /**
+     * Restores the state of this component from the checkpoint, in the same order it was saved by
+     * {@link #saveCheckpoint(CheckpointOutputStream)}.
+     *
+     * @param input the checkpoint input
+     * @throws IOException if an I/O error has occurred or the checkpoint does not match this component
+     */
+    public void loadCheckpoint(CheckpointInputStream input) throws IOException;
+
+}
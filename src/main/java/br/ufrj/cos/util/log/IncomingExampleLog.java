@@ -44,7 +44,15 @@ public enum IncomingExampleLog {
     CALLING_REVISION_OF_EXAMPLE("Calling the revision for\t{} examples."),
 
     EXAMPLES_PLACED_AT_LEAVES("New examples placed at the leaves of the tree, total:\t{}"),
-    CALLING_REVISION_OF_LEAVES("Calling the revision for\t{} modified leaves of predicate:\t{}."),;
+    CALLING_REVISION_OF_LEAVES("Calling the revision for\t{} modified leaves of predicate:\t{}."),
+
+    STREAM_STARTED("Reading examples from the {}:\t{}"),
+    READING_STREAM_FILE("Reading examples from the file:\t{}"),
+    PASSING_STREAM_EXAMPLES("Passing\t{} examples from the stream, total:\t{}"),
+    STREAM_IDLE_TIMEOUT("No example arrived in the last {} ms, ending the stream."),
+    STREAM_ENDED("The example stream has ended, total of examples:\t{}"),
+    ERROR_READING_STREAM("Error when reading the example stream, reason: {}"),
+    ERROR_PARSING_STREAM_LINE("Error when parsing the line\t{}\tfrom the example stream, reason: {}"),;
 
     protected final String message;
 
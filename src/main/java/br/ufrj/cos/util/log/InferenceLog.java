@@ -51,6 +51,10 @@ public enum InferenceLog {
     SUBMITTING_CANDIDATE("Submitting candidate:\t{}"),
     EVALUATION_FOR_RULE("Evaluation: {}\twith time: {}s\tfor rule:\t{}"),
     END_ASYNC_EVALUATION("[  END  ]\tAsynchronous evaluation."),
+    RACING_ROUND("Racing round on {} examples:\t{} out of {} candidates survived, with epsilon:\t{}"),
+    RACING_EVALUATION("Racing evaluation used {} out of {} example evaluations."),
+    RACING_AGREEMENT("The racing choice agrees with the exhaustive one:\t{}"),
+    RACING_STATISTICS("Racing statistics:\t{}"),
 
     GROUNDING_EXAMPLE("Grounding iterator:\t{}"),
     @SuppressWarnings("unused") GROUNDING_EXAMPLE_TIMEOUT("Grounding iterator {} timed out."),
@@ -58,9 +62,13 @@ public enum InferenceLog {
     EVALUATION_INITIAL_THEORIES("Evaluating the initial {} theory(es)."),
     EVALUATION_THEORIES_OF_SIZE("Evaluating {} theory(es) of size:\t{}"),
     EVALUATION_THEORY_TIMEOUT("Evaluation of the theory timed out after {} seconds."),
+    EVALUATION_REVISION_OPERATOR_TIMEOUT("Evaluation of the revision operator {} timed out after {} seconds."),
 
     BIGGEST_GAP_THRESHOLD("The biggest gap threshold was:\t{}"),
 
+    INFERENCE_CACHE_STATISTICS("Inference cache statistics:\t{}"),
+    NEIGHBOURHOOD_CACHE_STATISTICS("Neighbourhood cache statistics:\t{}"),
+
     ERROR_GROUNDING_EXAMPLE("Error when grounding the example, reason:"),
     @SuppressWarnings("unused") ERROR_BUILDING_ATOM("Error when building an atom, reason:"),
     ERROR_PROVING_GOAL("Could not prove the goal:\t{}"),
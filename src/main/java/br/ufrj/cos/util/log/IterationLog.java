@@ -57,9 +57,12 @@ public enum IterationLog {
     ITERATION_TRAINING_TIME("Training time of the iteration:\t{}"),
     END_REVISION_ITERATIONS("Ended the revision of the iteration(s)"),
     ITERATION_DATA_SAVED("Iteration theory saved in directory:\t{}"),
+    CHECKPOINT_SAVED("Checkpoint of the iteration {} saved to file:\t{}"),
+    RESUMING_FROM_CHECKPOINT("Resuming the learning from iteration {}, restored from checkpoint:\t{}"),
     ERROR_WRITING_ITERATION_THEORY_FILE("Error when writing the iteration's theory, reason:\t{}"),
     ERROR_WRITING_ITERATION_INFERENCE_FILE("Error when writing the iteration's inferences, reason:\t{}"),
-    ERROR_WRITING_STATISTICS_FILE("Error when writing the statistics to file, reason:\t{}");
+    ERROR_WRITING_STATISTICS_FILE("Error when writing the statistics to file, reason:\t{}"),
+    ERROR_WRITING_CHECKPOINT_FILE("Error when writing the checkpoint to file, reason:\t{}");
 
     protected final String message;
 
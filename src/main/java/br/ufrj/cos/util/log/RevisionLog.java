@@ -64,6 +64,7 @@ public enum RevisionLog {
     CANDIDATE_CLAUSES("Candidate clauses:\t{}"),
     CANDIDATE_EVALUATION("Candidates evaluation:\t{}"),
     MAKING_SIDE_MOVEMENT_FOR_CANDIDATE("Making side movement for candidate:\t{}"),
+    PRUNING_REFINEMENT_CANDIDATE("Pruning the refinement of candidate, its specializations cannot improve:\t{}"),
 
     PROPOSED_ADD_RULE("Propose to add the rule:\t{}"),
     PROPOSED_ADD_LITERAL("Propose to add the literal(s):\t{}"),
@@ -33,13 +33,16 @@ import br.ufrj.cos.core.LearningSystem;
 import br.ufrj.cos.knowledge.example.Example;
 import br.ufrj.cos.knowledge.theory.evaluation.AsyncTheoryEvaluator;
 import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
+import br.ufrj.cos.knowledge.theory.manager.HoeffdingBoundTheoryManager;
 import br.ufrj.cos.logic.HornClause;
+import br.ufrj.cos.util.time.TimeUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static br.ufrj.cos.util.log.InferenceLog.*;
 
@@ -74,6 +77,22 @@ public class MultithreadingEvaluation<V, E> {
      * The default value for evaluationTimeout.
      */
     public static final int DEFAULT_EVALUATION_TIMEOUT = 300;
+    /**
+     * The value of racingDelta to evaluate every candidate on all the examples.
+     */
+    public static final double NO_RACING = 0.0;
+    /**
+     * The default value for racingSampleSize.
+     */
+    public static final int DEFAULT_RACING_SAMPLE_SIZE = 32;
+    /**
+     * The factor by which the sample of the examples grows at each round of the racing.
+     */
+    public static final int RACING_GROWTH_FACTOR = 2;
+    /**
+     * The seed to shuffle the examples before sampling them, so the racing is reproducible.
+     */
+    public static final long RACING_SEED = 42;
     protected final LearningSystem learningSystem;
     protected final TheoryMetric theoryMetric;
     protected final int evaluationTimeout;
@@ -82,6 +101,37 @@ public class MultithreadingEvaluation<V, E> {
      * The maximum number of threads this class is allowed to create.
      */
     public int numberOfThreads = DEFAULT_NUMBER_OF_THREADS;
+    /**
+     * The delta of the Hoeffding's bound used to drop candidates during the racing. If it is {@link #NO_RACING},
+     * every candidate is evaluated on all the examples.
+     * <p>
+     * When racing, the candidates are evaluated on growing samples of the examples and, after each round, the
+     * candidates whose evaluation is worse than the best one by more than twice the Hoeffding's bound are dropped,
+     * so the following rounds only evaluate the remaining contenders. The contenders of the last round are
+     * evaluated on all the examples. Only used when the evaluations of all the candidates are not requested.
+     */
+    public double racingDelta = NO_RACING;
+    /**
+     * The size of the sample of the examples on the first round of the racing.
+     */
+    public int racingSampleSize = DEFAULT_RACING_SAMPLE_SIZE;
+    /**
+     * If {@code true}, also evaluates the candidates dropped by the racing on all the examples, in order to check
+     * if the racing chooses the same candidate as the exhaustive evaluation. It spends the inferences the racing
+     * saves, so it is meant to tune the racing parameters.
+     */
+    public boolean checkRacingAgreement = false;
+    /**
+     * If {@code true}, the evaluators also estimate the optimistic evaluation of the specializations of the
+     * candidates, from the same answers of their evaluation.
+     *
+     * @see AsyncTheoryEvaluator#getOptimisticEvaluation()
+     */
+    public boolean estimateOptimistically = false;
+    /**
+     * The statistics of the racing, shared by the copies of this class.
+     */
+    protected RacingStatistics racingStatistics = new RacingStatistics();
 
     /**
      * Constructor with necessary parameters.
@@ -101,20 +151,23 @@ public class MultithreadingEvaluation<V, E> {
     }
 
     /**
-     * Submits one evaluator {@link HornClause} to the pool and returns its {@link Future} value.
+     * Creates a copy of this class, with the same parameters, but with a different transformer. Since the
+     * transformers may hold the state of a single evaluation, this allows concurrent evaluations to use a
+     * transformer each.
      *
-     * @param evaluator      the evaluator {@link HornClause}
-     * @param evaluationPool the pool
-     * @return the {@link Future} value
+     * @param transformer the transformer
+     * @return the copy with the transformer
      */
-    public static <E> Future<AsyncTheoryEvaluator<E>> submitCandidate(AsyncTheoryEvaluator<E> evaluator,
-                                                                      ExecutorService evaluationPool) {
-        try {
-            return evaluationPool.submit((Callable<AsyncTheoryEvaluator<E>>) evaluator);
-        } catch (Exception e) {
-            logger.error(ERROR_EVALUATING_CLAUSE.toString(), e);
-        }
-        return null;
+    public MultithreadingEvaluation<V, E> withTransformer(AsyncEvaluatorTransformer<V, E> transformer) {
+        MultithreadingEvaluation<V, E> copy =
+                new MultithreadingEvaluation<>(learningSystem, theoryMetric, evaluationTimeout, transformer);
+        copy.numberOfThreads = numberOfThreads;
+        copy.racingDelta = racingDelta;
+        copy.racingSampleSize = racingSampleSize;
+        copy.checkRacingAgreement = checkRacingAgreement;
+        copy.estimateOptimistically = estimateOptimistically;
+        copy.racingStatistics = racingStatistics;
+        return copy;
     }
 
     /**
@@ -145,95 +198,347 @@ public class MultithreadingEvaluation<V, E> {
                                                                 Collection<? extends Example> examples,
                                                                 Map<AsyncTheoryEvaluator<E>, Double> evaluationMap) {
         if (candidates == null || candidates.isEmpty()) { return null; }
-        AsyncTheoryEvaluator<E> bestClause = null;
         int numberOfThreads = Math.max(Math.min(this.numberOfThreads, candidates.size()), 1);
         final Map<AsyncTheoryEvaluator<E>, Double> localMap = evaluationMap != null ? evaluationMap : new HashMap<>();
-        try {
-            logger.info(BEGIN_ASYNC_EVALUATION.toString(), candidates.size());
-            ExecutorService evaluationPool = Executors.newFixedThreadPool(numberOfThreads);
-            Set<Future<AsyncTheoryEvaluator<E>>> futures = submitCandidates(candidates, evaluationPool, examples);
-
-            evaluationPool.shutdown();
-            evaluationPool.awaitTermination((int) (evaluationTimeout * (futures.size() + 1.0) / numberOfThreads),
-                                            TimeUnit.SECONDS);
-            evaluationPool.shutdownNow();
-            logger.info(END_ASYNC_EVALUATION);
-            bestClause = retrieveEvaluatedMetrics(futures, localMap);
-            if (logger.isDebugEnabled()) {
-                localMap.entrySet().stream().sorted(Comparator.comparing(e -> -e.getValue(), theoryMetric))
-                        .forEach(e -> logger.debug(EVALUATION_FOR_RULE.toString(),
-                                                   e.getValue(),
-                                                   NUMBER_FORMAT.format(e.getKey().getEvaluationTime()),
-                                                   e.getKey().getHornClause()));
-            }
-        } catch (InterruptedException e) {
-            logger.error(ERROR_EVALUATING_CLAUSE.toString(), e);
+        logger.info(BEGIN_ASYNC_EVALUATION.toString(), candidates.size());
+        List<AsyncTheoryEvaluator<E>> evaluators = buildEvaluators(candidates, examples);
+        if (evaluationMap == null && isToRace(evaluators, examples)) {
+            evaluators = raceCandidates(evaluators, examples, numberOfThreads);
+        } else {
+            evaluateCandidates(evaluators, numberOfThreads);
+        }
+        logger.info(END_ASYNC_EVALUATION);
+        AsyncTheoryEvaluator<E> bestClause = retrieveEvaluatedMetrics(evaluators, localMap);
+        if (logger.isDebugEnabled()) {
+            localMap.entrySet().stream().sorted(Comparator.comparing(e -> -e.getValue(), theoryMetric))
+                    .forEach(e -> logger.debug(EVALUATION_FOR_RULE.toString(),
+                                               e.getValue(),
+                                               NUMBER_FORMAT.format(e.getKey().getEvaluationTime()),
+                                               e.getKey().getHornClause()));
         }
         return bestClause;
     }
 
     /**
-     * Submits the candidate {@link HornClause}s to the evaluation pool.
+     * Builds the {@link AsyncTheoryEvaluator}s of the candidates.
      *
-     * @param candidates     the candidates
-     * @param evaluationPool the pool
-     * @param examples       the examples
-     * @return the {@link Set} of {@link Future} evaluations.
+     * @param candidates the candidates
+     * @param examples   the examples
+     * @return the {@link List} of {@link AsyncTheoryEvaluator}s
      */
-    protected Set<Future<AsyncTheoryEvaluator<E>>> submitCandidates(Iterable<? extends V> candidates,
-                                                                    ExecutorService evaluationPool,
-                                                                    Collection<? extends Example> examples) {
-        Set<Future<AsyncTheoryEvaluator<E>>> futures = new LinkedHashSet<>();
+    protected List<AsyncTheoryEvaluator<E>> buildEvaluators(Collection<? extends V> candidates,
+                                                           Collection<? extends Example> examples) {
+        List<AsyncTheoryEvaluator<E>> evaluators = new ArrayList<>(candidates.size());
         AsyncTheoryEvaluator<E> evaluator;
         for (V candidate : candidates) {
             logger.trace(SUBMITTING_CANDIDATE.toString(), candidate);
             evaluator = new AsyncTheoryEvaluator<>(examples,
                                                    learningSystem.getTheoryEvaluator(),
                                                    theoryMetric, evaluationTimeout);
+            evaluator.setEstimateOptimistically(estimateOptimistically);
             evaluator = transformer.transform(evaluator, candidate, examples);
-            futures.add(MultithreadingEvaluation.submitCandidate(evaluator, evaluationPool));
+            if (evaluator != null) { evaluators.add(evaluator); }
+        }
+        return evaluators;
+    }
+
+    /**
+     * Evaluates the {@link AsyncTheoryEvaluator}s in the evaluation pool of the {@link LearningSystem}, running at
+     * most numberOfThreads evaluations at a time. Each evaluation is bounded by its own timeout and the whole
+     * evaluation is bounded by the timeout times the number of candidates per thread; when it is over, the
+     * running evaluations are cancelled and the remaining ones are skipped.
+     *
+     * @param evaluators      the {@link AsyncTheoryEvaluator}s
+     * @param numberOfThreads the number of parallel evaluations
+     */
+    protected void evaluateCandidates(List<AsyncTheoryEvaluator<E>> evaluators, int numberOfThreads) {
+        final Queue<AsyncTheoryEvaluator<E>> queue = new ConcurrentLinkedQueue<>(evaluators);
+        final Runnable worker = () -> {
+            AsyncTheoryEvaluator<E> evaluator;
+            while ((evaluator = queue.poll()) != null) {
+                try {
+                    evaluator.call();
+                } catch (Exception e) {
+                    logger.error(ERROR_EVALUATING_CLAUSE.toString(), e);
+                }
+            }
+        };
+        if (numberOfThreads == 1) {
+            worker.run();
+            return;
+        }
+        final ExecutorService evaluationPool = learningSystem.getEvaluationPool();
+        final List<Future<?>> workers = new ArrayList<>(numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            workers.add(evaluationPool.submit(worker));
         }
-        futures.remove(null);
-        return futures;
+        final long timeout = (long) (evaluationTimeout * (evaluators.size() + 1.0) / numberOfThreads *
+                TimeUtils.NANO_TO_SECONDS_DENOMINATOR);
+        final long deadline = TimeUtils.getNanoTime() + timeout;
+        try {
+            for (Future<?> future : workers) {
+                if (evaluationTimeout > AsyncTheoryEvaluator.NO_TIMEOUT) {
+                    future.get(deadline - TimeUtils.getNanoTime(), TimeUnit.NANOSECONDS);
+                } else {
+                    future.get();
+                }
+            }
+        } catch (TimeoutException e) {
+            logger.warn(EVALUATION_THEORY_TIMEOUT.toString(), timeout / TimeUtils.NANO_TO_SECONDS_DENOMINATOR);
+            queue.clear();
+            evaluators.forEach(AsyncTheoryEvaluator::cancel);
+            waitWorkers(workers);
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error(ERROR_EVALUATING_CLAUSE.toString(), e);
+        }
+    }
+
+    /**
+     * Checks if the candidates should be raced, instead of all of them evaluated on all the examples.
+     *
+     * @param evaluators the {@link AsyncTheoryEvaluator}s of the candidates
+     * @param examples   the examples
+     * @return {@code true} if the candidates should be raced, {@code false} otherwise
+     */
+    protected boolean isToRace(Collection<AsyncTheoryEvaluator<E>> evaluators,
+                               Collection<? extends Example> examples) {
+        return racingDelta > NO_RACING && evaluators.size() > 1 && racingSampleSize > 0 &&
+                racingSampleSize <= examples.size() / (RACING_GROWTH_FACTOR * RACING_GROWTH_FACTOR) &&
+                !Double.isInfinite(theoryMetric.getRange());
+    }
+
+    /**
+     * Races the candidates on growing samples of the examples, dropping the ones that are worse than the best by
+     * more than the Hoeffding's bound of the sample, until a single contender remains or the sample would have more
+     * than a quarter of the examples. Then, evaluates the remaining contenders on all the examples.
+     *
+     * @param evaluators      the {@link AsyncTheoryEvaluator}s of the candidates, on all the examples
+     * @param examples        the examples
+     * @param numberOfThreads the number of parallel evaluations
+     * @return the {@link AsyncTheoryEvaluator}s of the contenders, evaluated on all the examples
+     */
+    protected List<AsyncTheoryEvaluator<E>> raceCandidates(List<AsyncTheoryEvaluator<E>> evaluators,
+                                                           Collection<? extends Example> examples,
+                                                           int numberOfThreads) {
+        final List<Example> shuffled = new ArrayList<>(examples);
+        Collections.shuffle(shuffled, new Random(RACING_SEED));
+        List<AsyncTheoryEvaluator<E>> contenders = evaluators;
+        long evaluatedExamples = 0;
+        int sampleSize = racingSampleSize;
+        // the sizes of the samples sum up to less than twice the last one, so the rounds stop at a quarter of the
+        // examples, in order to cost at most half of the evaluation on all the examples
+        final int maximumSampleSize = shuffled.size() / (RACING_GROWTH_FACTOR * RACING_GROWTH_FACTOR);
+        while (contenders.size() > 1 && sampleSize <= maximumSampleSize) {
+            final List<Example> sample = shuffled.subList(0, sampleSize);
+            final List<AsyncTheoryEvaluator<E>> sampled = new ArrayList<>(contenders.size());
+            for (AsyncTheoryEvaluator<E> contender : contenders) { sampled.add(withExamples(contender, sample)); }
+            evaluateCandidates(sampled, numberOfThreads);
+            evaluatedExamples += (long) sampled.size() * sampleSize;
+            contenders = dropOutperformed(contenders, sampled, sampleSize);
+            sampleSize *= RACING_GROWTH_FACTOR;
+        }
+        evaluateCandidates(contenders, numberOfThreads);
+        evaluatedExamples += (long) contenders.size() * shuffled.size();
+        final long exhaustiveExamples = (long) evaluators.size() * shuffled.size();
+        logger.debug(RACING_EVALUATION.toString(), evaluatedExamples, exhaustiveExamples);
+        racingStatistics.addRace(evaluatedExamples, exhaustiveExamples);
+        if (checkRacingAgreement) { checkAgreement(evaluators, contenders, numberOfThreads); }
+        logger.info(RACING_STATISTICS.toString(), racingStatistics);
+        return contenders;
+    }
+
+    /**
+     * Builds a copy of the {@link AsyncTheoryEvaluator} that evaluates the same clause on other examples.
+     *
+     * @param evaluator the {@link AsyncTheoryEvaluator}
+     * @param examples  the other examples
+     * @return the copy
+     */
+    protected AsyncTheoryEvaluator<E> withExamples(AsyncTheoryEvaluator<E> evaluator,
+                                                   Collection<? extends Example> examples) {
+        AsyncTheoryEvaluator<E> copy = new AsyncTheoryEvaluator<>(examples, learningSystem.getTheoryEvaluator(),
+                                                                  theoryMetric, evaluationTimeout);
+        copy.setHornClause(evaluator.getHornClause());
+        copy.setElement(evaluator.getElement());
+        return copy;
     }
 
     /**
-     * Retrieves the evaluations from the {@link Future} {@link AsyncTheoryEvaluator}s and appends it to a
+     * Drops the contenders whose evaluation on the sample is worse than the best one by more than twice the
+     * Hoeffding's bound of the sample, since, with probability 1 - racingDelta, their evaluation on all the examples
+     * is also worse. The contenders whose evaluation did not finish are kept.
+     *
+     * @param contenders the contenders
+     * @param sampled    the evaluations of the contenders on the sample, in the same order
+     * @param sampleSize the size of the sample
+     * @return the remaining contenders
+     */
+    protected List<AsyncTheoryEvaluator<E>> dropOutperformed(List<AsyncTheoryEvaluator<E>> contenders,
+                                                             List<AsyncTheoryEvaluator<E>> sampled,
+                                                             int sampleSize) {
+        final AsyncTheoryEvaluator<E> best = getBestEvaluated(sampled);
+        if (best == null) { return contenders; }
+        final double epsilon = HoeffdingBoundTheoryManager.calculateHoeffdingBound(theoryMetric.getRange(),
+                                                                                   sampleSize, racingDelta);
+        final List<AsyncTheoryEvaluator<E>> remaining = new ArrayList<>();
+        for (int i = 0; i < contenders.size(); i++) {
+            final AsyncTheoryEvaluator<E> evaluated = sampled.get(i);
+            if (evaluated.isEvaluationFinished() &&
+                    theoryMetric.compare(best.getEvaluation(), evaluated.getEvaluation()) > 0 &&
+                    Math.abs(best.getEvaluation() - evaluated.getEvaluation()) > 2 * epsilon) {
+                continue;
+            }
+            remaining.add(contenders.get(i));
+        }
+        logger.debug(RACING_ROUND.toString(), sampleSize, remaining.size(), contenders.size(), epsilon);
+        return remaining;
+    }
+
+    /**
+     * Evaluates the candidates dropped by the racing on all the examples and checks if the best of all the
+     * candidates is the same as the best of the contenders.
+     *
+     * @param evaluators      the {@link AsyncTheoryEvaluator}s of all the candidates
+     * @param contenders      the evaluated contenders
+     * @param numberOfThreads the number of parallel evaluations
+     */
+    protected void checkAgreement(List<AsyncTheoryEvaluator<E>> evaluators, List<AsyncTheoryEvaluator<E>> contenders,
+                                  int numberOfThreads) {
+        final List<AsyncTheoryEvaluator<E>> dropped = new ArrayList<>(evaluators);
+        dropped.removeAll(contenders);
+        evaluateCandidates(dropped, numberOfThreads);
+        final AsyncTheoryEvaluator<E> racing = getBestEvaluated(contenders);
+        final AsyncTheoryEvaluator<E> exhaustive = getBestEvaluated(evaluators);
+        final boolean agrees = racing == exhaustive || racing != null && exhaustive != null &&
+                theoryMetric.compare(racing.getEvaluation(), exhaustive.getEvaluation()) == 0;
+        logger.debug(RACING_AGREEMENT.toString(), agrees);
+        racingStatistics.addAgreement(agrees);
+    }
+
+    /**
+     * Gets the best evaluated {@link AsyncTheoryEvaluator}, among the ones whose evaluation finished.
+     *
+     * @param evaluators the {@link AsyncTheoryEvaluator}s
+     * @return the best evaluated {@link AsyncTheoryEvaluator}, or {@code null} if none has finished
+     */
+    protected AsyncTheoryEvaluator<E> getBestEvaluated(Collection<AsyncTheoryEvaluator<E>> evaluators) {
+        double bestClauseValue = theoryMetric.getDefaultValue();
+        AsyncTheoryEvaluator<E> bestClause = null;
+        for (AsyncTheoryEvaluator<E> evaluated : evaluators) {
+            if (evaluated.isEvaluationFinished() &&
+                    theoryMetric.compare(evaluated.getEvaluation(), bestClauseValue) >= 0) {
+                bestClauseValue = evaluated.getEvaluation();
+                bestClause = evaluated;
+            }
+        }
+        return bestClause;
+    }
+
+    /**
+     * Gets the statistics of the racing.
+     *
+     * @return the statistics of the racing
+     */
+    public RacingStatistics getRacingStatistics() {
+        return racingStatistics;
+    }
+
+    /**
+     * Waits the cancelled workers to stop.
+     *
+     * @param workers the workers
+     */
+    protected static void waitWorkers(Iterable<Future<?>> workers) {
+        for (Future<?> future : workers) {
+            try {
+                future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                logger.error(ERROR_EVALUATING_CLAUSE.toString(), e);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the evaluations from the evaluated {@link AsyncTheoryEvaluator}s and appends it to a
      * {@link Map}. Also, returns the best evaluated {@link HornClause}.
      *
-     * @param futures       the {@link Future} {@link AsyncTheoryEvaluator}
+     * @param evaluators    the {@link AsyncTheoryEvaluator}s
      * @param evaluationMap the {@link Map} with the evaluations
      * @return the best evaluated {@link HornClause}
      */
-    @SuppressWarnings("SameParameterValue")
-    public AsyncTheoryEvaluator<E> retrieveEvaluatedMetrics(Set<Future<AsyncTheoryEvaluator<E>>> futures,
+    public AsyncTheoryEvaluator<E> retrieveEvaluatedMetrics(Collection<AsyncTheoryEvaluator<E>> evaluators,
                                                             Map<AsyncTheoryEvaluator<E>, Double> evaluationMap) {
-        AsyncTheoryEvaluator<E> evaluated;
         double bestClauseValue = theoryMetric.getDefaultValue();
         AsyncTheoryEvaluator<E> bestClause = null;
         int count = 0;
-        for (Future<AsyncTheoryEvaluator<E>> future : futures) {
-            try {
-                evaluated = future.get();
-                if (!evaluated.isEvaluationFinished()) { continue; }
-                count++;
-                if (evaluationMap != null) {
-                    evaluationMap.put(evaluated, evaluated.getEvaluation());
-                }
-                if (theoryMetric.compare(evaluated.getEvaluation(), bestClauseValue) >= 0) {
-                    bestClauseValue = evaluated.getEvaluation();
-                    bestClause = evaluated;
-                }
-            } catch (InterruptedException | ExecutionException e) {
-                logger.error(ERROR_EVALUATING_CLAUSE.toString(), e);
-            } catch (CancellationException ignored) {
-                logger.error(EVALUATION_THEORY_TIMEOUT.toString(),
-                             evaluationTimeout);
+        for (AsyncTheoryEvaluator<E> evaluated : evaluators) {
+            if (!evaluated.isEvaluationFinished()) { continue; }
+            count++;
+            if (evaluationMap != null) {
+                evaluationMap.put(evaluated, evaluated.getEvaluation());
+            }
+            if (theoryMetric.compare(evaluated.getEvaluation(), bestClauseValue) >= 0) {
+                bestClauseValue = evaluated.getEvaluation();
+                bestClause = evaluated;
             }
         }
         logger.info(EVALUATED_TIMEOUT_PROPORTION.toString(),
-                    (double) count / futures.size() * 100, futures.size());
+                    (double) count / evaluators.size() * 100, evaluators.size());
         return bestClause;
     }
 
+    /**
+     * Counts the example evaluations the racing spent and would have spent evaluating all the candidates on all the
+     * examples, and how many times its choice agreed with the exhaustive one, when checked.
+     */
+    public static class RacingStatistics {
+
+        protected final AtomicLong races = new AtomicLong();
+        protected final AtomicLong evaluatedExamples = new AtomicLong();
+        protected final AtomicLong exhaustiveExamples = new AtomicLong();
+        protected final AtomicLong checkedRaces = new AtomicLong();
+        protected final AtomicLong agreements = new AtomicLong();
+
+        /**
+         * Adds a race.
+         *
+         * @param evaluated  the example evaluations spent by the race
+         * @param exhaustive the example evaluations of the exhaustive evaluation
+         */
+        public void addRace(long evaluated, long exhaustive) {
+            races.incrementAndGet();
+            evaluatedExamples.addAndGet(evaluated);
+            exhaustiveExamples.addAndGet(exhaustive);
+        }
+
+        /**
+         * Adds the check of a race against the exhaustive evaluation.
+         *
+         * @param agrees if the choice of the race agrees with the exhaustive one
+         */
+        public void addAgreement(boolean agrees) {
+            checkedRaces.incrementAndGet();
+            if (agrees) { agreements.incrementAndGet(); }
+        }
+
+        /**
+         * Gets the number of example evaluations saved by the racing.
+         *
+         * @return the number of example evaluations saved by the racing
+         */
+        public long getSavedExamples() {
+            return exhaustiveExamples.get() - evaluatedExamples.get();
+        }
+
+        @Override
+        public String toString() {
+            return "races: " + races.get() +
+                    ", evaluated examples: " + evaluatedExamples.get() +
+                    ", exhaustive examples: " + exhaustiveExamples.get() +
+                    ", saved examples: " + getSavedExamples() +
+                    ", agreements: " + agreements.get() + " out of " + checkedRaces.get() + " checked races";
+        }
+
+    }
+
 }
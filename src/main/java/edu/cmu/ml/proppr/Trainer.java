@@ -43,6 +43,7 @@
 
 package edu.cmu.ml.proppr;
 
+import edu.cmu.ml.proppr.examples.CookedExample;
 import edu.cmu.ml.proppr.examples.PosNegRWExample;
 import edu.cmu.ml.proppr.graph.ArrayLearningGraphBuilder;
 import edu.cmu.ml.proppr.graph.LearningGraphBuilder;
@@ -67,6 +68,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.BiFunction;
 
 public class Trainer {
 
@@ -105,6 +107,25 @@ public class Trainer {
         }
     }
 
+    /**
+     * The epochs are counted across calls to train, and the learning rate depends on them.
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(int epoch) {
+        this.epoch = epoch;
+    }
+
+    public LossData getLossLastEpoch() {
+        return lossLastEpoch;
+    }
+
+    public void setLossLastEpoch(LossData lossLastEpoch) {
+        this.lossLastEpoch = lossLastEpoch;
+    }
+
     public static void main(String[] args) {
         try {
             int inputFiles = Configuration.USE_TRAIN | Configuration.USE_INIT_PARAMS;
@@ -170,6 +191,31 @@ public class Trainer {
     public ParamVector<String, ?> train(SymbolTable<String> masterFeatures, Iterable<String> examples,
                                         LearningGraphBuilder builder, ParamVector<String, ?> initialParamVec,
                                         int numEpochs) {
+        return train(masterFeatures, examples, (s, id) -> new Parse(s, builder, id), initialParamVec, numEpochs);
+    }
+
+    /**
+     * Trains on examples that were grounded in memory, skipping the serialization and parsing of the grounded
+     * examples. Each example's {@link edu.cmu.ml.proppr.graph.LearningGraph} is built once and reused in every
+     * epoch.
+     *
+     * @param masterFeatures  the features of the grounded examples
+     * @param examples        the cooked examples
+     * @param builder         the builder of the learning graphs
+     * @param initialParamVec the initial parameters
+     * @param numEpochs       the number of epochs
+     * @return the trained parameters
+     */
+    public ParamVector<String, ?> trainCooked(SymbolTable<String> masterFeatures, Iterable<CookedExample> examples,
+                                              LearningGraphBuilder builder, ParamVector<String, ?> initialParamVec,
+                                              int numEpochs) {
+        return train(masterFeatures, examples, (x, id) -> new Cook(x, builder, masterFeatures, id),
+                     initialParamVec, numEpochs);
+    }
+
+    protected <T> ParamVector<String, ?> train(SymbolTable<String> masterFeatures, Iterable<T> examples,
+                                               BiFunction<T, Integer, Callable<PosNegRWExample>> parser,
+                                               ParamVector<String, ?> initialParamVec, int numEpochs) {
         ParamVector<String, ?> paramVec = this.masterLearner.setupParams(initialParamVec);
         if (masterFeatures.size() > 0) { LearningGraphBuilder.setFeatures(masterFeatures); }
         NamedThreadFactory workingThreads = new NamedThreadFactory("work-");
@@ -205,7 +251,7 @@ public class Trainer {
             stattime.start();
             int countdown = -1;
             Trainer notify = null;
-            for (String s : examples) {
+            for (T s : examples) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("Queue size " + (workingPool.getTaskCount() - workingPool.getCompletedTaskCount()));
                 }
@@ -259,7 +305,7 @@ public class Trainer {
                     countdown = this.nthreads;
                     notify = this;
                 }
-                Future<PosNegRWExample> parsed = workingPool.submit(new Parse(s, builder, id));
+                Future<PosNegRWExample> parsed = workingPool.submit(parser.apply(s, id));
                 Future<ExampleStats> trained = workingPool.submit(new Train(parsed, paramVec, id, notify));
                 cleanPool.submit(new TraceLosses(trained, id));
                 id++;
@@ -573,6 +619,33 @@ public class Trainer {
 
     }
 
+    protected class Cook implements Callable<PosNegRWExample> {
+
+        CookedExample in;
+        LearningGraphBuilder builder;
+        SymbolTable<String> features;
+        int id;
+
+        public Cook(CookedExample in, LearningGraphBuilder builder, SymbolTable<String> features, int id) {
+            this.in = in;
+            this.builder = builder;
+            this.features = features;
+            this.id = id;
+        }
+
+        @Override
+        public PosNegRWExample call() throws Exception {
+            SRW learner = learners.get(Thread.currentThread().getName());
+            if (logger.isDebugEnabled()) { logger.debug("Cooking start " + this.id); }
+            long start = System.currentTimeMillis();
+            PosNegRWExample ex = in.makeExample(builder.copy(), features, learner);
+            statistics.updateParsingStatistics(System.currentTimeMillis() - start);
+            if (logger.isDebugEnabled()) { logger.debug("Cooking done " + this.id); }
+            return ex;
+        }
+
+    }
+
     /**
      * Transforms from inputs to outputs
      *
@@ -0,0 +1,126 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.cmu.ml.proppr.examples;
+
+import edu.cmu.ml.proppr.graph.InferenceGraph;
+import edu.cmu.ml.proppr.graph.LearningGraph;
+import edu.cmu.ml.proppr.graph.LearningGraphBuilder;
+import edu.cmu.ml.proppr.learn.SRW;
+import edu.cmu.ml.proppr.util.SymbolTable;
+import gnu.trove.map.TIntDoubleMap;
+
+import java.util.Arrays;
+
+/**
+ * The in memory counterpart of a cooked example line, i.e. a grounded example that has not been serialized.
+ * <p>
+ * The {@link LearningGraph} is built from the {@link InferenceGraph} on the first use and is reused afterwards,
+ * since it is never changed by the learner. The {@link PosNegRWExample} is created again on each call, because it
+ * holds the learner's working arrays.
+ */
+public class CookedExample {
+
+    protected final String name;
+    protected final InferenceGraph inferenceGraph;
+    protected final TIntDoubleMap queryVec;
+    protected final int[] posList;
+    protected final int[] negList;
+    protected LearningGraph learningGraph;
+
+    public CookedExample(String name, InferenceGraph inferenceGraph, TIntDoubleMap queryVec,
+                         int[] posList, int[] negList) {
+        this.name = name;
+        this.inferenceGraph = inferenceGraph;
+        this.queryVec = queryVec;
+        this.posList = posList;
+        this.negList = negList;
+    }
+
+    /**
+     * Gets the {@link LearningGraph} of the example, building it on the first call.
+     *
+     * @param builder  the builder
+     * @param features the master feature index
+     * @return the {@link LearningGraph}
+     */
+    public synchronized LearningGraph getLearningGraph(LearningGraphBuilder builder,
+                                                       SymbolTable<String> features) {
+        if (learningGraph == null) {
+            learningGraph = inferenceGraph.toLearningGraph(builder, features);
+        }
+        return learningGraph;
+    }
+
+    /**
+     * Makes the {@link PosNegRWExample} used by the learner, the same one that would be parsed from the
+     * serialized example.
+     *
+     * @param builder  the builder
+     * @param features the master feature index
+     * @param learner  the learner
+     * @return the {@link PosNegRWExample}
+     */
+    public PosNegRWExample makeExample(LearningGraphBuilder builder, SymbolTable<String> features, SRW learner) {
+        return learner.makeExample(name, getLearningGraph(builder, features), queryVec, posList, negList);
+    }
+
+    public int length() {
+        return posList.length + negList.length;
+    }
+
+    /**
+     * Gets a key that identifies the serialized example. The graph is not part of the key, since the examples of
+     * the same query are grounded into the same graph, so two examples have the same serialized line if, and only
+     * if, they have the same key.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        int[] queryNodes = queryVec.keys();
+        Arrays.sort(queryNodes);
+        return name + "\t" + Arrays.toString(queryNodes) + "\t" + Arrays.toString(posList) + "\t" +
+                Arrays.toString(negList);
+    }
+
+}
@@ -45,6 +45,7 @@ package edu.cmu.ml.proppr.graph;
 
 import edu.cmu.ml.proppr.prove.wam.Outlink;
 import edu.cmu.ml.proppr.prove.wam.State;
+import edu.cmu.ml.proppr.util.SymbolTable;
 
 import java.util.List;
 
@@ -76,6 +77,18 @@ public interface InferenceGraph {
 
     public abstract String serialize(boolean includeFeatureIndex);
 
+    /**
+     * Builds the {@link LearningGraph} of this graph directly, without going through its serialized form.
+     * <p>
+     * The resulting graph is equivalent to {@code builder.deserialize(serialize())}, using the given features as
+     * the master feature index.
+     *
+     * @param builder  the builder
+     * @param features the feature index, whose ids match the ids of this graph's features
+     * @return the {@link LearningGraph}
+     */
+    public abstract LearningGraph toLearningGraph(LearningGraphBuilder builder, SymbolTable<String> features);
+
     /**
      * only used for unit tests
      */
@@ -173,6 +173,34 @@ public class LightweightStateGraph implements InferenceGraph {
         return ret.toString();
     }
 
+    @Override
+    public LearningGraph toLearningGraph(LearningGraphBuilder builder, SymbolTable<String> features) {
+        LearningGraph g = builder.create(features);
+        builder.index(1);
+        builder.setGraphSize(g, this.nodeSize(), this.edgeCount, -1);
+        // same traversal order as serialize(), so the graph matches the deserialized one
+        for (TIntObjectIterator<TIntArrayList> it = this.near.iterator(); it.hasNext(); ) {
+            it.advance();
+            int ui = it.key();
+            TIntObjectHashMap<TIntDoubleHashMap> fui = edgeFeatureDict.get(ui);
+            for (TIntIterator vit = it.value().iterator(); vit.hasNext(); ) {
+                int vi = vit.next();
+                TIntDoubleHashMap fuvi = fui.get(vi);
+                int[] fid = new int[fuvi.size()];
+                double[] wt = new double[fuvi.size()];
+                int fi = 0;
+                for (TIntDoubleIterator fit = fuvi.iterator(); fit.hasNext(); fi++) {
+                    fit.advance();
+                    fid[fi] = fit.key();
+                    wt[fi] = fit.value();
+                }
+                builder.addOutlink(g, ui, new RWOutlink(fid, wt, vi));
+            }
+        }
+        builder.freeze(g);
+        return g;
+    }
+
     @Override
     public void setOutlinks(int uid, List<Outlink> outlinks) {
         setOutlinks(this.nodeTab.getSymbol(uid), outlinks);
@@ -54,6 +54,7 @@ import edu.cmu.ml.proppr.learn.tools.SquashingFunction;
 import edu.cmu.ml.proppr.util.Dictionary;
 import edu.cmu.ml.proppr.util.SRWOptions;
 import edu.cmu.ml.proppr.util.StatusLogger;
+import edu.cmu.ml.proppr.util.math.DenseParamVector;
 import edu.cmu.ml.proppr.util.math.ParamVector;
 import edu.cmu.ml.proppr.util.math.SimpleParamVector;
 import gnu.trove.iterator.TIntDoubleIterator;
@@ -91,7 +92,7 @@ public class SRW {
     public static final String FIXED_WEIGHT_FUNCTOR = "fixedWeight";
     private static final Logger log = LogManager.getLogger(SRW.class);
     private static final int MAX_ZERO_LOGS = 10;
-    private static final Random random = new Random();
+    private static Random random = new Random();
     protected FixedWeightRules fixedWeightRules;
     //	protected Set<String> untrainedFeatures;
     protected int epoch;
@@ -119,6 +120,21 @@ public class SRW {
         random.setSeed(seed);
     }
 
+    /**
+     * Gets the random generator used to perturb the weights of new features, so its state can be saved.
+     */
+    public static Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Replaces the random generator used to perturb the weights of new features, e.g. by one restored from a
+     * checkpoint.
+     */
+    public static void setRandom(Random random) {
+        SRW.random = random;
+    }
+
     public static SquashingFunction DEFAULT_SQUASHING_FUNCTION() {
         return new ClippedExp();
     }
@@ -199,6 +215,7 @@ public class SRW {
      **/
     protected void load(ParamVector<String, ?> params, PosNegRWExample example) {
         PprExample ex = (PprExample) example;
+        DenseParamVector dense = DenseParamVector.indexedBy(params, ex.getGraph().featureLibrary);
         int dM_cursor = 0;
         for (int uid = 0; uid < ex.getGraph().node_hi; uid++) {
             // (a); (b): initialization
@@ -214,9 +231,14 @@ public class SRW {
                 // i. s_{uv} = w * phi_{uv}, a scalar:
                 suv[xvi] = 0;
                 for (int lid = ex.getGraph().edge_labels_lo[eid]; lid < ex.getGraph().edge_labels_hi[eid]; lid++) {
-                    suv[xvi] += params.get(ex.getGraph().featureLibrary.getSymbol(ex.getGraph()
-                                                                                          .label_feature_id[lid])) *
-                            ex.getGraph().label_feature_weight[lid];
+                    double weight;
+                    if (dense != null) {
+                        weight = dense.weight(ex.getGraph().label_feature_id[lid]);
+                    } else {
+                        weight = params.get(ex.getGraph().featureLibrary.getSymbol(ex.getGraph()
+                                                                                         .label_feature_id[lid]));
+                    }
+                    suv[xvi] += weight * ex.getGraph().label_feature_weight[lid];
                 }
                 // ii. t_u += f(s_{uv}), a scalar:
                 tu += c.squashingFunction.edgeWeight(suv[xvi]);
@@ -312,14 +334,21 @@ public class SRW {
      */
     protected void sgd(ParamVector<String, ?> params, PosNegRWExample ex) {
         TIntDoubleMap gradient = gradient(params, ex);
+        DenseParamVector dense = DenseParamVector.indexedBy(params, ex.getGraph().featureLibrary);
         // apply gradient to param vector
         for (TIntDoubleIterator grad = gradient.iterator(); grad.hasNext(); ) {
             grad.advance();
             if (grad.value() == 0) { continue; }
             String feature = ex.getGraph().featureLibrary.getSymbol(grad.key());
             if (trainable(feature)) {
-                params.adjustValue(feature, -learningRate(feature) * grad.value());
-                if (params.get(feature).isInfinite()) {
+                double updated;
+                if (dense != null) {
+                    updated = dense.adjustWeight(grad.key(), -learningRate(feature) * grad.value());
+                } else {
+                    params.adjustValue(feature, -learningRate(feature) * grad.value());
+                    updated = params.get(feature);
+                }
+                if (Double.isInfinite(updated)) {
                     log.warn("Infinity at " + feature + "; gradient " + grad.value());
                 }
             }
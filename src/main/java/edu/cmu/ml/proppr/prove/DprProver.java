@@ -50,9 +50,7 @@ import edu.cmu.ml.proppr.util.StatusLogger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * prover using depth-first approximate personalized pagerank
@@ -70,6 +68,8 @@ public class DprProver extends Prover<StateProofGraph> {
     // for debug
     protected Backtrace<State> backtrace = new Backtrace<State>(log);
     protected ProofGraph current;
+    protected ProofBudget budget;
+    protected double residual;
     private int maxTreeDepth = -1;
 
     public DprProver() {
@@ -118,6 +118,7 @@ public class DprProver extends Prover<StateProofGraph> {
         State state0 = pg.getStartState();
         r.put(state0, 1.0);
         backtrace.start();
+        this.budget = new ProofBudget(apr);
         int numPushes = 0;
         int numIterations = 0;
         double iterEpsilon = 1.0;
@@ -131,16 +132,49 @@ public class DprProver extends Prover<StateProofGraph> {
                                  "r-states: " + r.size() + " p-states: " + p.size());
             }
             if (iterEpsilon == apr.epsilon && pushCounter == 0) { break; }
+            if (isStopped(pg, status)) { break; }
             numPushes += pushCounter;
         }
         //if(log.isInfoEnabled()) log.info(Thread.currentThread()+" total iterations "+numIterations+" total pushes
         // "+numPushes);
 
+        this.residual = 0.0;
+        for (Double d : r.values()) { this.residual += d; }
+        if (budget.isExhausted()) {
+            log.warn(String.format("Proof budget exhausted with %d nodes and %d edges, residual mass %.6g for " +
+                                           "query %s", pg.getGraph().nodeSize(), pg.getGraph().edgeSize(), residual,
+                                   pg.getExample().getQuery()));
+        }
         //clear state
         this.current = null;
         return p;
     }
 
+    /**
+     * The mass left in the residual vector by the last proof, not yet pushed to the answers. It is bigger than the
+     * precision of the approximation if the proof was cancelled or ran out of its {@link ProofBudget}.
+     *
+     * @return the residual mass of the last proof
+     */
+    @Override
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * Checks whether the last proof ran out of its {@link ProofBudget}, in which case its answers are partial.
+     *
+     * @return {@code true} if the budget of the last proof was exhausted
+     */
+    @Override
+    public boolean isBudgetExhausted() {
+        return budget != null && budget.isExhausted();
+    }
+
+    protected boolean isStopped(StateProofGraph pg, StatusLogger status) {
+        return status.isCancelled() || budget.isExhausted(pg.getGraph().nodeSize(), pg.getGraph().edgeSize());
+    }
+
     @Override
     public Class<StateProofGraph> getProofGraphClass() {
         return StateProofGraph.class;
@@ -166,91 +200,112 @@ public class DprProver extends Prover<StateProofGraph> {
         return proveState(pg, p, r, u, pushCounter, 1, iterEpsilon, status);
     }
 
+    /**
+     * Pushes the mass from u and, depth-first, from every state it reaches, with an explicit stack instead of
+     * recursion, so deep proofs do not overflow the thread stack. The states are visited in the same order of the
+     * recursive push. It stops, leaving the mass in r, when the proof is cancelled or runs out of its budget.
+     */
     protected int proveState(StateProofGraph pg, Map<State, Double> p, Map<State, Double> r,
                              State u, int pushCounter, int depth, double iterEpsilon,
                              StatusLogger status) {
+        if (isStopped(pg, status)) { return pushCounter; }
+        Deque<PushFrame> stack = new ArrayDeque<PushFrame>();
+        PushFrame frame = pushState(pg, p, r, u, depth, iterEpsilon, status);
+        if (frame != null) {
+            pushCounter += 1;
+            stack.push(frame);
+        }
+        while (!stack.isEmpty()) {
+            frame = stack.peek();
+            State v = frame.nextChild(pg.getStartState());
+            if (v == null) {
+                backtrace.pop(stack.pop().state);
+                continue;
+            }
+            if (isStopped(pg, status)) { break; }
+            PushFrame child = pushState(pg, p, r, v, frame.depth + 1, iterEpsilon, status);
+            if (child != null) {
+                pushCounter += 1;
+                stack.push(child);
+            }
+        }
+        while (!stack.isEmpty()) { backtrace.pop(stack.pop().state); }
+        return pushCounter;
+    }
+
+    /**
+     * Pushes the mass of u to its neighbours, as far as it goes above iterEpsilon.
+     *
+     * @return the frame to visit the neighbours of u, or null if u was not pushed
+     */
+    protected PushFrame pushState(StateProofGraph pg, Map<State, Double> p, Map<State, Double> r,
+                                  State u, int depth, double iterEpsilon, StatusLogger status) {
         if (this.maxTreeDepth > 0 && depth > this.maxTreeDepth) {
             if (log.isDebugEnabled()) {
                 log.debug(String.format("Rejecting eps %f @depth %d > %d ru %.6f deg %d state %s", iterEpsilon,
                                         depth, this.maxTreeDepth, r.get(u), -1, u));
             }
-            return pushCounter;
+            return null;
         }
         try {
             int deg = pg.pgDegree(u);
             if (r.get(u) / deg > iterEpsilon) {
                 backtrace.push(u);
-                pushCounter += 1;
-                try {
-
-                    List<Outlink> outs = pg.pgOutlinks(u, TRUELOOP_ON);
-                    double z = 0.0;
-                    for (Outlink o : outs) {
-                        o.wt = this.weighter.w(o.fd);
-                        if (Double.isInfinite(o.wt) || Double.isNaN(o.wt)) {
-                            log.warn("Illegal weight (" + Double.toString(o.wt) + ") at outlink " + o.child + ";"
-                                             + Dictionary.buildString(o.fd, new StringBuilder(), "\n\t"));
-                        }
-                        z += o.wt;
+                List<Outlink> outs = pg.pgOutlinks(u, TRUELOOP_ON);
+                double z = 0.0;
+                for (Outlink o : outs) {
+                    o.wt = this.weighter.w(o.fd);
+                    if (Double.isInfinite(o.wt) || Double.isNaN(o.wt)) {
+                        log.warn("Illegal weight (" + Double.toString(o.wt) + ") at outlink " + o.child + ";"
+                                         + Dictionary.buildString(o.fd, new StringBuilder(), "\n\t"));
                     }
-                    if (z == 0) {
-                        //then we're in trouble
-                        log.warn("Illegal graph: weight on this node has nowhere to go");
-                        for (Outlink o : outs) {
-                            log.warn("Outlink: " + Dictionary.buildString(o.fd, new StringBuilder(), "; "));
-                        }
+                    z += o.wt;
+                }
+                if (z == 0) {
+                    //then we're in trouble
+                    log.warn("Illegal graph: weight on this node has nowhere to go");
+                    for (Outlink o : outs) {
+                        log.warn("Outlink: " + Dictionary.buildString(o.fd, new StringBuilder(), "; "));
                     }
+                }
 
-                    // push this state as far as you can
-                    while (r.get(u) / deg > iterEpsilon) {
-                        double ru = r.get(u);
-                        if (log.isDebugEnabled()) {
-                            log.debug(String.format("Pushing eps %f @depth %d ru %.6f deg %d z %.6f state %s",
-                                                    iterEpsilon, depth, ru, deg, z, u));
-                        } else if (log.isInfoEnabled() && status.due(2)) {
-                            log.info(String.format("Pushing eps %f @depth %d ru %.6f deg %d z %.6f state %s",
-                                                   iterEpsilon, depth, ru, deg, z, u));
-                        }
-
-                        // p[u] += alpha * ru
-                        addToP(p, u, ru);
-                        // r[u] *= (1-alpha) * stay?
-                        r.put(u, (1.0 - apr.alpha) * stayProbability * ru);
-
-                        // for each v near u:
-                        for (Outlink o : outs) {
-                            // skip 0-weighted links
-                            if (o.wt == 0) { continue; }
-                            // r[v] += (1-alpha) * move? * Muv * ru
-                            Dictionary.increment(r, o.child, (1.0 - apr.alpha) * moveProbability * (o.wt / z) * ru, "" +
-                                    "(elided)");
-                        }
-
-                        if (log.isDebugEnabled()) {
-                            // sanity-check r:
-                            double sumr = 0;
-                            for (Double d : r.values()) { sumr += d; }
-                            double sump = 0;
-                            for (Double d : p.values()) { sump += d; }
-                            if (Math.abs(sump + sumr - 1.0) > apr.epsilon) {
-                                log.debug("Should be 1.0 but isn't: after push sum p + r = " + sump + " + " + sumr + " = " + (sump + sumr));
-                            }
-                        }
+                // push this state as far as you can
+                while (r.get(u) / deg > iterEpsilon) {
+                    double ru = r.get(u);
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("Pushing eps %f @depth %d ru %.6f deg %d z %.6f state %s",
+                                                iterEpsilon, depth, ru, deg, z, u));
+                    } else if (log.isInfoEnabled() && status.due(2)) {
+                        log.info(String.format("Pushing eps %f @depth %d ru %.6f deg %d z %.6f state %s",
+                                               iterEpsilon, depth, ru, deg, z, u));
                     }
 
+                    // p[u] += alpha * ru
+                    addToP(p, u, ru);
+                    // r[u] *= (1-alpha) * stay?
+                    r.put(u, (1.0 - apr.alpha) * stayProbability * ru);
+
                     // for each v near u:
                     for (Outlink o : outs) {
-                        // proveState(v):
-                        // current pushcounter is passed down, gets incremented and returned, and
-                        // on the next for loop iter is passed down again...
-                        if (o.child.equals(pg.getStartState())) { continue; }
+                        // skip 0-weighted links
                         if (o.wt == 0) { continue; }
-                        pushCounter = this.proveState(pg, p, r, o.child, pushCounter, depth + 1, iterEpsilon, status);
+                        // r[v] += (1-alpha) * move? * Muv * ru
+                        Dictionary.increment(r, o.child, (1.0 - apr.alpha) * moveProbability * (o.wt / z) * ru, "" +
+                                "(elided)");
+                    }
+
+                    if (log.isDebugEnabled()) {
+                        // sanity-check r:
+                        double sumr = 0;
+                        for (Double d : r.values()) { sumr += d; }
+                        double sump = 0;
+                        for (Double d : p.values()) { sump += d; }
+                        if (Math.abs(sump + sumr - 1.0) > apr.epsilon) {
+                            log.debug("Should be 1.0 but isn't: after push sum p + r = " + sump + " + " + sumr + " = " + (sump + sumr));
+                        }
                     }
-                } catch (LogicProgramException e) {
-                    backtrace.rethrow(e);
                 }
-                backtrace.pop(u);
+                return new PushFrame(u, depth, outs);
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug(String.format("Rejecting eps %f @depth %d ru %.6f deg %d state %s", iterEpsilon, depth,
@@ -260,7 +315,7 @@ public class DprProver extends Prover<StateProofGraph> {
         } catch (LogicProgramException e) {
             this.backtrace.rethrow(e);
         }
-        return pushCounter;
+        return null;
     }
 
     /**
@@ -273,4 +328,36 @@ public class DprProver extends Prover<StateProofGraph> {
     public double getAlpha() {
         return apr.alpha;
     }
+
+    /**
+     * A state whose mass has been pushed, with the position of the next neighbour to visit.
+     */
+    protected static class PushFrame {
+
+        protected final State state;
+        protected final int depth;
+        protected final List<Outlink> outs;
+        protected int next;
+
+        protected PushFrame(State state, int depth, List<Outlink> outs) {
+            this.state = state;
+            this.depth = depth;
+            this.outs = outs;
+        }
+
+        /**
+         * Gets the next neighbour to visit, skipping the start state and the 0-weighted links.
+         *
+         * @return the next neighbour, or null if there is none
+         */
+        protected State nextChild(State start) {
+            while (next < outs.size()) {
+                Outlink o = outs.get(next++);
+                if (o.child.equals(start)) { continue; }
+                if (o.wt == 0) { continue; }
+                return o.child;
+            }
+            return null;
+        }
+    }
 }
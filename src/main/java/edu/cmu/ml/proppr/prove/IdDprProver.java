@@ -52,6 +52,8 @@ import edu.cmu.ml.proppr.util.math.LongDense;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 
 /**
@@ -70,6 +72,8 @@ public class IdDprProver extends Prover<CachingIdProofGraph> {
     public int completedStates = 0;
     protected LongDense.AbstractFloatVector params = null;
     protected IdDprProver parent = null;
+    protected ProofBudget budget;
+    protected double residual;
     private int maxTreeDepth;
 
     public IdDprProver() {
@@ -154,6 +158,7 @@ public class IdDprProver extends Prover<CachingIdProofGraph> {
         int numIterations = 0;
         double iterEpsilon = 1.0;
         this.completedStates = 0;
+        this.budget = new ProofBudget(apr);
         for (int pushCounter = 0; ; ) {
             iterEpsilon = Math.max(iterEpsilon / 10, apr.epsilon);
             pushCounter = this.proveState(pg, p, r, state0, 0, iterEpsilon, params, status);
@@ -163,6 +168,7 @@ public class IdDprProver extends Prover<CachingIdProofGraph> {
                                  "r-states: " + r.size() + " p-states: " + p.size());
             }
             if (iterEpsilon == apr.epsilon && pushCounter == 0) { break; }
+            if (isStopped(pg, status)) { break; }
             if (apr.stopEarly >= 0 && this.completedStates > apr.stopEarly) {
                 log.info("Stopping early...");
                 break;
@@ -171,6 +177,39 @@ public class IdDprProver extends Prover<CachingIdProofGraph> {
         }
         //if(log.isInfoEnabled()) log.info(Thread.currentThread()+" total iterations "+numIterations+" total pushes
         // "+numPushes);
+
+        this.residual = 0.0;
+        for (int i = 0; i < r.size(); i++) { this.residual += r.get(i); }
+        if (budget.isExhausted()) {
+            log.warn(String.format("Proof budget exhausted with %d nodes and %d edges, residual mass %.6g for " +
+                                           "query %s", pg.nodeSize(), pg.edgeSize(), residual,
+                                   pg.getExample().getQuery()));
+        }
+    }
+
+    /**
+     * The mass left in the residual vector by the last proof, not yet pushed to the answers. It is bigger than the
+     * precision of the approximation if the proof was cancelled or ran out of its {@link ProofBudget}.
+     *
+     * @return the residual mass of the last proof
+     */
+    @Override
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * Checks whether the last proof ran out of its {@link ProofBudget}, in which case its answers are partial.
+     *
+     * @return {@code true} if the budget of the last proof was exhausted
+     */
+    @Override
+    public boolean isBudgetExhausted() {
+        return budget != null && budget.isExhausted();
+    }
+
+    protected boolean isStopped(CachingIdProofGraph cg, StatusLogger status) {
+        return status.isCancelled() || budget.isExhausted(cg.nodeSize(), cg.edgeSize());
     }
 
     protected int proveState(CachingIdProofGraph cg, LongDense.FloatVector p, LongDense.FloatVector r,
@@ -179,94 +218,144 @@ public class IdDprProver extends Prover<CachingIdProofGraph> {
         return proveState(cg, p, r, uid, pushCounter, 1, iterEpsilon, params, status);
     }
 
+    /**
+     * Pushes the mass from uid and, depth-first, from every state it reaches, with an explicit stack instead of
+     * recursion, so deep proofs do not overflow the thread stack. The states are visited in the same order of the
+     * recursive push. It stops, leaving the mass in r, when the proof is cancelled or runs out of its budget.
+     */
     protected int proveState(CachingIdProofGraph cg, LongDense.FloatVector p, LongDense.FloatVector r,
                              int uid, int pushCounter, int depth, double iterEpsilon,
                              LongDense.AbstractFloatVector params,
                              StatusLogger status) {
+        if (isStopped(cg, status)) { return pushCounter; }
+        try {
+            Deque<PushFrame> stack = new ArrayDeque<PushFrame>();
+            PushFrame frame = pushState(cg, p, r, uid, depth, iterEpsilon, params, status);
+            if (frame != null) {
+                pushCounter += 1;
+                stack.push(frame);
+            }
+            while (!stack.isEmpty()) {
+                frame = stack.peek();
+                int vid = frame.nextChild(cg, params, this.weighter);
+                if (vid < 0) {
+                    stack.pop();
+                    continue;
+                }
+                if (isStopped(cg, status)) { break; }
+                PushFrame child = pushState(cg, p, r, vid, frame.depth + 1, iterEpsilon, params, status);
+                if (child != null) {
+                    pushCounter += 1;
+                    stack.push(child);
+                }
+            }
+        } catch (LogicProgramException e) {
+            throw new IllegalStateException(e);
+        }
+        return pushCounter;
+    }
+
+    /**
+     * Pushes the mass of uid to its neighbours, as far as it goes above iterEpsilon.
+     *
+     * @return the frame to visit the neighbours of uid, or null if uid was not pushed
+     */
+    protected PushFrame pushState(CachingIdProofGraph cg, LongDense.FloatVector p, LongDense.FloatVector r,
+                                  int uid, int depth, double iterEpsilon, LongDense.AbstractFloatVector params,
+                                  StatusLogger status) throws LogicProgramException {
         if (this.maxTreeDepth > 0 && depth > this.maxTreeDepth) {
             if (log.isDebugEnabled()) {
                 log.debug(String.format("Rejecting eps %f @depth %d > %d ru %.6f deg %d state %s", iterEpsilon,
                                         depth, this.maxTreeDepth, r.get(uid), -1, uid));
             }
-            return pushCounter;
+            return null;
         }
-        try {
-            int deg = cg.getDegreeById(uid, this.weighter);
-            if (r.get(uid) / deg > iterEpsilon) {
-                pushCounter += 1;
-                try {
-                    double z = cg.getTotalWeightOfOutlinks(uid, params, this.weighter);
-                    // push this state as far as you can
-                    while (r.get(uid) / deg > iterEpsilon) {
-                        double ru = r.get(uid);
-                        if (log.isDebugEnabled()) {
-                            log.debug(String.format("Pushing eps %f @depth %d ru %.6f deg %d state %s", iterEpsilon,
-                                                    depth, ru, deg, uid));
-                        } else if (log.isInfoEnabled() && status.due(2)) {
-                            log.info(String.format("Pushing eps %f @depth %d ru %.6f deg %d state %s", iterEpsilon,
-                                                   depth, ru, deg, uid));
-                        }
-
-                        // p[u] += alpha * ru
-                        //addToP(p,u,ru);
-                        p.inc(uid, apr.alpha * ru);
-                        // r[u] *= (1-alpha) * stay?
-                        //r.put(u, (1.0-apr.alpha) * stayProbability * ru);
-                        r.set(uid, (1.0 - apr.alpha) * stayProbability * ru);
-                        // for each v near u
-                        for (int i = 0; i < deg; i++) {
-                            // r[v] += (1-alpha) * move? * Muv * ru
-                            //Dictionary.increment(r, o.child, (1.0-apr.alpha) * moveProbability * (o.wt / z) * ru,"
-                            // (elided)");
-                            double wuv = cg.getIthWeightById(uid, i, params, this.weighter);
-                            if (wuv == 0) { continue; }
-                            int vid = cg.getIthNeighborById(uid, i, this.weighter);
-                            if (cg.isCompleted(vid)) { this.completedStates++; }
-                            r.inc(vid, (1.0 - apr.alpha) * moveProbability * (wuv / z) * ru);
-                            if (Double.isNaN(r.get(vid))) {
-                                log.debug("NaN in r at v=" + vid + " wuv=" + wuv + " z=" + z + " ru=" + ru);
-                            }
-                        }
-                        if (log.isDebugEnabled()) {
-                            // sanity-check r:
-                            double sumr = 0;
-                            for (int i = 0; i < r.size(); i++) { sumr += r.get(i); }
-                            double sump = 0;
-                            for (int i = 0; i < p.size(); i++) { sump += p.get(i); }
-                            if (Math.abs(sump + sumr - 1.0) > apr.epsilon) {
-                                log.debug("Should be 1.0 but isn't: after push sum p + r = " + sump + " + " + sumr + " = " + (sump + sumr));
-                            }
-                        }
-                    }
-
-                    // for each v near u:
-                    for (int i = 0; i < deg; i++) {
-                        // proveState(v):
-                        // current pushcounter is passed down, gets incremented and returned, and
-                        // on the next for loop iter is passed down again...
-                        int vid = cg.getIthNeighborById(uid, i, this.weighter);
-                        if (vid == cg.getRootId()) { continue; }
-                        if (0 == cg.getIthWeightById(uid, i, params, this.weighter)) { continue; }
-                        //pushCounter = this.proveState(pg,p,r,o.child,pushCounter,depth+1,iterEpsilon);
-                        pushCounter = proveState(cg, p, r, vid, pushCounter, depth + 1, iterEpsilon, params, status);
+        int deg = cg.getDegreeById(uid, this.weighter);
+        if (r.get(uid) / deg > iterEpsilon) {
+            double z = cg.getTotalWeightOfOutlinks(uid, params, this.weighter);
+            // push this state as far as you can
+            while (r.get(uid) / deg > iterEpsilon) {
+                double ru = r.get(uid);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Pushing eps %f @depth %d ru %.6f deg %d state %s", iterEpsilon,
+                                            depth, ru, deg, uid));
+                } else if (log.isInfoEnabled() && status.due(2)) {
+                    log.info(String.format("Pushing eps %f @depth %d ru %.6f deg %d state %s", iterEpsilon,
+                                           depth, ru, deg, uid));
+                }
 
+                // p[u] += alpha * ru
+                p.inc(uid, apr.alpha * ru);
+                // r[u] *= (1-alpha) * stay?
+                r.set(uid, (1.0 - apr.alpha) * stayProbability * ru);
+                // for each v near u
+                for (int i = 0; i < deg; i++) {
+                    // r[v] += (1-alpha) * move? * Muv * ru
+                    double wuv = cg.getIthWeightById(uid, i, params, this.weighter);
+                    if (wuv == 0) { continue; }
+                    int vid = cg.getIthNeighborById(uid, i, this.weighter);
+                    if (cg.isCompleted(vid)) { this.completedStates++; }
+                    r.inc(vid, (1.0 - apr.alpha) * moveProbability * (wuv / z) * ru);
+                    if (Double.isNaN(r.get(vid))) {
+                        log.debug("NaN in r at v=" + vid + " wuv=" + wuv + " z=" + z + " ru=" + ru);
                     }
-                } catch (LogicProgramException e) {
-                    throw new IllegalStateException(e);
                 }
-            } else {
                 if (log.isDebugEnabled()) {
-                    log.debug(String.format("Rejecting eps %f @depth %d ru %.6f deg %d state %s", iterEpsilon, depth,
-                                            r.get(uid), deg, uid));
+                    // sanity-check r:
+                    double sumr = 0;
+                    for (int i = 0; i < r.size(); i++) { sumr += r.get(i); }
+                    double sump = 0;
+                    for (int i = 0; i < p.size(); i++) { sump += p.get(i); }
+                    if (Math.abs(sump + sumr - 1.0) > apr.epsilon) {
+                        log.debug("Should be 1.0 but isn't: after push sum p + r = " + sump + " + " + sumr + " = " + (sump + sumr));
+                    }
                 }
             }
-        } catch (LogicProgramException e) {
-            throw new IllegalStateException(e);
+            return new PushFrame(uid, depth, deg);
+        } else {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Rejecting eps %f @depth %d ru %.6f deg %d state %s", iterEpsilon, depth,
+                                        r.get(uid), deg, uid));
+            }
         }
-        return pushCounter;
+        return null;
     }
 
     public double getAlpha() {
         return apr.alpha;
     }
+
+    /**
+     * A state whose mass has been pushed, with the position of the next neighbour to visit.
+     */
+    protected static class PushFrame {
+
+        protected final int uid;
+        protected final int depth;
+        protected final int deg;
+        protected int next;
+
+        protected PushFrame(int uid, int depth, int deg) {
+            this.uid = uid;
+            this.depth = depth;
+            this.deg = deg;
+        }
+
+        /**
+         * Gets the next neighbour to visit, skipping the root and the 0-weighted links.
+         *
+         * @return the id of the next neighbour, or -1 if there is none
+         */
+        protected int nextChild(CachingIdProofGraph cg, LongDense.AbstractFloatVector params,
+                                FeatureDictWeighter weighter) throws LogicProgramException {
+            while (next < deg) {
+                int i = next++;
+                int vid = cg.getIthNeighborById(uid, i, weighter);
+                if (vid == cg.getRootId()) { continue; }
+                if (0 == cg.getIthWeightById(uid, i, params, weighter)) { continue; }
+                return vid;
+            }
+            return -1;
+        }
+    }
 }
@@ -129,7 +129,7 @@ public class IdPprProver extends Prover<CachingIdProofGraph> {
         LongDense.FloatVector nextVec = new LongDense.FloatVector();
         LongDense.FloatVector tmp;
 
-        for (int i = 0; i < this.apr.maxDepth; i++) {
+        for (int i = 0; i < this.apr.maxDepth && !status.isCancelled(); i++) {
             // vec = walkOnce(cg,vec,params,f);
             walkOnceBuffered(pg, vec, nextVec, params);
             // save vec as the next buffer, then point vec at the new result
@@ -112,7 +112,7 @@ public class PprProver extends Prover<StateProofGraph> {
         startVec.put(pg.getStartState(), SEED_WEIGHT);
         Map<State, Double> vec = startVec;
 
-        for (int i = 0; i < this.apr.maxDepth; i++) {
+        for (int i = 0; i < this.apr.maxDepth && !status.isCancelled(); i++) {
             vec = walkOnce(pg, vec);
             if (log.isInfoEnabled() && status.due(1)) { log.info("iteration/descent " + (i - 1) + " complete"); }
             if (log.isDebugEnabled()) {
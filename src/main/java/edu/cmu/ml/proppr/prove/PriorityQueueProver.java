@@ -48,15 +48,24 @@ import edu.cmu.ml.proppr.prove.wam.LogicProgramException;
 import edu.cmu.ml.proppr.prove.wam.State;
 import edu.cmu.ml.proppr.util.APROptions;
 import edu.cmu.ml.proppr.util.StatusLogger;
+import edu.cmu.ml.proppr.util.math.IndexedMaxHeap;
 import edu.cmu.ml.proppr.util.math.LongDense;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.PriorityQueue;
 
 /**
  * prover using depth-first approximate personalized pagerank
+ * <p>
+ * The frontier is an {@link IndexedMaxHeap} over the state ids, keyed by the highest score queued for each state, so
+ * a state is queued or raised in O(log n), instead of searching the queue for it. A state might be queued more than
+ * once, as in the former queue of entries, whose removal never matched an entry: the lower scores of a state are
+ * kept aside and the state is queued again with the next one when it is polled. Thus, the states are polled in the
+ * same order, and the proofs are the same, as with the former queue.
  *
  * @author wcohen, krivard
  */
@@ -112,11 +121,12 @@ public class PriorityQueueProver extends Prover<CachingIdProofGraph> {
         int state0 = cg.getRootId();
         r.set(state0, 1.0);
 
-        PriorityQueue<QueueEntry> q = new PriorityQueue<QueueEntry>();
+        IndexedMaxHeap q = new IndexedMaxHeap(cg.nodeSize() + 1);
+        Map<Integer, PriorityQueue<Double>> queuedScores = new HashMap<Integer, PriorityQueue<Double>>();
         int deg;
         try {
             deg = cg.getDegreeById(state0, null);
-            q.add(new QueueEntry(state0, 1.0 / deg));
+            q.put(state0, 1.0 / deg);
         } catch (LogicProgramException ex) {
             throw new IllegalStateException(ex);
         }
@@ -124,22 +134,24 @@ public class PriorityQueueProver extends Prover<CachingIdProofGraph> {
         LongDense.UnitVector params = new LongDense.UnitVector();
 
         int maxIterations = (int) (1.0 / apr.epsilon + 0.5);
-        for (int n = 0; n < maxIterations && !q.isEmpty(); n++) {
-            QueueEntry head = q.element();
-            q.remove(head);
+        for (int n = 0; n < maxIterations && !q.isEmpty() && !status.isCancelled(); n++) {
+            double score = q.peekScore();
+            int uid = q.poll();
+            PriorityQueue<Double> lowerScores = queuedScores.get(uid);
+            if (lowerScores != null) {
+                q.put(uid, lowerScores.poll());
+                if (lowerScores.isEmpty()) { queuedScores.remove(uid); }
+            }
             int[] children;
-            if (head.score > apr.epsilon) {
+            if (score > apr.epsilon) {
                 try {
-                    int uid = head.id;
                     deg = cg.getDegreeById(uid, null);
                     double z = cg.getTotalWeightOfOutlinks(uid, params, this.weighter);
                     // record states with scores to update
                     children = new int[deg + 1];
                     children[0] = uid;
                     for (int i = 0; i < deg; i++) {
-                        int vid = cg.getIthNeighborById(uid, i, this.weighter);
-                        q.remove(new QueueEntry(vid, r.get(vid)));
-                        children[i + 1] = vid;
+                        children[i + 1] = cg.getIthNeighborById(uid, i, this.weighter);
                     }
                     // push this state as far as you can
                     while (r.get(uid) / deg > apr.epsilon) {
@@ -160,8 +172,7 @@ public class PriorityQueueProver extends Prover<CachingIdProofGraph> {
                     for (int i = 0; i < children.length; i++) {
                         int vi = children[i];
                         int degvi = cg.getDegreeById(vi, null);
-                        double scorevi = r.get(vi) / degvi;
-                        q.add(new QueueEntry(vi, scorevi));
+                        enqueue(q, queuedScores, vi, r.get(vi) / degvi);
                     }
                 } catch (LogicProgramException e) {
                     throw new IllegalStateException(e);
@@ -175,6 +186,35 @@ public class PriorityQueueProver extends Prover<CachingIdProofGraph> {
         return cg.asMap(p);
     }
 
+    /**
+     * Queues the state with the score. If the state is already queued, the highest score is kept in the heap and
+     * the other one is kept aside, to be queued when the state is polled.
+     *
+     * @param q            the heap of the states, by their highest queued score
+     * @param queuedScores the lower scores queued for the states
+     * @param id           the id of the state
+     * @param score        the score
+     */
+    protected static void enqueue(IndexedMaxHeap q, Map<Integer, PriorityQueue<Double>> queuedScores, int id,
+                                  double score) {
+        if (!q.contains(id)) {
+            q.put(id, score);
+            return;
+        }
+        PriorityQueue<Double> lowerScores = queuedScores.get(id);
+        if (lowerScores == null) {
+            lowerScores = new PriorityQueue<Double>(Collections.<Double>reverseOrder());
+            queuedScores.put(id, lowerScores);
+        }
+        double highest = q.getScore(id);
+        if (score > highest) {
+            lowerScores.add(highest);
+            q.put(id, score);
+        } else {
+            lowerScores.add(score);
+        }
+    }
+
     // wwc: might look at using a PriorityQueue together with r to find
     // just the top things.
 
@@ -188,28 +228,4 @@ public class PriorityQueueProver extends Prover<CachingIdProofGraph> {
     public double getAlpha() {
         return apr.alpha;
     }
-
-    private static class QueueEntry implements Comparable<QueueEntry> {
-
-        public int id;
-        public double score;
-
-        public QueueEntry(int id, double score) {
-            this.id = id;
-            this.score = score;
-        }
-
-        public boolean equals(QueueEntry other) {
-            return compareTo(other) == 0;
-        }
-
-        // highest-scoring things come first
-        @Override
-        public int compareTo(QueueEntry other) {
-            double scoreCmp = this.score - other.score;
-            if (scoreCmp < 0.0) { return +1; } else if (scoreCmp > 0.0) { return -1; } else {
-                return (this.id - other.id);
-            }
-        }
-    }
 }
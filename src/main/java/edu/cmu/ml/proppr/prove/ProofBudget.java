@@ -0,0 +1,94 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.cmu.ml.proppr.prove;
+
+import edu.cmu.ml.proppr.util.APROptions;
+
+/**
+ * The budget of a single query, in wall-clock time, nodes and edges of the proof graph, taken from the
+ * {@link APROptions}. Once a limit is reached, the budget stays exhausted and the prover stops pushing, leaving the
+ * remaining mass in the residual vector, so the answers found so far are a partial, lower bound solution.
+ */
+public class ProofBudget {
+
+    private final long deadline;
+    private final int maxNodes;
+    private final int maxEdges;
+    private boolean exhausted;
+
+    /**
+     * Starts the budget of a query, from now.
+     *
+     * @param apr the options holding the limits; a negative limit means no limit
+     */
+    public ProofBudget(APROptions apr) {
+        this.deadline = apr.timeBudget < 0 ? Long.MAX_VALUE : System.nanoTime() + apr.timeBudget * 1000000L;
+        this.maxNodes = apr.nodeBudget < 0 ? Integer.MAX_VALUE : apr.nodeBudget;
+        this.maxEdges = apr.edgeBudget < 0 ? Integer.MAX_VALUE : apr.edgeBudget;
+    }
+
+    /**
+     * Checks whether any limit has been reached, given the current size of the proof graph.
+     *
+     * @param nodes the number of nodes of the proof graph
+     * @param edges the number of edges of the proof graph
+     * @return {@code true} if the prover must stop
+     */
+    public boolean isExhausted(int nodes, int edges) {
+        if (!exhausted && (nodes > maxNodes || edges > maxEdges ||
+                (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0))) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+
+    /**
+     * Checks whether any limit has been reached at the last check.
+     *
+     * @return {@code true} if the budget is exhausted
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
@@ -166,6 +166,26 @@ public abstract class Prover<P extends ProofGraph> {
 
     public abstract Class<P> getProofGraphClass();
 
+    /**
+     * The mass not yet pushed to the answers by the last proof of this prover. Provers that do not approximate the
+     * answers have no residual.
+     *
+     * @return the residual mass of the last proof
+     */
+    public double getResidual() {
+        return 0.0;
+    }
+
+    /**
+     * Checks whether the last proof of this prover ran out of its {@link ProofBudget}, in which case its answers are
+     * partial.
+     *
+     * @return {@code true} if the budget of the last proof was exhausted
+     */
+    public boolean isBudgetExhausted() {
+        return false;
+    }
+
     /**
      * Use for arbitrary command line prover configuration in subclasses
      **/
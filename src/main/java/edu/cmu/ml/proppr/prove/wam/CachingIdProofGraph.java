@@ -45,7 +45,9 @@ package edu.cmu.ml.proppr.prove.wam;
 
 import edu.cmu.ml.proppr.examples.InferenceExample;
 import edu.cmu.ml.proppr.graph.InferenceGraph;
+import edu.cmu.ml.proppr.graph.LearningGraph;
 import edu.cmu.ml.proppr.graph.LearningGraphBuilder;
+import edu.cmu.ml.proppr.graph.RWOutlink;
 import edu.cmu.ml.proppr.learn.tools.FixedWeightRules;
 import edu.cmu.ml.proppr.prove.FeatureDictWeighter;
 import edu.cmu.ml.proppr.prove.wam.plugins.WamPlugin;
@@ -200,6 +202,25 @@ public class CachingIdProofGraph extends ProofGraph implements InferenceGraph {
 
     }
 
+    @Override
+    public LearningGraph toLearningGraph(LearningGraphBuilder builder, SymbolTable<String> features) {
+        LearningGraph g = builder.create(features);
+        builder.index(1);
+        builder.setGraphSize(g, this.nodeSize(), this.edgeCount, -1);
+        for (int u = getRootId(); u <= this.nodeSize(); u++) {
+            SimpleSparse.FloatMatrix nearu = this.nodeVec.get(u);
+            if (nearu == null) { continue; }
+            for (int vi = 0; vi < nearu.index.length; vi++) {
+                SimpleSparse.FloatVector uvf = nearu.val[vi];
+                double[] wt = new double[uvf.val.length];
+                for (int fi = 0; fi < wt.length; fi++) { wt[fi] = uvf.val[fi]; }
+                builder.addOutlink(g, u, new RWOutlink(uvf.index, wt, nearu.index[vi]));
+            }
+        }
+        builder.freeze(g);
+        return g;
+    }
+
     @Override
     public void setOutlinks(int uid, List<Outlink> outlinks) {
         setOutlinks(uid, outlinks, null);
@@ -43,6 +43,7 @@
 
 package edu.cmu.ml.proppr.prove.wam;
 
+import edu.cmu.ml.proppr.examples.CookedExample;
 import edu.cmu.ml.proppr.examples.GroundedExample;
 import edu.cmu.ml.proppr.examples.InferenceExample;
 import edu.cmu.ml.proppr.graph.InferenceGraph;
@@ -52,6 +53,8 @@ import edu.cmu.ml.proppr.prove.wam.plugins.builtin.PluginFunction;
 import edu.cmu.ml.proppr.util.APROptions;
 import edu.cmu.ml.proppr.util.SimpleSymbolTable;
 import edu.cmu.ml.proppr.util.SymbolTable;
+import gnu.trove.map.TIntDoubleMap;
+import gnu.trove.map.hash.TIntDoubleHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -283,6 +286,26 @@ public abstract class ProofGraph {
         }
     }
 
+    /**
+     * In memory alternative to {@link #serialize(GroundedExample)}: keeps the grounded example as objects, so it
+     * can be given to the trainer without being written and parsed back.
+     *
+     * @param x the grounded example
+     * @return the cooked example
+     */
+    public CookedExample cook(GroundedExample x) {
+        TIntDoubleMap queryVec = new TIntDoubleHashMap();
+        for (State q : x.getQueryVec().keySet()) { queryVec.put(this.getId(q), 1.0); }
+        return new CookedExample(this.example.getQuery().toString(), x.getGraph(), queryVec,
+                                 getIds(x.getPosList()), getIds(x.getNegList()));
+    }
+
+    private int[] getIds(List<State> states) {
+        int[] ids = new int[states.size()];
+        for (int i = 0; i < ids.length; i++) { ids[i] = this.getId(states.get(i)); }
+        return ids;
+    }
+
     public abstract int getId(State s);
 
     public WamInterpreter getInterpreter() {
@@ -0,0 +1,149 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.cmu.ml.proppr.prove.wam;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A copy-on-write view of a compiled {@link WamProgram}: instructions and labels are read from the base program,
+ * which is never modified, while everything appended goes to a private overlay. Addresses are absolute, so rules
+ * compiled into the overlay may jump to clauses of the base program and vice versa.
+ * <p>
+ * Since the base program is only read, many overlays can share the same base and be used concurrently, as long as
+ * no one appends to the base itself.
+ */
+public class WamOverlayProgram extends WamProgram {
+
+    private final WamProgram baseProgram;
+    private final int offset;
+    private final List<Instruction> instructions;
+    private final Map<String, List<Integer>> labels;
+    private int saveLength;
+
+    public WamOverlayProgram(WamProgram base) {
+        this.baseProgram = base;
+        this.offset = base.size();
+        this.instructions = new ArrayList<Instruction>();
+        this.labels = new HashMap<String, List<Integer>>();
+    }
+
+    public WamProgram getBaseProgram() {
+        return baseProgram;
+    }
+
+    @Override
+    public void append(Instruction inst) {
+        instructions.add(inst);
+    }
+
+    @Override
+    public void setInstruction(int placeToPatch, Instruction instruction) {
+        if (placeToPatch < offset) {
+            throw new IllegalArgumentException("Cannot patch address " + placeToPatch + " of the base program");
+        }
+        instructions.set(placeToPatch - offset, instruction);
+    }
+
+    @Override
+    public int size() {
+        return offset + instructions.size();
+    }
+
+    @Override
+    public Instruction getInstruction(int addr) {
+        if (addr < offset) { return baseProgram.getInstruction(addr); }
+        return instructions.get(addr - offset);
+    }
+
+    @Override
+    public void insertLabel(String label) {
+        List<Integer> addresses = labels.get(label);
+        if (addresses == null) {
+            addresses = new ArrayList<Integer>();
+            labels.put(label, addresses);
+        }
+        addresses.add(size());
+    }
+
+    @Override
+    public boolean hasLabel(String jumpTo) {
+        return labels.containsKey(jumpTo) || baseProgram.hasLabel(jumpTo);
+    }
+
+    @Override
+    public List<Integer> getAddresses(String jumpTo) {
+        List<Integer> base = baseProgram.getAddresses(jumpTo);
+        List<Integer> overlay = labels.get(jumpTo);
+        if (overlay == null || overlay.isEmpty()) { return base; }
+        if (base == null || base.isEmpty()) { return Collections.unmodifiableList(overlay); }
+        List<Integer> ret = new ArrayList<Integer>(base.size() + overlay.size());
+        ret.addAll(base);
+        ret.addAll(overlay);
+        return ret;
+    }
+
+    @Override
+    public void save() {
+        this.saveLength = instructions.size();
+    }
+
+    @Override
+    public void revert() {
+        for (int i = instructions.size() - 1; i >= saveLength; i--) {
+            instructions.remove(i);
+        }
+        int limit = offset + saveLength;
+        for (List<Integer> addresses : labels.values()) {
+            for (int i = addresses.size() - 1; i >= 0 && addresses.get(i) >= limit; i--) {
+                addresses.remove(i);
+            }
+        }
+        labels.values().removeIf(List::isEmpty);
+    }
+
+}
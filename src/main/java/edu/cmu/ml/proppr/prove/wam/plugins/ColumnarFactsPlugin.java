@@ -0,0 +1,509 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.cmu.ml.proppr.prove.wam.plugins;
+
+import edu.cmu.ml.proppr.prove.wam.*;
+import edu.cmu.ml.proppr.util.APROptions;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link FactsPlugin} that stores the facts in columns of int-coded constants, instead of objects.
+ * <p>
+ * Each predicate (functor/arity) keeps one int array per argument position, plus the weights, if any fact has a
+ * weight different from the default. The lookup by the first, the second, or both the first and second arguments
+ * uses CSR-style indices (sorted keys, offsets and rows), built lazily on the first query after the facts change.
+ * The lookup itself does not allocate: the jump is resolved by a cache and the bound arguments are matched by int
+ * comparison.
+ * <p>
+ * Removed facts are marked as deleted and skipped by the lookups; the columns of a predicate are compacted once a
+ * quarter of its facts are deleted. As in the {@link FactsPlugin}, the facts must not be changed while queries are
+ * running.
+ * <p>
+ * The answers, their order and the feature of the plugin are the same of the {@link FactsPlugin}, so it can replace
+ * it anywhere.
+ */
+public class ColumnarFactsPlugin extends FactsPlugin {
+
+    private static final int FREE = 0;
+    private static final int UNKNOWN = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final ThreadLocal<int[]> BOUND_BUFFER = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[INITIAL_CAPACITY];
+        }
+    };
+
+    private final TObjectIntHashMap<String> symbolIds = new TObjectIntHashMap<String>();
+    private final List<String> symbols = new ArrayList<String>();
+    private final Map<String, Relation> relations = new HashMap<String, Relation>();
+    private final Map<String, Jump> jumps = new ConcurrentHashMap<String, Jump>();
+
+    public ColumnarFactsPlugin(APROptions apr, String name, boolean useTernaryIndex) {
+        super(apr, name, useTernaryIndex);
+        // keeps the feature of the facts plugin, so the learned weights are interchangeable
+        this.fd.clear();
+        this.fd.put(new Feature(FACTS_FUNCTOR + FactsPlugin.class.getSimpleName() + "," + name + ")"), 1.0);
+    }
+
+    @Override
+    public synchronized void addWeightedFact(String functor, double wt, String... args) {
+        String jump = functor + WamInterpreter.JUMPTO_DELIMITER + args.length;
+        Relation relation = relations.get(jump);
+        if (relation == null) {
+            relation = new Relation(args.length);
+            relations.put(jump, relation);
+        }
+        int[] ids = new int[args.length];
+        for (int i = 0; i < args.length; i++) { ids[i] = intern(args[i]); }
+        relation.add(ids, wt);
+    }
+
+    @Override
+    public synchronized boolean removeFact(String functor, String... args) {
+        Relation relation = relations.get(functor + WamInterpreter.JUMPTO_DELIMITER + args.length);
+        if (relation == null) { return false; }
+        int[] ids = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            ids[i] = symbolIds.get(args[i]);
+            if (ids[i] == FREE) { return false; }
+        }
+        return relation.remove(ids);
+    }
+
+    private int intern(String symbol) {
+        int id = symbolIds.get(symbol);
+        if (id == FREE) {
+            symbols.add(symbol);
+            id = symbols.size();
+            symbolIds.put(symbol, id);
+        }
+        return id;
+    }
+
+    @Override
+    public boolean _claim(String jumpto) {
+        return this.relations.containsKey(jumpto);
+    }
+
+    /**
+     * Resolves the raw jump, which may be weighted, to the relation it queries. The resolution is cached, so the
+     * jump string is parsed only once.
+     *
+     * @param jumpTo the raw jump
+     * @return the resolved jump, or {@code null} if there is no fact for it
+     */
+    private Jump resolveJump(String jumpTo) {
+        Jump jump = jumps.get(jumpTo);
+        if (jump != null) { return jump; }
+        int delim = jumpTo.lastIndexOf(WamInterpreter.JUMPTO_DELIMITER);
+        int arity = Integer.parseInt(jumpTo.substring(delim + 1));
+        boolean returnWeights = jumpTo.substring(0, delim).endsWith(WamPlugin.WEIGHTED_SUFFIX);
+        Relation relation;
+        synchronized (this) {
+            relation = relations.get(returnWeights ? unweightedJumpto(jumpTo) : jumpTo);
+        }
+        if (relation == null) { return null; }
+        jump = new Jump(relation, arity, returnWeights);
+        jumps.put(jumpTo, jump);
+        return jump;
+    }
+
+    @Override
+    public List<Outlink> outlinks(State state, WamInterpreter wamInterp,
+                                  boolean computeFeatures) throws LogicProgramException {
+        List<Outlink> result = new ArrayList<Outlink>();
+        Jump jump = resolveJump(state.getJumpTo());
+        if (jump == null) { return result; }
+        final int arity = jump.arity;
+        final Relation relation = jump.relation;
+        int[] bound = boundBuffer(arity);
+        boolean unknown = false;
+        for (int i = 0; i < arity; i++) {
+            String constant = wamInterp.getConstantArg(arity, i + 1);
+            if (constant == null) {
+                bound[i] = FREE;
+            } else {
+                bound[i] = symbolIds.get(constant);
+                if (bound[i] == FREE) {
+                    bound[i] = UNKNOWN;
+                    unknown = true;
+                }
+            }
+        }
+        if (jump.returnWeights && bound[arity - 1] != FREE) {
+            throw new LogicProgramException("predicate " + state.getJumpTo() + " called with bound last argument!");
+        }
+        // a constant that does not appear in any fact matches nothing
+        if (unknown) { return result; }
+
+        int[] rows = null;
+        int start = 0;
+        int end;
+        synchronized (relation) {
+            end = relation.size;
+            boolean firstBound = relation.arity > 0 && bound[0] != FREE;
+            boolean secondBound = relation.arity > 1 && bound[1] != FREE;
+            if (firstBound && secondBound && useTernaryIndex) {
+                ColumnIndex index = relation.getPairIndex();
+                int position = index.find(pairKey(bound[0], bound[1]));
+                if (position < 0) { return result; }
+                rows = index.rows;
+                start = index.offsets[position];
+                end = index.offsets[position + 1];
+            } else if (firstBound || secondBound) {
+                ColumnIndex index = relation.getIndex(firstBound ? 0 : 1);
+                int position = index.find(bound[firstBound ? 0 : 1]);
+                if (position < 0) { return result; }
+                if (firstBound && secondBound) {
+                    // without the ternary index, scans the smaller of the two slices
+                    ColumnIndex alternate = relation.getIndex(1);
+                    int alternatePosition = alternate.find(bound[1]);
+                    if (alternatePosition < 0) { return result; }
+                    if (index.size(position) > alternate.size(alternatePosition)) {
+                        index = alternate;
+                        position = alternatePosition;
+                    }
+                }
+                rows = index.rows;
+                start = index.offsets[position];
+                end = index.offsets[position + 1];
+            }
+        }
+
+        for (int k = start; k < end; k++) {
+            int row = rows == null ? k : rows[k];
+            if (relation.isRemoved(row) || !relation.matches(row, bound)) { continue; }
+            wamInterp.restoreState(state);
+            for (int i = 0; i < arity; i++) {
+                if (bound[i] != FREE) { continue; }
+                if (i < relation.arity) {
+                    wamInterp.setArg(arity, i + 1, symbols.get(relation.columns[i][row] - 1));
+                } else if (jump.returnWeights) {
+                    wamInterp.setWt(arity, i + 1, relation.getWeight(row));
+                }
+            }
+            wamInterp.returnp();
+            wamInterp.executeWithoutBranching();
+            if (computeFeatures) {
+                result.add(new Outlink(scaleFD(this.fd, relation.getWeight(row)), wamInterp.saveState()));
+            } else {
+                result.add(new Outlink(null, wamInterp.saveState()));
+            }
+        }
+        return result;
+    }
+
+    private static int[] boundBuffer(int arity) {
+        int[] buffer = BOUND_BUFFER.get();
+        if (buffer.length < arity) {
+            buffer = new int[Math.max(arity, 2 * buffer.length)];
+            BOUND_BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static long pairKey(int first, int second) {
+        return ((long) first << Integer.SIZE) | second;
+    }
+
+    /**
+     * Gets the number of distinct constants in the facts.
+     *
+     * @return the number of constants
+     */
+    public int numberOfSymbols() {
+        return symbols.size();
+    }
+
+    /**
+     * Gets the number of facts stored.
+     *
+     * @return the number of facts
+     */
+    public synchronized int numberOfFacts() {
+        int facts = 0;
+        for (Relation relation : relations.values()) { facts += relation.size - relation.removedCount; }
+        return facts;
+    }
+
+    private static class Jump {
+
+        final Relation relation;
+        final int arity;
+        final boolean returnWeights;
+
+        Jump(Relation relation, int arity, boolean returnWeights) {
+            this.relation = relation;
+            this.arity = arity;
+            this.returnWeights = returnWeights;
+        }
+    }
+
+    /**
+     * The facts of a single functor/arity, stored by column. The indices are dropped whenever the facts change and
+     * rebuilt on demand.
+     */
+    private static class Relation {
+
+        final int arity;
+        int[][] columns;
+        double[] weights;
+        int size;
+        /**
+         * The number of rows the columns can hold; kept apart from the columns, since a zero-arity relation has none.
+         */
+        int capacity;
+        ColumnIndex[] indices = new ColumnIndex[2];
+        ColumnIndex pairIndex;
+        BitSet removed;
+        int removedCount;
+
+        Relation(int arity) {
+            this.arity = arity;
+            this.columns = new int[arity][INITIAL_CAPACITY];
+            this.capacity = INITIAL_CAPACITY;
+        }
+
+        synchronized void add(int[] ids, double weight) {
+            if (size == capacity) { grow(); }
+            for (int i = 0; i < arity; i++) { columns[i][size] = ids[i]; }
+            if (weight != DEFAULT_DSTWEIGHT && weights == null) {
+                weights = new double[capacity];
+                Arrays.fill(weights, 0, size, DEFAULT_DSTWEIGHT);
+            }
+            if (weights != null) { weights[size] = weight; }
+            size++;
+            dropIndices();
+        }
+
+        synchronized boolean remove(int[] ids) {
+            int[] rows = null;
+            int start = 0;
+            int end = size;
+            if (arity > 0) {
+                ColumnIndex index = getIndex(0);
+                int position = index.find(ids[0]);
+                if (position < 0) { return false; }
+                rows = index.rows;
+                start = index.offsets[position];
+                end = index.offsets[position + 1];
+            }
+            boolean changed = false;
+            for (int k = start; k < end; k++) {
+                int row = rows == null ? k : rows[k];
+                if (isRemoved(row) || !matches(row, ids)) { continue; }
+                if (removed == null) { removed = new BitSet(size); }
+                removed.set(row);
+                removedCount++;
+                changed = true;
+            }
+            if (removedCount > size / 4) { compact(); }
+            return changed;
+        }
+
+        boolean isRemoved(int row) {
+            return removed != null && removed.get(row);
+        }
+
+        /**
+         * Drops the removed rows, keeping the order of the others.
+         */
+        private void compact() {
+            int capacity = Math.max(size - removedCount, INITIAL_CAPACITY);
+            int[][] compacted = new int[arity][capacity];
+            double[] compactedWeights = weights == null ? null : new double[capacity];
+            int live = 0;
+            for (int row = 0; row < size; row++) {
+                if (removed.get(row)) { continue; }
+                for (int i = 0; i < arity; i++) { compacted[i][live] = columns[i][row]; }
+                if (weights != null) { compactedWeights[live] = weights[row]; }
+                live++;
+            }
+            columns = compacted;
+            weights = compactedWeights;
+            this.capacity = capacity;
+            size = live;
+            removed = null;
+            removedCount = 0;
+            dropIndices();
+        }
+
+        private void dropIndices() {
+            indices[0] = null;
+            indices[1] = null;
+            pairIndex = null;
+        }
+
+        private void grow() {
+            capacity = capacity + (capacity >> 1) + 1;
+            for (int i = 0; i < arity; i++) { columns[i] = Arrays.copyOf(columns[i], capacity); }
+            if (weights != null) { weights = Arrays.copyOf(weights, capacity); }
+        }
+
+        double getWeight(int row) {
+            return weights == null ? DEFAULT_DSTWEIGHT : weights[row];
+        }
+
+        boolean matches(int row, int[] bound) {
+            for (int i = 0; i < arity; i++) {
+                if (bound[i] != FREE && columns[i][row] != bound[i]) { return false; }
+            }
+            return true;
+        }
+
+        ColumnIndex getIndex(int position) {
+            if (indices[position] == null) {
+                long[] packed = new long[size];
+                for (int row = 0; row < size; row++) {
+                    packed[row] = ((long) columns[position][row] << Integer.SIZE) | row;
+                }
+                Arrays.sort(packed);
+                indices[position] = new ColumnIndex(packed);
+            }
+            return indices[position];
+        }
+
+        ColumnIndex getPairIndex() {
+            if (pairIndex == null) {
+                // sorts each slice of the first argument index by the second argument, keeping the row order
+                ColumnIndex first = getIndex(0);
+                long[] pairs = new long[size];
+                int[] rows = new int[size];
+                long[] slice = new long[0];
+                for (int k = 0; k < first.keys.length; k++) {
+                    int start = first.offsets[k];
+                    int length = first.offsets[k + 1] - start;
+                    if (slice.length < length) { slice = new long[length]; }
+                    for (int j = 0; j < length; j++) {
+                        int row = first.rows[start + j];
+                        slice[j] = ((long) columns[1][row] << Integer.SIZE) | row;
+                    }
+                    Arrays.sort(slice, 0, length);
+                    for (int j = 0; j < length; j++) {
+                        rows[start + j] = (int) slice[j];
+                        pairs[start + j] = pairKey((int) first.keys[k], (int) (slice[j] >>> Integer.SIZE));
+                    }
+                }
+                pairIndex = new ColumnIndex(pairs, rows);
+            }
+            return pairIndex;
+        }
+    }
+
+    /**
+     * A CSR-style index: the rows whose key is {@code keys[k]} are {@code rows[offsets[k]]} until
+     * {@code rows[offsets[k + 1]]}, exclusive, in the order they were added.
+     */
+    private static class ColumnIndex {
+
+        final long[] keys;
+        final int[] offsets;
+        final int[] rows;
+
+        /**
+         * Builds the index from the sorted packed (key, row) pairs.
+         *
+         * @param packed the key on the upper bits and the row on the lower bits, sorted
+         */
+        ColumnIndex(long[] packed) {
+            this.rows = new int[packed.length];
+            long[] keys = new long[packed.length];
+            for (int i = 0; i < packed.length; i++) {
+                rows[i] = (int) packed[i];
+                keys[i] = packed[i] >>> Integer.SIZE;
+            }
+            int distinct = countDistinct(keys);
+            this.keys = new long[distinct];
+            this.offsets = new int[distinct + 1];
+            fill(keys);
+        }
+
+        /**
+         * Builds the index from the sorted keys of each row.
+         *
+         * @param keys the keys, sorted
+         * @param rows the rows of the keys
+         */
+        ColumnIndex(long[] keys, int[] rows) {
+            this.rows = rows;
+            int distinct = countDistinct(keys);
+            this.keys = new long[distinct];
+            this.offsets = new int[distinct + 1];
+            fill(keys);
+        }
+
+        private static int countDistinct(long[] sortedKeys) {
+            int distinct = 0;
+            for (int i = 0; i < sortedKeys.length; i++) {
+                if (i == 0 || sortedKeys[i] != sortedKeys[i - 1]) { distinct++; }
+            }
+            return distinct;
+        }
+
+        private void fill(long[] sortedKeys) {
+            int k = -1;
+            for (int i = 0; i < sortedKeys.length; i++) {
+                if (i == 0 || sortedKeys[i] != sortedKeys[i - 1]) {
+                    k++;
+                    keys[k] = sortedKeys[i];
+                    offsets[k] = i;
+                }
+            }
+            offsets[keys.length] = sortedKeys.length;
+        }
+
+        int find(long key) {
+            return Arrays.binarySearch(keys, key);
+        }
+
+        int size(int position) {
+            return offsets[position + 1] - offsets[position];
+        }
+    }
+}
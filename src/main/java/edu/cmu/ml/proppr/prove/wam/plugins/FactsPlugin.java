@@ -151,6 +151,51 @@ public class FactsPlugin extends WamPlugin {
         map.get(key).add(args);
     }
 
+    /**
+     * Removes every fact of the functor with the given arguments, whatever its weight. To update the weight of a
+     * fact, remove it and add it again.
+     * <p>
+     * The functor stays claimed by this plugin even if all its facts are removed, so queries to it simply fail.
+     *
+     * @param functor the functor, without the weighted suffix
+     * @param args    the arguments, without the weight
+     * @return true if any fact was removed
+     */
+    public boolean removeFact(String functor, String... args) {
+        String jump = functor + "/" + args.length;
+        List<WeightedArgs> facts = indexJ.get(jump);
+        if (facts == null || !removeArgs(facts, args)) { return false; }
+
+        remove(indexJA1, new JumpArgKey(jump, args[0]), args);
+
+        if (args.length > 1) {
+            remove(indexJA2, new JumpArgKey(jump, args[1]), args);
+
+            if (useTernaryIndex) {
+                remove(indexJA1A2, new JumpArgArgKey(jump, args[0], args[1]), args);
+            }
+        }
+        return true;
+    }
+
+    private static <T> void remove(Map<T, List<WeightedArgs>> map, T key, String[] args) {
+        List<WeightedArgs> facts = map.get(key);
+        if (facts == null) { return; }
+        removeArgs(facts, args);
+        if (facts.isEmpty()) { map.remove(key); }
+    }
+
+    private static boolean removeArgs(List<WeightedArgs> facts, String[] args) {
+        boolean removed = false;
+        for (Iterator<WeightedArgs> it = facts.iterator(); it.hasNext(); ) {
+            if (Arrays.equals(it.next().args, args)) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
     @Override
     public String about() {
         return "facts(" + name + ")";
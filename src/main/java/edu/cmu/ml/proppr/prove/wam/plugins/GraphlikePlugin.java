@@ -143,56 +143,62 @@ public abstract class GraphlikePlugin extends WamPlugin {
                                    final boolean computeFeatures, final boolean returnWeights, final String indexKey,
                                    final String srcConst, final String dstConst, final String weightConst,
                                    final List<Outlink> result, final int arity) throws LogicProgramException {
-        TObjectDoubleMap<String> values = this.indexGet(indexKey, srcConst);
-        if (!values.isEmpty()) {
-            try {
-                values.forEachEntry(new TObjectDoubleProcedure<String>() {
-                    @Override
-                    public boolean execute(String val, double wt) {
-                        try {
+        try {
+            indexForEach(indexKey, srcConst, new TObjectDoubleProcedure<String>() {
+                @Override
+                public boolean execute(String val, double wt) {
+                    try {
 //							String weightString = returnWeights ? Double.toString(wt) : null;
-                            if (dstConst != null) {
-                                if (val.equals(dstConst)) {
-                                    wamInterp.restoreState(state);
-                                    if (returnWeights) {
-                                        wamInterp.setWt(arity, 3, wt);
-                                    }
-                                    wamInterp.returnp();
-                                    wamInterp.executeWithoutBranching();
-                                } else {
-                                    return true;
-                                }
-                            } else { // dstConst == null
+                        if (dstConst != null) {
+                            if (val.equals(dstConst)) {
                                 wamInterp.restoreState(state);
-                                wamInterp.setArg(arity, 2, val);
                                 if (returnWeights) {
                                     wamInterp.setWt(arity, 3, wt);
                                 }
                                 wamInterp.returnp();
                                 wamInterp.executeWithoutBranching();
-                            }
-                            if (computeFeatures) {
-                                result.add(new Outlink(scaleFD(getFD(), wt), wamInterp.saveState()));
                             } else {
-                                State save = wamInterp.saveState();
-                                if (log.isDebugEnabled()) { log.debug("Result " + save); }
-                                result.add(new Outlink(null, save));
+                                return true;
                             }
-                        } catch (LogicProgramException e) {
-                            // wow this is awkward but whatcha gonna do
-                            throw new IllegalStateException(e);
+                        } else { // dstConst == null
+                            wamInterp.restoreState(state);
+                            wamInterp.setArg(arity, 2, val);
+                            if (returnWeights) {
+                                wamInterp.setWt(arity, 3, wt);
+                            }
+                            wamInterp.returnp();
+                            wamInterp.executeWithoutBranching();
+                        }
+                        if (computeFeatures) {
+                            result.add(new Outlink(scaleFD(getFD(), wt), wamInterp.saveState()));
+                        } else {
+                            State save = wamInterp.saveState();
+                            if (log.isDebugEnabled()) { log.debug("Result " + save); }
+                            result.add(new Outlink(null, save));
                         }
-                        return true;
+                    } catch (LogicProgramException e) {
+                        // wow this is awkward but whatcha gonna do
+                        throw new IllegalStateException(e);
                     }
-                });
-            } catch (IllegalStateException e) {
-                // awkward c.f. above
-                if (e.getCause() instanceof LogicProgramException) { throw (LogicProgramException) e.getCause(); }
-            }
+                    return true;
+                }
+            });
+        } catch (IllegalStateException e) {
+            // awkward c.f. above
+            if (e.getCause() instanceof LogicProgramException) { throw (LogicProgramException) e.getCause(); }
         }
     }
 
     protected abstract TObjectDoubleMap<String> indexGet(String label, String src);
 
+    /**
+     * Calls the procedure for each destination of the source, with the weight of the edge. Plugins that can iterate
+     * over the destinations without building the map of indexGet(label, src) should override this.
+     */
+    protected void indexForEach(String label, String src, TObjectDoubleProcedure<String> procedure) {
+        TObjectDoubleMap<String> values = this.indexGet(label, src);
+        if (!values.isEmpty()) { values.forEachEntry(procedure); }
+    }
+
     protected abstract Map<Feature, Double> getFD();
 }
@@ -53,10 +53,12 @@ import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.procedure.TObjectDoubleProcedure;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 public class SparseGraphPlugin extends GraphlikePlugin {
@@ -97,15 +99,7 @@ public class SparseGraphPlugin extends GraphlikePlugin {
                 loadArgs(arg1s.get(partIDs[1]), new File(matrixDir, parts[1] + INDEX_EXTENSION));
             }
             if (!arg2s.containsKey(partIDs[2])) {
-                ParsedFile rce = new ParsedFile(new File(matrixDir, matrix + ".rce"));
-                Iterator<String> rceit = rce.iterator();
-                rceit.next();
-                String line = rceit.next();
-                rce.close();
-                if (line == null) {
-                    throw new IllegalArgumentException("Bad format for " + matrix + ".rce: line 2 must list #cols");
-                }
-                int ncols = Integer.parseInt(line.trim());
+                int ncols = readColumns(matrixDir, matrix);
                 arg2s.put(partIDs[2], new String[ncols]);
 
                 loadArgs(arg2s.get(partIDs[2]), new File(matrixDir, parts[2] + INDEX_EXTENSION));
@@ -128,6 +122,28 @@ public class SparseGraphPlugin extends GraphlikePlugin {
         }
     }
 
+    /**
+     * reads the number of columns of the matrix, from the binary file, if it exists, or from the .rce file
+     **/
+    private static int readColumns(File matrixDir, String matrix) {
+        if (new File(matrixDir, matrix + SparseMatrixIndex.BINARY_EXTENSION).exists()) {
+            try {
+                return SparseMatrixIndex.binaryColumns(matrixDir, matrix);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        ParsedFile rce = new ParsedFile(new File(matrixDir, matrix + ".rce"));
+        Iterator<String> rceit = rce.iterator();
+        rceit.next();
+        String line = rceit.next();
+        rce.close();
+        if (line == null) {
+            throw new IllegalArgumentException("Bad format for " + matrix + ".rce: line 2 must list #cols");
+        }
+        return Integer.parseInt(line.trim());
+    }
+
     private void loadArgs(TObjectIntMap<String> args, File file) {
         log.debug("Loading args file " + file.getName() + " in String...");
         ParsedFile parsed = new ParsedFile(file);
@@ -149,6 +165,25 @@ public class SparseGraphPlugin extends GraphlikePlugin {
         return new SparseGraphPlugin(apr, matrixDir);
     }
 
+    /**
+     * Writes the binary file of each matrix in the manifest of the directory, from its text files.
+     **/
+    public static void convertToBinary(File matrixDir) throws IOException {
+        for (String matrix : new ParsedFile(new File(matrixDir, MANIFEST))) {
+            log.info("Converting sparse matrix " + matrix + " in " + matrixDir);
+            SparseMatrixIndex.writeBinary(matrixDir, matrix);
+        }
+    }
+
+    /**
+     * Usage: SparseGraphPlugin matrixDir.sparse [matrixDir.sparse ...]
+     * <p>
+     * Converts the matrices of each directory to the binary format.
+     **/
+    public static void main(String[] args) throws IOException {
+        for (String dir : args) { convertToBinary(new File(dir)); }
+    }
+
     @Override
     protected void indexAdd(String label, String src, String dst) {
         throw new UnsupportedOperationException("Can't add to a sparse graph!");
@@ -186,6 +221,13 @@ public class SparseGraphPlugin extends GraphlikePlugin {
         return ret;
     }
 
+    @Override
+    protected void indexForEach(String label, String src, TObjectDoubleProcedure<String> procedure) {
+        label = clipArity(label);
+        if (!functors.hasId(label)) { return; }
+        index.get(functors.getId(label)).forEachNear(src, procedure);
+    }
+
     @Override
     protected Map<Feature, Double> getFD() {
         return this.featureDict;
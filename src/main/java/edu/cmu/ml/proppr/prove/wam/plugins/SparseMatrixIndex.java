@@ -48,13 +48,23 @@ import edu.cmu.ml.proppr.util.StatusLogger;
 import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
+import gnu.trove.procedure.TObjectDoubleProcedure;
 import gnu.trove.procedure.TObjectIntProcedure;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -72,6 +82,12 @@ import java.util.List;
  * The lengths of files are thus constrained:
  * - *.rowOffsets has #rows lines
  * - *.colIndex has #entries lines
+ * <p>
+ * The .rce, .rowOffset and .colIndex files may be replaced by a single binary [functor]_[arg1type]_[arg2type].csr
+ * file, written by {@link #writeBinary(File, String)}: a header with the magic number, rows, columns and entries,
+ * followed by the row offsets (#rows + 1 ints), the column indices (#entries ints) and the values (#entries floats),
+ * all little-endian. The binary file is mapped into memory instead of read, so loading it does not depend on its
+ * size, and the JVMs using the same file share its pages.
  *
  * @author wcohen, krivard
  */
@@ -80,6 +96,10 @@ public class SparseMatrixIndex {
     private static final Logger log = LogManager.getLogger(SparseMatrixIndex.class);
     private static final String WEIGHT_DELIMITER = "\t";
     private static final int LOGUPDATE_MS = 5000;
+    public static final String BINARY_EXTENSION = ".csr";
+    private static final int BINARY_MAGIC = 0x43535231; // CSR1
+    private static final int BINARY_HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
     String name;
     /**
      * counts
@@ -93,8 +113,8 @@ public class SparseMatrixIndex {
     /**
      * indexes
      */
-    int[] rowOffsets, colIndices;
-    float[] values;
+    IntBuffer rowOffsets, colIndices;
+    FloatBuffer values;
 
     public SparseMatrixIndex() {
     }
@@ -103,7 +123,11 @@ public class SparseMatrixIndex {
                              final String[] arg2) throws IOException {
         this.arg1 = arg1;
         this.arg2 = arg2;
-        this.load(matrixDir, functor_arg1type_arg2type);
+        if (new File(matrixDir, functor_arg1type_arg2type + BINARY_EXTENSION).exists()) {
+            this.loadBinary(matrixDir, functor_arg1type_arg2type);
+        } else {
+            this.load(matrixDir, functor_arg1type_arg2type);
+        }
     }
 
     public void load(File dir, String functor_arg1type_arg2type) throws IOException {
@@ -148,8 +172,8 @@ public class SparseMatrixIndex {
 		 *
 		 */
         ArrayList<Integer> rowsOffsets = new ArrayList<Integer>();
-        this.colIndices = new int[entries];
-        this.values = new float[entries];
+        int[] colIndices = new int[entries];
+        float[] values = new float[entries];
 
         long start = status.tick();
         file = new ParsedFile(new File(dir, functor_arg1type_arg2type + ".rowOffset"));
@@ -171,7 +195,7 @@ public class SparseMatrixIndex {
             String[] parts = line.split(WEIGHT_DELIMITER);
             colIndices[ln] = Integer.parseInt(parts[0]);
             values[ln] = (float) (parts.length > 1 ? Float.parseFloat(parts[1]) : 1.0);
-            if (colIndices[ln] >= arg2.length) {
+            if (arg2 != null && colIndices[ln] >= arg2.length) {
                 throw new IllegalArgumentException("Malformed sparsegraph! For index " + this.name + ", colIndices["
                                                            + ln + "]=" + colIndices[ln] + "; arg2.length is only " +
                                                            arg2.length);
@@ -184,11 +208,15 @@ public class SparseMatrixIndex {
             }
         }
         file.close();
-        this.rowOffsets = new int[rowsOffsets.size() + 1];
+        // rows without offset, at the end of the .rowOffset file, are empty
+        int[] rowOffsets = new int[Math.max(rows, rowsOffsets.size()) + 1];
         for (int i = 0; i < rowsOffsets.size(); i++) {
             rowOffsets[i] = rowsOffsets.get(i);
         }
-        rowOffsets[rowsOffsets.size()] = entries;
+        Arrays.fill(rowOffsets, rowsOffsets.size(), rowOffsets.length, entries);
+        this.rowOffsets = IntBuffer.wrap(rowOffsets);
+        this.colIndices = IntBuffer.wrap(colIndices);
+        this.values = FloatBuffer.wrap(values);
 
         long del = status.sinceStart();
         if (del > LOGUPDATE_MS) {
@@ -197,6 +225,95 @@ public class SparseMatrixIndex {
         }
     }
 
+    /**
+     * Maps the binary file of the matrix into memory.
+     */
+    public void loadBinary(File dir, String functor_arg1type_arg2type) throws IOException {
+        log.info("Mapping matrix " + functor_arg1type_arg2type + " from " + dir.getName() + "...");
+        this.name = dir + ":" + functor_arg1type_arg2type;
+        File file = new File(dir, functor_arg1type_arg2type + BINARY_EXTENSION);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            IntBuffer header = map(channel, 0, BINARY_HEADER_SIZE).asIntBuffer();
+            if (header.get(0) != BINARY_MAGIC) {
+                throw new IllegalArgumentException("Bad format for " + file.getName() + ": not a binary sparse matrix");
+            }
+            this.rows = header.get(1);
+            this.cols = header.get(2);
+            this.entries = header.get(3);
+            long expected = BINARY_HEADER_SIZE + (long) Integer.BYTES * (rows + 1) +
+                    (long) (Integer.BYTES + Float.BYTES) * entries;
+            if (expected != channel.size()) {
+                throw new IllegalArgumentException("Bad format for " + file.getName() + ": expected " + expected +
+                                                           " bytes, found " + channel.size());
+            }
+            long position = BINARY_HEADER_SIZE;
+            long size = (long) Integer.BYTES * (rows + 1);
+            // each array is mapped on its own, since a mapping is limited to 2GB
+            this.rowOffsets = map(channel, position, size).asIntBuffer();
+            position += size;
+            size = (long) Integer.BYTES * entries;
+            this.colIndices = map(channel, position, size).asIntBuffer();
+            position += size;
+            size = (long) Float.BYTES * entries;
+            this.values = map(channel, position, size).asFloatBuffer();
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads the number of columns from the header of the binary file of the matrix.
+     */
+    public static int binaryColumns(File dir, String functor_arg1type_arg2type) throws IOException {
+        File file = new File(dir, functor_arg1type_arg2type + BINARY_EXTENSION);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            return map(channel, 0, BINARY_HEADER_SIZE).asIntBuffer().get(2);
+        }
+    }
+
+    /**
+     * Converts the text files of the matrix into the binary file, read by {@link #loadBinary(File, String)}. The
+     * binary file is written to a temporary file first and then moved into place.
+     */
+    public static void writeBinary(File dir, String functor_arg1type_arg2type) throws IOException {
+        SparseMatrixIndex matrix = new SparseMatrixIndex();
+        matrix.load(dir, functor_arg1type_arg2type);
+        File file = new File(dir, functor_arg1type_arg2type + BINARY_EXTENSION);
+        File temporary = new File(dir, file.getName() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temporary, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(BINARY_MAGIC).putInt(matrix.rows).putInt(matrix.cols).putInt(matrix.entries);
+            for (int i = 0; i <= matrix.rows; i++) {
+                buffer = flushIfFull(channel, buffer, Integer.BYTES);
+                buffer.putInt(matrix.rowOffsets.get(i));
+            }
+            for (int k = 0; k < matrix.entries; k++) {
+                buffer = flushIfFull(channel, buffer, Integer.BYTES);
+                buffer.putInt(matrix.colIndices.get(k));
+            }
+            for (int k = 0; k < matrix.entries; k++) {
+                buffer = flushIfFull(channel, buffer, Float.BYTES);
+                buffer.putFloat(matrix.values.get(k));
+            }
+            flushIfFull(channel, buffer, buffer.capacity());
+            channel.force(true);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) {
+            buffer.flip();
+            while (buffer.hasRemaining()) { channel.write(buffer); }
+            buffer.clear();
+        }
+        return buffer;
+    }
+
     /**
      * NB: May be slow
      *
@@ -207,7 +324,7 @@ public class SparseMatrixIndex {
         this.arg1.forEachEntry(new TObjectIntProcedure<String>() {
             @Override
             public boolean execute(String a, int r) {
-                if ((r + 1 < rowOffsets.length) && (rowOffsets[r + 1] - rowOffsets[r]) > 0) { ret.add(a); }
+                if ((r + 1 < rowOffsets.limit()) && (rowOffsets.get(r + 1) - rowOffsets.get(r)) > 0) { ret.add(a); }
                 return true;
             }
         });
@@ -219,28 +336,79 @@ public class SparseMatrixIndex {
      * 'b' such that m[i,j] != 0 and arg2[j]==b.
      **/
     public TObjectDoubleMap<String> near(String key) {
-        if (!this.arg1.containsKey(key)) { return null; }
-        int r = this.arg1.get(key);
-        if (r >= rows) { return null; }
-        TObjectDoubleMap<String> ret = new TObjectDoubleHashMap<String>(this.rowOffsets[r + 1] - this.rowOffsets[r]);
-        for (int k = this.rowOffsets[r]; k < this.rowOffsets[r + 1]; k++) {
-            if (this.arg2[this.colIndices[k]] == null) {
-                throw new IllegalStateException("Found null argument in index " + this.name + " arg2[colIndices[" + k
-                                                        + "]=" + colIndices[k] + "] (arg2.length=" + arg2.length + ")");
-            }
-            ret.put(this.arg2[this.colIndices[k]], this.values[k]);
+        int r = row(key);
+        if (r < 0) { return null; }
+        TObjectDoubleMap<String> ret = new TObjectDoubleHashMap<String>(rowEnd(r) - rowBegin(r));
+        for (int k = rowBegin(r); k < rowEnd(r); k++) {
+            ret.put(column(k), value(k));
         }
         return ret;
     }
 
+    /**
+     * Calls the procedure for each string 'b' near the key, with m[i,j], without allocating a map, as {@link
+     * #near(String)} does. Stops if the procedure returns false.
+     *
+     * @return false if the key is not in the matrix, or if the procedure stopped the iteration
+     */
+    public boolean forEachNear(String key, TObjectDoubleProcedure<String> procedure) {
+        int r = row(key);
+        if (r < 0) { return false; }
+        for (int k = rowBegin(r), end = rowEnd(r); k < end; k++) {
+            if (!procedure.execute(column(k), value(k))) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * @return the row of the key, or -1 if the key has no row in the matrix
+     */
+    public int row(String key) {
+        if (!this.arg1.containsKey(key)) { return -1; }
+        int r = this.arg1.get(key);
+        return r < rows ? r : -1;
+    }
+
+    /**
+     * @return the position, in the column indices, where the row begins
+     */
+    public int rowBegin(int row) {
+        return this.rowOffsets.get(row);
+    }
+
+    /**
+     * @return the position, in the column indices, where the row ends (exclusive)
+     */
+    public int rowEnd(int row) {
+        return this.rowOffsets.get(row + 1);
+    }
+
+    /**
+     * @return the name of the column of the kth entry
+     */
+    public String column(int k) {
+        String column = this.arg2[this.colIndices.get(k)];
+        if (column == null) {
+            throw new IllegalStateException("Found null argument in index " + this.name + " arg2[colIndices[" + k
+                                                    + "]=" + colIndices.get(k) + "] (arg2.length=" + arg2.length + ")");
+        }
+        return column;
+    }
+
+    /**
+     * @return the value of the kth entry
+     */
+    public float value(int k) {
+        return this.values.get(k);
+    }
+
     public boolean contains(String key) {
         return this.arg1.containsKey(key);
     }
 
     public int degree(String key) {
-        if (!this.arg1.containsKey(key)) { return 0; }
-        int r = this.arg1.get(key);
-        if (r >= rows) { return 0; }
-        return this.rowOffsets[r + 1] - this.rowOffsets[r];
+        int r = row(key);
+        if (r < 0) { return 0; }
+        return rowEnd(r) - rowBegin(r);
     }
 }
@@ -50,11 +50,17 @@ public class APROptions {
     public static final int TRACEDEPTH_DEFAULT = 0;
     public static final int TRACEROOT_DEFAULT = 1;
     public static final int STOPEARLY_DEFAULT = -1;
+    public static final int NO_BUDGET = -1;
     public int maxDepth;
     public double alpha;
     public double epsilon;
     public int traceDepth, traceRoot;
     public int stopEarly;
+    /**
+     * The budget of each query, see {@link edu.cmu.ml.proppr.prove.ProofBudget}: the wall-clock time, in
+     * milliseconds, and the number of nodes and edges of its proof graph. {@link #NO_BUDGET} means no limit.
+     */
+    public int timeBudget = NO_BUDGET, nodeBudget = NO_BUDGET, edgeBudget = NO_BUDGET;
 
     public APROptions(String... optionValues) {
         this();
@@ -90,6 +96,15 @@ public class APROptions {
             case stopEarly:
                 this.stopEarly = Integer.parseInt(setting[1]);
                 return;
+            case timeBudget:
+                this.timeBudget = Integer.parseInt(setting[1]);
+                return;
+            case nodeBudget:
+                this.nodeBudget = Integer.parseInt(setting[1]);
+                return;
+            case edgeBudget:
+                this.edgeBudget = Integer.parseInt(setting[1]);
+                return;
             default:
                 throw new IllegalArgumentException("No option to set '" + setting[0] + "'");
         }
@@ -113,6 +128,9 @@ public class APROptions {
         stop,
         stopEarly,
         traceDepth,
-        traceRoot
+        traceRoot,
+        timeBudget,
+        nodeBudget,
+        edgeBudget
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.cmu.ml.proppr.util;
+
+/**
+ * Cooperative cancellation of a computation, which may span several threads. The token is cancelled either
+ * explicitly or when its deadline passes; the long running loops (e.g. the provers) check it and stop early.
+ * <p>
+ * The token bound to the current thread is captured by the {@link StatusLogger}s created on it, so the workers
+ * that share the same {@link StatusLogger} see the cancellation, even if they run on other threads.
+ */
+public class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<CancellationToken>();
+
+    private final long deadline;
+    private final CancellationToken parent;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a token without deadline, it can only be cancelled explicitly.
+     */
+    public CancellationToken() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a token that is cancelled after the given time, in nanoseconds, from now.
+     *
+     * @param timeoutNanos the timeout, in nanoseconds; a non-positive value means no deadline
+     */
+    public CancellationToken(long timeoutNanos) {
+        this(timeoutNanos, null);
+    }
+
+    /**
+     * Creates a token that is cancelled after the given time, in nanoseconds, from now, or when its parent is
+     * cancelled. It is useful to nest a computation with its own timeout inside another one.
+     *
+     * @param timeoutNanos the timeout, in nanoseconds; a non-positive value means no deadline
+     * @param parent       the parent token, may be {@code null}
+     */
+    public CancellationToken(long timeoutNanos, CancellationToken parent) {
+        this.parent = parent;
+        this.deadline = timeoutNanos > 0 && timeoutNanos < Long.MAX_VALUE ? System.nanoTime() + timeoutNanos :
+                Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the token bound to the current thread.
+     *
+     * @return the token, or {@code null} if there is none
+     */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds the token to the current thread.
+     *
+     * @param token the token, or {@code null} to unbind the current one
+     * @return the token previously bound to the thread, to be restored afterwards
+     */
+    public static CancellationToken bind(CancellationToken token) {
+        CancellationToken previous = CURRENT.get();
+        if (token == null) { CURRENT.remove(); } else { CURRENT.set(token); }
+        return previous;
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        if (!cancelled && deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) { cancelled = true; }
+        if (!cancelled && parent != null && parent.isCancelled()) { cancelled = true; }
+        return cancelled;
+    }
+}
@@ -43,22 +43,51 @@
 
 package edu.cmu.ml.proppr.util;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A "symbol table" mapping arbitrary objects (called 'symbols' in a
  * nod to LISP) to and from 'ids', i.e., integers in the range 1..N
- * (inclusive.)  This is based on ConcurrentHashMap objects so it will
- * hopefully be easy to share among different threads.
+ * (inclusive.)  It is meant to be shared among different threads.
+ * <p>
+ * The symbols are found by an open-addressing hash index of entries, and
+ * kept, by id, in chunks of doubling sizes, which are never moved. Nothing
+ * locks: a new symbol claims an empty slot of the index by a compare and
+ * set, and only the thread that claims it draws the next id, so the ids
+ * stay dense and unique; the id is published in the entry after the
+ * symbol is stored in its chunk, and whoever finds the entry before that
+ * waits for the id. When the index is half full, it is moved to a larger
+ * one, slot by slot, by all the threads that come across it, each slot
+ * being marked as moved after its entry is copied.
  *
  * @author wcohen
  */
 public class ConcurrentSymbolTable<T> implements SymbolTable<T> {
 
-    protected ConcurrentHashMap<Object, Integer[]> symbol2Id = new ConcurrentHashMap<Object, Integer[]>();
-    protected ConcurrentHashMap<Integer, T> id2symbol = new ConcurrentHashMap<Integer, T>();
+    /**
+     * The capacity of the first chunk of symbols.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+    /**
+     * The id of an entry whose id is not published yet.
+     */
+    protected static final int EMPTY = 0;
+    /**
+     * The number of chunks of symbols, enough for any positive id.
+     */
+    protected static final int NUMBER_OF_CHUNKS = Integer.SIZE;
+    /**
+     * The entry that marks a slot of an index that has been moved to the next index.
+     */
+    protected static final Entry MOVED = new Entry(null, 0);
+
     protected HashingStrategy<T> hashingStrategy;
-    protected int nextId = 0;
+    protected final AtomicReferenceArray<AtomicReferenceArray<Object>> chunks =
+            new AtomicReferenceArray<>(NUMBER_OF_CHUNKS);
+    protected final AtomicReference<Index> index = new AtomicReference<>(new Index(2 * DEFAULT_CAPACITY));
+    protected final AtomicInteger size = new AtomicInteger();
 
     public ConcurrentSymbolTable(HashingStrategy<T> strategy) {
         this.init(strategy);
@@ -101,50 +130,114 @@ public class ConcurrentSymbolTable<T> implements SymbolTable<T> {
         return hashingStrategy;
     }
 
-    private void putSymbol(Object h, int id) {
-//		symbol2Id.put(h,id);
-        if (!symbol2Id.containsKey(h)) {
-            symbol2Id.put(h, new Integer[]{0, id});
-        } else {
-            Integer[] cur = symbol2Id.get(h);
-            if (cur[0] == 0) {
-                // then there are no more free slots and we need to retabulate
-                Integer[] now = new Integer[(cur.length - 1) * 2 + 1];
-                for (int i = 0; i < cur.length; i++) {now[i] = cur[i];}
-                now[0] = now.length - cur.length;
-                symbol2Id.put(h, now);
-                cur = now;
+    private int hash(T symbol) {
+        int h = hashingStrategy.computeKey(symbol).hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the entry of the symbol in the index, claiming an empty slot for it, if it is not there and it is to
+     * create it. A moved slot, or a full index, makes it help moving the index, and look for the symbol in the next
+     * one.
+     *
+     * @param symbol the symbol
+     * @param hash   the hash of the symbol
+     * @param create if it is to create the entry, when the symbol is not in the index
+     * @return the entry of the symbol, or {@code null} if it is not in the index and it is not to create it
+     */
+    @SuppressWarnings("unchecked")
+    private Entry lookup(T symbol, int hash, boolean create) {
+        Index current = index.get();
+        int slot = hash & current.mask;
+        int probes = 0;
+        while (true) {
+            Entry entry = current.entries.get(slot);
+            if (entry == MOVED || probes > current.mask) {
+                current = move(current);
+                slot = hash & current.mask;
+                probes = 0;
+            } else if (entry == null) {
+                if (!create) { return null; }
+                Entry claimed = new Entry(symbol, hash);
+                // if another thread has claimed the slot, reads it again, since it may have the same symbol
+                if (current.entries.compareAndSet(slot, null, claimed)) {
+                    publish(claimed);
+                    if (2 * current.count.incrementAndGet() > current.capacity()) { move(current); }
+                    return claimed;
+                }
+            } else if (entry.hash == hash && hashingStrategy.equals((T) entry.symbol, symbol)) {
+                return entry;
+            } else {
+                slot = (slot + 1) & current.mask;
+                probes++;
             }
-            cur[cur.length - cur[0]] = id;
-            cur[0]--;
         }
     }
 
-    private int symbolGet(T symbol) {
-        Object h = hashingStrategy.computeKey(symbol);
-        Integer[] ids = symbol2Id.get(h);
-        for (int i = ids.length - 1 - ids[0]; i > 0; i--) {
-            if (hashingStrategy.equals(id2symbol.get(ids[i]), symbol)) { return ids[i]; }
+    /**
+     * Draws the next id for the entry, stores its symbol and publishes the id.
+     *
+     * @param entry the entry, just claimed by the current thread
+     */
+    private void publish(Entry entry) {
+        int id = size.incrementAndGet();
+        int position = id + DEFAULT_CAPACITY - 1;
+        int chunk = getChunk(position);
+        AtomicReferenceArray<Object> symbols = chunks.get(chunk);
+        if (symbols == null) {
+            chunks.compareAndSet(chunk, null, new AtomicReferenceArray<>(DEFAULT_CAPACITY << chunk));
+            symbols = chunks.get(chunk);
+        }
+        symbols.set(position - Integer.highestOneBit(position), entry.symbol);
+        entry.id = id;
+    }
+
+    /**
+     * Gets the chunk of the position of an id, the position being the id plus the capacity of the first chunk,
+     * minus one, so the chunk {@code k} has the positions from {@code DEFAULT_CAPACITY << k}, on.
+     *
+     * @param position the position
+     * @return the chunk of the position
+     */
+    private static int getChunk(int position) {
+        return Integer.numberOfLeadingZeros(DEFAULT_CAPACITY) - Integer.numberOfLeadingZeros(position);
+    }
+
+    /**
+     * Moves the entries of the index to the next one, which is created by the first thread to get here. Each thread
+     * that gets here goes through all the slots, so it only returns after all of them have been moved.
+     *
+     * @param current the index
+     * @return the next index
+     */
+    private Index move(Index current) {
+        Index next = current.next.get();
+        if (next == null) {
+            current.next.compareAndSet(null, new Index(2 * current.capacity()));
+            next = current.next.get();
         }
-        throw new IllegalStateException("Symbol " + symbol + " not found in ConcurrentSymbolTable");
-    }
-
-    private boolean symbolContains(T symbol) {
-        Object h = hashingStrategy.computeKey(symbol);
-        if (!symbol2Id.containsKey(h)) { return false; }
-        Integer[] ids = symbol2Id.get(h);
-        for (int i = ids.length - 1 - ids[0]; i > 0; i--) {
-            T candidate = id2symbol.get(ids[i]);
-            // occasionally the value here comes up null, even though
-            // the synchronized block on update means that should
-            // never happen (?)
-            // skipping the id may generate a false negative, but
-            // it's been harmless in tests so far.
-            // worth revisiting if bugs return.
-            if (candidate == null) { continue; }
-            if (hashingStrategy.equals(candidate, symbol)) { return true; }
+        for (int slot = 0; slot <= current.mask; slot++) {
+            Entry entry = current.entries.get(slot);
+            while (entry != MOVED) {
+                if (entry != null) { next.copy(entry); }
+                if (current.entries.compareAndSet(slot, entry, MOVED)) { break; }
+                entry = current.entries.get(slot);
+            }
         }
-        return false;
+        index.compareAndSet(current, next);
+        return next;
+    }
+
+    /**
+     * Waits for the id of the entry to be published.
+     *
+     * @param entry the entry
+     * @return the id of the entry
+     */
+    private static int awaitId(Entry entry) {
+        int id;
+        while ((id = entry.id) == EMPTY) { Thread.yield(); }
+        return id;
     }
 
     /**
@@ -154,16 +247,7 @@ public class ConcurrentSymbolTable<T> implements SymbolTable<T> {
      */
     @Override
     public void insert(T symbol) {
-        //check collision
-        if (symbolContains(symbol)) { return; }
-        synchronized (this) {
-            if (symbolContains(symbol)) { return; }
-            Object h = hashingStrategy.computeKey(symbol);
-            int newId = ++nextId;
-//				symbol2Id.put(h,newId);
-            putSymbol(h, newId);
-            id2symbol.put(newId, symbol);
-        }
+        getId(symbol);
     }
 
     /**
@@ -174,8 +258,7 @@ public class ConcurrentSymbolTable<T> implements SymbolTable<T> {
      */
     @Override
     public int getId(T symbol) {
-        insert(symbol);
-        return symbolGet(symbol);
+        return awaitId(lookup(symbol, hash(symbol), true));
     }
 
     /**
@@ -183,7 +266,7 @@ public class ConcurrentSymbolTable<T> implements SymbolTable<T> {
      */
     @Override
     public boolean hasId(T symbol) {
-        return symbolContains(symbol);
+        return lookup(symbol, hash(symbol), false) != null;
     }
 
     /**
@@ -191,8 +274,17 @@ public class ConcurrentSymbolTable<T> implements SymbolTable<T> {
      * symbol has not yet been inserted.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public T getSymbol(int id) {
-        return this.id2symbol.get(id);
+        if (id < 1 || id > size.get()) { return null; }
+        int position = id + DEFAULT_CAPACITY - 1;
+        int chunk = getChunk(position);
+        int offset = position - Integer.highestOneBit(position);
+        // the id is drawn before its symbol is stored, so the symbol may take a while to show
+        Object symbol;
+        AtomicReferenceArray<Object> symbols;
+        while ((symbols = chunks.get(chunk)) == null || (symbol = symbols.get(offset)) == null) { Thread.yield(); }
+        return (T) symbol;
     }
 
     /**
@@ -200,7 +292,67 @@ public class ConcurrentSymbolTable<T> implements SymbolTable<T> {
      */
     @Override
     public int size() {
-        return this.id2symbol.size();
+        return size.get();
+    }
+
+    /**
+     * The symbol of an entry of the index, along with its hash and its id, which is published after the entry is
+     * in the index.
+     */
+    protected static class Entry {
+
+        protected final Object symbol;
+        protected final int hash;
+        protected volatile int id = EMPTY;
+
+        protected Entry(Object symbol, int hash) {
+            this.symbol = symbol;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * The open-addressing index from the hashes of the symbols to their entries, with linear probing. The capacity
+     * is a power of two, and the index is moved to a larger one when it is half full.
+     */
+    protected static class Index {
+
+        protected final AtomicReferenceArray<Entry> entries;
+        protected final int mask;
+        protected final AtomicInteger count = new AtomicInteger();
+        protected final AtomicReference<Index> next = new AtomicReference<>();
+
+        protected Index(int capacity) {
+            this.entries = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        protected int capacity() {
+            return entries.length();
+        }
+
+        /**
+         * Copies the entry from the previous index into the first empty slot of its hash, unless another thread has
+         * already copied it. New entries only come to this index after all the previous one has been moved, so a
+         * moved slot means that this index is being moved as well, after the entry has been copied.
+         *
+         * @param entry the entry
+         */
+        protected void copy(Entry entry) {
+            int slot = entry.hash & mask;
+            while (true) {
+                Entry current = entries.get(slot);
+                if (current == entry || current == MOVED) { return; }
+                if (current == null) {
+                    if (entries.compareAndSet(slot, null, entry)) {
+                        count.incrementAndGet();
+                        return;
+                    }
+                } else {
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
     }
 
     public enum HASHING_STRATEGIES {
@@ -47,6 +47,7 @@ public class StatusLogger {
 
     private static final int DEFAULT_PERIOD_MS = 3000;
     private final int period_ms;
+    private final CancellationToken token = CancellationToken.current();
     private long start, last;
 
     public StatusLogger() {
@@ -88,4 +89,13 @@ public class StatusLogger {
     public long tick() {
         return last = System.currentTimeMillis();
     }
+
+    /**
+     * Checks the {@link CancellationToken} bound to the thread that created this logger, if any.
+     *
+     * @return {@code true} if the computation being logged should stop
+     */
+    public boolean isCancelled() {
+        return token != null && token.isCancelled();
+    }
 }
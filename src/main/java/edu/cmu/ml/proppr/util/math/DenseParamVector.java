@@ -0,0 +1,309 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.cmu.ml.proppr.util.math;
+
+import edu.cmu.ml.proppr.util.SymbolTable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A parameter vector stored densely, indexed by the ids of a {@link SymbolTable}, such as the feature library of the
+ * {@link edu.cmu.ml.proppr.graph.LearningGraph}s. The weights are kept as the bits of doubles in pages of atomic
+ * arrays, so an update is a compare-and-set on a single slot, without boxing nor hashing the feature name.
+ * <p>
+ * In the Hogwild style, the updates are plain reads and writes of the slot, and concurrent updates on the same
+ * feature may overwrite each other.
+ * <p>
+ * The methods keyed by the feature name translate it through the symbol table; they are meant to load and save the
+ * parameters, while the training uses the methods indexed by the id.
+ */
+public class DenseParamVector extends ParamVector<String, Double> {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    // a NaN whose payload is never produced by the arithmetic, marks the ids without weight
+    private static final long ABSENT = 0x7ff0deadbeef0001L;
+
+    private final SymbolTable<String> features;
+    private final boolean hogwild;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+
+    public DenseParamVector(SymbolTable<String> features) {
+        this(features, false);
+    }
+
+    public DenseParamVector(SymbolTable<String> features, boolean hogwild) {
+        this.features = features;
+        this.hogwild = hogwild;
+    }
+
+    /**
+     * Loads the weights into a vector indexed by the symbol table. Features that are not in the symbol table yet are
+     * inserted into it.
+     *
+     * @param features the symbol table
+     * @param weights  the weights, by feature name
+     * @param hogwild  if the updates are not synchronized
+     */
+    public DenseParamVector(SymbolTable<String> features, Map<String, Double> weights, boolean hogwild) {
+        this(features, hogwild);
+        putAll(weights);
+    }
+
+    /**
+     * Gets the params as a dense vector, if they are indexed by the symbol table.
+     *
+     * @param params   the params
+     * @param features the symbol table
+     * @return the dense vector, or {@code null} if the params are not dense or are indexed by other table
+     */
+    public static DenseParamVector indexedBy(ParamVector<String, ?> params, SymbolTable<String> features) {
+        if (params instanceof DenseParamVector && ((DenseParamVector) params).features == features) {
+            return (DenseParamVector) params;
+        }
+        return null;
+    }
+
+    public SymbolTable<String> getFeatures() {
+        return features;
+    }
+
+    public boolean isHogwild() {
+        return hogwild;
+    }
+
+    private AtomicLongArray page(int id) {
+        AtomicLongArray[] current = pages;
+        int index = id >>> PAGE_BITS;
+        return index < current.length ? current[index] : null;
+    }
+
+    private AtomicLongArray pageForUpdate(int id) {
+        AtomicLongArray page = page(id);
+        return page != null ? page : grow(id >>> PAGE_BITS);
+    }
+
+    private synchronized AtomicLongArray grow(int index) {
+        AtomicLongArray[] current = pages;
+        if (index >= current.length) {
+            AtomicLongArray[] grown = Arrays.copyOf(current, Math.max(index + 1, 2 * current.length));
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicLongArray(PAGE_SIZE);
+                for (int j = 0; j < PAGE_SIZE; j++) { grown[i].set(j, ABSENT); }
+            }
+            pages = grown;
+        }
+        return pages[index];
+    }
+
+    public boolean hasWeight(int id) {
+        AtomicLongArray page = page(id);
+        return page != null && page.get(id & PAGE_MASK) != ABSENT;
+    }
+
+    /**
+     * @param id the feature id
+     * @return the weight of the feature, or 0 if it has none
+     */
+    public double weight(int id) {
+        AtomicLongArray page = page(id);
+        if (page == null) { return 0.0; }
+        long bits = page.get(id & PAGE_MASK);
+        return bits == ABSENT ? 0.0 : Double.longBitsToDouble(bits);
+    }
+
+    public void setWeight(int id, double value) {
+        long previous = pageForUpdate(id).getAndSet(id & PAGE_MASK, Double.doubleToRawLongBits(value));
+        if (previous == ABSENT) { size.incrementAndGet(); }
+    }
+
+    /**
+     * Adds the value to the weight of the feature, a feature without weight starts at 0.
+     *
+     * @param id    the feature id
+     * @param value the value to add
+     * @return the updated weight
+     */
+    public double adjustWeight(int id, double value) {
+        AtomicLongArray page = pageForUpdate(id);
+        int offset = id & PAGE_MASK;
+        long bits = page.get(offset);
+        double updated;
+        if (hogwild && bits != ABSENT) {
+            updated = Double.longBitsToDouble(bits) + value;
+            page.lazySet(offset, Double.doubleToRawLongBits(updated));
+            return updated;
+        }
+        do {
+            updated = (bits == ABSENT ? 0.0 : Double.longBitsToDouble(bits)) + value;
+            if (page.compareAndSet(offset, bits, Double.doubleToRawLongBits(updated))) { break; }
+            bits = page.get(offset);
+        } while (true);
+        if (bits == ABSENT) { size.incrementAndGet(); }
+        return updated;
+    }
+
+    private int idOf(Object key) {
+        if (!(key instanceof String) || !features.hasId((String) key)) { return -1; }
+        return features.getId((String) key);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int id = idOf(key);
+        return id > 0 && hasWeight(id);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public Double get(Object key) {
+        int id = idOf(key);
+        return id > 0 && hasWeight(id) ? weight(id) : null;
+    }
+
+    @Override
+    public Double put(String key, Double value) {
+        setWeight(features.getId(key), value);
+        return value;
+    }
+
+    @Override
+    public Double remove(Object key) {
+        int id = idOf(key);
+        AtomicLongArray page = id > 0 ? page(id) : null;
+        if (page == null) { return null; }
+        long previous = page.getAndSet(id & PAGE_MASK, ABSENT);
+        if (previous == ABSENT) { return null; }
+        size.decrementAndGet();
+        return Double.longBitsToDouble(previous);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Double> m) {
+        for (Map.Entry<? extends String, ? extends Double> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (AtomicLongArray page : pages) {
+            for (int j = 0; j < PAGE_SIZE; j++) { page.set(j, ABSENT); }
+        }
+        size.set(0);
+    }
+
+    /**
+     * @return a snapshot of the features with weight, in the order of their ids
+     */
+    @Override
+    public Set<String> keySet() {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int id = 1; id <= features.size(); id++) {
+            if (hasWeight(id)) { keys.add(features.getSymbol(id)); }
+        }
+        return keys;
+    }
+
+    @Override
+    public Collection<Double> values() {
+        List<Double> values = new ArrayList<>(size());
+        for (int id = 1; id <= features.size(); id++) {
+            if (hasWeight(id)) { values.add(weight(id)); }
+        }
+        return values;
+    }
+
+    /**
+     * @return a snapshot of the weights, in the order of the feature ids
+     */
+    @Override
+    public Set<Map.Entry<String, Double>> entrySet() {
+        Set<Map.Entry<String, Double>> entries = new LinkedHashSet<>();
+        for (int id = 1; id <= features.size(); id++) {
+            if (hasWeight(id)) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(features.getSymbol(id), weight(id)));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public ParamVector<String, Double> copy() {
+        DenseParamVector copy = new DenseParamVector(features, hogwild);
+        AtomicLongArray[] current = pages;
+        AtomicLongArray[] copied = new AtomicLongArray[current.length];
+        for (int i = 0; i < current.length; i++) {
+            copied[i] = new AtomicLongArray(PAGE_SIZE);
+            for (int j = 0; j < PAGE_SIZE; j++) { copied[i].set(j, current[i].get(j)); }
+        }
+        copy.pages = copied;
+        copy.size.set(size.get());
+        return copy;
+    }
+
+    @Override
+    public void adjustValue(String key, double value) {
+        adjustWeight(features.getId(key), value);
+    }
+
+}
@@ -0,0 +1,334 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.cmu.ml.proppr.util.math;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary max heap of non-negative int ids, keyed by a double score, that keeps the position of each id in the
+ * heap, so the score of an id already in the heap can be increased or decreased in O(log n), instead of removing
+ * and adding it again.
+ * <p>
+ * Ids with higher scores come first and ties are broken by the smallest id. Each id appears at most once in the
+ * heap. As in {@link LongDense}, the index of positions is backed by an array that grows as larger ids are added,
+ * so it fits the dense ids of the {@link edu.cmu.ml.proppr.prove.wam.CachingIdProofGraph}.
+ */
+public class IndexedMaxHeap {
+
+    /**
+     * The default initial capacity.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The position of an id that is not in the heap.
+     */
+    protected static final int NOT_IN_HEAP = -1;
+
+    /**
+     * The ids, in heap order.
+     */
+    protected int[] ids;
+    /**
+     * The scores of the ids, in heap order.
+     */
+    protected double[] scores;
+    /**
+     * The position of each id in the heap, or {@link #NOT_IN_HEAP}.
+     */
+    protected int[] positions;
+    /**
+     * The number of ids in the heap.
+     */
+    protected int size;
+
+    /**
+     * Default constructor.
+     */
+    public IndexedMaxHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor with the initial capacity, which should be the expected largest id plus one.
+     *
+     * @param capacity the initial capacity
+     */
+    public IndexedMaxHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.ids = new int[capacity];
+        this.scores = new double[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, NOT_IN_HEAP);
+    }
+
+    /**
+     * Gets the number of ids in the heap.
+     *
+     * @return the number of ids in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the heap is empty.
+     *
+     * @return {@code true} if the heap is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the id is in the heap.
+     *
+     * @param id the id
+     * @return {@code true} if the id is in the heap, {@code false} otherwise
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < positions.length && positions[id] != NOT_IN_HEAP;
+    }
+
+    /**
+     * Gets the score of the id in the heap.
+     *
+     * @param id the id
+     * @return the score of the id
+     * @throws NoSuchElementException if the id is not in the heap
+     */
+    public double getScore(int id) {
+        if (!contains(id)) { throw new NoSuchElementException(String.valueOf(id)); }
+        return scores[positions[id]];
+    }
+
+    /**
+     * Adds the id with the score to the heap or, if the id is already in the heap, changes its score, in O(log n).
+     *
+     * @param id    the id
+     * @param score the score
+     */
+    public void put(int id, double score) {
+        if (id < 0) { throw new IllegalArgumentException(String.valueOf(id)); }
+        if (contains(id)) {
+            int position = positions[id];
+            double previous = scores[position];
+            scores[position] = score;
+            if (score > previous) {
+                siftUp(position);
+            } else if (score < previous) {
+                siftDown(position);
+            }
+            return;
+        }
+        ensureIdCapacity(id);
+        if (size == ids.length) {
+            int capacity = 2 * ids.length;
+            ids = Arrays.copyOf(ids, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        ids[size] = id;
+        scores[size] = score;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Gets the id with the highest score, without removing it.
+     *
+     * @return the id with the highest score
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peek() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        return ids[0];
+    }
+
+    /**
+     * Gets the highest score in the heap.
+     *
+     * @return the highest score
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public double peekScore() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        return scores[0];
+    }
+
+    /**
+     * Removes the id with the highest score from the heap.
+     *
+     * @return the id with the highest score
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() {
+        int id = peek();
+        removeAt(0);
+        return id;
+    }
+
+    /**
+     * Removes the id from the heap, in O(log n).
+     *
+     * @param id the id
+     * @return {@code true} if the id was in the heap, {@code false} otherwise
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) { return false; }
+        removeAt(positions[id]);
+        return true;
+    }
+
+    /**
+     * Removes all the ids from the heap.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) { positions[ids[i]] = NOT_IN_HEAP; }
+        size = 0;
+    }
+
+    /**
+     * Removes the id at the position, moving the last id to its place.
+     *
+     * @param position the position
+     */
+    protected void removeAt(int position) {
+        positions[ids[position]] = NOT_IN_HEAP;
+        size--;
+        if (position == size) { return; }
+        int id = ids[size];
+        place(id, scores[size], position);
+        siftDown(position);
+        if (positions[id] == position) { siftUp(position); }
+    }
+
+    /**
+     * Moves the id up the heap, while it comes before its parent.
+     *
+     * @param position the position of the id
+     */
+    protected void siftUp(int position) {
+        int id = ids[position];
+        double score = scores[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!isBefore(id, score, ids[parent], scores[parent])) { break; }
+            move(parent, position);
+            position = parent;
+        }
+        place(id, score, position);
+    }
+
+    /**
+     * Moves the id down the heap, while one of its children comes before it.
+     *
+     * @param position the position of the id
+     */
+    protected void siftDown(int position) {
+        int id = ids[position];
+        double score = scores[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && isBefore(ids[right], scores[right], ids[child], scores[child])) { child = right; }
+            if (!isBefore(ids[child], scores[child], id, score)) { break; }
+            move(child, position);
+            position = child;
+        }
+        place(id, score, position);
+    }
+
+    /**
+     * Checks if the first entry comes before the second one, that is, if it has a higher score or, in case of a
+     * tie, a smaller id.
+     *
+     * @param id         the first id
+     * @param score      the first score
+     * @param otherId    the second id
+     * @param otherScore the second score
+     * @return {@code true} if the first entry comes before the second one, {@code false} otherwise
+     */
+    protected static boolean isBefore(int id, double score, int otherId, double otherScore) {
+        return score > otherScore || score == otherScore && id < otherId;
+    }
+
+    /**
+     * Copies the entry from a position to another.
+     *
+     * @param from the position to copy from
+     * @param to   the position to copy to
+     */
+    protected void move(int from, int to) {
+        place(ids[from], scores[from], to);
+    }
+
+    /**
+     * Places the entry at the position.
+     *
+     * @param id       the id
+     * @param score    the score
+     * @param position the position
+     */
+    protected void place(int id, double score, int position) {
+        ids[position] = id;
+        scores[position] = score;
+        positions[id] = position;
+    }
+
+    /**
+     * Grows the index of positions, if needed, to hold the id.
+     *
+     * @param id the id
+     */
+    protected void ensureIdCapacity(int id) {
+        if (id < positions.length) { return; }
+        int length = positions.length;
+        positions = Arrays.copyOf(positions, Math.max(id + 1, 2 * length));
+        Arrays.fill(positions, length, positions.length, NOT_IN_HEAP);
+    }
+
+}
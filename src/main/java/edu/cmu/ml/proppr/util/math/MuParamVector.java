@@ -56,7 +56,7 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * @author "Kathryn Mazaitis <krivard@cs.cmu.edu>"
  */
-public class MuParamVector<F> extends ParamVector<F, TimestampedWeight> {
+public class MuParamVector<F> extends MapParamVector<F, TimestampedWeight> {
 
     private final ConcurrentHashMap<F, TimestampedWeight> backingStore;
     private long count = 0;
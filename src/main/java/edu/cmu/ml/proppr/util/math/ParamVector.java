@@ -43,112 +43,27 @@
 
 package edu.cmu.ml.proppr.util.math;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A parameter vector, a map from features to their weights. How the weights are stored is left to the subclasses:
+ * {@link MapParamVector} keeps them in a map, while {@link DenseParamVector} keeps them in arrays indexed by the
+ * feature ids.
+ *
+ * @param <F> the type of the features
+ * @param <T> the type of the stored values
+ */
 public abstract class ParamVector<F, T> implements Map<F, Double> {
 
-    @Override
-    public int size() {
-        return getBackingStore().size();
-    }
-
-    @Override
-    public boolean isEmpty() {
-        return getBackingStore().isEmpty();
-    }
-
-    @Override
-    public boolean containsKey(Object arg0) {
-        return getBackingStore().containsKey(arg0);
-    }
-
-    @Override
-    public boolean containsValue(Object value) {
-        return getBackingStore().containsValue(value);
-    }
-
-    @Override
-    public Double get(Object key) {
-        return getWeight(getBackingStore().get(key));
-    }
-
-    @Override
-    public Double put(F key, Double value) {
-        T nv = this.newValue(value);
-        this.getBackingStore().put(key, nv);
-        return getWeight(nv);
-    }
-
-    @Override
-    public Double remove(Object key) {
-        return getWeight(getBackingStore().remove(key));
-    }
-
-    @Override
-    public synchronized void putAll(Map<? extends F, ? extends Double> m) {
-        // synchronized to match the behavior of ConcurrentHashMap.putAll()
-        Map<F, T> back = getBackingStore();
-        for (Map.Entry<? extends F, ? extends Double> e : m.entrySet()) {
-            back.put(e.getKey(), newValue(e.getValue()));
-        }
-    }
-
-    protected abstract T newValue(Double value);
-
-    @Override
-    public void clear() {
-        getBackingStore().clear();
-    }
-
-    @Override
-    public Set<F> keySet() {
-        return getBackingStore().keySet();
-    }
-
-    protected abstract ConcurrentHashMap<F, T> getBackingStore();
-
-    @Override
-    public Collection<Double> values() {
-        Map<F, T> back = getBackingStore();
-        ArrayList<Double> result = new ArrayList<Double>(back.size());
-        for (T value : back.values()) { result.add(getWeight(value)); }
-        return result;
-    }
-
-    protected abstract Double getWeight(T value);
-
-    @Override
-    public abstract Set<Map.Entry<F, Double>> entrySet();
-
     public abstract ParamVector<F, T> copy();
 
-    public void adjustValue(F key, double value) {
-        this.safeAdjustValue(key, value);
-        //this.hogwildAdjustValue(key, value);
-    }
-
-    private void safeAdjustValue(F key, double value) {
-        T oldvalue = getBackingStore().get(key);
-        if (oldvalue == null) {
-            getBackingStore().putIfAbsent(key, newValue(0.0));
-            oldvalue = getBackingStore().get(key);
-        }
-        while (!getBackingStore().replace(key, oldvalue, newValue(getWeight(oldvalue) + value))) {
-            oldvalue = getBackingStore().get(key);
-            if (oldvalue == null) { oldvalue = newValue(0.0); }
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {}
-        }
-    }
-
-    private void hogwildAdjustValue(F key, double value) {
-        this.put(key, this.get(key) + value);
-    }
+    /**
+     * Adds the value to the weight of the feature, a feature without weight starts at 0.
+     *
+     * @param key   the feature
+     * @param value the value to add
+     */
+    public abstract void adjustValue(F key, double value);
 
     @Override
     public String toString() {
@@ -47,7 +47,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class SimpleParamVector<F> extends ParamVector<F, Double> {
+public class SimpleParamVector<F> extends MapParamVector<F, Double> {
 
     private final ConcurrentHashMap<F, Double> backingStore;
 
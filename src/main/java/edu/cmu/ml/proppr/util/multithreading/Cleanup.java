@@ -45,7 +45,7 @@ package edu.cmu.ml.proppr.util.multithreading;
 
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.*;
+import java.util.concurrent.Future;
 
 public abstract class Cleanup<Result> {
 
@@ -56,41 +56,5 @@ public abstract class Cleanup<Result> {
         return null;
     }
 
-    public Runnable cleanup(Future<Result> in, ExecutorService cleanupPool, int id) {
-        return new TryCleanup(in, cleanup(in, id), cleanupPool, id);
-    }
-
     public abstract Runnable cleanup(Future<Result> in, int id);
-
-    public class TryCleanup implements Runnable {
-
-        Runnable wrapped;
-        ExecutorService cleanupPool;
-        int id;
-        Future<Result> input;
-
-        public TryCleanup(Future<Result> in, Runnable r, ExecutorService p, int id) {
-            this.input = in;
-            this.wrapped = r;
-            this.cleanupPool = p;
-            this.id = id;
-        }
-
-        @Override
-        public void run() {
-            if (cleanupPool != null) {
-                try {
-                    Result result = input.get(50, TimeUnit.MILLISECONDS);
-                } catch (TimeoutException e) {
-                    // if we timeout, resubmit the job
-                    if (getLog() != null && getLog().isDebugEnabled()) { getLog().debug("Rescheduling #" + id); }
-                    cleanupPool.submit(this);
-                    return;
-                } catch (InterruptedException | ExecutionException e) { return; }
-            }
-
-            // otherwise pass to the wrapped runnable:
-            wrapped.run();
-        }
-    }
 }
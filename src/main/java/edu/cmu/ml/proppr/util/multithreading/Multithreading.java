@@ -48,12 +48,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
-import java.util.ArrayDeque;
-import java.util.Iterator;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
 
 public class Multithreading<In, Out> {
 
@@ -61,6 +58,10 @@ public class Multithreading<In, Out> {
     public static final int DEFAULT_THROTTLE = NO_THROTTLE;
     public static final boolean ORDER_MAINTAIN = true;
     public static final boolean DEFAULT_ORDER = ORDER_MAINTAIN;
+    /**
+     * The time an idle thread of the shared pool is kept alive.
+     */
+    public static final long KEEP_ALIVE_SECONDS = 60;
     private final boolean maintainOrder;
     /**
      * Note this log is NOT static to the class, but is
@@ -105,6 +106,14 @@ public class Multithreading<In, Out> {
     }
 
     /**
+     * Runs the transformer on each item of the streamer, on the {@link #getSharedPool()}, and blocks until
+     * complete.
+     * <p>
+     * At most {@code nThreads} items (or {@code throttle}, if it is smaller) are transformed at the same time;
+     * once this limit is reached, the streamer waits for a transformation to finish before reading the next item.
+     * The cleanups run one at a time, in the order of the items if the order is maintained, or else in the order
+     * the transformations finish.
+     *
      * @param nThreads
      * @param streamer
      * @param transformer
@@ -117,72 +126,136 @@ public class Multithreading<In, Out> {
                          + " streamer: " + streamer.getClass().getCanonicalName()
                          + " transformer: " + transformer.getClass().getCanonicalName()
                          + " throttle: " + throttle);
-        ExecutorService transformerPool = Executors.newFixedThreadPool(nThreads, new NamedThreadFactory("transformer"));
-        ExecutorService cleanupPool = Executors.newFixedThreadPool(1, new NamedThreadFactory("cleanup"));
-
-        ArrayDeque<Future<?>> transformerQueue = new ArrayDeque<Future<?>>();
+        int permits = Math.max(1, throttle > 0 ? Math.min(nThreads, throttle) : nThreads);
+        Semaphore running = new Semaphore(permits);
+        Sequencer sequencer = new Sequencer();
 
         int id = 0;
         if (log.isDebugEnabled()) { log.debug("Adding start " + (id + 1)); }
         for (In item : streamer) {
             id++;
-
-            if (throttle > 0) {
-                tidyQueue(transformerQueue);
-                if (transformerQueue.size() > throttle) {
-                    int wait = 100;
-                    if (log.isDebugEnabled()) { log.debug("Throttling @" + id + "..."); }
-                    while (transformerQueue.size() > throttle) {
-                        try {
-                            Thread.sleep(wait);
-                        } catch (InterruptedException e) {
-                            log.error("Interrupted while throttling tasks");
-                        }
-                        tidyQueue(transformerQueue);
-                        wait *= 1.5;
-                    }
-                    if (log.isDebugEnabled()) { log.debug("Throttling complete " + wait); }
-                }
-            }
-
-            Future<Out> transformerFuture = transformerPool.submit(transformer.transformer(item, id));
+            running.acquireUninterruptibly();
+            FutureTask<Out> transformerTask = new FutureTask<Out>(transformer.transformer(item, id));
+            getSharedPool().execute(new Job(transformerTask, cleanup, id, running, sequencer));
             if (log.isDebugEnabled()) { log.debug("Adding done " + (id)); }
-            if (maintainOrder) {
-                cleanupPool.submit(cleanup.cleanup(transformerFuture, null, id));
-            } else {
-                if (log.isDebugEnabled()) { log.debug("Permitting rescheduling of #" + id); }
-                cleanupPool.submit(cleanup.cleanup(transformerFuture, cleanupPool, id));
-            }
-            if (throttle > 0) { transformerQueue.add(transformerFuture); }
             if (log.isDebugEnabled()) { log.debug("Adding start " + (id + 1)); }
         }
 
         // first we wait for all transformers to finish
-        transformerPool.shutdown();
-        try {
-            transformerPool.awaitTermination(7, TimeUnit.DAYS);
-        } catch (InterruptedException e) {
-            log.error("Interrupted?", e);
+        running.acquireUninterruptibly(permits);
+        if (log.isDebugEnabled()) { log.debug("Finishing cleanup..."); }
+        sequencer.awaitCleanups(id);
+        if (log.isDebugEnabled()) { log.debug("Cleanup finished."); }
+
+        log.info("Total items: " + id);
+    }
+
+    /**
+     * Gets the process-wide pool that runs the transformers of all the jobs. Its threads are created on demand and
+     * reused across jobs, the number of threads a job uses is bounded by the job itself.
+     *
+     * @return the shared pool
+     */
+    public static ExecutorService getSharedPool() {
+        return SharedPool.POOL;
+    }
+
+    /**
+     * Holds the shared pool, so it is only created when the first job runs.
+     */
+    private static class SharedPool {
+
+        private static final ExecutorService POOL =
+                new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                       new SynchronousQueue<Runnable>(), new NamedThreadFactory("transformer", true));
+
+    }
+
+    /**
+     * Runs the transformer of an item on the shared pool, frees its slot of the job and passes the result to the
+     * {@link Sequencer}.
+     */
+    private class Job implements Runnable {
+
+        private final FutureTask<Out> transformerTask;
+        private final Cleanup<Out> cleanup;
+        private final int id;
+        private final Semaphore running;
+        private final Sequencer sequencer;
+
+        Job(FutureTask<Out> transformerTask, Cleanup<Out> cleanup, int id, Semaphore running, Sequencer sequencer) {
+            this.transformerTask = transformerTask;
+            this.cleanup = cleanup;
+            this.id = id;
+            this.running = running;
+            this.sequencer = sequencer;
         }
-        // at this point all transformers are complete, so no task in the cleanup pool will need to be rescheduled
-        cleanupPool.shutdown();
-        try {
-            if (log.isDebugEnabled()) { log.debug("Finishing cleanup..."); }
-            cleanupPool.awaitTermination(7, TimeUnit.DAYS);
-            if (log.isDebugEnabled()) { log.debug("Cleanup finished."); }
-        } catch (InterruptedException e) {
-            log.error("Interrupted?", e);
+
+        @Override
+        public void run() {
+            try {
+                transformerTask.run();
+            } finally {
+                running.release();
+            }
+            sequencer.complete(this);
         }
 
-        log.info("Total items: " + id);
+        void runCleanup() {
+            cleanup.cleanup(transformerTask, id).run();
+        }
     }
 
-    private void tidyQueue(ArrayDeque queue) {
-        synchronized (queue) {
-            for (Iterator<Future<?>> it = queue.iterator(); it.hasNext(); ) {
-                Future<?> f = it.next();
-                if (f.isDone()) { it.remove(); }
+    /**
+     * Runs the cleanups one at a time, by sequence number. If the order is maintained, the sequence number of a
+     * cleanup is the id of its item, so a cleanup waits for the cleanups of the previous items; otherwise, it is
+     * the order in which the transformers finished. The thread that completes the next expected sequence number
+     * runs the cleanups that are ready, instead of handing them to another thread.
+     */
+    private class Sequencer {
+
+        private final Map<Integer, Job> pending = new HashMap<Integer, Job>();
+        private int nextSequence = 1;
+        private int completed = 0;
+        private boolean draining = false;
+
+        void complete(Job job) {
+            synchronized (this) {
+                completed++;
+                pending.put(maintainOrder ? job.id : completed, job);
+                if (draining) { return; }
+                draining = true;
+            }
+            while (true) {
+                Job next;
+                synchronized (this) {
+                    next = pending.remove(nextSequence);
+                    if (next == null) {
+                        draining = false;
+                        notifyAll();
+                        return;
+                    }
+                    nextSequence++;
+                }
+                try {
+                    next.runCleanup();
+                } catch (RuntimeException e) {
+                    if (log.isDebugEnabled()) { log.debug("Cleanup trouble with #" + next.id, e); }
+                }
+            }
+        }
+
+        synchronized void awaitCleanups(int total) {
+            boolean interrupted = false;
+            while (nextSequence <= total || draining) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    log.error("Interrupted?", e);
+                    interrupted = true;
+                }
             }
+            if (interrupted) { Thread.currentThread().interrupt(); }
         }
     }
 
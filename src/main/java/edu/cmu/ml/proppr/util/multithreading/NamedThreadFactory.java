@@ -44,22 +44,31 @@
 package edu.cmu.ml.proppr.util.multithreading;
 
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NamedThreadFactory implements ThreadFactory {
 
-    int next = 1;
+    final AtomicInteger next = new AtomicInteger(1);
     String name;
+    boolean daemon;
 
     public NamedThreadFactory(String name) {
+        this(name, false);
+    }
+
+    public NamedThreadFactory(String name, boolean daemon) {
         this.name = name;
+        this.daemon = daemon;
     }
 
     @Override
     public Thread newThread(Runnable r) {
-        return new Thread(r, name + next++);
+        Thread thread = new Thread(r, name + next.getAndIncrement());
+        thread.setDaemon(daemon);
+        return thread;
     }
 
     public void reset() {
-        this.next = 1;
+        this.next.set(1);
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.cli;
+
+import br.ufrj.cos.util.InitializationException;
+import edu.cmu.ml.proppr.learn.SRW;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class LearningFromIterationsCLITest {
+
+    public static final String ITERATIONS_DIRECTORY = "src/main/resources/examples/uwcse/iterations";
+    public static final String CONFIGURATION_FILE = "src/main/resources/default_it.yml";
+    public static final int NUMBER_OF_ITERATIONS = 12;
+    public static final int CHECKPOINT_INTERVAL = 7;
+
+    public static final String[] OUTPUT_FILES = {
+            "theory.pl", "savedFeatureTheory.pl", "savedParameters.wts"
+    };
+    public static final String[] ITERATION_FILES = {
+            "theory.pl", "savedFeatureTheory.pl", "savedParameters.wts", "inference.train.tsv", "inference.test.tsv"
+    };
+    public static final String STATISTICS_FILE = "statistics.yaml";
+    public static final long SEED = 7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void CHECKPOINT_RESUME_TEST() throws Exception {
+        File data = folder.newFolder("data");
+        for (int i = 0; i < NUMBER_OF_ITERATIONS; i++) {
+            copyDirectory(new File(ITERATIONS_DIRECTORY, "ITERATION_" + i), new File(data, "ITERATION_" + i));
+        }
+        String configuration = new String(Files.readAllBytes(new File(CONFIGURATION_FILE).toPath()),
+                                          StandardCharsets.UTF_8);
+        // a looser bound, so the theory is revised within the few iterations
+        configuration = configuration.replaceFirst("(?m)^(\\s*delta:\\s*).*$", "$10.99");
+        configuration = configuration.replaceFirst("(?m)^(checkpointInterval:\\s*).*$", "$1" + CHECKPOINT_INTERVAL);
+        // a secure random is seeded by the system, so it is not restored by the checkpoint
+        configuration = configuration.replaceAll("(?m)^(\\s*)(maximumBasedExamples:.*)$",
+                                                 "$1$2\n$1randomGenerator: !java.util.Random {}");
+        File yaml = folder.newFile("configuration.yml");
+        Files.write(yaml.toPath(), configuration.getBytes(StandardCharsets.UTF_8));
+
+        File uninterrupted = new File(folder.getRoot(), "uninterrupted");
+        runCli(yaml, data, uninterrupted);
+        File checkpoint = new File(uninterrupted, LearningFromIterationsCLI.CHECKPOINT_FILE_NAME);
+        Assert.assertTrue(checkpoint.exists());
+        // the run is resumed from the checkpoint, as if it had stopped after saving it
+        File resumed = new File(folder.getRoot(), "resumed");
+        runCli(yaml, data, resumed, "-res", checkpoint.getAbsolutePath());
+
+        for (int i = 0; i < CHECKPOINT_INTERVAL; i++) {
+            Assert.assertFalse(new File(resumed, "ITERATION_" + i).exists());
+        }
+        for (int i = CHECKPOINT_INTERVAL; i < NUMBER_OF_ITERATIONS; i++) {
+            for (String name : ITERATION_FILES) {
+                assertSameFile(new File(uninterrupted, "ITERATION_" + i), new File(resumed, "ITERATION_" + i), name);
+            }
+        }
+        for (String name : OUTPUT_FILES) {
+            assertSameFile(uninterrupted, resumed, name);
+        }
+        Assert.assertFalse(readLines(new File(uninterrupted, "theory.pl")).isEmpty());
+        Assert.assertEquals(readEvaluations(new File(uninterrupted, STATISTICS_FILE)),
+                            readEvaluations(new File(resumed, STATISTICS_FILE)));
+    }
+
+    private static void runCli(File yaml, File data, File output, String... arguments) throws InitializationException {
+        List<String> args = new ArrayList<>(Arrays.asList("-y", yaml.getAbsolutePath(), "-d", data.getAbsolutePath(),
+                                                          "-o", output.getAbsolutePath(), "-so"));
+        args.addAll(Arrays.asList(arguments));
+        String[] array = args.toArray(new String[0]);
+        SRW.seed(SEED);
+        CommandLineInterface.run(new LearningFromIterationsCLI().parseOptions(array), array);
+    }
+
+    private static void copyDirectory(File source, File destination) throws IOException {
+        Assert.assertTrue(destination.mkdirs());
+        File[] files = source.listFiles();
+        Assert.assertNotNull(files);
+        for (File file : files) {
+            Files.copy(file.toPath(), new File(destination, file.getName()).toPath());
+        }
+    }
+
+    private static void assertSameFile(File expected, File actual, String name) throws IOException {
+        Assert.assertEquals(name, readLines(new File(expected, name)), readLines(new File(actual, name)));
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        Path path = file.toPath();
+        return Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Reads the evaluations of the iterations from the statistics file. Each evaluation is read as the set of its
+     * lines, since the order of the metrics in the file is not defined.
+     *
+     * @param file the statistics file
+     * @return the evaluations, by the name of the evaluation list
+     * @throws IOException if an error occurs when reading the file
+     */
+    private static Map<String, List<Set<String>>> readEvaluations(File file) throws IOException {
+        Map<String, List<Set<String>>> evaluations = new HashMap<>();
+        List<Set<String>> current = null;
+        for (String line : readLines(file)) {
+            if (line.startsWith("iterationTrainEvaluation:") || line.startsWith("iterationTestEvaluation:")) {
+                current = new ArrayList<>();
+                evaluations.put(line.trim(), current);
+            } else if (!line.startsWith(" ") && !line.startsWith("-")) {
+                current = null;
+            } else if (current != null) {
+                if (line.startsWith("-")) { current.add(new HashSet<>()); }
+                current.get(current.size() - 1).add(line.substring(2).trim());
+            }
+        }
+        Assert.assertEquals(2, evaluations.size());
+        return evaluations;
+    }
+
+}
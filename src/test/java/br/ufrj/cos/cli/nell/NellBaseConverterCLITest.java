@@ -0,0 +1,112 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.cli.nell;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the converter gives byte-identical outputs to the sequential converter, whatever the number of
+ * readers and the size of their batches. The expected outputs were saved by the sequential converter, from the same
+ * files without the comment and empty lines, which it could not skip.
+ */
+public class NellBaseConverterCLITest {
+
+    public static final String INPUT_DIRECTORY = "src/test/resources/nell";
+    public static final String EXPECTED_DIRECTORY = "src/test/resources/nell/expected";
+    public static final String[] INPUT_FILES = {"iteration_0.tsv", "iteration_1.tsv", "iteration_2.tsv.gz"};
+    public static final int[] NUMBER_OF_READERS = {1, 2, 3};
+    public static final int[] READER_BATCH_SIZES = {1, 2, NellBaseConverterCLI.DEFAULT_READER_BATCH_SIZE};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void SAME_OUTPUT_TEST() throws IOException {
+        Map<String, byte[]> expected = readFiles(new File(EXPECTED_DIRECTORY));
+        Assert.assertFalse(expected.isEmpty());
+        for (int readers : NUMBER_OF_READERS) {
+            for (int batchSize : READER_BATCH_SIZES) {
+                File output = folder.newFolder();
+                TestConverter converter = new TestConverter(output);
+                converter.numberOfReaders = readers;
+                converter.readerBatchSize = batchSize;
+                converter.readerQueueSize = 1;
+                converter.run();
+
+                Map<String, byte[]> actual = readFiles(new File(output, converter.dataDirectoryName));
+                String message = readers + " reader(s) with batches of " + batchSize + ": ";
+                Assert.assertEquals(message, expected.keySet(), actual.keySet());
+                for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                    Assert.assertArrayEquals(message + entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+                }
+            }
+        }
+    }
+
+    private static Map<String, byte[]> readFiles(File directory) throws IOException {
+        Path root = directory.toPath();
+        Map<String, byte[]> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                files.put(root.relativize(path).toString(), Files.readAllBytes(path));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * The converter of the input files to the output directory.
+     */
+    private static class TestConverter extends NellBaseConverterCLI {
+
+        TestConverter(File output) {
+            outputDirectory = output;
+            nellInputFilePaths = new String[INPUT_FILES.length];
+            for (int i = 0; i < INPUT_FILES.length; i++) {
+                nellInputFilePaths[i] = new File(INPUT_DIRECTORY, INPUT_FILES[i]).getPath();
+            }
+        }
+
+    }
+
+}
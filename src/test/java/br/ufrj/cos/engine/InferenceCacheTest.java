@@ -0,0 +1,135 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.engine;
+
+import br.ufrj.cos.engine.proppr.ProPprEngineSystemTranslator;
+import br.ufrj.cos.engine.proppr.SyntheticBase;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Clause;
+import br.ufrj.cos.logic.HornClause;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+public class InferenceCacheTest {
+
+    private static final long SEED = 42;
+    private static final int CONSTANTS = 50;
+
+    @Test
+    public void CANONICAL_RENAMING_TEST() throws ParseException {
+        String clause = InferenceCache.formatCanonicalClauses(parse("target(X, Y) :- edge(X, Z), edge(Z, Y)."));
+        Assert.assertEquals(clause,
+                            InferenceCache.formatCanonicalClauses(parse("target(A, B) :- edge(A, C), edge(C, B).")));
+        Assert.assertFalse(clause.equals(
+                InferenceCache.formatCanonicalClauses(parse("target(X, Y) :- edge(Y, Z), edge(Z, X)."))));
+        Assert.assertFalse(clause.equals(
+                InferenceCache.formatCanonicalClauses(parse("target(X, Y) :- edge(X, Z), edge(Z, b)."))));
+    }
+
+    @Test
+    public void CACHED_INFERENCE_TEST() throws ParseException {
+        Random random = new Random(SEED);
+        List<Atom> facts = SyntheticBase.buildFacts(CONSTANTS, 4 * CONSTANTS, random);
+        List<ProPprExample> examples = SyntheticBase.buildExamples(facts, CONSTANTS, 10, 3, random);
+        ProPprEngineSystemTranslator<?> translator = SyntheticBase.buildTranslator(facts);
+        InferenceCache cache = new InferenceCache(Long.MAX_VALUE);
+
+        List<HornClause> clauses = parse("target(X, Y) :- edge(X, Z), edge(Z, Y) {two}.");
+        List<HornClause> renamed = parse("target(A, B) :- edge(A, C), edge(C, B) {two}.");
+        Assert.assertEquals(translator.inferExamples(clauses, examples),
+                            cache.inferExamples(translator, clauses, examples));
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(examples.size(), cache.getMisses());
+        Assert.assertEquals(translator.inferExamples(clauses, examples),
+                            cache.inferExamples(translator, renamed, examples));
+        Assert.assertEquals(examples.size(), cache.getHits());
+
+        translator.setTheory(SyntheticBase.buildTheory());
+        cache.inferExamples(translator, clauses, examples.subList(0, 1));
+        Assert.assertEquals(1, cache.getInvalidations());
+        Assert.assertEquals(examples.size() + 1, cache.getMisses());
+    }
+
+    @Test
+    public void SHARED_ENGINES_TEST() throws ParseException {
+        Random random = new Random(SEED);
+        List<Atom> facts = SyntheticBase.buildFacts(CONSTANTS, 4 * CONSTANTS, random);
+        List<ProPprExample> examples = SyntheticBase.buildExamples(facts, CONSTANTS, 10, 3, random);
+        ProPprEngineSystemTranslator<?> first = SyntheticBase.buildTranslator(facts);
+        ProPprEngineSystemTranslator<?> second = SyntheticBase.buildTranslator(facts);
+        Assert.assertTrue(first.getTheoryGeneration() != second.getTheoryGeneration());
+        InferenceCache cache = new InferenceCache(Long.MAX_VALUE);
+
+        List<HornClause> clauses = parse("target(X, Y) :- edge(X, Z), edge(Z, Y) {two}.");
+        cache.inferExamples(first, clauses, examples);
+        cache.inferExamples(second, clauses, examples);
+        Assert.assertEquals(2 * examples.size(), cache.getMisses());
+        cache.inferExamples(first, clauses, examples);
+        cache.inferExamples(second, clauses, examples);
+        Assert.assertEquals(2 * examples.size(), cache.getHits());
+
+        first.setTheory(SyntheticBase.buildTheory());
+        cache.inferExamples(first, clauses, examples);
+        Assert.assertEquals(1, cache.getInvalidations());
+        Assert.assertEquals(3 * examples.size(), cache.getMisses());
+        Assert.assertEquals(second.inferExamples(clauses, examples), cache.inferExamples(second, clauses, examples));
+        Assert.assertEquals(3 * examples.size(), cache.getHits());
+    }
+
+    @Test
+    public void BOUNDED_SIZE_TEST() throws ParseException {
+        Random random = new Random(SEED);
+        List<Atom> facts = SyntheticBase.buildFacts(CONSTANTS, 4 * CONSTANTS, random);
+        List<ProPprExample> examples = SyntheticBase.buildExamples(facts, CONSTANTS, 10, 3, random);
+        ProPprEngineSystemTranslator<?> translator = SyntheticBase.buildTranslator(facts);
+        InferenceCache cache = new InferenceCache(5);
+
+        cache.inferExamples(translator, parse("target(X, Y) :- edge(X, Z), edge(Z, Y)."), examples);
+        Assert.assertTrue(cache.size() <= 5);
+        Assert.assertTrue(cache.getEvictions() > 0);
+    }
+
+    private static List<HornClause> parse(String content) throws ParseException {
+        List<HornClause> clauses = new ArrayList<>();
+        List<Clause> parsed = new KnowledgeParser(new StringReader(content)).parseKnowledge();
+        for (Clause clause : parsed) {
+            clauses.add((HornClause) clause);
+        }
+        return clauses;
+    }
+
+}
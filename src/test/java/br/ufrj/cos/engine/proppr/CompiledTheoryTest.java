@@ -0,0 +1,198 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.engine.proppr.query.answerer.QueryIterable;
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import edu.cmu.ml.proppr.prove.wam.WamProgram;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Checks that the programs built by the {@link CompiledTheory}, on top of the already compiled theory, give the
+ * same answers as compiling the whole theory with the candidate clauses.
+ */
+public class CompiledTheoryTest {
+
+    public static final String FACTS = "" +
+            "edge(a, b). edge(a, c). edge(b, c). edge(b, d). edge(c, d). edge(c, a). " +
+            "edge(d, e). edge(e, b). edge(e, f). edge(f, a). color(a, red). color(c, red). color(e, blue).";
+    public static final String THEORY = "" +
+            "path(X, Y) :- edge(X, Y) {direct}. " +
+            "path(X, Y) :- edge(X, Z), path(Z, Y) {indirect}. " +
+            "target(X, Y) :- edge(X, Y), color(Y, red) {red(X)}.";
+    public static final String CANDIDATES = "" +
+            "target(X, Y) :- edge(Y, X) {back}. " +
+            "target(X, Y) :- edge(X, Z), edge(Z, Y) {two(Z)}. " +
+            "target(X, Y) :- path(X, Y), color(Y, blue) {direct}. " +
+            "target(X, Y) :- edge(X, Y), color(Y, red) {red(X)}. " +
+            "path(X, Y) :- edge(Y, X) {reverse}. " +
+            "colored(X, Y) :- color(X, Y) {colored(Y)}.";
+    public static final String[] SOURCES = {"a", "b", "c", "d", "e", "f"};
+    public static final String[] PREDICATES = {"target", "path", "colored"};
+
+    private static final double TOLERANCE = 1e-12;
+
+    private ProPprEngineSystemTranslator<?> translator;
+    private Theory theory;
+    private List<ProPprExample> examples;
+
+    @Before
+    public void setUp() throws ParseException {
+        List<Clause> clauses = new KnowledgeParser(new StringReader(FACTS)).parseKnowledge();
+        List<Atom> facts = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) { facts.add((Atom) clause); }
+        translator = new ProPprEngineSystemTranslator<>();
+        translator.numberOfThreads = 1;
+        translator.setKnowledgeBase(new KnowledgeBase(facts));
+        theory = new Theory(new ArrayList<>());
+        theory.addAll(parse(THEORY));
+        translator.setTheory(theory);
+        translator.initialize();
+
+        examples = new ArrayList<>();
+        for (String predicateName : PREDICATES) {
+            Predicate predicate = new Predicate(predicateName, 2);
+            for (String source : SOURCES) {
+                Atom goal = new Atom(predicate, Arrays.asList(new Constant(source), new Variable("Y")));
+                AtomExample answer = new AtomExample(predicate, Arrays.asList(new Constant(source),
+                                                                              new Constant("a")));
+                examples.add(new ProPprExample(goal, Collections.singletonList(answer)));
+            }
+        }
+    }
+
+    @Test
+    public void APPEND_CLAUSES_TEST() throws ParseException {
+        for (HornClause candidate : parse(CANDIDATES)) {
+            assertSameAnswers(candidate.toString(), infer(compileAppending(Collections.singleton(candidate))),
+                              infer(translator.compiledTheory.appendClauses(Collections.singleton(candidate))));
+        }
+        assertSameAnswers("all", infer(compileAppending(parse(CANDIDATES))),
+                          infer(translator.compiledTheory.appendClauses(parse(CANDIDATES))));
+    }
+
+    @Test
+    public void COMPILE_CANDIDATE_THEORY_TEST() throws ParseException {
+        for (HornClause candidate : parse(CANDIDATES)) {
+            List<HornClause> clauses = new ArrayList<>(theory);
+            clauses.add(candidate);
+            assertSameAnswers(candidate.toString(), infer(ProPprUtils.compileTheory(clauses)),
+                              infer(translator.compiledTheory.compile(clauses)));
+        }
+    }
+
+    @Test
+    public void COMPILE_THEORY_WITHOUT_CLAUSE_TEST() throws ParseException {
+        // the candidates must not contain the removed clause, otherwise it would not be a different theory
+        Set<String> theoryClauses = new HashSet<>();
+        for (HornClause clause : theory) { theoryClauses.add(clause.toString()); }
+        List<HornClause> candidates = new ArrayList<>();
+        for (HornClause candidate : parse(CANDIDATES)) {
+            if (!theoryClauses.contains(candidate.toString())) { candidates.add(candidate); }
+        }
+        for (int i = 0; i < theory.size(); i++) {
+            List<HornClause> clauses = new ArrayList<>(theory);
+            clauses.remove(i);
+            clauses.addAll(candidates);
+            assertSameAnswers(String.valueOf(i), infer(ProPprUtils.compileTheory(clauses)),
+                              infer(translator.compiledTheory.compile(clauses)));
+        }
+    }
+
+    @Test
+    public void COMPILED_PROGRAM_UNCHANGED_TEST() throws ParseException {
+        Map<Example, Map<Atom, Double>> expected = infer(ProPprUtils.compileTheory(theory));
+        assertSameAnswers("before", expected, infer(translator.compiledTheory.getProgram()));
+        translator.compiledTheory.appendClauses(parse(CANDIDATES));
+        translator.compiledTheory.compile(concatenate(theory, parse(CANDIDATES)));
+        assertSameAnswers("after", expected, infer(translator.compiledTheory.getProgram()));
+    }
+
+    /**
+     * Compiles the whole theory and then appends the clauses to it, as it was done before the {@link CompiledTheory}.
+     * As in there, the feature rules of the appended clauses are appended even if the theory already has them.
+     *
+     * @param appendClauses the clauses to append
+     * @return the program
+     */
+    private WamProgram compileAppending(Iterable<? extends HornClause> appendClauses) {
+        WamProgram program = ProPprUtils.compileTheory(theory);
+        ProPprUtils.appendRuleToProgram(appendClauses, program);
+        return program;
+    }
+
+    private Map<Example, Map<Atom, Double>> infer(WamProgram program) {
+        return translator.inferExamples(new QueryIterable(examples), translator.buildAnswerer(program));
+    }
+
+    private static void assertSameAnswers(String message, Map<Example, Map<Atom, Double>> expected,
+                                          Map<Example, Map<Atom, Double>> actual) {
+        Assert.assertEquals(message, expected.keySet(), actual.keySet());
+        boolean anyAnswer = false;
+        for (Map.Entry<Example, Map<Atom, Double>> entry : expected.entrySet()) {
+            Map<Atom, Double> answers = actual.get(entry.getKey());
+            Assert.assertEquals(message, entry.getValue().keySet(), answers.keySet());
+            for (Map.Entry<Atom, Double> answer : entry.getValue().entrySet()) {
+                Assert.assertEquals(message + " " + answer.getKey(), answer.getValue(),
+                                    answers.get(answer.getKey()), TOLERANCE);
+            }
+            anyAnswer |= !answers.isEmpty();
+        }
+        Assert.assertTrue(message, anyAnswer);
+    }
+
+    private static List<HornClause> concatenate(Collection<? extends HornClause> first,
+                                                Collection<? extends HornClause> second) {
+        List<HornClause> clauses = new ArrayList<>(first);
+        clauses.addAll(second);
+        return clauses;
+    }
+
+    private static List<HornClause> parse(String content) throws ParseException {
+        List<Clause> clauses = new KnowledgeParser(new StringReader(content)).parseKnowledge();
+        List<HornClause> hornClauses = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) { hornClauses.add((HornClause) clause); }
+        return hornClauses;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Clause;
+import br.ufrj.cos.logic.HornClause;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import edu.cmu.ml.proppr.prove.wam.plugins.ColumnarFactsPlugin;
+import edu.cmu.ml.proppr.prove.wam.plugins.FactsPlugin;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Compares the memory and the inference throughput of the {@link FactsPlugin} against the
+ * {@link ColumnarFactsPlugin}, on a synthetic base. It also checks that both give the same answers, with and without
+ * the ternary index.
+ * <p>
+ * The clauses appended to the theory query the facts with the first, the second, and both arguments bound.
+ * <p>
+ * Usage: {@code FactStoreBenchmark [constants] [facts] [examples] [rounds]}
+ */
+public class FactStoreBenchmark {
+
+    private static final long SEED = 42;
+    private static final double TOLERANCE = 1e-9;
+    private static final String CLAUSES = "target(X, Y) :- edge(X, Z), edge(Y, Z) {sibling}.\n" +
+            "target(X, Y) :- edge(X, Y), edge(Y, X) {mutual}.\n";
+
+    public static void main(String[] args) throws Exception {
+        int constants = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int facts = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int examples = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        Random random = new Random(SEED);
+        List<Atom> atoms = SyntheticBase.buildFacts(constants, facts, random);
+        List<ProPprExample> exampleList = SyntheticBase.buildExamples(atoms, constants, examples, 10, random);
+        KnowledgeBase knowledgeBase = new KnowledgeBase(atoms);
+        List<HornClause> clauses = new ArrayList<>();
+        List<Clause> parsed = new KnowledgeParser(new StringReader(CLAUSES)).parseKnowledge();
+        for (Clause clause : parsed) {
+            clauses.add((HornClause) clause);
+        }
+
+        for (boolean ternary : new boolean[]{false, true}) {
+            ProPprEngineSystemTranslator<?> objects = buildTranslator(knowledgeBase, ternary, false);
+            ProPprEngineSystemTranslator<?> columnar = buildTranslator(knowledgeBase, ternary, true);
+            boolean equals = equals(objects.inferExamples(clauses, exampleList),
+                                    columnar.inferExamples(clauses, exampleList));
+            System.out.printf("Ternary index %s, same answers: %s%n", ternary, equals);
+            for (int round = 0; round < rounds; round++) {
+                System.out.printf("Round %d:\tfacts %.1f ms\tcolumnar %.1f ms%n", round,
+                                  timeInference(objects, clauses, exampleList) / 1e6,
+                                  timeInference(columnar, clauses, exampleList) / 1e6);
+            }
+        }
+
+        for (boolean columnar : new boolean[]{false, true}) {
+            long before = usedMemory();
+            long begin = System.nanoTime();
+            ProPprEngineSystemTranslator<?> translator = buildTranslator(knowledgeBase, false, columnar);
+            long time = System.nanoTime() - begin;
+            long memory = usedMemory() - before;
+            System.out.printf("%s: loaded %d facts in %.1f ms, using %.1f MB%n",
+                              translator.factsPlugin.getClass().getSimpleName(), atoms.size(), time / 1e6,
+                              memory / (1024.0 * 1024.0));
+        }
+    }
+
+    private static ProPprEngineSystemTranslator<?> buildTranslator(KnowledgeBase knowledgeBase, boolean ternary,
+                                                                   boolean columnar) throws Exception {
+        ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+        translator.useTernayIndex = ternary;
+        translator.useColumnarFacts = columnar;
+        translator.setKnowledgeBase(knowledgeBase);
+        translator.setTheory(SyntheticBase.buildTheory());
+        translator.initialize();
+        return translator;
+    }
+
+    private static long timeInference(ProPprEngineSystemTranslator<?> translator, List<HornClause> clauses,
+                                      List<ProPprExample> examples) {
+        long begin = System.nanoTime();
+        translator.inferExamples(clauses, examples);
+        return System.nanoTime() - begin;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) { System.gc(); }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static boolean equals(Map<Example, Map<Atom, Double>> expected, Map<Example, Map<Atom, Double>> actual) {
+        if (!expected.keySet().equals(actual.keySet())) { return false; }
+        for (Map.Entry<Example, Map<Atom, Double>> entry : expected.entrySet()) {
+            Map<Atom, Double> answers = actual.get(entry.getKey());
+            if (!entry.getValue().keySet().equals(answers.keySet())) { return false; }
+            for (Map.Entry<Atom, Double> answer : entry.getValue().entrySet()) {
+                if (Math.abs(answer.getValue() - answers.get(answer.getKey())) > TOLERANCE) { return false; }
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Clause;
+import br.ufrj.cos.logic.HornClause;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import edu.cmu.ml.proppr.prove.wam.WamProgram;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Compares the evaluation of candidate clauses compiling the whole theory for each candidate against appending the
+ * candidate to the shared compiled theory, on a synthetic base. The answers of both programs are checked by the
+ * {@link CompiledTheoryTest}.
+ * <p>
+ * Usage: {@code IncrementalCompilationBenchmark [theory clauses] [candidates]}
+ */
+public class IncrementalCompilationBenchmark {
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        int theoryClauses = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int candidates = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Random random = new Random(SEED);
+        List<Atom> atoms = SyntheticBase.buildFacts(1000, 5000, random);
+        ProPprEngineSystemTranslator<?> translator = SyntheticBase.buildTranslator(atoms);
+        Theory theory = buildTheory(theoryClauses);
+        translator.setTheory(theory);
+        translator.initialize();
+
+        List<HornClause> candidateClauses = parse(buildCandidates(candidates));
+
+        for (int round = 0; round < 2; round++) {
+            long begin = System.nanoTime();
+            for (HornClause candidate : candidateClauses) {
+                WamProgram program = ProPprUtils.compileTheory(theory);
+                ProPprUtils.appendRuleToProgram(Collections.singleton(candidate), program);
+            }
+            long full = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            for (HornClause candidate : candidateClauses) {
+                translator.compiledTheory.appendClauses(Collections.singleton(candidate));
+            }
+            long incremental = System.nanoTime() - begin;
+            System.out.printf("Round %d, compiling %d candidates: full %.2f ms\tincremental %.2f ms%n", round,
+                              candidates, full / 1e6, incremental / 1e6);
+        }
+    }
+
+    /**
+     * Builds a theory with the synthetic clauses followed by the given number of auxiliary clauses, half of them
+     * with variable features.
+     *
+     * @param size the number of auxiliary clauses
+     * @return the theory
+     * @throws ParseException if an error occurs when parsing the theory
+     */
+    private static Theory buildTheory(int size) throws ParseException {
+        StringBuilder builder = new StringBuilder(SyntheticBase.THEORY);
+        for (int i = 0; i < size; i++) {
+            builder.append("aux").append(i).append("(X, Y) :- edge(X, Z), edge(Z, Y) {");
+            builder.append(i % 2 == 0 ? "aux" + i : "path(Z)").append("}.\n");
+        }
+        Theory theory = new Theory(new ArrayList<>());
+        theory.addAll(parse(builder.toString()));
+        return theory;
+    }
+
+    private static String buildCandidates(int size) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            builder.append("target(X, Y) :- edge(Y, X), edge(X, ").append(SyntheticBase.CONSTANT_PREFIX).append(i)
+                    .append(") {").append(i % 2 == 0 ? "candidate" + i : "path(X)").append("}.\n");
+        }
+        return builder.toString();
+    }
+
+    private static List<HornClause> parse(String content) throws ParseException {
+        List<Clause> clauses = new KnowledgeParser(new StringReader(content)).parseKnowledge();
+        List<HornClause> hornClauses = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) { hornClauses.add((HornClause) clause); }
+        return hornClauses;
+    }
+
+}
@@ -29,11 +29,20 @@
 
 package br.ufrj.cos.engine.proppr;
 
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.ProPprExample;
 import br.ufrj.cos.knowledge.theory.Theory;
-import br.ufrj.cos.logic.Clause;
-import br.ufrj.cos.logic.HornClause;
+import br.ufrj.cos.logic.*;
 import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import edu.cmu.ml.proppr.learn.SRW;
+import edu.cmu.ml.proppr.prove.DprProver;
+import edu.cmu.ml.proppr.prove.IdDprProver;
 import edu.cmu.ml.proppr.prove.wam.WamProgram;
+import edu.cmu.ml.proppr.prove.wam.plugins.ColumnarFactsPlugin;
+import edu.cmu.ml.proppr.util.APROptions;
+import edu.cmu.ml.proppr.util.math.DenseParamVector;
+import edu.cmu.ml.proppr.util.math.SimpleParamVector;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -41,8 +50,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Created on 02/05/17.
@@ -78,4 +86,133 @@ public class ProPprEngineTest {
 
     }
 
+    @Test
+    public void FACT_REMOVAL_TEST() throws Exception {
+        for (boolean columnar : new boolean[]{false, true}) {
+            ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+            translator.useColumnarFacts = columnar;
+            translator.setKnowledgeBase(new KnowledgeBase(Arrays.asList(edge(0, 1), edge(0, 2), edge(1, 2))));
+            translator.setTheory(SyntheticBase.buildTheory());
+            translator.initialize();
+            Assert.assertEquals(set(1, 2), inferAnswers(translator));
+
+            long generation = translator.getKnowledgeGeneration();
+            translator.removeAtomsFromKnowledgeBase(Collections.singleton(edge(0, 1)));
+            Assert.assertTrue(translator.getKnowledgeGeneration() > generation);
+            Assert.assertEquals(set(2), inferAnswers(translator));
+
+            translator.replaceAtomsInKnowledgeBase(Collections.singleton(edge(0, 2)),
+                                                   Collections.singleton(edge(0, 3)));
+            Assert.assertEquals(set(3), inferAnswers(translator));
+        }
+    }
+
+    @Test
+    public void ZERO_ARITY_FACT_TEST() {
+        ColumnarFactsPlugin plugin = new ColumnarFactsPlugin(new APROptions(), "facts", false);
+        for (int i = 0; i < 20; i++) { plugin.addWeightedFact("flag", i % 2 == 0 ? 1.0 : 0.5); }
+        Assert.assertEquals(20, plugin.numberOfFacts());
+        Assert.assertTrue(plugin.removeFact("flag"));
+        Assert.assertEquals(0, plugin.numberOfFacts());
+        plugin.addWeightedFact("flag", 0.5);
+        Assert.assertEquals(1, plugin.numberOfFacts());
+    }
+
+    @Test
+    public void PROOF_BUDGET_TEST() throws Exception {
+        Random random = new Random(7);
+        List<Atom> facts = SyntheticBase.buildFacts(300, 3000, random);
+        List<ProPprExample> examples = SyntheticBase.buildExamples(facts, 300, 10, 3, random);
+        for (boolean identifier : new boolean[]{false, true}) {
+            int unbounded = countAnswers(buildProver(facts, identifier, APROptions.NO_BUDGET), examples);
+            int bounded = countAnswers(buildProver(facts, identifier, 20), examples);
+            Assert.assertTrue(bounded < unbounded);
+        }
+    }
+
+    @Test
+    public void DENSE_PARAMETERS_TEST() throws Exception {
+        Random random = new Random(11);
+        List<Atom> facts = SyntheticBase.buildFacts(100, 600, random);
+        List<ProPprExample> examples = SyntheticBase.buildExamples(facts, 100, 20, 3, random);
+        Map<String, Double> expected = trainTwice(facts, examples, false);
+        Map<String, Double> dense = trainTwice(facts, examples, true);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.keySet(), dense.keySet());
+        for (Map.Entry<String, Double> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getKey(), entry.getValue(), dense.get(entry.getKey()), 1e-9);
+        }
+    }
+
+    /**
+     * Trains and saves the parameters twice, so the second training starts from the parameters of the first.
+     *
+     * @param facts    the facts
+     * @param examples the examples
+     * @param dense    if the parameters are trained in a {@link DenseParamVector}
+     * @return the saved parameters
+     * @throws Exception if an error occurs when building the translator
+     */
+    private static Map<String, Double> trainTwice(List<Atom> facts, List<ProPprExample> examples,
+                                                  boolean dense) throws Exception {
+        ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+        translator.denseParameters = dense;
+        translator.setKnowledgeBase(new KnowledgeBase(new ArrayList<>(facts)));
+        translator.setTheory(SyntheticBase.buildTheory());
+        translator.initialize();
+        // the weights of new features are randomly perturbed
+        SRW.seed(11);
+        for (int i = 0; i < 2; i++) {
+            translator.trainParameters(examples);
+            Assert.assertTrue(translator.currentParamVector instanceof SimpleParamVector);
+            translator.saveTrainedParameters();
+        }
+        return new HashMap<>(translator.savedParamVector);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ProPprEngineSystemTranslator<?> buildProver(List<Atom> facts, boolean identifier,
+                                                               int nodeBudget) throws Exception {
+        ProPprEngineSystemTranslator translator = new ProPprEngineSystemTranslator();
+        translator.aprOptions = new APROptions();
+        translator.aprOptions.nodeBudget = nodeBudget;
+        translator.prover = identifier ? new IdDprProver(translator.aprOptions) :
+                new DprProver(translator.aprOptions);
+        translator.setKnowledgeBase(new KnowledgeBase(new ArrayList<>(facts)));
+        translator.setTheory(SyntheticBase.buildTheory());
+        translator.initialize();
+        return translator;
+    }
+
+    private static int countAnswers(ProPprEngineSystemTranslator<?> translator, List<ProPprExample> examples) {
+        int answers = 0;
+        for (Map<Atom, Double> values : translator.inferExamples(examples).values()) { answers += values.size(); }
+        return answers;
+    }
+
+    private static Atom edge(int first, int second) {
+        return SyntheticBase.buildAtom(SyntheticBase.EDGE_PREDICATE, first, second);
+    }
+
+    private static Set<Term> set(int... constants) {
+        Set<Term> terms = new HashSet<>();
+        for (int constant : constants) { terms.add(SyntheticBase.buildConstant(constant)); }
+        return terms;
+    }
+
+    private static Set<Term> inferAnswers(ProPprEngineSystemTranslator<?> translator) {
+        List<AtomExample> atomExamples = new ArrayList<>();
+        for (int i = 1; i < 4; i++) {
+            atomExamples.add(new AtomExample(SyntheticBase.buildAtom(SyntheticBase.TARGET_PREDICATE, 0, i), true));
+        }
+        Atom goal = new Atom(SyntheticBase.TARGET_PREDICATE, Arrays.asList(SyntheticBase.buildConstant(0),
+                                                                           new Variable("Y")));
+        ProPprExample example = new ProPprExample(goal, atomExamples);
+        Set<Term> answers = new HashSet<>();
+        for (Atom atom : translator.inferExamples(example).get(example).keySet()) {
+            answers.add(atom.getTerms().get(1));
+        }
+        return answers;
+    }
+
 }
@@ -0,0 +1,235 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Variable;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import edu.cmu.ml.proppr.prove.DprProver;
+import edu.cmu.ml.proppr.prove.PriorityQueueProver;
+import edu.cmu.ml.proppr.prove.Prover;
+import edu.cmu.ml.proppr.prove.wam.CachingIdProofGraph;
+import edu.cmu.ml.proppr.prove.wam.LogicProgramException;
+import edu.cmu.ml.proppr.prove.wam.State;
+import edu.cmu.ml.proppr.util.APROptions;
+import edu.cmu.ml.proppr.util.StatusLogger;
+import edu.cmu.ml.proppr.util.math.LongDense;
+
+import java.util.*;
+
+/**
+ * Compares the proof throughput of the {@link PriorityQueueProver}, whose frontier is an indexed heap, against the
+ * former frontier, based on a {@link PriorityQueue} that is searched linearly at every update, and against the
+ * {@link DprProver}, on a synthetic power law graph. The sources of the edges follow the power law, so the queries,
+ * which are also drawn from the power law, start from hub entities with very high out degree.
+ * <p>
+ * Usage: {@code ProverBenchmark [constants] [facts] [queries] [repetitions]}
+ */
+public class ProverBenchmark {
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        int constants = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int facts = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int repetitions = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        Random random = new Random(SEED);
+        List<Atom> atoms = buildFacts(constants, facts, random);
+        List<ProPprExample> examples = buildQueries(constants, queries, random);
+
+        // two rounds of each prover, the first one warms up the JIT
+        for (int round = 0; round < 2; round++) {
+            benchmark("PriorityQueue", new LegacyPriorityQueueProver(), atoms, examples, repetitions);
+            benchmark("IndexedMaxHeap", new PriorityQueueProver(), atoms, examples, repetitions);
+            benchmark("Dpr", new DprProver(), atoms, examples, repetitions);
+        }
+    }
+
+    /**
+     * Builds the edge facts, whose sources follow the power law.
+     *
+     * @param numberOfConstants the number of constants
+     * @param numberOfFacts     the number of facts
+     * @param random            the random generator
+     * @return the facts
+     */
+    protected static List<Atom> buildFacts(int numberOfConstants, int numberOfFacts, Random random) {
+        Set<Atom> facts = new LinkedHashSet<>(numberOfFacts);
+        while (facts.size() < numberOfFacts) {
+            facts.add(SyntheticBase.buildAtom(SyntheticBase.EDGE_PREDICATE,
+                                              SyntheticBase.powerLawIndex(numberOfConstants, random),
+                                              random.nextInt(numberOfConstants)));
+        }
+        return new ArrayList<>(facts);
+    }
+
+    /**
+     * Builds the queries, whose sources follow the power law.
+     *
+     * @param numberOfConstants the number of constants
+     * @param numberOfQueries   the number of queries
+     * @param random            the random generator
+     * @return the queries
+     */
+    protected static List<ProPprExample> buildQueries(int numberOfConstants, int numberOfQueries, Random random) {
+        List<ProPprExample> examples = new ArrayList<>(numberOfQueries);
+        for (int i = 0; i < numberOfQueries; i++) {
+            int source = SyntheticBase.powerLawIndex(numberOfConstants, random);
+            Atom goal = new Atom(SyntheticBase.TARGET_PREDICATE,
+                                 Arrays.asList(SyntheticBase.buildConstant(source), new Variable("Y")));
+            Atom answer = SyntheticBase.buildAtom(SyntheticBase.TARGET_PREDICATE, source,
+                                                  random.nextInt(numberOfConstants));
+            examples.add(new ProPprExample(goal, Collections.singletonList(new AtomExample(answer, true))));
+        }
+        return examples;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void benchmark(String label, Prover<?> prover, List<Atom> atoms, List<ProPprExample> examples,
+                                  int repetitions) throws ParseException {
+        ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+        translator.numberOfThreads = 1;
+        translator.prover = (Prover) prover;
+        translator.setKnowledgeBase(new KnowledgeBase(new ArrayList<>(atoms)));
+        translator.setTheory(SyntheticBase.buildTheory());
+        translator.initialize();
+        int answers = 0;
+        double checksum = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            for (Map<Atom, Double> inferred : translator.inferExamples(examples).values()) {
+                answers += inferred.size();
+                for (Double value : inferred.values()) { checksum += value; }
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-15s %10.2f queries/s\t%8d answers\t(checksum %.4f)%n", label,
+                          repetitions * examples.size() / (elapsed / 1e9), answers / repetitions,
+                          checksum / repetitions);
+    }
+
+    /**
+     * The former {@link PriorityQueueProver}, whose frontier is a {@link PriorityQueue} of entries that is searched
+     * linearly to remove the entry of each updated state.
+     */
+    private static class LegacyPriorityQueueProver extends PriorityQueueProver {
+
+        LegacyPriorityQueueProver() {
+            super(STAYPROB_DEFAULT, new APROptions());
+        }
+
+        @Override
+        public Map<State, Double> prove(CachingIdProofGraph cg, StatusLogger status) {
+            LongDense.FloatVector p = new LongDense.FloatVector();
+            LongDense.FloatVector r = new LongDense.FloatVector();
+            int state0 = cg.getRootId();
+            r.set(state0, 1.0);
+            PriorityQueue<QueueEntry> q = new PriorityQueue<>();
+            LongDense.UnitVector params = new LongDense.UnitVector();
+            try {
+                q.add(new QueueEntry(state0, 1.0 / cg.getDegreeById(state0, null)));
+                int maxIterations = (int) (1.0 / apr.epsilon + 0.5);
+                for (int n = 0; n < maxIterations && !q.isEmpty() && !status.isCancelled(); n++) {
+                    QueueEntry head = q.element();
+                    q.remove(head);
+                    if (head.score <= apr.epsilon) { continue; }
+                    int uid = head.id;
+                    int deg = cg.getDegreeById(uid, null);
+                    double z = cg.getTotalWeightOfOutlinks(uid, params, this.weighter);
+                    int[] children = new int[deg + 1];
+                    children[0] = uid;
+                    for (int i = 0; i < deg; i++) {
+                        int vid = cg.getIthNeighborById(uid, i, this.weighter);
+                        q.remove(new QueueEntry(vid, r.get(vid)));
+                        children[i + 1] = vid;
+                    }
+                    while (r.get(uid) / deg > apr.epsilon) {
+                        double ru = r.get(uid);
+                        p.inc(uid, ru);
+                        r.set(uid, (1.0 - apr.alpha) * stayProbability * ru);
+                        for (int i = 0; i < deg; i++) {
+                            double wuv = cg.getIthWeightById(uid, i, params, this.weighter);
+                            int vid = cg.getIthNeighborById(uid, i, this.weighter);
+                            r.inc(vid, (1.0 - apr.alpha) * moveProbability * (wuv / z) * ru);
+                        }
+                    }
+                    for (int vi : children) {
+                        q.add(new QueueEntry(vi, r.get(vi) / cg.getDegreeById(vi, null)));
+                    }
+                }
+            } catch (LogicProgramException e) {
+                throw new IllegalStateException(e);
+            }
+            return cg.asMap(p);
+        }
+
+        @Override
+        public Prover<CachingIdProofGraph> copy() {
+            LegacyPriorityQueueProver copy = new LegacyPriorityQueueProver();
+            copy.apr = apr;
+            copy.setWeighter(weighter);
+            return copy;
+        }
+
+    }
+
+    /**
+     * An entry of the {@link PriorityQueue}, the highest-scoring entries come first. As in the former prover, it only
+     * overloads {@code equals}, so the removal from the queue never matches an entry.
+     */
+    private static class QueueEntry implements Comparable<QueueEntry> {
+
+        final int id;
+        final double score;
+
+        QueueEntry(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            int compare = Double.compare(other.score, score);
+            return compare != 0 ? compare : Integer.compare(id, other.id);
+        }
+
+        public boolean equals(QueueEntry other) {
+            return compareTo(other) == 0;
+        }
+
+    }
+
+}
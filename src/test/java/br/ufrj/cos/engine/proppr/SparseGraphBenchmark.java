@@ -0,0 +1,184 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.engine.proppr;
+
+import edu.cmu.ml.proppr.prove.wam.plugins.SparseGraphPlugin;
+import edu.cmu.ml.proppr.prove.wam.plugins.SparseMatrixIndex;
+import edu.cmu.ml.proppr.util.APROptions;
+import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.procedure.TObjectDoubleProcedure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares the load time and the {@code near} throughput of the {@link SparseMatrixIndex} read from the text files
+ * against the one mapped from the binary file, on a synthetic sparse graph. The equality of both matrices is checked
+ * by {@code SparseMatrixIndexTest}.
+ * <p>
+ * Usage: {@code SparseGraphBenchmark [nodes] [degree] [lookups]}
+ */
+public class SparseGraphBenchmark {
+
+    private static final long SEED = 42;
+    private static final String MATRIX = "edge_node_node";
+
+    public static void main(String[] args) throws IOException {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 2000000;
+
+        File directory = Files.createTempDirectory("benchmark").resolve("graph.sparse").toFile();
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdir();
+        String[] names = writeGraph(directory, nodes, degree, new Random(SEED));
+        TObjectIntMap<String> arg1 = new TObjectIntHashMap<>();
+        for (int i = 0; i < names.length; i++) { arg1.put(names[i], i); }
+
+        long begin = System.nanoTime();
+        SparseMatrixIndex text = new SparseMatrixIndex(directory, MATRIX, arg1, names);
+        System.out.printf("Text load:\t\t%.3f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        begin = System.nanoTime();
+        SparseGraphPlugin.convertToBinary(directory);
+        System.out.printf("Conversion:\t\t%.3f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        begin = System.nanoTime();
+        SparseMatrixIndex binary = new SparseMatrixIndex(directory, MATRIX, arg1, names);
+        System.out.printf("Binary load:\t%.3f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        // two rounds of each, the first one warms up the JIT
+        for (int round = 0; round < 2; round++) {
+            benchmarkNear("Text near", text, names, lookups);
+            benchmarkNear("Binary near", binary, names, lookups);
+            benchmarkForEach("Text forEachNear", text, names, lookups);
+            benchmarkForEach("Binary forEachNear", binary, names, lookups);
+        }
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            //noinspection ResultOfMethodCallIgnored
+            for (File file : files) { file.delete(); }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+        //noinspection ResultOfMethodCallIgnored
+        directory.getParentFile().delete();
+    }
+
+    /**
+     * Writes the text files of a random graph, with the given average out degree.
+     *
+     * @param directory the directory
+     * @param nodes     the number of nodes
+     * @param degree    the average out degree
+     * @param random    the random generator
+     * @return the names of the nodes, by index
+     * @throws IOException if an I/O error has occurred
+     */
+    protected static String[] writeGraph(File directory, int nodes, int degree, Random random) throws IOException {
+        String[] names = new String[nodes];
+        // the names are sorted in lex order, as the .i files
+        for (int i = 0; i < nodes; i++) { names[i] = String.format("n%09d", i); }
+        int entries = 0;
+        try (PrintWriter offsets = new PrintWriter(new File(directory, MATRIX + ".rowOffset"));
+             PrintWriter columns = new PrintWriter(new File(directory, MATRIX + ".colIndex"))) {
+            for (int i = 0; i < nodes; i++) {
+                offsets.println(entries);
+                int out = random.nextInt(2 * degree + 1);
+                int column = random.nextInt(nodes);
+                for (int j = 0; j < out; j++) {
+                    columns.println(column + "\t" + random.nextFloat());
+                    column = (column + 1 + random.nextInt(3)) % nodes;
+                    entries++;
+                }
+            }
+        }
+        try (PrintWriter writer = new PrintWriter(new File(directory, MATRIX + ".rce"))) {
+            writer.println(nodes);
+            writer.println(nodes);
+            writer.println(entries);
+        }
+        try (PrintWriter writer = new PrintWriter(new File(directory, "node.i"))) {
+            for (String name : names) { writer.println(name); }
+        }
+        try (PrintWriter writer = new PrintWriter(new File(directory, SparseGraphPlugin.MANIFEST))) {
+            writer.println(MATRIX);
+        }
+        return names;
+    }
+
+    private static void benchmarkNear(String label, SparseMatrixIndex index, String[] names, int lookups) {
+        Random random = new Random(SEED);
+        double sum = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            TObjectDoubleMap<String> near = index.near(names[random.nextInt(names.length)]);
+            for (double value : near.values()) { sum += value; }
+        }
+        report(label, lookups, System.nanoTime() - begin, sum);
+    }
+
+    private static void benchmarkForEach(String label, SparseMatrixIndex index, String[] names, int lookups) {
+        Random random = new Random(SEED);
+        Sum sum = new Sum();
+        long begin = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            index.forEachNear(names[random.nextInt(names.length)], sum);
+        }
+        report(label, lookups, System.nanoTime() - begin, sum.value);
+    }
+
+    private static void report(String label, int lookups, long elapsed, double checksum) {
+        System.out.printf("%s:\t%.0f lookups/s\t(checksum %.4f)%n", label, lookups / (elapsed / 1e9), checksum);
+    }
+
+    /**
+     * Sums the values of the neighbours.
+     */
+    private static class Sum implements TObjectDoubleProcedure<String> {
+
+        private double value;
+
+        @Override
+        public boolean execute(String column, double weight) {
+            value += weight;
+            return true;
+        }
+
+    }
+
+}
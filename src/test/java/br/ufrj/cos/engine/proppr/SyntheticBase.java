@@ -0,0 +1,186 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Builds a synthetic knowledge base, theory and examples, to be used by the benchmarks.
+ * <p>
+ * The knowledge base is a random graph over the {@link #EDGE_PREDICATE}, whose destination nodes follow a power
+ * law, so a few nodes have a very high degree, as the hub entities of NELL.
+ */
+public final class SyntheticBase {
+
+    /**
+     * The predicate of the facts.
+     */
+    public static final Predicate EDGE_PREDICATE = new Predicate("edge", 2);
+    /**
+     * The predicate of the examples.
+     */
+    public static final Predicate TARGET_PREDICATE = new Predicate("target", 2);
+    /**
+     * The theory of the target predicate.
+     */
+    public static final String THEORY = "target(X, Y) :- edge(X, Y) {direct}.\n" +
+            "target(X, Y) :- edge(X, Z), edge(Z, Y) {indirect}.\n";
+    /**
+     * The prefix of the constants.
+     */
+    public static final String CONSTANT_PREFIX = "c";
+    /**
+     * The exponent of the power law of the destination nodes.
+     */
+    public static final double POWER_LAW_EXPONENT = 3.0;
+
+    private SyntheticBase() {
+    }
+
+    /**
+     * Builds the edge facts.
+     *
+     * @param numberOfConstants the number of constants
+     * @param numberOfFacts     the number of facts
+     * @param random            the random generator
+     * @return the facts
+     */
+    public static List<Atom> buildFacts(int numberOfConstants, int numberOfFacts, Random random) {
+        Set<Atom> facts = new LinkedHashSet<>(numberOfFacts);
+        while (facts.size() < numberOfFacts) {
+            facts.add(buildAtom(EDGE_PREDICATE, random.nextInt(numberOfConstants),
+                                powerLawIndex(numberOfConstants, random)));
+        }
+        return new ArrayList<>(facts);
+    }
+
+    /**
+     * Gets a random index following a power law, so lower indexes are much more likely than higher ones.
+     *
+     * @param size   the number of indexes
+     * @param random the random generator
+     * @return the index
+     */
+    public static int powerLawIndex(int size, Random random) {
+        return (int) (size * Math.pow(random.nextDouble(), POWER_LAW_EXPONENT));
+    }
+
+    /**
+     * Builds the examples, each one with a target atom with a free second term, labeled by the existence of a
+     * path of length one or two in the facts.
+     *
+     * @param facts              the facts
+     * @param numberOfConstants  the number of constants
+     * @param numberOfExamples   the number of examples
+     * @param answersPerExamples the number of labeled answers per example
+     * @param random             the random generator
+     * @return the examples
+     */
+    public static List<ProPprExample> buildExamples(Collection<Atom> facts, int numberOfConstants,
+                                                    int numberOfExamples, int answersPerExamples, Random random) {
+        KnowledgeBase knowledgeBase = new KnowledgeBase(new ArrayList<>(facts));
+        List<ProPprExample> examples = new ArrayList<>(numberOfExamples);
+        for (int i = 0; i < numberOfExamples; i++) {
+            int source = random.nextInt(numberOfConstants);
+            Set<Term> reachable = new HashSet<>();
+            for (Atom atom : knowledgeBase.getAtomsWithTerm(buildConstant(source))) {
+                reachable.addAll(atom.getTerms());
+            }
+            List<AtomExample> atomExamples = new ArrayList<>(answersPerExamples);
+            for (int j = 0; j < answersPerExamples; j++) {
+                Atom atom = buildAtom(TARGET_PREDICATE, source, random.nextInt(numberOfConstants));
+                atomExamples.add(new AtomExample(atom, reachable.contains(atom.getTerms().get(1))));
+            }
+            Atom goal = new Atom(TARGET_PREDICATE, Arrays.asList(buildConstant(source), new Variable("Y")));
+            examples.add(new ProPprExample(goal, atomExamples));
+        }
+        return examples;
+    }
+
+    /**
+     * Builds the theory.
+     *
+     * @return the theory
+     * @throws ParseException if an error occurs when parsing the theory
+     */
+    public static Theory buildTheory() throws ParseException {
+        List<Clause> clauses = new KnowledgeParser(new StringReader(THEORY)).parseKnowledge();
+        Theory theory = new Theory(new ArrayList<>());
+        theory.addAll(clauses, HornClause.class);
+        return theory;
+    }
+
+    /**
+     * Builds a {@link ProPprEngineSystemTranslator} with the given facts and the synthetic theory.
+     *
+     * @param facts the facts
+     * @return the initialized translator
+     * @throws ParseException if an error occurs when parsing the theory
+     */
+    public static ProPprEngineSystemTranslator<?> buildTranslator(Collection<Atom> facts) throws ParseException {
+        ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+        translator.setKnowledgeBase(new KnowledgeBase(new ArrayList<>(facts)));
+        translator.setTheory(buildTheory());
+        translator.initialize();
+        return translator;
+    }
+
+    /**
+     * Builds a binary atom whose terms are the constants of the indexes.
+     *
+     * @param predicate the predicate
+     * @param first     the index of the first constant
+     * @param second    the index of the second constant
+     * @return the atom
+     */
+    public static Atom buildAtom(Predicate predicate, int first, int second) {
+        return new Atom(predicate, Arrays.asList(buildConstant(first), buildConstant(second)));
+    }
+
+    /**
+     * Builds the constant of the index.
+     *
+     * @param index the index
+     * @return the constant
+     */
+    public static Constant buildConstant(int index) {
+        return new Constant(CONSTANT_PREFIX + index);
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.logic.Atom;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the time of training the parameters passing the grounded examples to the trainer in memory against
+ * serializing and parsing them back, on a synthetic base. The learning examples of both paths are checked by the
+ * {@link TrainingPathTest}.
+ * <p>
+ * Usage: {@code TrainingPathBenchmark [constants] [facts] [examples] [repetitions]}
+ */
+public class TrainingPathBenchmark {
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        int constants = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int facts = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int examples = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int repetitions = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        Random random = new Random(SEED);
+        List<Atom> atoms = SyntheticBase.buildFacts(constants, facts, random);
+        List<ProPprExample> exampleList = SyntheticBase.buildExamples(atoms, constants, examples, 10, random);
+
+        // two rounds of each path, the first one warms up the JIT
+        for (boolean isInMemory : new boolean[]{false, true, false, true}) {
+            long elapsed = 0;
+            for (int i = 0; i < repetitions; i++) {
+                // the trainer keeps the epoch count, so each training starts from a new translator
+                ProPprEngineSystemTranslator<?> translator = SyntheticBase.buildTranslator(atoms);
+                translator.inMemoryTraining = isInMemory;
+                long begin = System.nanoTime();
+                translator.trainParameters(exampleList);
+                elapsed += System.nanoTime() - begin;
+            }
+            System.out.printf("%-10s path: %10.2f ms per training%n", isInMemory ? "in memory" : "serialized",
+                              elapsed / 1e6 / repetitions);
+        }
+    }
+
+}
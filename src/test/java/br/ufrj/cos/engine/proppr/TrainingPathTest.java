@@ -0,0 +1,160 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.engine.proppr;
+
+import br.ufrj.cos.engine.proppr.ground.Ground;
+import br.ufrj.cos.engine.proppr.ground.InferenceExampleIterable;
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import edu.cmu.ml.proppr.examples.CookedExample;
+import edu.cmu.ml.proppr.graph.ArrayLearningGraphBuilder;
+import edu.cmu.ml.proppr.graph.GraphFormatException;
+import edu.cmu.ml.proppr.graph.LearningGraphBuilder;
+import edu.cmu.ml.proppr.learn.SRW;
+import edu.cmu.ml.proppr.learn.tools.RWExampleParser;
+import edu.cmu.ml.proppr.util.SimpleSymbolTable;
+import edu.cmu.ml.proppr.util.SymbolTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Checks that training the parameters with the grounded examples in memory gives the same learning examples, and
+ * the same parameters, as serializing the grounded examples and parsing them back.
+ */
+public class TrainingPathTest {
+
+    public static final String FACTS = "" +
+            "edge(a, b). edge(a, c). edge(b, c). edge(b, d). edge(c, d). edge(c, a). " +
+            "edge(d, e). edge(e, b). edge(e, f). edge(f, a). color(a, red). color(c, red). color(e, blue).";
+    public static final String THEORY = "" +
+            "path(X, Y) :- edge(X, Y) {direct}. " +
+            "path(X, Y) :- edge(X, Z), path(Z, Y) {indirect}. " +
+            "target(X, Y) :- path(X, Y), color(Y, red) {red(X)}. " +
+            "target(X, Y) :- edge(X, Y) {edge}.";
+    public static final String[][] EXAMPLES = {
+            {"a", "c", "+"}, {"b", "a", "-"}, {"c", "a", "+"}, {"d", "c", "+"}, {"e", "b", "-"}, {"a", "c", "+"},
+            {"c", "a", "+"}, {"f", "a", "-"}, {"a", "c", "+"}
+    };
+
+    private static final long SEED = 42;
+
+    @Test
+    public void SAME_LEARNING_EXAMPLES_TEST() throws ParseException, GraphFormatException {
+        ProPprEngineSystemTranslator<?> translator = buildTranslator(false);
+        SymbolTable<String> features = new SimpleSymbolTable<>();
+        Map<Integer, ? extends Ground<?>> grounds =
+                translator.grounder.groundExamples(new InferenceExampleIterable(buildExamples()), features);
+        Assert.assertEquals(EXAMPLES.length, grounds.size());
+        LearningGraphBuilder.setFeatures(features);
+        SRW learner = new SRW();
+
+        Set<String> lines = new HashSet<>();
+        for (Ground<?> ground : grounds.values()) { lines.add(ground.toString()); }
+        List<String> parsed = new ArrayList<>();
+        for (String line : lines) {
+            parsed.add(new RWExampleParser().parse(line, new ArrayLearningGraphBuilder(), learner).serialize());
+        }
+
+        List<CookedExample> cookedExamples = ProPprEngineSystemTranslator.cookExamples(grounds.values());
+        List<String> cooked = new ArrayList<>();
+        for (CookedExample example : cookedExamples) {
+            cooked.add(example.makeExample(new ArrayLearningGraphBuilder(), features, learner).serialize());
+        }
+
+        // the repeated examples are kept only once in both paths
+        Assert.assertTrue(lines.size() < grounds.size());
+        Assert.assertEquals(lines.size(), cooked.size());
+        Collections.sort(parsed);
+        Collections.sort(cooked);
+        Assert.assertEquals(parsed, cooked);
+    }
+
+    @Test
+    public void SAME_PARAMETERS_TEST() throws ParseException {
+        // a single distinct example, so the order in which the trainer sees the examples does not matter
+        List<ProPprExample> examples = new ArrayList<>();
+        for (int i = 0; i < 3; i++) { examples.add(buildExample(EXAMPLES[0])); }
+
+        ProPprEngineSystemTranslator<?> serialized = buildTranslator(false);
+        SRW.setRandom(new Random(SEED));
+        serialized.trainParameters(examples);
+        ProPprEngineSystemTranslator<?> inMemory = buildTranslator(true);
+        SRW.setRandom(new Random(SEED));
+        inMemory.trainParameters(examples);
+
+        Map<String, Double> expected = new HashMap<>(serialized.currentParamVector);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, new HashMap<>(inMemory.currentParamVector));
+    }
+
+    private static ProPprEngineSystemTranslator<?> buildTranslator(boolean inMemoryTraining) throws ParseException {
+        List<Clause> clauses = parse(FACTS);
+        List<Atom> facts = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) { facts.add((Atom) clause); }
+        ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+        translator.numberOfThreads = 1;
+        translator.inMemoryTraining = inMemoryTraining;
+        translator.setKnowledgeBase(new KnowledgeBase(facts));
+        Theory theory = new Theory(new ArrayList<>());
+        theory.addAll(parse(THEORY), HornClause.class);
+        translator.setTheory(theory);
+        translator.initialize();
+        return translator;
+    }
+
+    private static List<ProPprExample> buildExamples() {
+        List<ProPprExample> examples = new ArrayList<>(EXAMPLES.length);
+        for (String[] example : EXAMPLES) { examples.add(buildExample(example)); }
+        return examples;
+    }
+
+    private static ProPprExample buildExample(String[] example) {
+        Predicate predicate = new Predicate("target", 2);
+        Atom goal = new Atom(predicate, Arrays.asList(new Constant(example[0]), new Variable("Y")));
+        AtomExample answer = new AtomExample(predicate, Arrays.asList(new Constant(example[0]),
+                                                                      new Constant(example[1])),
+                                             "+".equals(example[2]));
+        return new ProPprExample(goal, Collections.singletonList(answer));
+    }
+
+    private static List<Clause> parse(String content) throws ParseException {
+        return new KnowledgeParser(new StringReader(content)).parseKnowledge();
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.external.access;
+
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.util.InitializationException;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExampleStreamTest {
+
+    private static final long POLL_INTERVAL = 10;
+    private static final long TIMEOUT = 10000;
+    private static final int NUMBER_OF_EXAMPLES = 200;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void FILE_TAIL_TEST() throws Exception {
+        final File file = folder.newFile("examples.data");
+        FileTailExampleStream stream = buildStream(new FileTailExampleStream(), file, true);
+        stream.start();
+        Thread writer = startWriter(() -> {
+            try (Writer output = openAppending(file)) {
+                for (int i = 0; i < NUMBER_OF_EXAMPLES; i++) {
+                    // writes each example in two parts, so the reader may find incomplete lines
+                    output.write(exampleLine(i).substring(0, 12));
+                    output.flush();
+                    if (i % 20 == 0) { Thread.sleep(2 * POLL_INTERVAL); }
+                    output.write(exampleLine(i).substring(12));
+                    output.flush();
+                }
+            }
+        });
+        assertExamples(takeExamples(stream, NUMBER_OF_EXAMPLES), 0, NUMBER_OF_EXAMPLES);
+        writer.join();
+        stream.close();
+        Assert.assertTrue(stream.hasEnded());
+    }
+
+    @Test
+    public void DIRECTORY_TAIL_TEST() throws Exception {
+        final File directory = folder.newFolder("examples");
+        final File first = new File(directory, "0001.data");
+        writeLines(first, 0, 10, false);
+        FileTailExampleStream stream = buildStream(new FileTailExampleStream(), directory, true);
+        stream.start();
+        assertExamples(takeExamples(stream, 10), 0, 10);
+
+        // the lines appended to the newest file are read, but not its incomplete last line
+        writeLines(first, 10, 20, false);
+        try (Writer output = openAppending(first)) { output.write(exampleLine(20).substring(0, 12)); }
+        assertExamples(takeExamples(stream, 10), 10, 20);
+        Thread.sleep(5 * POLL_INTERVAL);
+        Assert.assertTrue(stream.buffer.isEmpty());
+
+        // a file with the other extension is ignored, a newer file completes the previous one
+        writeLines(new File(directory, "0002.tmp"), 100, 110, false);
+        try (Writer output = openAppending(first)) { output.write(exampleLine(20).substring(12).trim()); }
+        writeLines(new File(directory, "0002.data"), 21, 30, false);
+        assertExamples(takeExamples(stream, 10), 20, 30);
+        stream.close();
+    }
+
+    @Test
+    public void NAMED_PIPE_TEST() throws Exception {
+        final File pipe = new File(folder.getRoot(), "examples.pipe");
+        Process process;
+        try {
+            process = new ProcessBuilder("mkfifo", pipe.getAbsolutePath()).start();
+        } catch (IOException e) {
+            process = null;
+        }
+        Assume.assumeTrue(process != null && process.waitFor() == 0);
+        NamedPipeExampleStream stream = buildStream(new NamedPipeExampleStream(), pipe, false);
+        stream.start();
+        Thread writer = startWriter(() -> writeLines(pipe, 0, NUMBER_OF_EXAMPLES, true));
+        assertExamples(takeExamples(stream, NUMBER_OF_EXAMPLES), 0, NUMBER_OF_EXAMPLES);
+        writer.join();
+        Assert.assertTrue(stream.nextBatch(1).isEmpty());
+        Assert.assertTrue(stream.hasEnded());
+    }
+
+    @Test
+    public void BACKPRESSURE_TEST() throws Exception {
+        final File file = folder.newFile("examples.data");
+        writeLines(file, 0, NUMBER_OF_EXAMPLES, false);
+        FileTailExampleStream stream = buildStream(new FileTailExampleStream(), file, false);
+        stream.bufferSize = 8;
+        stream.initialize();
+        stream.start();
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (stream.buffer.remainingCapacity() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL);
+        }
+        // the reader blocks on the full buffer, instead of reading the rest of the file
+        Thread.sleep(5 * POLL_INTERVAL);
+        Assert.assertEquals(8, stream.buffer.size());
+        Assert.assertFalse(stream.hasEnded());
+        Assert.assertEquals(Thread.State.WAITING, stream.reader.getState());
+
+        List<Example> examples = new ArrayList<>();
+        List<Example> batch;
+        while (!(batch = stream.nextBatch(5)).isEmpty()) {
+            Assert.assertTrue(batch.size() <= 5);
+            examples.addAll(batch);
+        }
+        assertExamples(examples, 0, NUMBER_OF_EXAMPLES);
+        Assert.assertTrue(stream.hasEnded());
+    }
+
+    @Test
+    public void IDLE_TIMEOUT_TEST() throws Exception {
+        FileTailExampleStream stream = buildStream(new FileTailExampleStream(), folder.newFile("examples.data"),
+                                                   true);
+        stream.idleTimeout = 5 * POLL_INTERVAL;
+        stream.start();
+        Assert.assertTrue(stream.nextBatch(10).isEmpty());
+        stream.close();
+    }
+
+    /**
+     * A task of the writer thread.
+     */
+    private interface Writing {
+
+        void write() throws Exception;
+
+    }
+
+    private static Thread startWriter(Writing writing) {
+        Thread thread = new Thread(() -> {
+            try {
+                writing.write();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static <S extends ExampleStream> S buildStream(S stream, File path,
+                                                          boolean follow) throws InitializationException {
+        stream.path = path.getAbsolutePath();
+        stream.follow = follow;
+        stream.pollInterval = POLL_INTERVAL;
+        // bounds the wait for the examples, if they are not read
+        stream.idleTimeout = TIMEOUT;
+        stream.initialize();
+        return stream;
+    }
+
+    private static List<Example> takeExamples(ExampleStream stream, int size) throws InterruptedException {
+        List<Example> examples = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (examples.size() < size && System.currentTimeMillis() < deadline) {
+            examples.addAll(stream.nextBatch(size - examples.size()));
+        }
+        return examples;
+    }
+
+    private static void assertExamples(List<Example> examples, int from, int to) {
+        Assert.assertEquals(to - from, examples.size());
+        for (int i = from; i < to; i++) {
+            Example example = examples.get(i - from);
+            Assert.assertTrue(example instanceof AtomExample);
+            Assert.assertEquals("target(c" + i + ", d" + i + ")", ((AtomExample) example).getAtom().toString());
+        }
+    }
+
+    private static String exampleLine(int index) {
+        return "evidence(target(c" + index + ", d" + index + "), true).\n";
+    }
+
+    private static void writeLines(File file, int from, int to, boolean pipe) throws IOException {
+        try (Writer output = pipe ? new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8) :
+                openAppending(file)) {
+            for (int i = from; i < to; i++) { output.write(exampleLine(i)); }
+        }
+    }
+
+    private static Writer openAppending(File file) throws IOException {
+        return new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+    }
+
+}
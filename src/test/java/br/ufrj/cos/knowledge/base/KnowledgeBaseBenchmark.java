@@ -0,0 +1,130 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.knowledge.base;
+
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.logic.F1ScoreMetric;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic.LogLikelihoodMetric;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic.PrecisionRecallCurveMetric;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic.RocCurveMetric;
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Constant;
+import br.ufrj.cos.logic.Predicate;
+import br.ufrj.cos.logic.Term;
+import br.ufrj.cos.util.AtomFactory;
+
+import java.util.*;
+
+/**
+ * Measures the construction of a {@link KnowledgeBase} and the evaluation of the metrics over inferred results, on
+ * a synthetic base with the shape of the NELL bases: a few hundred relations over hundreds of thousands of
+ * constants, whose names follow the NELL pattern.
+ * <p>
+ * The facts are built by an {@link AtomFactory}, as the parsers do, while the inferred results are built with new
+ * objects, as the engine does.
+ * <p>
+ * Usage: {@code KnowledgeBaseBenchmark [constants] [facts] [examples] [rounds]}
+ */
+public class KnowledgeBaseBenchmark {
+
+    private static final long SEED = 42;
+    private static final int NUMBER_OF_PREDICATES = 200;
+    private static final String CONSTANT_PREFIX = "concept_entity_";
+    private static final String PREDICATE_PREFIX = "concept:relation";
+
+    public static void main(String[] args) {
+        int constants = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int facts = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int examples = args.length > 2 ? Integer.parseInt(args[2]) : 200000;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        Random random = new Random(SEED);
+        String[][] factNames = buildFactNames(constants, facts, random);
+        List<Example> exampleList = new ArrayList<>(examples);
+        Map<Example, Map<Atom, Double>> inferred = buildInferredResult(factNames, examples, random, exampleList);
+        TheoryMetric[] metrics = {new RocCurveMetric(), new PrecisionRecallCurveMetric(), new LogLikelihoodMetric(),
+                new F1ScoreMetric()};
+
+        for (int round = 0; round < rounds; round++) {
+            long begin = System.nanoTime();
+            AtomFactory factory = new AtomFactory();
+            List<Atom> atoms = new ArrayList<>(factNames.length);
+            for (String[] fact : factNames) {
+                atoms.add(factory.createAtom(fact[0], fact[1], fact[2]));
+            }
+            KnowledgeBase knowledgeBase = new KnowledgeBase(atoms);
+            long knowledgeBaseTime = System.nanoTime() - begin;
+
+            StringBuilder metricTimes = new StringBuilder();
+            for (TheoryMetric metric : metrics) {
+                begin = System.nanoTime();
+                double value = metric.evaluate(inferred, exampleList);
+                metricTimes.append(String.format("\t%s %.4f in %.1f ms", metric, value,
+                                                 (System.nanoTime() - begin) / 1e6));
+            }
+            System.out.printf("Round %d: knowledge base with %d terms in %.1f ms%s%n", round,
+                              knowledgeBase.getTerms().size(), knowledgeBaseTime / 1e6, metricTimes);
+        }
+    }
+
+    private static String[][] buildFactNames(int constants, int facts, Random random) {
+        String[][] names = new String[facts][];
+        for (int i = 0; i < facts; i++) {
+            names[i] = new String[]{PREDICATE_PREFIX + random.nextInt(NUMBER_OF_PREDICATES),
+                    CONSTANT_PREFIX + random.nextInt(constants), CONSTANT_PREFIX + random.nextInt(constants)};
+        }
+        return names;
+    }
+
+    private static Map<Example, Map<Atom, Double>> buildInferredResult(String[][] factNames, int examples,
+                                                                       Random random, List<Example> exampleList) {
+        Map<Example, Map<Atom, Double>> inferred = new HashMap<>();
+        for (int i = 0; i < examples; i++) {
+            String[] fact = factNames[random.nextInt(factNames.length)];
+            Predicate predicate = new Predicate(fact[0], 2);
+            List<Term> terms = Arrays.asList(new Constant(fact[1]), new Constant(fact[2]));
+            AtomExample atomExample = new AtomExample(predicate, terms, random.nextBoolean());
+            ProPprExample example = new ProPprExample(new Atom(predicate, terms),
+                                                      Collections.singletonList(atomExample));
+            exampleList.add(example);
+            Map<Atom, Double> answers = new HashMap<>();
+            if (random.nextDouble() < 0.8) {
+                List<Term> answerTerms = Arrays.asList(new Constant(fact[1]), new Constant(fact[2]));
+                answers.put(new Atom(new Predicate(fact[0], 2), answerTerms), random.nextDouble());
+            }
+            inferred.put(example, answers);
+        }
+        return inferred;
+    }
+
+}
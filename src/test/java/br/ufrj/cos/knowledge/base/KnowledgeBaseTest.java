@@ -0,0 +1,165 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.knowledge.base;
+
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Term;
+import br.ufrj.cos.util.AtomFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class KnowledgeBaseTest {
+
+    private final AtomFactory factory = new AtomFactory();
+
+    @Test
+    public void SHORTEST_PATH_TEST() {
+        KnowledgeBase knowledgeBase = new KnowledgeBase(new ArrayList<>(Arrays.asList(
+                factory.createAtom("edge", "a", "b"), factory.createAtom("edge", "a", "c"),
+                factory.createAtom("edge", "b", "d"), factory.createAtom("edge", "c", "d"),
+                factory.createAtom("edge", "d", "e"), factory.createAtom("edge", "f", "g"))));
+
+        Set<String> paths = formatPaths(knowledgeBase.shortestPath(term("a"), term("e"), -1));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("[a, b, d, e]", "[a, c, d, e]")), paths);
+        Assert.assertEquals(paths, formatPaths(knowledgeBase.shortestPath(term("a"), term("e"), 3)));
+        Assert.assertNull(knowledgeBase.shortestPath(term("a"), term("e"), 2));
+        Assert.assertNull(knowledgeBase.shortestPath(term("a"), term("g"), -1));
+        Assert.assertEquals(Collections.singleton("[a, b]"),
+                            formatPaths(knowledgeBase.shortestPath(term("a"), term("b"), -1)));
+    }
+
+    @Test
+    public void SNAPSHOT_UPDATE_TEST() {
+        KnowledgeBase knowledgeBase = new KnowledgeBase(new ArrayList<>(Arrays.asList(
+                factory.createAtom("edge", "a", "b"), factory.createAtom("edge", "c", "d"))));
+        KnowledgeBaseIndex index = knowledgeBase.getIndex();
+        Assert.assertSame(index, knowledgeBase.getIndex());
+        Assert.assertNull(knowledgeBase.shortestPath(term("a"), term("d"), -1));
+
+        Atom atom = factory.createAtom("edge", "b", "c");
+        knowledgeBase.add(atom);
+        Assert.assertEquals(Collections.singleton("[a, b, c, d]"),
+                            formatPaths(knowledgeBase.shortestPath(term("a"), term("d"), -1)));
+        Assert.assertEquals(2, knowledgeBase.baseBreadthFirstSearch(Collections.singleton(term("a")), 1).size());
+        Assert.assertEquals(3, knowledgeBase.baseBreadthFirstSearch(Collections.singleton(term("a")), 2).size());
+        Assert.assertFalse(index.getNeighbours(term("b")).contains(term("c")));
+        Assert.assertFalse(index == knowledgeBase.getIndex());
+
+        knowledgeBase.remove(atom);
+        Assert.assertNull(knowledgeBase.shortestPath(term("a"), term("d"), -1));
+    }
+
+    @Test
+    public void NEIGHBOURHOOD_CACHE_TEST() {
+        KnowledgeBase knowledgeBase = new KnowledgeBase(new ArrayList<>(Arrays.asList(
+                factory.createAtom("edge", "a", "b"), factory.createAtom("edge", "b", "c"),
+                factory.createAtom("edge", "c", "d"), factory.createAtom("edge", "e", "f"))));
+        NeighbourhoodCache cache = new NeighbourhoodCache(Long.MAX_VALUE);
+        List<Term> seeds = Arrays.asList(term("a"), term("e"));
+
+        assertSameSearch(knowledgeBase, cache, seeds, 1);
+        Assert.assertEquals(2, cache.getMisses());
+        assertSameSearch(knowledgeBase, cache, seeds, 0);
+        Assert.assertEquals(2, cache.getHits());
+        assertSameSearch(knowledgeBase, cache, seeds, -1);
+        Assert.assertEquals(2, cache.getExtensions());
+
+        knowledgeBase.add(factory.createAtom("edge", "d", "e"));
+        assertSameSearch(knowledgeBase, cache, seeds, 3);
+        Assert.assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    public void DELTA_SNAPSHOT_TEST() {
+        List<Atom> atoms = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            atoms.add(factory.createAtom("edge", "t" + i, "t" + (i + 1)));
+        }
+        KnowledgeBase knowledgeBase = new KnowledgeBase(atoms);
+        KnowledgeBaseIndex index = knowledgeBase.getIndex();
+        Assert.assertTrue(index.getNeighbours(term("t1")).contains(term("t2")));
+        Assert.assertFalse(index.getNeighbours(term("t1")).contains(term("t3")));
+        Assert.assertTrue(index.getAtoms(term("t1")).contains(factory.createAtom("edge", "t0", "t1")));
+        Assert.assertFalse(index.getAtoms(term("t1")).contains(factory.createAtom("edge", "t1", "t0")));
+
+        Atom atom = factory.createAtom("edge", "t15", "x");
+        knowledgeBase.add(atom);
+        knowledgeBase.remove(factory.createAtom("edge", "t7", "t8"));
+        KnowledgeBaseIndex updated = knowledgeBase.getIndex();
+        Assert.assertSame(index.neighbours, updated.neighbours);
+        assertSameIndex(knowledgeBase, updated);
+        Assert.assertTrue(updated.getNeighbours(term("t15")).contains(term("x")));
+        Assert.assertFalse(updated.getNeighbours(term("t7")).contains(term("t8")));
+        Assert.assertTrue(updated.getAtoms(term("x")).contains(atom));
+        Assert.assertEquals(Collections.singleton("[t8, t9, t10, t11, t12, t13, t14, t15, x]"),
+                            formatPaths(knowledgeBase.shortestPath(term("t8"), term("x"), -1)));
+        Assert.assertNull(knowledgeBase.shortestPath(term("t0"), term("x"), -1));
+
+        knowledgeBase.remove(atom);
+        updated = knowledgeBase.getIndex();
+        Assert.assertSame(index.neighbours, updated.neighbours);
+        assertSameIndex(knowledgeBase, updated);
+        Assert.assertFalse(updated.getNeighbours(term("t15")).contains(term("x")));
+        Assert.assertTrue(updated.getNeighbours(term("x")).isEmpty());
+        Assert.assertTrue(updated.getAtoms(term("x")).isEmpty());
+    }
+
+    private static void assertSameIndex(KnowledgeBase knowledgeBase, KnowledgeBaseIndex index) {
+        KnowledgeBaseIndex rebuilt = new KnowledgeBaseIndex(knowledgeBase.termAtomMap, knowledgeBase.termNeighbours);
+        for (Term term : knowledgeBase.getTerms()) {
+            Assert.assertEquals(new ArrayList<>(rebuilt.getNeighbours(term)),
+                                new ArrayList<>(index.getNeighbours(term)));
+            Assert.assertEquals(new ArrayList<>(rebuilt.getAtoms(term)), new ArrayList<>(index.getAtoms(term)));
+        }
+    }
+
+    private static void assertSameSearch(KnowledgeBase knowledgeBase, NeighbourhoodCache cache, List<Term> seeds,
+                                         int depth) {
+        Assert.assertEquals(knowledgeBase.baseBreadthFirstSearch(seeds, depth),
+                            cache.breadthFirstSearch(knowledgeBase, seeds, depth));
+    }
+
+    private Term term(String name) {
+        return factory.getConstant(name);
+    }
+
+    private static Set<String> formatPaths(Collection<Term[]> paths) {
+        if (paths == null) { return null; }
+        Set<String> formatted = new HashSet<>();
+        for (Term[] path : paths) {
+            formatted.add(Arrays.toString(path));
+        }
+        return formatted;
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.knowledge.manager;
+
+import br.ufrj.cos.core.LearningSystem;
+import br.ufrj.cos.engine.proppr.ProPprEngineSystemTranslator;
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.knowledge.theory.manager.revision.point.AllSampleSelector;
+import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import br.ufrj.cos.util.InitializationException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Checks that placing a batch of examples into the tree adds the examples to the leaves in the same order as
+ * placing each example by itself.
+ */
+public class TreeExampleManagerTest {
+
+    public static final String FACTS = "" +
+            "edge(a, b). edge(a, c). edge(c, d). edge(c, a). edge(d, e). color(a, red). color(c, red).";
+    public static final String[] SOURCES = {"a", "c", "d"};
+    public static final String[] CONSTANTS = {"a", "b", "c", "d", "e"};
+
+    private static final Predicate TARGET = new Predicate("target", 2);
+    private static final Predicate EDGE = new Predicate("edge", 2);
+    private static final Predicate COLOR = new Predicate("color", 2);
+
+    @Test
+    public void BATCH_LEAF_ORDER_TEST() throws ParseException, InitializationException {
+        List<Example> examples = buildExamples();
+
+        RecordingTreeExampleManager batch = buildManager();
+        batch.placeIncomingExamples(examples);
+
+        RecordingTreeExampleManager single = buildManager();
+        for (Example example : examples) { single.placeIncomingExamples(Collections.singletonList(example)); }
+
+        Assert.assertEquals(single.additions, batch.additions);
+        Assert.assertEquals(single.countLeaves(), batch.countLeaves());
+    }
+
+    @Test
+    public void DEFAULT_LEAF_ORDER_TEST() throws ParseException, InitializationException {
+        RecordingTreeExampleManager manager = buildManager();
+        manager.placeIncomingExamples(buildExamples());
+
+        // the default leaf of the root receives the examples covered by the root, but not by its child, and the
+        // examples not covered by the root, example by example
+        List<String> expected = Arrays.asList(
+                "[target(a, b)]", "[target(a, a), target(a, d), target(a, e)]",
+                "[target(c, d)]", "[target(c, b), target(c, c), target(c, e)]",
+                "[target(d, e)]", "[target(d, a), target(d, b), target(d, c), target(d, d)]");
+        Assert.assertEquals(expected, manager.getAdditions(manager.root.getDefaultChild()));
+    }
+
+    /**
+     * Builds the manager with a single tree: the root {@code target(X, Y) :- edge(X, Y)} and its child
+     * {@code target(X, Y) :- edge(X, Y), color(Y, red)}.
+     *
+     * @return the manager
+     * @throws ParseException          if an error occurs when parsing the facts
+     * @throws InitializationException if an error occurs when setting the manager
+     */
+    private static RecordingTreeExampleManager buildManager() throws ParseException, InitializationException {
+        List<Clause> clauses = new KnowledgeParser(new StringReader(FACTS)).parseKnowledge();
+        List<Atom> facts = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) { facts.add((Atom) clause); }
+        KnowledgeBase knowledgeBase = new KnowledgeBase(facts);
+        Theory theory = new Theory(new ArrayList<>());
+        ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+        translator.setKnowledgeBase(knowledgeBase);
+        translator.setTheory(theory);
+        translator.initialize();
+
+        RecordingTreeExampleManager manager = new RecordingTreeExampleManager();
+        manager.setLearningSystem(new LearningSystem(knowledgeBase, theory, null, translator));
+        manager.setSampleSelector(new AllSampleSelector());
+        manager.setTreeTheory(new TreeTheory());
+        manager.treeTheory.initialize(theory);
+
+        ProPprExample example = buildExample(SOURCES[0]);
+        Node<HornClause> root = manager.treeTheory.getTreeForExample(example, TARGET.toString());
+        Atom head = root.getElement().getHead();
+        Literal edge = new Literal(EDGE, head.getTerms());
+        root.getElement().getBody().clear();
+        root.getElement().getBody().add(edge);
+        Literal color = new Literal(COLOR, Arrays.asList(head.getTerms().get(1), new Constant("red")));
+        TreeTheory.addNodeToTree(root, new HornClause(head, new Conjunction(edge, color)));
+        manager.root = root;
+        return manager;
+    }
+
+    private static List<Example> buildExamples() {
+        List<Example> examples = new ArrayList<>(SOURCES.length);
+        for (String source : SOURCES) { examples.add(buildExample(source)); }
+        return examples;
+    }
+
+    private static ProPprExample buildExample(String source) {
+        Atom goal = new Atom(TARGET, Arrays.asList(new Constant(source), new Variable("Y")));
+        List<AtomExample> grounded = new ArrayList<>(CONSTANTS.length);
+        for (int i = 0; i < CONSTANTS.length; i++) {
+            grounded.add(new AtomExample(TARGET, Arrays.asList(new Constant(source), new Constant(CONSTANTS[i])),
+                                         i % 2 == 0));
+        }
+        return new ProPprExample(goal, grounded);
+    }
+
+    /**
+     * Records the examples added to each leaf, in the order they are added.
+     */
+    private static class RecordingTreeExampleManager extends TreeExampleManager {
+
+        private final List<String> additions = new ArrayList<>();
+        private final Map<Node<HornClause>, List<String>> additionsByLeaf = new HashMap<>();
+        private Node<HornClause> root;
+
+        @Override
+        protected boolean addExamplesToLeaf(Node<HornClause> leaf, ProPprExample exampleFromSplit,
+                                            Set<Node<HornClause>> modifiedLeaves,
+                                            Map<Node<HornClause>, RevisionExamples> leafExamples) {
+            if (!exampleFromSplit.getGroundedQuery().isEmpty()) {
+                List<String> atoms = new ArrayList<>();
+                for (AtomExample atomExample : exampleFromSplit.getGroundedQuery()) {
+                    atoms.add(atomExample.getAtom().toString());
+                }
+                additions.add(leaf.getElement() + " <- " + atoms);
+                additionsByLeaf.computeIfAbsent(leaf, e -> new ArrayList<>()).add(atoms.toString());
+            }
+            return super.addExamplesToLeaf(leaf, exampleFromSplit, modifiedLeaves, leafExamples);
+        }
+
+        private List<String> getAdditions(Node<HornClause> leaf) {
+            return additionsByLeaf.getOrDefault(leaf, Collections.emptyList());
+        }
+
+        private int countLeaves() {
+            return treeTheory.getLeafExampleMapFromTree(TARGET.toString()).size();
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic;
+
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.logic.F1ScoreMetric;
+import br.ufrj.cos.logic.Atom;
+import br.ufrj.cos.logic.Constant;
+import br.ufrj.cos.logic.Predicate;
+import br.ufrj.cos.logic.Term;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the evaluation of the {@link CurveMetric}s through the list of boxed pairs against the evaluation
+ * through the primitive arrays of the {@link CurveBuffer}, on synthetic examples with tied scores. The shared
+ * benchmarks evaluate the same metric instances from all the available threads.
+ * <p>
+ * Usage: {@code MetricEvaluationBenchmark [JMH options]}, or through {@code org.openjdk.jmh.Main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricEvaluationBenchmark {
+
+    private static final long SEED = 42;
+    private static final double PROVED_PROBABILITY = 0.7;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"roc", "pr"})
+    public String curve;
+
+    private CurveMetric metric;
+    private F1ScoreMetric f1ScoreMetric;
+    private List<Example> examples;
+    private Map<Example, Map<Atom, Double>> inferred;
+    private double[] scores;
+    private boolean[] labels;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        Predicate predicate = new Predicate("target", 1);
+        examples = new ArrayList<>(size);
+        Map<Atom, Double> answers = new HashMap<>();
+        scores = new double[size];
+        labels = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            List<Term> terms = Collections.singletonList(new Constant("c" + i));
+            AtomExample example = new AtomExample(predicate, terms, random.nextBoolean());
+            examples.add(example);
+            labels[i] = example.isPositive();
+            if (random.nextDouble() < PROVED_PROBABILITY) {
+                scores[i] = Math.round(random.nextDouble() * 100) / 100.0;
+                answers.put(example.getAtom(), scores[i]);
+            }
+        }
+        inferred = new HashMap<>();
+        for (Example example : examples) {
+            inferred.put(example, answers);
+        }
+        metric = "roc".equals(curve) ? new RocCurveMetric() : new PrecisionRecallCurveMetric();
+        f1ScoreMetric = new F1ScoreMetric();
+    }
+
+    @Benchmark
+    public double pairs() {
+        return metric.calculateResult(metric.calculateEvaluation(inferred, examples));
+    }
+
+    @Benchmark
+    public double buffer() {
+        return metric.evaluate(inferred, examples);
+    }
+
+    @Benchmark
+    public double arrays() {
+        return metric.evaluate(scores, labels, size);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public double sharedBuffer() {
+        return metric.evaluate(inferred, examples);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public double sharedConfusionMatrix() {
+        return f1ScoreMetric.evaluate(inferred, examples);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+                           .include(MetricEvaluationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -39,6 +39,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Created on 20/08/17.
@@ -270,4 +271,26 @@ public class PRCurveTest {
         Assert.assertEquals(expectedAreaUnderRoc, calculatedArea, 1e-4);
     }
 
+    @Test
+    public void TEST_PRIMITIVE_PARITY_PR() {
+        Predicate predicate = new Predicate("dumb");
+        Random random = new Random(42);
+        for (int size = 1; size <= 200; size++) {
+            double[] scores = new double[size];
+            boolean[] labels = new boolean[size];
+            List<Pair<AtomExample, Double>> pairs = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                // rounds the scores to have ties
+                scores[i] = Math.round(random.nextDouble() * 10) / 10.0;
+                labels[i] = random.nextBoolean();
+                pairs.add(new ImmutablePair<>(new AtomExample(predicate, labels[i]), scores[i]));
+            }
+
+            double primitiveArea = curveMetric.evaluate(scores, labels, size);
+            double calculatedArea = CurveMetric.integrateCurve(curveMetric.buildCurve(pairs));
+
+            Assert.assertEquals(calculatedArea, primitiveArea, 0.0);
+        }
+    }
+
 }
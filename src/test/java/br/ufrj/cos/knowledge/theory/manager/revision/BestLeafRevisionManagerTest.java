@@ -0,0 +1,293 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.knowledge.theory.manager.revision;
+
+import br.ufrj.cos.core.LearningSystem;
+import br.ufrj.cos.engine.proppr.ProPprEngineSystemTranslator;
+import br.ufrj.cos.knowledge.KnowledgeException;
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.manager.Node;
+import br.ufrj.cos.knowledge.manager.TreeTheory;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.knowledge.theory.evaluation.TheoryEvaluator;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic.RocCurveMetric;
+import br.ufrj.cos.knowledge.theory.manager.ProposedRevision;
+import br.ufrj.cos.knowledge.theory.manager.TheoryRevisionManager;
+import br.ufrj.cos.knowledge.theory.manager.revision.heuristic.UniformHeuristic;
+import br.ufrj.cos.knowledge.theory.manager.revision.operator.RevisionOperator;
+import br.ufrj.cos.knowledge.theory.manager.revision.point.AllSampleSelector;
+import br.ufrj.cos.knowledge.theory.manager.revision.point.RevisionExamples;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import br.ufrj.cos.util.InitializationException;
+import edu.cmu.ml.proppr.learn.SRW;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Checks that revising independent leaves in parallel gives the same theory, and the same answers, as revising
+ * them one at a time, and that the clauses keep their positions in the theory.
+ */
+public class BestLeafRevisionManagerTest {
+
+    public static final String FACTS = "" +
+            "edge(p1, p2). edge(p2, p3). edge(p3, p4). edge(p4, p5). " +
+            "link(q1, q2). link(q2, q3). link(q3, q4).";
+    public static final String THEORY = "" +
+            "a(X, Y) :- edge(Y, X). " +
+            "b(X, Y) :- edge(X, Y). " +
+            "c(X, Y) :- link(Y, X). " +
+            "d(X, Y) :- link(X, Y).";
+    /**
+     * The revision of each leaf: the clause to remove, if any, and the clause that replaces it, in its position, or
+     * that is appended to the theory.
+     */
+    public static final String[][] REVISIONS = {
+            {"a(X, Y) :- edge(Y, X).", "a(X, Y) :- edge(X, Y)."},
+            {null, "b(X, Y) :- edge(X, Z), edge(Z, Y)."},
+            {"c(X, Y) :- link(Y, X).", "c(X, Y) :- link(X, Y)."}
+    };
+    /**
+     * The examples of each leaf: the predicate, the source, the positive answer and the negative answer.
+     */
+    public static final String[][] EXAMPLES = {
+            {"a", "p2", "p3", "p1"}, {"a", "p3", "p4", "p2"},
+            {"b", "p1", "p3", "p2"}, {"b", "p2", "p4", "p3"},
+            {"c", "q2", "q3", "q1"}, {"c", "q3", "q4", "q2"}
+    };
+    public static final List<String> REVISED_THEORY = Arrays.asList(
+            "a(X, Y) :- edge(X, Y).", "b(X, Y) :- edge(X, Y).", "c(X, Y) :- link(X, Y).", "d(X, Y) :- link(X, Y).",
+            "b(X, Y) :- edge(X, Z), edge(Z, Y).");
+
+    private static final long SEED = 42;
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void PARALLEL_SAME_AS_SEQUENTIAL_TEST() throws Exception {
+        RevisionFixture sequential = new RevisionFixture(false);
+        sequential.revise();
+        RevisionFixture parallel = new RevisionFixture(true);
+        parallel.revise();
+
+        Assert.assertEquals(REVISED_THEORY, sequential.getTheory());
+        Assert.assertEquals(sequential.getTheory(), parallel.getTheory());
+        Map<String, Double> expected = sequential.inferAll();
+        Map<String, Double> actual = parallel.inferAll();
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, Double> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void APPLY_KEEPS_POSITIONS_TEST() throws ParseException, KnowledgeException {
+        Theory base = buildTheory(THEORY);
+        List<HornClause> clauses = new ArrayList<>(base);
+        // the first revision replaces the first clause and the second one replaces the third clause
+        Theory current = new Theory(new ArrayList<>(clauses));
+        current.remove(clauses.get(0));
+        List<HornClause> first = new ArrayList<>(current);
+        first.add(0, parseClause(REVISIONS[0][1]));
+        current = new Theory(first);
+        List<HornClause> second = new ArrayList<>(clauses);
+        second.set(2, parseClause(REVISIONS[2][1]));
+        second.add(parseClause(REVISIONS[1][1]));
+        ProposedRevision revision = new ProposedRevision(null, null, null, base, new Theory(second), 1.0, 0.0, 0.0);
+
+        List<String> applied = new ArrayList<>();
+        for (HornClause clause : revision.applyOn(current)) { applied.add(clause.toString()); }
+        Assert.assertEquals(Arrays.asList(REVISIONS[0][1], clauses.get(1).toString(), REVISIONS[2][1],
+                                          clauses.get(3).toString(), REVISIONS[1][1]), applied);
+        Assert.assertTrue(revision.isProposedOn(base));
+        Assert.assertSame(revision.getRevisedTheory(), revision.applyOn(base));
+    }
+
+    private static Theory buildTheory(String content) throws ParseException {
+        Theory theory = new Theory(new ArrayList<>());
+        theory.addAll(parse(content), HornClause.class);
+        return theory;
+    }
+
+    private static HornClause parseClause(String content) throws ParseException {
+        return (HornClause) parse(content).get(0);
+    }
+
+    private static List<Clause> parse(String content) throws ParseException {
+        return new KnowledgeParser(new StringReader(content)).parseKnowledge();
+    }
+
+    /**
+     * Builds the learning system, with the tree leaves and the revision manager, for one of the runs.
+     */
+    private static class RevisionFixture {
+
+        private final LearningSystem learningSystem;
+        private final BestLeafRevisionManager revisionManager;
+        private final TheoryRevisionManager theoryRevisionManager;
+        private final List<RevisionExamples> revisionPoints;
+
+        RevisionFixture(boolean parallel) throws ParseException, InitializationException {
+            List<Clause> clauses = parse(FACTS);
+            List<Atom> facts = new ArrayList<>(clauses.size());
+            for (Clause clause : clauses) { facts.add((Atom) clause); }
+            KnowledgeBase knowledgeBase = new KnowledgeBase(facts);
+            Theory theory = buildTheory(THEORY);
+            ProPprEngineSystemTranslator<?> translator = new ProPprEngineSystemTranslator<>();
+            translator.setKnowledgeBase(knowledgeBase);
+            translator.setTheory(theory);
+            translator.initialize();
+            learningSystem = new LearningSystem(knowledgeBase, theory, null, translator);
+            learningSystem.theoryEvaluator = new TheoryEvaluator();
+            learningSystem.theoryEvaluator.setLearningSystem(learningSystem);
+
+            TreeTheory treeTheory = new TreeTheory();
+            treeTheory.revisionLeaves = new ArrayList<>();
+            revisionPoints = new ArrayList<>();
+            Map<Node<HornClause>, String[]> revisions = new IdentityHashMap<>();
+            for (int i = 0; i < REVISIONS.length; i++) {
+                // each leaf is the root of its own tree, so the leaves are independent
+                HornClause clause = parseClause(REVISIONS[i][1]);
+                Node<HornClause> leaf = Node.newTree(clause, clause);
+                treeTheory.revisionLeaves.add(leaf);
+                revisions.put(leaf, REVISIONS[i]);
+                RevisionExamples examples = new RevisionExamples(learningSystem, new AllSampleSelector());
+                for (String[] example : EXAMPLES) {
+                    if (clause.getHead().getName().equals(example[0])) { examples.addExample(buildExample(example)); }
+                }
+                revisionPoints.add(examples);
+            }
+
+            RevisionOperator operator = new FixedRevisionOperator(revisions);
+            operator.setLearningSystem(learningSystem);
+            RevisionOperatorEvaluator evaluator = new RevisionOperatorEvaluator(operator);
+            revisionManager = new BestLeafRevisionManager();
+            revisionManager.parallel = parallel;
+            revisionManager.setTreeTheory(treeTheory);
+            revisionManager.setRevisionHeuristic(new UniformHeuristic());
+            revisionManager.setOperatorSelector(new RevisionOperatorSelector() {
+                @Override
+                public RevisionOperatorEvaluator selectOperator(Collection<? extends Example> targets,
+                                                                TheoryMetric metric) {
+                    return evaluator;
+                }
+            });
+            revisionManager.operatorSelector.setOperatorEvaluators(Collections.singletonList(evaluator));
+            theoryRevisionManager = new TheoryRevisionManager(learningSystem, revisionManager);
+            theoryRevisionManager.setTheoryMetric(new RocCurveMetric());
+            revisionManager.setTheoryRevisionManager(theoryRevisionManager);
+        }
+
+        void revise() {
+            SRW.setRandom(new Random(SEED));
+            theoryRevisionManager.revise(revisionPoints);
+        }
+
+        List<String> getTheory() {
+            List<String> theory = new ArrayList<>();
+            for (HornClause clause : learningSystem.getTheory()) { theory.add(clause.toString()); }
+            return theory;
+        }
+
+        Map<String, Double> inferAll() {
+            List<Example> examples = new ArrayList<>();
+            for (String[] example : EXAMPLES) { examples.add(buildExample(example)); }
+            Map<String, Double> answers = new HashMap<>();
+            for (Map<Atom, Double> inferred : learningSystem.inferExamples(examples).values()) {
+                for (Map.Entry<Atom, Double> entry : inferred.entrySet()) {
+                    answers.put(entry.getKey().toString(), entry.getValue());
+                }
+            }
+            return answers;
+        }
+
+        private static ProPprExample buildExample(String[] example) {
+            Predicate predicate = new Predicate(example[0], 2);
+            Atom goal = new Atom(predicate, Arrays.asList(new Constant(example[1]), new Variable("Y")));
+            List<AtomExample> grounded = Arrays.asList(
+                    new AtomExample(predicate, Arrays.asList(new Constant(example[1]), new Constant(example[2])),
+                                    true),
+                    new AtomExample(predicate, Arrays.asList(new Constant(example[1]), new Constant(example[3])),
+                                    false));
+            return new ProPprExample(goal, grounded);
+        }
+
+    }
+
+    /**
+     * Revises the theory by replacing, in its position, or appending the clause given for the leaf.
+     */
+    private static class FixedRevisionOperator extends RevisionOperator {
+
+        private final Map<Node<HornClause>, String[]> revisions;
+
+        FixedRevisionOperator(Map<Node<HornClause>, String[]> revisions) {
+            this.revisions = revisions;
+        }
+
+        @Override
+        public Theory performOperation(Collection<? extends Example> targets) {
+            return null;
+        }
+
+        @Override
+        public Theory performOperation(Collection<? extends Example> targets,
+                                       Node<HornClause> revisionLeaf) throws TheoryRevisionException {
+            String[] revision = revisions.get(revisionLeaf);
+            try {
+                List<HornClause> clauses = new ArrayList<>(learningSystem.getTheory());
+                HornClause revised = parseClause(revision[1]);
+                int index = -1;
+                for (int i = 0; i < clauses.size(); i++) {
+                    if (clauses.get(i).toString().equals(revision[0])) { index = i; }
+                }
+                if (index < 0) { clauses.add(revised); } else { clauses.set(index, revised); }
+                return new Theory(clauses);
+            } catch (ParseException e) {
+                throw new TheoryRevisionException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void theoryRevisionAccepted(Theory revised) {
+        }
+
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.knowledge.theory.manager.revision.operator.generalization;
+
+import br.ufrj.cos.core.LearningSystem;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.theory.evaluation.AsyncTheoryEvaluator;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.probabilistic.RocCurveMetric;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.knowledge.theory.manager.revision.TheoryRevisionException;
+import br.ufrj.cos.util.HornClauseUtils;
+import br.ufrj.cos.util.InitializationException;
+import br.ufrj.cos.util.multithreading.AsyncEvaluatorTransformer;
+import br.ufrj.cos.util.multithreading.MultithreadingEvaluation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Checks the beam refinement of the rules, with fixed evaluations for each body, so the choices of the search do
+ * not depend on the inference.
+ */
+public class BottomClauseBoundedRuleTest {
+
+    public static final String INITIAL_LITERAL = "e";
+    public static final List<String> LITERALS = Arrays.asList("a", "b", "c", "d");
+
+    private final Variable x = new Variable("X");
+    private final Variable y = new Variable("Y");
+
+    @Test
+    public void BEAM_SEARCH_TEST() throws InitializationException, TheoryRevisionException {
+        Map<String, double[]> evaluations = new HashMap<>();
+        evaluations.put("a", new double[]{0.6, 1.0});
+        evaluations.put("c", new double[]{0.5, 1.0});
+        evaluations.put("c d", new double[]{0.9, 1.0});
+        evaluations.put("a b", new double[]{0.6, 1.0});
+
+        RuleFixture hillClimbing = new RuleFixture(evaluations, BottomClauseBoundedRule.NO_BEAM_SEARCH,
+                                                   BottomClauseBoundedRule.NO_EVALUATION_BUDGET);
+        Assert.assertEquals("a", getBody(hillClimbing.refine()));
+        RuleFixture beam = new RuleFixture(evaluations, 2, BottomClauseBoundedRule.NO_EVALUATION_BUDGET);
+        Assert.assertEquals("c d", getBody(beam.refine()));
+    }
+
+    @Test
+    public void BEAM_TIE_TEST() throws InitializationException, TheoryRevisionException {
+        Map<String, double[]> evaluations = new HashMap<>();
+        evaluations.put("a", new double[]{0.5, 1.0});
+        evaluations.put("b", new double[]{0.5, 1.0});
+        evaluations.put("c", new double[]{0.5, 1.0});
+        evaluations.put("d", new double[]{0.5, 1.0});
+        for (int i = 0; i < 10; i++) {
+            RuleFixture fixture = new RuleFixture(evaluations, 2, BottomClauseBoundedRule.NO_EVALUATION_BUDGET);
+            fixture.refine();
+            // the beam keeps the first generated refinements among the tied ones, a and b
+            Assert.assertEquals(Arrays.asList("", "a", "b", "c", "d", "a b", "a c", "b c", "a d", "b d"),
+                                fixture.evaluated.subList(0, 10));
+        }
+    }
+
+    @Test
+    public void OPTIMISTIC_PRUNING_TEST() throws InitializationException, TheoryRevisionException {
+        Map<String, double[]> evaluations = new HashMap<>();
+        evaluations.put("a", new double[]{0.6, 1.0});
+        evaluations.put("b", new double[]{0.5, 0.55});
+        RuleFixture fixture = new RuleFixture(evaluations, 2, BottomClauseBoundedRule.NO_EVALUATION_BUDGET);
+        Assert.assertEquals("a", getBody(fixture.refine()));
+        // b is in the beam, but its specializations can not improve over a, so it is not expanded
+        Assert.assertEquals(Arrays.asList("", "a", "b", "c", "d", "a b", "a c", "a d"),
+                            fixture.evaluated.subList(0, 8));
+        Assert.assertFalse(fixture.evaluated.contains("b c"));
+    }
+
+    @Test
+    public void EVALUATION_BUDGET_TEST() throws InitializationException, TheoryRevisionException {
+        Map<String, double[]> evaluations = new HashMap<>();
+        evaluations.put("a", new double[]{0.6, 1.0});
+        evaluations.put("b", new double[]{0.5, 1.0});
+        // four refinements of the initial rule and three of the beam
+        RuleFixture fixture = new RuleFixture(evaluations, 2, 7);
+        fixture.refine();
+        // the refinements are taken in turns from a and b, a b is a refinement of both and evaluated once
+        Assert.assertEquals(Arrays.asList("", "a", "b", "c", "d", "a b", "a c", "b c"), fixture.evaluated);
+
+        BottomClauseBoundedRule.EvaluationBudget budget = new BottomClauseBoundedRule.EvaluationBudget(4);
+        Assert.assertEquals(Arrays.asList(1, 4, 2, 5),
+                            budget.spend(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5))));
+        Assert.assertFalse(budget.hasBudget());
+        Assert.assertTrue(budget.spend(Collections.singletonList(Collections.singletonList(6))).isEmpty());
+        budget = new BottomClauseBoundedRule.EvaluationBudget(BottomClauseBoundedRule.NO_EVALUATION_BUDGET);
+        Assert.assertEquals(Arrays.asList(1, 4, 2, 3),
+                            budget.spend(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 2))));
+        Assert.assertTrue(budget.hasBudget());
+    }
+
+    /**
+     * Gets the names of the literals appended to the body of the initial rule.
+     *
+     * @param clause the rule
+     * @return the names of the literals, separated by spaces
+     */
+    private static String getBody(HornClause clause) {
+        StringJoiner body = new StringJoiner(" ");
+        for (Literal literal : clause.getBody()) {
+            if (!literal.getName().equals(INITIAL_LITERAL)) { body.add(literal.getName()); }
+        }
+        return body.toString();
+    }
+
+    /**
+     * Builds the rule and refines the initial rule, whose body has the {@link #INITIAL_LITERAL}, by appending the
+     * literals of {@link #LITERALS}.
+     */
+    private class RuleFixture {
+
+        private final BottomClauseBoundedRule rule;
+        private final List<String> evaluated = new ArrayList<>();
+        private final FixedEvaluationTransformer transformer;
+
+        RuleFixture(Map<String, double[]> evaluations, int beamWidth,
+                    int evaluationBudget) throws InitializationException {
+            TheoryMetric metric = new RocCurveMetric();
+            LearningSystem learningSystem = new LearningSystem(null, null, null, null);
+            rule = new BottomClauseBoundedRule();
+            rule.setLearningSystem(learningSystem);
+            rule.setTheoryMetric(metric);
+            rule.beamWidth = beamWidth;
+            rule.evaluationBudget = evaluationBudget;
+            rule.maximumSideWayMovements = 0;
+            transformer = new FixedEvaluationTransformer(metric, evaluations, evaluated);
+            rule.multithreading = new MultithreadingEvaluation<>(learningSystem, metric,
+                                                                 AsyncTheoryEvaluator.NO_TIMEOUT, transformer);
+            rule.multithreading.estimateOptimistically = beamWidth > BottomClauseBoundedRule.NO_BEAM_SEARCH;
+        }
+
+        HornClause refine() throws TheoryRevisionException {
+            HornClause bottomClause = new HornClause(new Atom(new Predicate("p", 2), Arrays.asList(x, y)),
+                                                     new Conjunction(buildLiteral(INITIAL_LITERAL)));
+            EquivalentHornClause initial =
+                    HornClauseUtils.buildMinimalSafeEquivalentClauses(bottomClause).iterator().next();
+            AsyncTheoryEvaluator<EquivalentHornClause> initialClause =
+                    transformer.transform(null, initial, Collections.emptyList()).call();
+            Set<Literal> candidates = new LinkedHashSet<>();
+            for (String name : LITERALS) {
+                candidates.add(buildLiteral(name));
+            }
+            return rule.refineRule(initialClause, candidates, Collections.emptyList(),
+                                   new BottomClauseBoundedRule.EvaluationBudget(rule.evaluationBudget))
+                    .getHornClause();
+        }
+
+        Literal buildLiteral(String name) {
+            return new Literal(new Predicate(name, 2), Arrays.asList(x, y));
+        }
+
+    }
+
+    /**
+     * Evaluates each rule by the fixed evaluation and optimistic estimate of its body, recording the evaluated
+     * bodies. The bodies without a fixed evaluation are evaluated to zero, with the maximum optimistic estimate.
+     */
+    private static class FixedEvaluationTransformer implements
+            AsyncEvaluatorTransformer<EquivalentHornClause, EquivalentHornClause> {
+
+        private final TheoryMetric metric;
+        private final Map<String, double[]> evaluations;
+        private final List<String> evaluated;
+
+        FixedEvaluationTransformer(TheoryMetric metric, Map<String, double[]> evaluations, List<String> evaluated) {
+            this.metric = metric;
+            this.evaluations = evaluations;
+            this.evaluated = evaluated;
+        }
+
+        @Override
+        public AsyncTheoryEvaluator<EquivalentHornClause> transform(AsyncTheoryEvaluator<EquivalentHornClause>
+                                                                            evaluator,
+                                                                    EquivalentHornClause equivalentHornClause,
+                                                                    Collection<? extends Example> examples) {
+            AsyncTheoryEvaluator<EquivalentHornClause> fixed =
+                    new AsyncTheoryEvaluator<EquivalentHornClause>(examples, null, metric) {
+                        @Override
+                        public void run() {
+                            String body = getBody(hornClause);
+                            evaluated.add(body);
+                            double[] values = evaluations.getOrDefault(body, new double[]{0.0, 1.0});
+                            evaluation = values[0];
+                            optimisticEvaluation = values[1];
+                        }
+                    };
+            fixed.setHornClause(equivalentHornClause.getHornClause());
+            fixed.setElement(equivalentHornClause);
+            return fixed;
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package br.ufrj.cos.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArithmeticExpressionTest {
+
+    private static final double EPSILON = 1.0e-12;
+
+    private static double evaluate(String expression, double d) throws ArithmeticExpressionException {
+        return ArithmeticExpression.compileUnary(expression, "d").applyAsDouble(d);
+    }
+
+    private static void assertError(String expression, int position) {
+        try {
+            ArithmeticExpression.compile(expression, "d");
+            Assert.fail("Expected an error at position " + position + " of " + expression);
+        } catch (ArithmeticExpressionException e) {
+            Assert.assertEquals(position, e.getPosition());
+            Assert.assertEquals(expression, e.getExpression());
+        }
+    }
+
+    @Test
+    public void PRECEDENCE_TEST() throws ArithmeticExpressionException {
+        Assert.assertEquals(7.0, evaluate("1 + 2 * 3", 0.0), EPSILON);
+        Assert.assertEquals(9.0, evaluate("(1 + 2) * 3", 0.0), EPSILON);
+        Assert.assertEquals(1.0, evaluate("8 / 4 / 2", 0.0), EPSILON);
+        Assert.assertEquals(2.0, evaluate("5 - 2 - 1", 0.0), EPSILON);
+        Assert.assertEquals(512.0, evaluate("2 ^ 3 ^ 2", 0.0), EPSILON);
+        Assert.assertEquals(-4.0, evaluate("-2 ^ 2", 0.0), EPSILON);
+        Assert.assertEquals(0.25, evaluate("2 ^ -2", 0.0), EPSILON);
+        Assert.assertEquals(3.0, evaluate("--3", 0.0), EPSILON);
+        Assert.assertEquals(1500.0, evaluate("1.5e3", 0.0), EPSILON);
+    }
+
+    @Test
+    public void VARIABLE_AND_FUNCTION_TEST() throws ArithmeticExpressionException {
+        Assert.assertEquals(0.495, evaluate("d * 0.5", 0.99), EPSILON);
+        Assert.assertEquals(0.5, evaluate("max(d / 4, 0.5)", 0.99), EPSILON);
+        Assert.assertEquals(0.1, evaluate("min(d, 0.3, 0.1)", 0.99), EPSILON);
+        Assert.assertEquals(Math.sqrt(0.99), evaluate("sqrt(d)", 0.99), EPSILON);
+        Assert.assertEquals(Math.exp(Math.log(0.99) / 2), evaluate("Math.exp(log(d) / 2)", 0.99), EPSILON);
+
+        ArithmeticExpression expression = ArithmeticExpression.compile("x * y - x", "x", "y");
+        Assert.assertEquals(4.0, expression.evaluate(2.0, 3.0), EPSILON);
+        Assert.assertEquals(-1.0, expression.evaluate(1.0, 0.0), EPSILON);
+    }
+
+    @Test
+    public void ERROR_POSITION_TEST() {
+        assertError("d *", 3);
+        assertError("d * e", 4);
+        assertError("d # 2", 2);
+        assertError("(d + 1", 6);
+        assertError("foo(d)", 0);
+        assertError("1 + log(d, 2)", 4);
+        assertError("1.2.3", 3);
+        assertError("max()", 4);
+    }
+
+}
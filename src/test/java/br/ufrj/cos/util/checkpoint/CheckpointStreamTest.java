@@ -0,0 +1,353 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+package br.ufrj.cos.util.checkpoint;
+
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.util.FileIOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.*;
+
+public class CheckpointStreamTest {
+
+    private static final double EPSILON = 1.0e-12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private interface CheckpointWriter {
+
+        void write(CheckpointOutputStream output) throws IOException;
+
+    }
+
+    private static class Counter implements Checkpointable {
+
+        private int count;
+
+        @Override
+        public void saveCheckpoint(CheckpointOutputStream output) throws IOException {
+            output.writeInt(count);
+        }
+
+        @Override
+        public void loadCheckpoint(CheckpointInputStream input) throws IOException {
+            count = input.readInt();
+        }
+
+    }
+
+    private static CheckpointInputStream roundTrip(CheckpointWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutputStream output = new CheckpointOutputStream(bytes)) {
+            writer.write(output);
+        }
+        return new CheckpointInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static List<Term> terms(Term... terms) {
+        return new ArrayList<>(Arrays.asList(terms));
+    }
+
+    @Test
+    public void STRING_TEST() throws IOException {
+        char[] chars = new char[Short.MAX_VALUE * 3];
+        Arrays.fill(chars, 'ç');
+        final String large = new String(chars);
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeString("advisedby");
+            output.writeString("");
+            output.writeString(null);
+            output.writeString(large);
+        });
+        Assert.assertEquals("advisedby", input.readString());
+        Assert.assertEquals("", input.readString());
+        Assert.assertNull(input.readString());
+        Assert.assertEquals(large, input.readString());
+        Assert.assertEquals(-1, input.read());
+    }
+
+    @Test
+    public void NANO_TIME_TEST() throws IOException {
+        final long before = System.nanoTime();
+        final long after = before + 1000;
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeNanoTime(before);
+            output.writeNanoTime(after);
+        });
+        final long restoredBefore = input.readNanoTime();
+        final long restoredAfter = input.readNanoTime();
+        Assert.assertEquals(after - before, restoredAfter - restoredBefore);
+        Assert.assertTrue(restoredBefore <= System.nanoTime());
+    }
+
+    @Test
+    public void RANDOM_TEST() throws IOException {
+        final Random random = new Random(42);
+        random.nextDouble();
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeRandom(random);
+            output.writeRandom(null);
+        });
+        Random restored = input.readRandom();
+        Assert.assertNull(input.readRandom());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(random.nextLong(), restored.nextLong());
+        }
+    }
+
+    @Test
+    public void COMPONENT_TEST() throws IOException {
+        final Counter counter = new Counter();
+        counter.count = 7;
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeComponent(counter);
+            output.writeComponent("not checkpointable");
+            output.writeComponent(null);
+            output.writeComponent(counter);
+        });
+        Counter restored = new Counter();
+        input.readComponent(restored);
+        Assert.assertEquals(7, restored.count);
+        input.readComponent("other string");
+        input.readComponent(null);
+        try {
+            input.readComponent(new Object());
+            Assert.fail("Expected the component to mismatch the checkpoint");
+        } catch (InvalidClassException ignored) {
+        }
+    }
+
+    @Test
+    public void TERM_TEST() throws IOException {
+        final Variable variable = new Variable("X");
+        final Constant constant = new Constant("person1");
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeTerm(variable);
+            output.writeTerm(constant);
+            output.writeTerm(variable);
+            output.writeTerm(null);
+        });
+        Term restoredVariable = input.readTerm();
+        Term restoredConstant = input.readTerm();
+        Assert.assertTrue(restoredVariable instanceof Variable);
+        Assert.assertEquals("X", restoredVariable.getName());
+        Assert.assertEquals(constant, restoredConstant);
+        Assert.assertTrue(restoredConstant.isConstant());
+        Assert.assertSame(restoredVariable, input.readTerm());
+        Assert.assertNull(input.readTerm());
+    }
+
+    @Test
+    public void ATOM_TEST() throws IOException {
+        final Variable variable = new Variable("X");
+        final Constant constant = new Constant("person1");
+        final Atom atom = new Atom(new Predicate("person", 1), terms(constant));
+        final Literal literal = new Literal(new Predicate("advisedby", 2), terms(variable, constant), true);
+        final WeightedAtom weightedAtom = new WeightedAtom(0.25, new Predicate("student", 1), terms(variable));
+        final AtomExample example = new AtomExample(new Predicate("advisedby", 2), terms(constant, constant), false);
+        final Atom propositional = new Atom(new Predicate("true", 0));
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeAtom(atom);
+            output.writeAtom(literal);
+            output.writeAtom(weightedAtom);
+            output.writeAtom(example);
+            output.writeAtom(propositional);
+            output.writeAtom(Literal.TRUE_LITERAL);
+            output.writeAtom(null);
+        });
+        Atom restoredAtom = input.readAtom();
+        Assert.assertEquals(Atom.class, restoredAtom.getClass());
+        Assert.assertEquals(atom, restoredAtom);
+
+        Literal restoredLiteral = (Literal) input.readAtom();
+        Assert.assertTrue(restoredLiteral.isNegated());
+        Assert.assertEquals(literal.toString(), restoredLiteral.toString());
+
+        WeightedAtom restoredWeighted = (WeightedAtom) input.readAtom();
+        Assert.assertEquals(0.25, restoredWeighted.getWeight(), EPSILON);
+        Assert.assertSame(restoredLiteral.getTerms().get(0), restoredWeighted.getTerms().get(0));
+
+        AtomExample restoredExample = (AtomExample) input.readAtom();
+        Assert.assertFalse(restoredExample.isPositive());
+        Assert.assertEquals(example, restoredExample);
+
+        Assert.assertEquals(propositional, input.readAtom());
+        Assert.assertSame(Literal.TRUE_LITERAL, input.readAtom());
+        Assert.assertNull(input.readAtom());
+    }
+
+    @Test
+    public void UNSUPPORTED_ATOM_TEST() throws IOException {
+        final Atom atom = new Atom(new Predicate("person", 1), terms(new Constant("person1"))) {};
+        try {
+            roundTrip(output -> output.writeAtom(atom));
+            Assert.fail("Expected the atom to be unsupported");
+        } catch (NotSerializableException ignored) {
+        }
+    }
+
+    @Test
+    public void CLAUSE_TEST() throws IOException {
+        final Variable x = new Variable("X");
+        final Variable y = new Variable("Y");
+        final Atom head = new Atom(new Predicate("advisedby", 2), terms(x, y));
+        final Conjunction body = new Conjunction(new Literal(new Predicate("student", 1), terms(x), false),
+                                                 new Literal(new Predicate("professor", 1), terms(y), true));
+        final HornClause hornClause = new HornClause(head, body);
+        final Features features = new Features();
+        features.add(new Atom(new Predicate("w", 1), terms(y)));
+        final FeaturedClause featuredClause = new FeaturedClause(head, body, features);
+        final Atom fact = new Atom(new Predicate("person", 1), terms(new Constant("person1")));
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeClauses(Arrays.asList(hornClause, featuredClause, hornClause));
+            output.writeClause(fact);
+            output.writeConjunction(body);
+        });
+        List<HornClause> clauses = new ArrayList<>();
+        input.readHornClauses(clauses);
+        Assert.assertEquals(3, clauses.size());
+        HornClause restoredHorn = clauses.get(0);
+        Assert.assertEquals(HornClause.class, restoredHorn.getClass());
+        Assert.assertEquals(hornClause.toString(), restoredHorn.toString());
+        Assert.assertSame(restoredHorn, clauses.get(2));
+
+        FeaturedClause restoredFeatured = (FeaturedClause) clauses.get(1);
+        Assert.assertEquals(featuredClause.toString(), restoredFeatured.toString());
+        // the clauses share the head, the body and the variables, as the original ones
+        Assert.assertSame(restoredHorn.getHead(), restoredFeatured.getHead());
+        Assert.assertSame(restoredHorn.getBody(), restoredFeatured.getBody());
+        Assert.assertSame(restoredHorn.getHead().getTerms().get(1),
+                          restoredFeatured.getFeatures().get(0).getTerms().get(0));
+        Assert.assertEquals(restoredHorn, restoredFeatured);
+
+        Assert.assertEquals(fact, input.readClause());
+        Assert.assertSame(restoredHorn.getBody(), input.readConjunction());
+    }
+
+    @Test
+    public void UNSUPPORTED_CLAUSE_TEST() throws IOException {
+        final Atom head = new Atom(new Predicate("person", 1), terms(new Variable("X")));
+        final HornClause clause = new HornClause(head, new Conjunction()) {};
+        try {
+            roundTrip(output -> output.writeClause(clause));
+            Assert.fail("Expected the clause to be unsupported");
+        } catch (NotSerializableException ignored) {
+        }
+    }
+
+    @Test
+    public void EXAMPLE_TEST() throws IOException {
+        final Constant person1 = new Constant("person1");
+        final Constant person2 = new Constant("person2");
+        final Variable variable = new Variable("A");
+        final Predicate predicate = new Predicate("advisedby", 2);
+        final AtomExample positive = new AtomExample(predicate, terms(person1, person2), true);
+        final AtomExample negative = new AtomExample(predicate, terms(person1, person1), false);
+        final ProPprExample proPprExample = new ProPprExample(new Atom(predicate, terms(person1, variable)),
+                                                              Arrays.asList(positive, negative));
+        final Map<Example, Map<Atom, Double>> inferences = new LinkedHashMap<>();
+        inferences.put(positive, Collections.singletonMap(positive, 0.75));
+        final Map<Atom, Double> answers = new HashMap<>();
+        answers.put(positive, 0.5);
+        answers.put(new Atom(predicate, terms(person1, person1)), 0.25);
+        inferences.put(proPprExample, answers);
+        CheckpointInputStream input = roundTrip(output -> {
+            output.writeExamples(Arrays.asList(positive, proPprExample, negative));
+            output.writeInferences(inferences);
+        });
+        List<Example> examples = new ArrayList<>();
+        input.readExamples(examples);
+        Assert.assertEquals(3, examples.size());
+        Assert.assertEquals(positive, examples.get(0));
+        Assert.assertEquals(negative, examples.get(2));
+        // the goal has a variable, which is only equal to itself
+        ProPprExample restoredProPpr = (ProPprExample) examples.get(1);
+        Assert.assertEquals(proPprExample.toString(), restoredProPpr.toString());
+        Assert.assertSame(examples.get(0), restoredProPpr.getAtomExamples().get(0));
+        Assert.assertSame(examples.get(2), restoredProPpr.getAtomExamples().get(1));
+
+        Map<Example, Map<Atom, Double>> restoredInferences = new LinkedHashMap<>();
+        input.readInferences(restoredInferences);
+        Iterator<Example> iterator = restoredInferences.keySet().iterator();
+        Assert.assertSame(examples.get(0), iterator.next());
+        Assert.assertSame(restoredProPpr, iterator.next());
+        Assert.assertEquals(inferences.get(positive), restoredInferences.get(examples.get(0)));
+        Assert.assertEquals(answers, restoredInferences.get(restoredProPpr));
+    }
+
+    @Test
+    public void INVALID_REFERENCE_TEST() throws IOException {
+        CheckpointInputStream input = roundTrip(output -> output.writeInt(5));
+        try {
+            input.readTerm();
+            Assert.fail("Expected the reference to be invalid");
+        } catch (StreamCorruptedException ignored) {
+        }
+        input = roundTrip(output -> output.writeInt(0));
+        try {
+            input.readTerm();
+            Assert.fail("Expected the reference to be of the wrong type");
+        } catch (StreamCorruptedException ignored) {
+        }
+    }
+
+    @Test
+    public void CHECKPOINT_FILE_TEST() throws IOException {
+        final Counter counter = new Counter();
+        counter.count = 3;
+        File file = new File(folder.getRoot(), "checkpoint.bin");
+        FileIOUtils.saveCheckpoint(counter, file);
+        Counter restored = new Counter();
+        FileIOUtils.loadCheckpoint(restored, file);
+        Assert.assertEquals(3, restored.count);
+
+        File invalid = folder.newFile("invalid.bin");
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(invalid))) {
+            output.writeInt(CheckpointOutputStream.MAGIC_NUMBER);
+            output.writeInt(CheckpointOutputStream.VERSION + 1);
+        }
+        try {
+            FileIOUtils.loadCheckpoint(restored, invalid);
+            Assert.fail("Expected the checkpoint file to be invalid");
+        } catch (StreamCorruptedException ignored) {
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package br.ufrj.cos.util.multithreading;
+
+import br.ufrj.cos.core.LearningSystem;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.Example;
+import br.ufrj.cos.knowledge.theory.evaluation.AsyncTheoryEvaluator;
+import br.ufrj.cos.knowledge.theory.evaluation.TheoryEvaluator;
+import br.ufrj.cos.knowledge.theory.evaluation.metric.TheoryMetric;
+import br.ufrj.cos.logic.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Checks the racing of the candidates, with fixed scores for each candidate on each example, so the evaluations do
+ * not depend on the inference.
+ */
+public class MultithreadingEvaluationTest {
+
+    public static final int NUMBER_OF_EXAMPLES = 128;
+    public static final int SAMPLE_SIZE = 32;
+    public static final double RACING_DELTA = 0.05;
+    /**
+     * The candidate that scores one on every example.
+     */
+    public static final String GOOD = "good";
+    /**
+     * The candidate that scores zero on every tenth example and one on the others, so it is never worse than the
+     * good one by more than the bound of the sample.
+     */
+    public static final String CLOSE = "close";
+    /**
+     * The candidate that scores zero on every example.
+     */
+    public static final String BAD = "bad";
+    /**
+     * The candidate that scores zero on the samples and one on all the examples, so the racing drops it, although
+     * it is the best.
+     */
+    public static final String LATE = "late";
+
+    private final List<AtomExample> examples = new ArrayList<>();
+    private final Map<Example, Integer> exampleIndexes = new HashMap<>();
+
+    public MultithreadingEvaluationTest() {
+        Predicate predicate = new Predicate("target", 1);
+        for (int i = 0; i < NUMBER_OF_EXAMPLES; i++) {
+            AtomExample example = new AtomExample(predicate, Collections.singletonList(new Constant("x" + i)));
+            examples.add(example);
+            exampleIndexes.put(example, i);
+        }
+    }
+
+    @Test
+    public void DROP_DOMINATED_TEST() {
+        MultithreadingEvaluation<HornClause, HornClause> evaluation = buildEvaluation(new ScoreMetric(1.0));
+        List<AsyncTheoryEvaluator<HornClause>> contenders =
+                evaluation.raceCandidates(evaluation.buildEvaluators(buildCandidates(GOOD, CLOSE, BAD), examples),
+                                          examples, 1);
+        Assert.assertEquals(Arrays.asList(GOOD, CLOSE), getNames(contenders));
+        for (AsyncTheoryEvaluator<HornClause> contender : contenders) {
+            Assert.assertTrue(contender.isEvaluationFinished());
+        }
+        Assert.assertEquals(1.0, contenders.get(0).getEvaluation(), 0.0);
+        Assert.assertEquals(1.0 - 13.0 / NUMBER_OF_EXAMPLES, contenders.get(1).getEvaluation(), 1e-12);
+
+        AsyncTheoryEvaluator<HornClause> best =
+                evaluation.getBestClausesFromCandidates(buildCandidates(BAD, CLOSE, GOOD), examples);
+        Assert.assertEquals(GOOD, best.getHornClause().getHead().getName());
+    }
+
+    @Test
+    public void CLOSE_SURVIVE_TEST() {
+        MultithreadingEvaluation<HornClause, HornClause> evaluation = buildEvaluation(new ScoreMetric(1.0));
+        List<AsyncTheoryEvaluator<HornClause>> contenders =
+                evaluation.raceCandidates(evaluation.buildEvaluators(buildCandidates(CLOSE, GOOD), examples),
+                                          examples, 1);
+        Assert.assertEquals(Arrays.asList(CLOSE, GOOD), getNames(contenders));
+        // both are evaluated on all the examples, where the good one is better
+        Assert.assertEquals(1.0 - 13.0 / NUMBER_OF_EXAMPLES, contenders.get(0).getEvaluation(), 1e-12);
+        Assert.assertEquals(1.0, contenders.get(1).getEvaluation(), 0.0);
+        // nothing was dropped, so the race cost the sample on top of the full evaluation
+        Assert.assertEquals(-2 * SAMPLE_SIZE, evaluation.getRacingStatistics().getSavedExamples());
+    }
+
+    @Test
+    public void IS_TO_RACE_TEST() {
+        MultithreadingEvaluation<HornClause, HornClause> evaluation = buildEvaluation(new ScoreMetric(1.0));
+        List<AsyncTheoryEvaluator<HornClause>> evaluators =
+                evaluation.buildEvaluators(buildCandidates(GOOD, BAD), examples);
+        Assert.assertTrue(evaluation.isToRace(evaluators, examples));
+        // the sample must be at most a quarter of the examples
+        Assert.assertFalse(evaluation.isToRace(evaluators, examples.subList(0, 4 * SAMPLE_SIZE - 1)));
+        Assert.assertFalse(evaluation.isToRace(evaluators.subList(0, 1), examples));
+
+        MultithreadingEvaluation<HornClause, HornClause> unbounded =
+                buildEvaluation(new ScoreMetric(Double.POSITIVE_INFINITY));
+        Assert.assertFalse(unbounded.isToRace(unbounded.buildEvaluators(buildCandidates(GOOD, BAD), examples),
+                                              examples));
+
+        evaluation.racingDelta = MultithreadingEvaluation.NO_RACING;
+        Assert.assertFalse(evaluation.isToRace(evaluators, examples));
+    }
+
+    @Test
+    public void RACING_STATISTICS_TEST() {
+        MultithreadingEvaluation<HornClause, HornClause> evaluation = buildEvaluation(new ScoreMetric(1.0));
+        evaluation.checkRacingAgreement = true;
+        List<AsyncTheoryEvaluator<HornClause>> evaluators =
+                evaluation.buildEvaluators(buildCandidates(GOOD, CLOSE, BAD), examples);
+        evaluation.raceCandidates(evaluators, examples, 1);
+        evaluation.raceCandidates(evaluation.buildEvaluators(buildCandidates(CLOSE, LATE), examples), examples, 1);
+
+        MultithreadingEvaluation.RacingStatistics statistics = evaluation.getRacingStatistics();
+        Assert.assertEquals(2, statistics.races.get());
+        // the first race samples three candidates and evaluates two, the second samples two and evaluates one
+        Assert.assertEquals(3 * SAMPLE_SIZE + 2 * NUMBER_OF_EXAMPLES + 2 * SAMPLE_SIZE + NUMBER_OF_EXAMPLES,
+                            statistics.evaluatedExamples.get());
+        Assert.assertEquals(5 * NUMBER_OF_EXAMPLES, statistics.exhaustiveExamples.get());
+        Assert.assertEquals(2 * NUMBER_OF_EXAMPLES - 5 * SAMPLE_SIZE, statistics.getSavedExamples());
+        // the second race drops the late candidate, which is the best on all the examples
+        Assert.assertEquals(2, statistics.checkedRaces.get());
+        Assert.assertEquals(1, statistics.agreements.get());
+        // the check evaluates the dropped candidate on all the examples
+        Assert.assertTrue(evaluators.get(2).isEvaluationFinished());
+        Assert.assertEquals(0.0, evaluators.get(2).getEvaluation(), 0.0);
+    }
+
+    private MultithreadingEvaluation<HornClause, HornClause> buildEvaluation(TheoryMetric metric) {
+        LearningSystem learningSystem = new LearningSystem(null, null, null, null);
+        learningSystem.theoryEvaluator = new ScoreTheoryEvaluator();
+        MultithreadingEvaluation<HornClause, HornClause> evaluation = new MultithreadingEvaluation<>(
+                learningSystem, metric, AsyncTheoryEvaluator.NO_TIMEOUT, (evaluator, clause, examples) -> {
+            evaluator.setHornClause(clause);
+            evaluator.setElement(clause);
+            return evaluator;
+        });
+        evaluation.racingDelta = RACING_DELTA;
+        evaluation.racingSampleSize = SAMPLE_SIZE;
+        return evaluation;
+    }
+
+    private static List<HornClause> buildCandidates(String... names) {
+        List<HornClause> candidates = new ArrayList<>();
+        for (String name : names) { candidates.add(new HornClause(new Atom(name))); }
+        return candidates;
+    }
+
+    private static List<String> getNames(List<AsyncTheoryEvaluator<HornClause>> evaluators) {
+        List<String> names = new ArrayList<>();
+        for (AsyncTheoryEvaluator<HornClause> evaluator : evaluators) {
+            names.add(evaluator.getHornClause().getHead().getName());
+        }
+        return names;
+    }
+
+    /**
+     * Gets the score of the candidate on the example.
+     *
+     * @param candidate the name of the candidate
+     * @param example   the index of the example
+     * @param sampled   if the candidate is evaluated on a sample of the examples
+     * @return the score
+     */
+    private static double getScore(String candidate, int example, boolean sampled) {
+        switch (candidate) {
+            case GOOD:
+                return 1.0;
+            case CLOSE:
+                return example % 10 == 0 ? 0.0 : 1.0;
+            case LATE:
+                return sampled ? 0.0 : 1.0;
+            default:
+                return 0.0;
+        }
+    }
+
+    /**
+     * Infers, for each example, the score of the appended candidate as the value of the example.
+     */
+    private class ScoreTheoryEvaluator extends TheoryEvaluator {
+
+        @Override
+        public Map<Example, Map<Atom, Double>> inferExamplesAppendingClauses(TheoryMetric metric,
+                                                                            Collection<? extends Example> examples,
+                                                                            Iterable<? extends HornClause>
+                                                                                    appendClauses) {
+            String candidate = appendClauses.iterator().next().getHead().getName();
+            Map<Example, Map<Atom, Double>> inferred = new HashMap<>();
+            boolean sampled = examples.size() < NUMBER_OF_EXAMPLES;
+            for (Example example : examples) {
+                inferred.put(example, Collections.singletonMap(
+                        example.getAtom(), getScore(candidate, exampleIndexes.get(example), sampled)));
+            }
+            return inferred;
+        }
+
+    }
+
+    /**
+     * The mean of the values of the examples, with a given range.
+     */
+    private static class ScoreMetric extends TheoryMetric {
+
+        private final double range;
+
+        ScoreMetric(double range) {
+            this.range = range;
+        }
+
+        @Override
+        public double evaluate(Map<Example, Map<Atom, Double>> inferredResult,
+                               Collection<? extends Example> examples) {
+            double sum = 0.0;
+            for (Example example : examples) {
+                for (double value : inferredResult.getOrDefault(example, Collections.emptyMap()).values()) {
+                    sum += value;
+                }
+            }
+            return sum / examples.size();
+        }
+
+        @Override
+        public double getRange() {
+            return range;
+        }
+
+        @Override
+        public double getMaximumValue() {
+            return 1.0;
+        }
+
+        @Override
+        public String toString() {
+            return "Score";
+        }
+
+    }
+
+}
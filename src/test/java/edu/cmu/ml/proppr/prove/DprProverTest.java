@@ -0,0 +1,248 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.cmu.ml.proppr.prove;
+
+import br.ufrj.cos.engine.proppr.ProPprEngineSystemTranslator;
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import edu.cmu.ml.proppr.prove.wam.*;
+import edu.cmu.ml.proppr.util.APROptions;
+import edu.cmu.ml.proppr.util.Dictionary;
+import edu.cmu.ml.proppr.util.StatusLogger;
+import edu.cmu.ml.proppr.util.math.LongDense;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Checks that the {@link DprProver} and the {@link IdDprProver}, which push the mass with an explicit stack, give
+ * the same solutions as the former recursive push, on a small recursive program and without a budget.
+ */
+public class DprProverTest {
+
+    public static final String FACTS = "" +
+            "edge(a, b). edge(a, c). edge(b, c). edge(b, d). edge(c, d). edge(c, a). " +
+            "edge(d, e). edge(e, b). edge(e, f). edge(f, a).";
+    public static final String THEORY = "" +
+            "path(X, Y) :- edge(X, Y) {direct}. " +
+            "path(X, Y) :- edge(X, Z), path(Z, Y) {indirect}.";
+    public static final String[] SOURCES = {"a", "b", "c", "d", "e", "f"};
+    public static final double[] EPSILONS = {1e-2, 1e-3, 1e-4};
+
+    @Test
+    public void DPR_SAME_SOLUTIONS_TEST() throws Exception {
+        for (double epsilon : EPSILONS) {
+            for (String source : SOURCES) {
+                assertSameSolutions(prove(new FormerDprProver(buildOptions(epsilon)), source),
+                                    prove(new DprProver(buildOptions(epsilon)), source));
+            }
+        }
+    }
+
+    @Test
+    public void ID_DPR_SAME_SOLUTIONS_TEST() throws Exception {
+        for (double epsilon : EPSILONS) {
+            for (String source : SOURCES) {
+                assertSameSolutions(prove(new FormerIdDprProver(buildOptions(epsilon)), source),
+                                    prove(new IdDprProver(buildOptions(epsilon)), source));
+            }
+        }
+    }
+
+    private static void assertSameSolutions(Map<Atom, Double> expected, Map<Atom, Double> actual) {
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        // the states are pushed in the same order, so the values are exactly the same
+        for (Map.Entry<Atom, Double> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getKey().toString(), entry.getValue(), actual.get(entry.getKey()), 0.0);
+        }
+    }
+
+    private static APROptions buildOptions(double epsilon) {
+        APROptions options = new APROptions();
+        options.epsilon = epsilon;
+        return options;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<Atom, Double> prove(Prover<?> prover, String source) throws ParseException {
+        ProPprEngineSystemTranslator translator = new ProPprEngineSystemTranslator();
+        translator.aprOptions = prover.apr;
+        translator.prover = prover;
+        translator.numberOfThreads = 1;
+        List<Atom> facts = new ArrayList<>();
+        for (Clause clause : parse(FACTS)) { facts.add((Atom) clause); }
+        translator.setKnowledgeBase(new KnowledgeBase(facts));
+        Theory theory = new Theory(new ArrayList<>());
+        theory.addAll(parse(THEORY), HornClause.class);
+        translator.setTheory(theory);
+        translator.initialize();
+
+        Predicate predicate = new Predicate("path", 2);
+        Atom goal = new Atom(predicate, Arrays.asList(new Constant(source), new Variable("Y")));
+        AtomExample answer = new AtomExample(predicate, Arrays.asList(new Constant(source), new Constant("a")));
+        ProPprExample example = new ProPprExample(goal, Collections.singletonList(answer));
+        return ((ProPprEngineSystemTranslator<?>) translator).inferExamples(example).get(example);
+    }
+
+    private static List<Clause> parse(String content) throws ParseException {
+        return new KnowledgeParser(new StringReader(content)).parseKnowledge();
+    }
+
+    /**
+     * The former {@link DprProver}, which pushed the mass recursively.
+     */
+    private static class FormerDprProver extends DprProver {
+
+        FormerDprProver(APROptions apr) {
+            super(STAYPROB_DEFAULT, apr);
+        }
+
+        @Override
+        protected int proveState(StateProofGraph pg, Map<State, Double> p, Map<State, Double> r,
+                                 State u, int pushCounter, int depth, double iterEpsilon,
+                                 StatusLogger status) {
+            try {
+                int deg = pg.pgDegree(u);
+                if (r.get(u) / deg > iterEpsilon) {
+                    pushCounter += 1;
+                    List<Outlink> outs = pg.pgOutlinks(u, true);
+                    double z = 0.0;
+                    for (Outlink o : outs) {
+                        o.wt = this.weighter.w(o.fd);
+                        z += o.wt;
+                    }
+                    while (r.get(u) / deg > iterEpsilon) {
+                        double ru = r.get(u);
+                        addToP(p, u, ru);
+                        r.put(u, (1.0 - apr.alpha) * stayProbability * ru);
+                        for (Outlink o : outs) {
+                            if (o.wt == 0) { continue; }
+                            Dictionary.increment(r, o.child, (1.0 - apr.alpha) * moveProbability * (o.wt / z) * ru,
+                                                 "(elided)");
+                        }
+                    }
+                    for (Outlink o : outs) {
+                        if (o.child.equals(pg.getStartState())) { continue; }
+                        if (o.wt == 0) { continue; }
+                        pushCounter = proveState(pg, p, r, o.child, pushCounter, depth + 1, iterEpsilon, status);
+                    }
+                }
+            } catch (LogicProgramException e) {
+                throw new IllegalStateException(e);
+            }
+            return pushCounter;
+        }
+
+        @Override
+        public Prover<StateProofGraph> copy() {
+            FormerDprProver copy = new FormerDprProver(apr);
+            copy.setWeighter(weighter);
+            return copy;
+        }
+
+    }
+
+    /**
+     * The former {@link IdDprProver}, which pushed the mass recursively.
+     */
+    private static class FormerIdDprProver extends IdDprProver {
+
+        FormerIdDprProver(APROptions apr) {
+            super(STAYPROB_DEFAULT, apr);
+        }
+
+        @Override
+        protected int proveState(CachingIdProofGraph cg, LongDense.FloatVector p, LongDense.FloatVector r,
+                                 int uid, int pushCounter, int depth, double iterEpsilon,
+                                 LongDense.AbstractFloatVector params, StatusLogger status) {
+            try {
+                int deg = cg.getDegreeById(uid, this.weighter);
+                if (r.get(uid) / deg > iterEpsilon) {
+                    pushCounter += 1;
+                    double z = cg.getTotalWeightOfOutlinks(uid, params, this.weighter);
+                    while (r.get(uid) / deg > iterEpsilon) {
+                        double ru = r.get(uid);
+                        p.inc(uid, apr.alpha * ru);
+                        r.set(uid, (1.0 - apr.alpha) * stayProbability * ru);
+                        for (int i = 0; i < deg; i++) {
+                            double wuv = cg.getIthWeightById(uid, i, params, this.weighter);
+                            if (wuv == 0) { continue; }
+                            int vid = cg.getIthNeighborById(uid, i, this.weighter);
+                            r.inc(vid, (1.0 - apr.alpha) * moveProbability * (wuv / z) * ru);
+                        }
+                    }
+                    for (int i = 0; i < deg; i++) {
+                        int vid = cg.getIthNeighborById(uid, i, this.weighter);
+                        if (vid == cg.getRootId()) { continue; }
+                        if (0 == cg.getIthWeightById(uid, i, params, this.weighter)) { continue; }
+                        pushCounter = proveState(cg, p, r, vid, pushCounter, depth + 1, iterEpsilon, params, status);
+                    }
+                }
+            } catch (LogicProgramException e) {
+                throw new IllegalStateException(e);
+            }
+            return pushCounter;
+        }
+
+        @Override
+        public Prover<CachingIdProofGraph> copy() {
+            FormerIdDprProver copy = new FormerIdDprProver(apr);
+            copy.setWeighter(weighter);
+            copy.params = this.params;
+            copy.parent = this.parent != null ? this.parent : this;
+            return copy;
+        }
+
+    }
+
+}
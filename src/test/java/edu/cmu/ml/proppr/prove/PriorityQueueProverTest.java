@@ -0,0 +1,234 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package edu.cmu.ml.proppr.prove;
+
+import br.ufrj.cos.engine.proppr.ProPprEngineSystemTranslator;
+import br.ufrj.cos.knowledge.base.KnowledgeBase;
+import br.ufrj.cos.knowledge.example.AtomExample;
+import br.ufrj.cos.knowledge.example.ProPprExample;
+import br.ufrj.cos.knowledge.theory.Theory;
+import br.ufrj.cos.logic.*;
+import br.ufrj.cos.logic.parser.knowledge.KnowledgeParser;
+import br.ufrj.cos.logic.parser.knowledge.ParseException;
+import edu.cmu.ml.proppr.prove.wam.CachingIdProofGraph;
+import edu.cmu.ml.proppr.prove.wam.LogicProgramException;
+import edu.cmu.ml.proppr.prove.wam.State;
+import edu.cmu.ml.proppr.util.APROptions;
+import edu.cmu.ml.proppr.util.StatusLogger;
+import edu.cmu.ml.proppr.util.math.LongDense;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Checks that the {@link PriorityQueueProver} gives the same solutions as the former prover, whose frontier was a
+ * {@link PriorityQueue} searched linearly at each update, on a small recursive program. The former removal never
+ * matched an entry, since {@code QueueEntry} only overloaded {@code equals}, so the outdated entries stayed in the
+ * queue.
+ */
+public class PriorityQueueProverTest {
+
+    public static final String FACTS = "" +
+            "edge(a, b). edge(a, c). edge(b, c). edge(b, d). edge(c, d). edge(c, a). " +
+            "edge(d, e). edge(e, b). edge(e, f). edge(f, a).";
+    public static final String THEORY = "" +
+            "path(X, Y) :- edge(X, Y) {direct}. " +
+            "path(X, Y) :- edge(X, Z), path(Z, Y) {indirect}.";
+    public static final String[] SOURCES = {"a", "b", "c", "d", "e", "f"};
+    public static final double[] EPSILONS = {1e-2, 1e-3, 1e-4};
+
+    @Test
+    public void SAME_SOLUTIONS_TEST() throws Exception {
+        for (double epsilon : EPSILONS) {
+            for (String source : SOURCES) {
+                Map<Atom, Double> expected = prove(new FormerPriorityQueueProver(buildOptions(epsilon)), source);
+                Map<Atom, Double> actual = prove(new PriorityQueueProver(buildOptions(epsilon)), source);
+                Assert.assertFalse(expected.isEmpty());
+                Assert.assertEquals(expected.keySet(), actual.keySet());
+                // the states are pushed in the same order, so the values are exactly the same
+                for (Map.Entry<Atom, Double> entry : expected.entrySet()) {
+                    Assert.assertEquals(entry.getKey().toString(), entry.getValue(), actual.get(entry.getKey()), 0.0);
+                }
+            }
+        }
+    }
+
+    private static APROptions buildOptions(double epsilon) {
+        APROptions options = new APROptions();
+        options.epsilon = epsilon;
+        return options;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<Atom, Double> prove(Prover<?> prover, String source) throws ParseException {
+        ProPprEngineSystemTranslator translator = new ProPprEngineSystemTranslator();
+        translator.aprOptions = prover.apr;
+        translator.prover = prover;
+        translator.numberOfThreads = 1;
+        List<Atom> facts = new ArrayList<>();
+        for (Clause clause : parse(FACTS)) { facts.add((Atom) clause); }
+        translator.setKnowledgeBase(new KnowledgeBase(facts));
+        Theory theory = new Theory(new ArrayList<>());
+        theory.addAll(parse(THEORY), HornClause.class);
+        translator.setTheory(theory);
+        translator.initialize();
+
+        Predicate predicate = new Predicate("path", 2);
+        Atom goal = new Atom(predicate, Arrays.asList(new Constant(source), new Variable("Y")));
+        AtomExample answer = new AtomExample(predicate, Arrays.asList(new Constant(source), new Constant("a")));
+        ProPprExample example = new ProPprExample(goal, Collections.singletonList(answer));
+        return ((ProPprEngineSystemTranslator<?>) translator).inferExamples(example).get(example);
+    }
+
+    private static List<Clause> parse(String content) throws ParseException {
+        return new KnowledgeParser(new StringReader(content)).parseKnowledge();
+    }
+
+    /**
+     * The former {@link PriorityQueueProver}, as it was before its frontier became an
+     * {@link edu.cmu.ml.proppr.util.math.IndexedMaxHeap}.
+     */
+    private static class FormerPriorityQueueProver extends PriorityQueueProver {
+
+        FormerPriorityQueueProver(APROptions apr) {
+            super(apr);
+        }
+
+        @Override
+        public Map<State, Double> prove(CachingIdProofGraph cg, StatusLogger status) {
+            LongDense.FloatVector p = new LongDense.FloatVector();
+            LongDense.FloatVector r = new LongDense.FloatVector();
+            int state0 = cg.getRootId();
+            r.set(state0, 1.0);
+
+            PriorityQueue<QueueEntry> q = new PriorityQueue<QueueEntry>();
+            int deg;
+            try {
+                deg = cg.getDegreeById(state0, null);
+                q.add(new QueueEntry(state0, 1.0 / deg));
+            } catch (LogicProgramException ex) {
+                throw new IllegalStateException(ex);
+            }
+
+            LongDense.UnitVector params = new LongDense.UnitVector();
+
+            int maxIterations = (int) (1.0 / apr.epsilon + 0.5);
+            for (int n = 0; n < maxIterations && !q.isEmpty(); n++) {
+                QueueEntry head = q.element();
+                q.remove(head);
+                int[] children;
+                if (head.score > apr.epsilon) {
+                    try {
+                        int uid = head.id;
+                        deg = cg.getDegreeById(uid, null);
+                        double z = cg.getTotalWeightOfOutlinks(uid, params, this.weighter);
+                        children = new int[deg + 1];
+                        children[0] = uid;
+                        for (int i = 0; i < deg; i++) {
+                            int vid = cg.getIthNeighborById(uid, i, this.weighter);
+                            q.remove(new QueueEntry(vid, r.get(vid)));
+                            children[i + 1] = vid;
+                        }
+                        while (r.get(uid) / deg > apr.epsilon) {
+                            double ru = r.get(uid);
+                            p.inc(uid, ru);
+                            r.set(uid, (1.0 - apr.alpha) * stayProbability * ru);
+                            for (int i = 0; i < deg; i++) {
+                                double wuv = cg.getIthWeightById(uid, i, params, this.weighter);
+                                int vid = cg.getIthNeighborById(uid, i, this.weighter);
+                                r.inc(vid, (1.0 - apr.alpha) * moveProbability * (wuv / z) * ru);
+                            }
+                        }
+                        for (int i = 0; i < children.length; i++) {
+                            int vi = children[i];
+                            int degvi = cg.getDegreeById(vi, null);
+                            double scorevi = r.get(vi) / degvi;
+                            q.add(new QueueEntry(vi, scorevi));
+                        }
+                    } catch (LogicProgramException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+            return cg.asMap(p);
+        }
+
+        @Override
+        public Prover<CachingIdProofGraph> copy() {
+            FormerPriorityQueueProver copy = new FormerPriorityQueueProver(apr);
+            copy.setWeighter(weighter);
+            return copy;
+        }
+
+    }
+
+    private static class QueueEntry implements Comparable<QueueEntry> {
+
+        public int id;
+        public double score;
+
+        public QueueEntry(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public boolean equals(QueueEntry other) {
+            return compareTo(other) == 0;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            double scoreCmp = this.score - other.score;
+            if (scoreCmp < 0.0) { return +1; } else if (scoreCmp > 0.0) { return -1; } else {
+                return (this.id - other.id);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package edu.cmu.ml.proppr.prove.wam.plugins;
+
+import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.*;
+
+/**
+ * Checks that the {@link SparseMatrixIndex} mapped from the binary file gives the same matrix as the one read from
+ * the text files.
+ */
+public class SparseMatrixIndexTest {
+
+    private static final long SEED = 42;
+    private static final String MATRIX = "edge_node_node";
+    private static final int RANDOM_NODES = 500;
+    private static final int RANDOM_DEGREE = 6;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writes the text files of the matrix.
+     *
+     * @param directory  the directory
+     * @param columns    the number of columns
+     * @param rowOffsets the row offsets, which may omit the empty rows at the end
+     * @param colIndex   the lines of the column indices, with the optional values
+     * @throws IOException if an I/O error has occurred
+     */
+    private static void writeMatrix(File directory, int rows, int columns, List<Integer> rowOffsets,
+                                    List<String> colIndex) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new File(directory, MATRIX + ".rce"))) {
+            writer.println(rows);
+            writer.println(columns);
+            writer.println(colIndex.size());
+        }
+        try (PrintWriter writer = new PrintWriter(new File(directory, MATRIX + ".rowOffset"))) {
+            for (Integer offset : rowOffsets) { writer.println(offset); }
+        }
+        try (PrintWriter writer = new PrintWriter(new File(directory, MATRIX + ".colIndex"))) {
+            for (String line : colIndex) { writer.println(line); }
+        }
+        try (PrintWriter writer = new PrintWriter(new File(directory, SparseGraphPlugin.MANIFEST))) {
+            writer.println(MATRIX);
+        }
+    }
+
+    private static String[] names(int size) {
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) { names[i] = String.format("n%04d", i); }
+        return names;
+    }
+
+    private static TObjectIntMap<String> index(String[] names) {
+        TObjectIntMap<String> index = new TObjectIntHashMap<>();
+        for (int i = 0; i < names.length; i++) { index.put(names[i], i); }
+        return index;
+    }
+
+    private static SparseMatrixIndex loadText(File directory, String[] names) throws IOException {
+        SparseMatrixIndex matrix = new SparseMatrixIndex();
+        matrix.arg1 = index(names);
+        matrix.arg2 = names;
+        matrix.load(directory, MATRIX);
+        return matrix;
+    }
+
+    /**
+     * Converts the text files to the binary file and asserts that the mapped matrix is equal to the text one.
+     *
+     * @param directory the directory of the matrix
+     * @param names     the names of the rows and columns
+     * @throws IOException if an I/O error has occurred
+     */
+    private static void assertRoundTrip(File directory, String[] names) throws IOException {
+        SparseMatrixIndex text = loadText(directory, names);
+        SparseGraphPlugin.convertToBinary(directory);
+        Assert.assertTrue(new File(directory, MATRIX + SparseMatrixIndex.BINARY_EXTENSION).exists());
+        SparseMatrixIndex binary = new SparseMatrixIndex(directory, MATRIX, index(names), names);
+
+        Assert.assertEquals(text.rows, binary.rows);
+        Assert.assertEquals(text.cols, binary.cols);
+        Assert.assertEquals(text.entries, binary.entries);
+        Assert.assertEquals(text.cols, SparseMatrixIndex.binaryColumns(directory, MATRIX));
+        Assert.assertEquals(new HashSet<>(text.allSrc()), new HashSet<>(binary.allSrc()));
+        for (String name : names) {
+            Assert.assertEquals(name, text.row(name), binary.row(name));
+            Assert.assertEquals(name, text.degree(name), binary.degree(name));
+            TObjectDoubleMap<String> expected = text.near(name);
+            TObjectDoubleMap<String> mapped = binary.near(name);
+            Assert.assertEquals(name, expected, mapped);
+            List<String> expectedEntries = new ArrayList<>();
+            List<String> mappedEntries = new ArrayList<>();
+            Assert.assertEquals(text.forEachNear(name, (column, value) -> expectedEntries.add(column + "=" + value)),
+                                binary.forEachNear(name, (column, value) -> mappedEntries.add(column + "=" + value)));
+            Assert.assertEquals(name, expectedEntries, mappedEntries);
+        }
+        Assert.assertNull(binary.near("missing"));
+        Assert.assertFalse(binary.forEachNear("missing", (column, value) -> true));
+    }
+
+    @Test
+    public void SMALL_ROUND_TRIP_TEST() throws IOException {
+        File directory = folder.newFolder("small.sparse");
+        String[] names = names(5);
+        // row 1 is empty, rows 3 and 4 have no offset; the entries without value are 1.0
+        writeMatrix(directory, 5, 5, Arrays.asList(0, 2, 2), Arrays.asList("1\t0.5", "4", "0\t0.25", "3", "2\t2.0"));
+        SparseMatrixIndex text = loadText(directory, names);
+        Assert.assertEquals(1.0, text.near("n0000").get("n0004"), 0.0);
+        Assert.assertEquals(0, text.degree("n0001"));
+        Assert.assertEquals(3, text.degree("n0002"));
+        assertRoundTrip(directory, names);
+    }
+
+    @Test
+    public void RANDOM_ROUND_TRIP_TEST() throws IOException {
+        File directory = folder.newFolder("random.sparse");
+        Random random = new Random(SEED);
+        List<Integer> rowOffsets = new ArrayList<>();
+        List<String> colIndex = new ArrayList<>();
+        for (int i = 0; i < RANDOM_NODES; i++) {
+            rowOffsets.add(colIndex.size());
+            int degree = random.nextInt(2 * RANDOM_DEGREE + 1);
+            int column = random.nextInt(RANDOM_NODES);
+            for (int j = 0; j < degree; j++) {
+                colIndex.add(column + "\t" + random.nextFloat());
+                column = (column + 1 + random.nextInt(3)) % RANDOM_NODES;
+            }
+        }
+        writeMatrix(directory, RANDOM_NODES, RANDOM_NODES, rowOffsets, colIndex);
+        assertRoundTrip(directory, names(RANDOM_NODES));
+    }
+
+    @Test
+    public void STOP_ITERATION_TEST() throws IOException {
+        File directory = folder.newFolder("stop.sparse");
+        String[] names = names(3);
+        writeMatrix(directory, 3, 3, Arrays.asList(0, 3, 3), Arrays.asList("0", "1", "2"));
+        SparseGraphPlugin.convertToBinary(directory);
+        SparseMatrixIndex binary = new SparseMatrixIndex(directory, MATRIX, index(names), names);
+        List<String> visited = new ArrayList<>();
+        Assert.assertFalse(binary.forEachNear("n0000", (column, value) -> visited.add(column) && visited.size() < 2));
+        Assert.assertEquals(Arrays.asList("n0000", "n0001"), visited);
+    }
+
+    @Test
+    public void INVALID_BINARY_TEST() throws IOException {
+        File directory = folder.newFolder("invalid.sparse");
+        String[] names = names(3);
+        writeMatrix(directory, 3, 3, Arrays.asList(0, 1, 2), Arrays.asList("0", "1", "2"));
+        SparseGraphPlugin.convertToBinary(directory);
+        File file = new File(directory, MATRIX + SparseMatrixIndex.BINARY_EXTENSION);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        try {
+            new SparseMatrixIndex(directory, MATRIX, index(names), names);
+            Assert.fail("Expected the truncated file to be rejected");
+        } catch (IllegalArgumentException ignored) {
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(0);
+        }
+        try {
+            new SparseMatrixIndex(directory, MATRIX, index(names), names);
+            Assert.fail("Expected the file without the magic number to be rejected");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+}
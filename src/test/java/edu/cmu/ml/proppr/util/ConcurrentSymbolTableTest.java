@@ -0,0 +1,168 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.cmu.ml.proppr.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks the {@link ConcurrentSymbolTable} under concurrent insertions and lookups of random, overlapping symbols.
+ */
+public class ConcurrentSymbolTableTest {
+
+    private static final long SEED = 42;
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int NUMBER_OF_SYMBOLS = 20000;
+    private static final int OPERATIONS_PER_THREAD = 50000;
+
+    @Test
+    public void SEQUENTIAL_TEST() {
+        ConcurrentSymbolTable<String> table = new ConcurrentSymbolTable<>();
+        Assert.assertEquals(0, table.size());
+        Assert.assertFalse(table.hasId("a"));
+        Assert.assertNull(table.getSymbol(1));
+        Assert.assertEquals(1, table.getId("a"));
+        Assert.assertEquals(2, table.getId("b"));
+        table.insert("a");
+        Assert.assertEquals(1, table.getId("a"));
+        Assert.assertTrue(table.hasId("b"));
+        Assert.assertEquals("b", table.getSymbol(2));
+        Assert.assertNull(table.getSymbol(3));
+        Assert.assertNull(table.getSymbol(0));
+        Assert.assertEquals(2, table.size());
+    }
+
+    @Test
+    public void CONCURRENT_DEFAULT_STRATEGY_TEST() throws Exception {
+        checkConcurrentAccess(new ConcurrentSymbolTable<String>());
+    }
+
+    @Test
+    public void CONCURRENT_IDENTITY_STRATEGY_TEST() throws Exception {
+        checkConcurrentAccess(new ConcurrentSymbolTable<String>(ConcurrentSymbolTable.HASHING_STRATEGIES.identity));
+    }
+
+    @Test
+    public void CONCURRENT_COLLIDING_STRATEGY_TEST() throws Exception {
+        // few distinct keys, so most of the symbols share the slots of the index
+        checkConcurrentAccess(new ConcurrentSymbolTable<>(new ConcurrentSymbolTable.HashingStrategy<String>() {
+            @Override
+            public Object computeKey(String symbol) {
+                return symbol.length();
+            }
+
+            @Override
+            public boolean equals(String o1, String o2) {
+                return o1 != null && o1.equals(o2);
+            }
+        }));
+    }
+
+    /**
+     * Each thread gets the ids of random symbols, drawn from the same pool, and checks the symbols of ids seen so
+     * far. In the end, the ids must be dense, unique and the same for all threads.
+     *
+     * @param table the table
+     * @throws Exception if a thread fails
+     */
+    private static void checkConcurrentAccess(final ConcurrentSymbolTable<String> table) throws Exception {
+        final String[] pool = new String[NUMBER_OF_SYMBOLS];
+        for (int i = 0; i < pool.length; i++) { pool[i] = "s" + i; }
+        final CyclicBarrier start = new CyclicBarrier(NUMBER_OF_THREADS);
+        final AtomicReference<String> error = new AtomicReference<>();
+        List<Callable<Map<String, Integer>>> tasks = new ArrayList<>();
+        for (int t = 0; t < NUMBER_OF_THREADS; t++) {
+            final Random random = new Random(SEED + t);
+            tasks.add(new Callable<Map<String, Integer>>() {
+                @Override
+                public Map<String, Integer> call() throws Exception {
+                    Map<String, Integer> seen = new HashMap<>();
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        String symbol = pool[random.nextInt(pool.length)];
+                        if (random.nextBoolean()) {
+                            int id = table.getId(symbol);
+                            Integer previous = seen.put(symbol, id);
+                            if (previous != null && previous != id) { error.set(symbol + " changed its id"); }
+                            if (!symbol.equals(table.getSymbol(id))) { error.set(id + " is not " + symbol); }
+                        } else if (seen.containsKey(symbol) && !table.hasId(symbol)) {
+                            error.set(symbol + " is missing");
+                        }
+                        int size = table.size();
+                        if (size > 0 && table.getSymbol(1 + random.nextInt(size)) == null) {
+                            error.set("null symbol below the size");
+                        }
+                    }
+                    return seen;
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try {
+            Map<String, Integer> ids = new HashMap<>();
+            for (Future<Map<String, Integer>> future : executor.invokeAll(tasks)) {
+                for (Map.Entry<String, Integer> entry : future.get().entrySet()) {
+                    Integer previous = ids.put(entry.getKey(), entry.getValue());
+                    Assert.assertTrue(previous == null || previous.equals(entry.getValue()));
+                }
+            }
+            Assert.assertNull(error.get());
+            Assert.assertEquals(ids.size(), table.size());
+            Set<Integer> distinct = new HashSet<>(ids.values());
+            Assert.assertEquals(ids.size(), distinct.size());
+            for (int id = 1; id <= table.size(); id++) {
+                Assert.assertTrue(distinct.contains(id));
+                Assert.assertEquals(id, table.getId(table.getSymbol(id)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.cmu.ml.proppr.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Compares the throughput of the {@link ConcurrentSymbolTable} against its former implementation, which kept the
+ * ids in boxed buckets of a {@link ConcurrentHashMap} and the symbols in another one, with increasing numbers of
+ * threads sharing the same table. Each thread gets the ids of symbols drawn from a skewed pool, so most calls are
+ * lookups of symbols already in the table, as the features during grounding.
+ * <p>
+ * Usage: {@code SymbolTableBenchmark [symbols] [operations per thread] [maximum threads]}
+ */
+public class SymbolTableBenchmark {
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        int symbols = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        int maximumThreads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        String[] pool = new String[symbols];
+        for (int i = 0; i < pool.length; i++) { pool[i] = "feature" + i; }
+        // two rounds of each table, the first one warms up the JIT
+        for (int round = 0; round < 2; round++) {
+            for (int threads = 1; threads <= maximumThreads; threads *= 2) {
+                benchmark("Boxed buckets", new LegacySymbolTable<String>(), pool, threads, operations);
+                benchmark("Primitive index", new ConcurrentSymbolTable<String>(), pool, threads, operations);
+            }
+        }
+    }
+
+    private static void benchmark(String label, final SymbolTable<String> table, final String[] pool,
+                                  int threads, final int operations) throws Exception {
+        List<Callable<Long>> tasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(SEED + t);
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    long sum = 0;
+                    for (int i = 0; i < operations; i++) {
+                        // skewed towards the first symbols of the pool
+                        double uniform = random.nextDouble();
+                        sum += table.getId(pool[(int) (pool.length * uniform * uniform * uniform)]);
+                    }
+                    return sum;
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long checksum = 0;
+            long begin = System.nanoTime();
+            for (Future<Long> future : executor.invokeAll(tasks)) { checksum += future.get(); }
+            long elapsed = System.nanoTime() - begin;
+            System.out.printf("%-16s %2d threads:\t%12.0f operations/s\t(symbols %d, checksum %d)%n", label, threads,
+                              (double) threads * operations / (elapsed / 1e9), table.size(), checksum);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The former {@link ConcurrentSymbolTable}, with the default hashing strategy.
+     */
+    private static class LegacySymbolTable<T> implements SymbolTable<T> {
+
+        private final ConcurrentHashMap<Object, Integer[]> symbol2Id = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, T> id2symbol = new ConcurrentHashMap<>();
+        private int nextId = 0;
+
+        private void putSymbol(Object h, int id) {
+            if (!symbol2Id.containsKey(h)) {
+                symbol2Id.put(h, new Integer[]{0, id});
+            } else {
+                Integer[] cur = symbol2Id.get(h);
+                if (cur[0] == 0) {
+                    Integer[] now = new Integer[(cur.length - 1) * 2 + 1];
+                    System.arraycopy(cur, 0, now, 0, cur.length);
+                    now[0] = now.length - cur.length;
+                    symbol2Id.put(h, now);
+                    cur = now;
+                }
+                cur[cur.length - cur[0]] = id;
+                cur[0]--;
+            }
+        }
+
+        private int symbolGet(T symbol) {
+            Integer[] ids = symbol2Id.get(symbol.hashCode());
+            for (int i = ids.length - 1 - ids[0]; i > 0; i--) {
+                if (symbol.equals(id2symbol.get(ids[i]))) { return ids[i]; }
+            }
+            throw new IllegalStateException("Symbol " + symbol + " not found");
+        }
+
+        private boolean symbolContains(T symbol) {
+            Integer[] ids = symbol2Id.get(symbol.hashCode());
+            if (ids == null) { return false; }
+            for (int i = ids.length - 1 - ids[0]; i > 0; i--) {
+                T candidate = id2symbol.get(ids[i]);
+                if (candidate != null && candidate.equals(symbol)) { return true; }
+            }
+            return false;
+        }
+
+        @Override
+        public void insert(T symbol) {
+            if (symbolContains(symbol)) { return; }
+            synchronized (this) {
+                if (symbolContains(symbol)) { return; }
+                int newId = ++nextId;
+                putSymbol(symbol.hashCode(), newId);
+                id2symbol.put(newId, symbol);
+            }
+        }
+
+        @Override
+        public int getId(T symbol) {
+            insert(symbol);
+            return symbolGet(symbol);
+        }
+
+        @Override
+        public boolean hasId(T symbol) {
+            return symbolContains(symbol);
+        }
+
+        @Override
+        public T getSymbol(int id) {
+            return id2symbol.get(id);
+        }
+
+        @Override
+        public int size() {
+            return id2symbol.size();
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.cmu.ml.proppr.util.math;
+
+import edu.cmu.ml.proppr.util.SimpleSymbolTable;
+import edu.cmu.ml.proppr.util.SymbolTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Checks the {@link DenseParamVector}, its size accounting, the growth of its pages and its updates under concurrent
+ * adjustments of the same features.
+ */
+public class DenseParamVectorTest {
+
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 20000;
+    private static final int NUMBER_OF_FEATURES = 20000;
+
+    @Test
+    public void SIZE_TEST() {
+        SymbolTable<String> features = buildFeatures(10);
+        DenseParamVector params = new DenseParamVector(features);
+        Assert.assertTrue(params.isEmpty());
+        params.put("f1", 0.5);
+        params.put("f1", 1.5);
+        params.adjustWeight(2, 1.0);
+        params.adjustWeight(2, 1.0);
+        params.setWeight(3, 0.0);
+        Assert.assertEquals(3, params.size());
+        Assert.assertEquals(2.0, params.get("f2"), 0.0);
+        Assert.assertEquals(0.0, params.get("f3"), 0.0);
+        Assert.assertNull(params.get("f4"));
+        Assert.assertNull(params.get("unknown"));
+        Assert.assertFalse(params.containsKey("f4"));
+
+        Assert.assertEquals(1.5, params.remove("f1"), 0.0);
+        Assert.assertNull(params.remove("f1"));
+        Assert.assertNull(params.remove("f4"));
+        Assert.assertEquals(2, params.size());
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("f2", "f3")), params.keySet());
+
+        params.clear();
+        Assert.assertTrue(params.isEmpty());
+        Assert.assertFalse(params.hasWeight(2));
+        params.adjustValue("f2", 1.0);
+        Assert.assertEquals(1, params.size());
+    }
+
+    @Test
+    public void PAGE_GROWTH_TEST() {
+        SymbolTable<String> features = buildFeatures(NUMBER_OF_FEATURES);
+        DenseParamVector params = new DenseParamVector(features);
+        Assert.assertEquals(0.0, params.weight(NUMBER_OF_FEATURES), 0.0);
+        Assert.assertFalse(params.hasWeight(NUMBER_OF_FEATURES));
+        // the ids are in distinct pages, the last one several pages ahead
+        int[] ids = new int[]{1, 4095, 4096, 4097, 9000, NUMBER_OF_FEATURES};
+        for (int id : ids) { params.setWeight(id, id); }
+        Assert.assertEquals(ids.length, params.size());
+        for (int id : ids) {
+            Assert.assertTrue(params.hasWeight(id));
+            Assert.assertEquals(id, params.weight(id), 0.0);
+            Assert.assertEquals(id, params.get(features.getSymbol(id)), 0.0);
+        }
+        Assert.assertFalse(params.hasWeight(2));
+        Assert.assertFalse(params.hasWeight(NUMBER_OF_FEATURES - 1));
+
+        ParamVector<String, Double> copy = params.copy();
+        params.adjustWeight(1, 1.0);
+        params.setWeight(2, 2.0);
+        Assert.assertEquals(ids.length, copy.size());
+        Assert.assertEquals(1.0, copy.get("f1"), 0.0);
+        Assert.assertNull(copy.get("f2"));
+    }
+
+    @Test
+    public void CONVERSION_TEST() {
+        SymbolTable<String> features = buildFeatures(3);
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("f2", 0.25);
+        weights.put("new", -1.0);
+        DenseParamVector params = new DenseParamVector(features, new SimpleParamVector<>(weights), false);
+        Assert.assertEquals(4, features.size());
+        Assert.assertEquals(weights, new HashMap<>(params));
+        Assert.assertSame(params, DenseParamVector.indexedBy(params, features));
+        Assert.assertNull(DenseParamVector.indexedBy(params, buildFeatures(3)));
+        Assert.assertNull(DenseParamVector.indexedBy(new SimpleParamVector<>(weights), features));
+
+        SimpleParamVector<String> simple = new SimpleParamVector<>(params);
+        Assert.assertEquals(weights, new HashMap<>(simple));
+        params.adjustWeight(features.getId("f2"), 1.0);
+        Assert.assertEquals(0.25, simple.get("f2"), 0.0);
+    }
+
+    @Test
+    public void CONCURRENT_UPDATE_TEST() throws Exception {
+        DenseParamVector params = new DenseParamVector(buildFeatures(NUMBER_OF_FEATURES));
+        adjustConcurrently(params, true);
+        // the values are integers, so the sums are exact regardless of the order of the updates
+        for (int id = 1; id <= NUMBER_OF_FEATURES; id++) {
+            Assert.assertEquals(NUMBER_OF_THREADS * UPDATES_PER_THREAD / NUMBER_OF_FEATURES,
+                                params.weight(id), 0.0);
+        }
+        Assert.assertEquals(NUMBER_OF_FEATURES, params.size());
+    }
+
+    @Test
+    public void HOGWILD_UPDATE_TEST() throws Exception {
+        DenseParamVector params = new DenseParamVector(buildFeatures(NUMBER_OF_FEATURES), true);
+        Assert.assertTrue(params.isHogwild());
+        Assert.assertEquals(1.0, params.adjustWeight(1, 1.0), 0.0);
+        Assert.assertEquals(3.0, params.adjustWeight(1, 2.0), 0.0);
+        params.clear();
+
+        // updates on the same feature may be lost, but the first update of each feature is still counted once
+        adjustConcurrently(params, true);
+        Assert.assertEquals(NUMBER_OF_FEATURES, params.size());
+        for (int id = 1; id <= NUMBER_OF_FEATURES; id++) {
+            Assert.assertTrue(params.weight(id) >= 1.0);
+            Assert.assertTrue(params.weight(id) <= NUMBER_OF_THREADS * UPDATES_PER_THREAD / NUMBER_OF_FEATURES);
+        }
+
+        // without sharing the features, no update is lost
+        params.clear();
+        adjustConcurrently(params, false);
+        for (int id = 1; id <= NUMBER_OF_FEATURES; id++) {
+            Assert.assertEquals(UPDATES_PER_THREAD / (NUMBER_OF_FEATURES / NUMBER_OF_THREADS),
+                                params.weight(id), 0.0);
+        }
+    }
+
+    /**
+     * Each thread adds 1 to the weights of the features, going through all of them in turns.
+     *
+     * @param params the params
+     * @param shared if the threads update the same features, or disjoint ranges of them
+     * @throws Exception if a thread fails
+     */
+    private static void adjustConcurrently(final DenseParamVector params, final boolean shared) throws Exception {
+        final CyclicBarrier start = new CyclicBarrier(NUMBER_OF_THREADS);
+        final int range = shared ? NUMBER_OF_FEATURES : NUMBER_OF_FEATURES / NUMBER_OF_THREADS;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < NUMBER_OF_THREADS; t++) {
+            final int offset = shared ? 0 : t * range;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        params.adjustWeight(1 + offset + i % range, 1.0);
+                    }
+                    return null;
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) { future.get(); }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SymbolTable<String> buildFeatures(int size) {
+        SymbolTable<String> features = new SimpleSymbolTable<>();
+        for (int i = 1; i <= size; i++) { features.insert("f" + i); }
+        return features;
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package edu.cmu.ml.proppr.util.math;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Checks the {@link IndexedMaxHeap} against a reference {@link TreeSet} ordered by the highest score, then by the
+ * smallest id.
+ */
+public class IndexedMaxHeapTest {
+
+    private static final long SEED = 42;
+    private static final int NUMBER_OF_OPERATIONS = 200000;
+    private static final int MAXIMUM_ID = 300;
+    /**
+     * Few distinct scores, so the ties are frequent.
+     */
+    private static final int NUMBER_OF_SCORES = 8;
+
+    /**
+     * Reference heap, the scores of the ids and the entries ordered as the heap.
+     */
+    private static class ReferenceHeap {
+
+        private final Map<Integer, Double> scores = new HashMap<>();
+        private final TreeSet<Integer> order = new TreeSet<>((first, second) -> {
+            int compare = Double.compare(scores.get(second), scores.get(first));
+            return compare != 0 ? compare : Integer.compare(first, second);
+        });
+
+        void put(int id, double score) {
+            remove(id);
+            scores.put(id, score);
+            order.add(id);
+        }
+
+        boolean remove(int id) {
+            if (!scores.containsKey(id)) { return false; }
+            order.remove(id);
+            scores.remove(id);
+            return true;
+        }
+
+        int poll() {
+            int id = order.first();
+            remove(id);
+            return id;
+        }
+
+    }
+
+    @Test
+    public void RANDOM_OPERATIONS_TEST() {
+        Random random = new Random(SEED);
+        // a small initial capacity, so the arrays grow during the test
+        IndexedMaxHeap heap = new IndexedMaxHeap(2);
+        ReferenceHeap reference = new ReferenceHeap();
+        for (int i = 0; i < NUMBER_OF_OPERATIONS; i++) {
+            int id = random.nextInt(MAXIMUM_ID);
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                double score = random.nextInt(NUMBER_OF_SCORES) / (double) NUMBER_OF_SCORES;
+                heap.put(id, score);
+                reference.put(id, score);
+            } else if (operation < 7) {
+                Assert.assertEquals(reference.remove(id), heap.remove(id));
+            } else if (operation < 9) {
+                if (reference.order.isEmpty()) {
+                    Assert.assertTrue(heap.isEmpty());
+                    continue;
+                }
+                Assert.assertEquals(reference.scores.get(reference.order.first()), heap.peekScore(), 0.0);
+                Assert.assertEquals(reference.poll(), heap.poll());
+            } else {
+                Assert.assertEquals(reference.scores.containsKey(id), heap.contains(id));
+                if (heap.contains(id)) { Assert.assertEquals(reference.scores.get(id), heap.getScore(id), 0.0); }
+            }
+            Assert.assertEquals(reference.scores.size(), heap.size());
+        }
+        List<Integer> expected = new ArrayList<>(reference.order);
+        List<Integer> actual = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            actual.add(heap.poll());
+        }
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void UPDATE_SCORE_TEST() {
+        IndexedMaxHeap heap = new IndexedMaxHeap();
+        for (int id = 0; id < 10; id++) {
+            heap.put(id, id);
+        }
+        Assert.assertEquals(9, heap.peek());
+        heap.put(0, 20.0);
+        Assert.assertEquals(0, heap.peek());
+        heap.put(0, -1.0);
+        Assert.assertEquals(9, heap.peek());
+        Assert.assertEquals(10, heap.size());
+        heap.put(3, 9.0);
+        // ties are broken by the smallest id
+        Assert.assertEquals(3, heap.poll());
+        Assert.assertEquals(9, heap.poll());
+        Assert.assertEquals(8, heap.poll());
+        Assert.assertTrue(heap.remove(5));
+        Assert.assertFalse(heap.remove(5));
+        Assert.assertFalse(heap.remove(1000));
+        int[] expected = {7, 6, 4, 2, 1, 0};
+        for (int id : expected) {
+            Assert.assertEquals(id, heap.poll());
+        }
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void CLEAR_TEST() {
+        IndexedMaxHeap heap = new IndexedMaxHeap();
+        heap.put(1, 1.0);
+        heap.put(40, 2.0);
+        heap.clear();
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertFalse(heap.contains(1));
+        Assert.assertFalse(heap.contains(40));
+        heap.put(1, 3.0);
+        Assert.assertEquals(1, heap.size());
+        Assert.assertEquals(3.0, heap.getScore(1), 0.0);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void EMPTY_POLL_TEST() {
+        new IndexedMaxHeap().poll();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void MISSING_SCORE_TEST() {
+        new IndexedMaxHeap().getScore(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void NEGATIVE_ID_TEST() {
+        new IndexedMaxHeap().put(-1, 1.0);
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Online Structure Learner by Revision (OSLR) is an online relational
+ * learning algorithm that can handle continuous, open-ended
+ * streams of relational examples as they arrive. We employ
+ * techniques from theory revision to take advantage of the already
+ * acquired knowledge as a starting point, find where it should be
+ * modified to cope with the new examples, and automatically update it.
+ * We rely on the Hoeffding's bound statistical theory to decide if the
+ * model must in fact be updated accordingly to the new examples.
+ * The system is built upon ProPPR statistical relational language to
+ * describe the induced models, aiming at contemplating the uncertainty
+ * inherent to real data.
+ *
+ * Copyright (C) 2017-2018 Victor Guimarães
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package edu.cmu.ml.proppr.util.multithreading;
+
+import edu.cmu.ml.proppr.util.StatusLogger;
+import org.apache.logging.log4j.LogManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Checks the cleanups of {@link Multithreading#executeJob(int, Iterable, Transformer, Cleanup, int)} when the
+ * transformers finish out of the order of the items.
+ */
+public class MultithreadingTest {
+
+    private static final int NUMBER_OF_ITEMS = 8;
+    private static final int NUMBER_OF_THREADS = 4;
+    private static final long TIMEOUT = 30000;
+
+    private static List<Integer> items(int size) {
+        List<Integer> items = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    /**
+     * Transformer whose items finish in the reverse order: each item waits for the next one to be released. An item
+     * is released when it finishes or, if {@link #releaseOnCleanup}, when it is cleaned up. All the items must run
+     * at the same time.
+     */
+    private static class ReverseTransformer extends Transformer<Integer, Integer> {
+
+        private final CountDownLatch[] finished;
+        private final boolean releaseOnCleanup;
+
+        ReverseTransformer(int size, boolean releaseOnCleanup) {
+            this.releaseOnCleanup = releaseOnCleanup;
+            finished = new CountDownLatch[size + 2];
+            for (int i = 0; i < finished.length; i++) {
+                finished[i] = new CountDownLatch(1);
+            }
+            finished[size + 1].countDown();
+        }
+
+        @Override
+        public Callable<Integer> transformer(Integer in, int id) {
+            return () -> {
+                Assert.assertTrue(finished[in + 1].await(TIMEOUT, TimeUnit.MILLISECONDS));
+                if (!releaseOnCleanup) { finished[in].countDown(); }
+                return in * 10;
+            };
+        }
+
+        void release(int item) {
+            if (releaseOnCleanup) { finished[item].countDown(); }
+        }
+
+    }
+
+    /**
+     * Cleanup that records the order of the items and the number of times each one was cleaned up, checking that
+     * the cleanups never overlap.
+     */
+    private static class RecordingCleanup extends Cleanup<Integer> {
+
+        private final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicIntegerArray counts;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger overlaps = new AtomicInteger();
+        private final ReverseTransformer transformer;
+
+        RecordingCleanup(int size, ReverseTransformer transformer) {
+            this.counts = new AtomicIntegerArray(size + 1);
+            this.transformer = transformer;
+        }
+
+        @Override
+        public Runnable cleanup(Future<Integer> in, int id) {
+            return () -> {
+                if (running.incrementAndGet() > 1) { overlaps.incrementAndGet(); }
+                try {
+                    int result = in.get();
+                    Assert.assertEquals(id * 10, result);
+                    order.add(id);
+                    counts.incrementAndGet(id);
+                    if (transformer != null) { transformer.release(id); }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            };
+        }
+
+        void assertEachOnce() {
+            Assert.assertEquals(counts.length() - 1, order.size());
+            for (int i = 1; i < counts.length(); i++) {
+                Assert.assertEquals("Cleanups of item " + i, 1, counts.get(i));
+            }
+            Assert.assertEquals(0, overlaps.get());
+        }
+
+    }
+
+    private static Multithreading<Integer, Integer> multithreading(boolean ordered) {
+        return new Multithreading<>(LogManager.getLogger(), new StatusLogger(), ordered);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void ORDERED_CLEANUP_TEST() {
+        ReverseTransformer transformer = new ReverseTransformer(NUMBER_OF_ITEMS, false);
+        RecordingCleanup cleanup = new RecordingCleanup(NUMBER_OF_ITEMS, transformer);
+        multithreading(Multithreading.ORDER_MAINTAIN).executeJob(NUMBER_OF_ITEMS, items(NUMBER_OF_ITEMS),
+                                                                 transformer, cleanup, Multithreading.NO_THROTTLE);
+        cleanup.assertEachOnce();
+        Assert.assertEquals(items(NUMBER_OF_ITEMS), cleanup.order);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void UNORDERED_CLEANUP_TEST() {
+        // an item is only released after its cleanup, so the transformers finish in the reverse order
+        ReverseTransformer transformer = new ReverseTransformer(NUMBER_OF_ITEMS, true);
+        RecordingCleanup cleanup = new RecordingCleanup(NUMBER_OF_ITEMS, transformer);
+        multithreading(!Multithreading.ORDER_MAINTAIN).executeJob(NUMBER_OF_ITEMS, items(NUMBER_OF_ITEMS),
+                                                                  transformer, cleanup, Multithreading.NO_THROTTLE);
+        cleanup.assertEachOnce();
+        // the cleanups follow the order the transformers finished, instead of the order of the items
+        List<Integer> reversed = items(NUMBER_OF_ITEMS);
+        Collections.reverse(reversed);
+        Assert.assertEquals(reversed, cleanup.order);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void THROTTLE_TEST() {
+        final int size = 50;
+        final int throttle = 2;
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        final Random random = new Random(42);
+        final long[] delays = new long[size + 1];
+        for (int i = 1; i <= size; i++) {
+            delays[i] = random.nextInt(5);
+        }
+        Transformer<Integer, Integer> transformer = new Transformer<Integer, Integer>() {
+            @Override
+            public Callable<Integer> transformer(Integer in, int id) {
+                return () -> {
+                    maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(delays[in]);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return in * 10;
+                };
+            }
+        };
+        RecordingCleanup cleanup = new RecordingCleanup(size, null);
+        multithreading(Multithreading.ORDER_MAINTAIN).executeJob(NUMBER_OF_THREADS, items(size), transformer,
+                                                                 cleanup, throttle);
+        cleanup.assertEachOnce();
+        Assert.assertEquals(items(size), cleanup.order);
+        Assert.assertTrue(maximum.get() <= throttle);
+    }
+
+}
@@ -0,0 +1 @@
+athleteplaysforteam(concept_athlete_pele, concept_sportsteam_santos).
@@ -0,0 +1,2 @@
+citylocatedincountry(concept_city_rio, concept_country_brazil).
+citylocatedincountry(concept_city_paris, concept_country_france).
@@ -0,0 +1 @@
+citylocatedincountry(concept_city_oslo, concept_country_norway).
@@ -0,0 +1,2 @@
+athleteplaysforteam(concept_athlete_romario, concept_sportsteam_vasco).
+athleteplaysforteam(concept_athlete_romario, concept_sportsteam_flamengo).
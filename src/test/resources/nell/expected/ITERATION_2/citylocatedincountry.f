@@ -0,0 +1 @@
+citylocatedincountry(concept_city_bergen, concept_country_norway).